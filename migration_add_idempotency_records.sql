@@ -0,0 +1,17 @@
+-- Migration: Add idempotency records
+-- Description: Stores the response of POST /purchases per (user, Idempotency-Key) so client retries are replayed
+-- instead of creating a second purchase. Rows without status are reservations of requests still running. Rows
+-- older than app.idempotency.ttl are purged by the application.
+
+CREATE TABLE idempotency_records (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    status INT NULL,
+    content_type VARCHAR(100) NULL,
+    body LONGBLOB NULL,
+    CONSTRAINT uk_idempotency_owner_key UNIQUE (owner, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_created_at ON idempotency_records (created_at);
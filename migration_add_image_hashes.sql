@@ -0,0 +1,37 @@
+-- Migration: Add content type and content hash to stored images
+-- Description: The hash (SHA-256, hex) is the strong ETag of the binary image endpoints and the version in
+-- image URLs. It is copied to products/users so list responses can build image URLs without reading images.
+
+ALTER TABLE product_images ADD COLUMN content_type VARCHAR(32);
+ALTER TABLE product_images ADD COLUMN hash VARCHAR(64);
+ALTER TABLE user_profile_images ADD COLUMN content_type VARCHAR(32);
+ALTER TABLE user_profile_images ADD COLUMN hash VARCHAR(64);
+
+UPDATE product_images SET
+    hash = SHA2(data, 256),
+    content_type = CASE
+        WHEN HEX(LEFT(data, 4)) = '89504E47' THEN 'image/png'
+        WHEN HEX(LEFT(data, 3)) = 'FFD8FF' THEN 'image/jpeg'
+        WHEN HEX(LEFT(data, 4)) = '52494646' THEN 'image/webp'
+        ELSE 'application/octet-stream'
+    END;
+
+UPDATE user_profile_images SET
+    hash = SHA2(data, 256),
+    content_type = CASE
+        WHEN HEX(LEFT(data, 4)) = '89504E47' THEN 'image/png'
+        WHEN HEX(LEFT(data, 3)) = 'FFD8FF' THEN 'image/jpeg'
+        WHEN HEX(LEFT(data, 4)) = '52494646' THEN 'image/webp'
+        ELSE 'application/octet-stream'
+    END;
+
+ALTER TABLE product_images MODIFY content_type VARCHAR(32) NOT NULL;
+ALTER TABLE product_images MODIFY hash VARCHAR(64) NOT NULL;
+ALTER TABLE user_profile_images MODIFY content_type VARCHAR(32) NOT NULL;
+ALTER TABLE user_profile_images MODIFY hash VARCHAR(64) NOT NULL;
+
+ALTER TABLE products ADD COLUMN image_hash VARCHAR(64);
+ALTER TABLE users ADD COLUMN profile_image_hash VARCHAR(64);
+
+UPDATE products p JOIN product_images i ON i.product_id = p.id SET p.image_hash = i.hash;
+UPDATE users u JOIN user_profile_images i ON i.user_id = u.id SET u.profile_image_hash = i.hash;
@@ -0,0 +1,12 @@
+-- Migration: Add composite indexes for keyset (cursor) pagination
+-- Description: Cursor mode on /products, /purchases and /promotions seeks on (sort key, id) instead of using
+-- OFFSET. These indexes let MySQL start the range scan at the cursor and stop after LIMIT rows.
+
+CREATE INDEX idx_product_active_name_id ON products (active, name, id);
+CREATE INDEX idx_product_active_price_id ON products (active, price, id);
+CREATE INDEX idx_product_category_active_name_id ON products (category_id, active, name, id);
+
+CREATE INDEX idx_purchase_created_id ON purchases (created_at, id);
+CREATE INDEX idx_purchase_user_created_id ON purchases (user_id, created_at, id);
+
+CREATE INDEX idx_promotion_start_id ON promotions (start_date, id);
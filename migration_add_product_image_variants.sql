@@ -0,0 +1,16 @@
+-- Migration: Add product image variants (thumbnails)
+-- Description: Stores THUMB/MEDIUM renditions generated in the background from product_images. source_hash
+-- is the hash of the original they were generated from, so stale renditions are ignored after an update.
+-- Existing products get their thumbnails through POST /products/images/thumbnails/backfill.
+
+CREATE TABLE product_image_variants (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    size VARCHAR(16) NOT NULL,
+    data LONGBLOB NOT NULL,
+    content_type VARCHAR(32) NOT NULL,
+    hash VARCHAR(64) NOT NULL,
+    source_hash VARCHAR(64) NOT NULL,
+    CONSTRAINT uk_product_image_variant UNIQUE (product_id, size),
+    CONSTRAINT fk_product_image_variants_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
@@ -0,0 +1,13 @@
+-- Migration: Add promotion redemption caps
+-- Description: Optional global cap on the number of times a promotion can be used across all users. The counter
+-- lives in its own table so that purchases, which take shared locks on the promotion row through foreign keys,
+-- never wait on counter updates. reserved includes permits leased in blocks by running instances; it never exceeds
+-- max_redemptions.
+
+ALTER TABLE promotions ADD COLUMN max_redemptions INT NULL;
+
+CREATE TABLE promotion_redemptions (
+    promotion_id BIGINT NOT NULL PRIMARY KEY,
+    reserved INT NOT NULL,
+    CONSTRAINT fk_promotion_redemptions_promotion FOREIGN KEY (promotion_id) REFERENCES promotions (id)
+);
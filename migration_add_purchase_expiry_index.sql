@@ -0,0 +1,5 @@
+-- Migration: Add purchase expiry index
+-- Description: Lets the expiry job claim unpaid CREATED purchases older than app.purchase-expiry.ttl in
+-- (created_at, id) order with SELECT ... FOR UPDATE SKIP LOCKED, reading only the expired rows.
+
+CREATE INDEX idx_purchase_status_created_id ON purchases (status, created_at, id);
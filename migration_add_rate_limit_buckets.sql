@@ -0,0 +1,13 @@
+-- Migration: Add rate limit buckets
+-- Description: Token buckets for the authentication rate limiter shared by every instance when
+-- rate-limit.backend=jdbc. Rows are updated with compare-and-swap on version; idle rows are purged by the
+-- application.
+
+CREATE TABLE rate_limit_buckets (
+    bucket_key VARCHAR(255) NOT NULL PRIMARY KEY,
+    available BIGINT NOT NULL,
+    refilled_at BIGINT NOT NULL,
+    version BIGINT NOT NULL
+);
+
+CREATE INDEX idx_rate_limit_buckets_refilled_at ON rate_limit_buckets (refilled_at);
@@ -0,0 +1,18 @@
+-- Migration: Add sales daily rollup
+-- Description: Per-day, per-product totals of PAID purchases, maintained incrementally when a purchase is paid.
+-- Sales reports (GET /reports/sales) read at most one row per day and product instead of scanning purchases.
+-- After creating the table, fill it once from existing purchases with POST /reports/sales/backfill.
+
+CREATE TABLE sales_daily_rollup (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    sales_day DATE NOT NULL,
+    product_id BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    units BIGINT NOT NULL,
+    gross DECIMAL(14, 2) NOT NULL,
+    discount DECIMAL(14, 2) NOT NULL,
+    net DECIMAL(14, 2) NOT NULL,
+    CONSTRAINT uk_sales_rollup_day_product UNIQUE (sales_day, product_id)
+);
+
+CREATE INDEX idx_sales_rollup_category_day ON sales_daily_rollup (category_id, sales_day);
@@ -0,0 +1,24 @@
+-- Migration: Move product and profile images to their own tables
+-- Description: Product and user rows no longer carry LONGBLOB columns, so catalog, purchase and
+-- authentication queries stop reading image bytes. Images share the primary key of their owner.
+
+CREATE TABLE product_images (
+    product_id BIGINT NOT NULL PRIMARY KEY,
+    data LONGBLOB NOT NULL,
+    CONSTRAINT fk_product_images_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
+
+CREATE TABLE user_profile_images (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    data LONGBLOB NOT NULL,
+    CONSTRAINT fk_user_profile_images_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+INSERT INTO product_images (product_id, data)
+SELECT id, image FROM products WHERE image IS NOT NULL;
+
+INSERT INTO user_profile_images (user_id, data)
+SELECT id, profile_image FROM users WHERE profile_image IS NOT NULL;
+
+ALTER TABLE products DROP COLUMN image;
+ALTER TABLE users DROP COLUMN profile_image;
@@ -0,0 +1,95 @@
+package com.bakery.bakeryapi.infra.security;
+
+import com.bakery.bakeryapi.infra.config.JwtCacheProperties;
+import com.bakery.bakeryapi.infra.config.JwtProperties;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el coste de autenticar una petición con token de acceso: verificación HS256 y conversión en cada
+ * petición (camino anterior) frente a {@link CachingJwtDecoder} con las autoridades compartidas de
+ * {@link JwtConfig}.
+ *
+ * Ambos lados autentican el mismo conjunto de tokens de 1.000 usuarios en rotación, como haría un servidor con
+ * clientes que repiten su token hasta que caduca.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private String[] tokens;
+    private JwtDecoder nimbusDecoder;
+    private JwtDecoder cachingDecoder;
+    private Converter<Jwt, ? extends AbstractAuthenticationToken> converter;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SecretKey key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        nimbusDecoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        cachingDecoder = new CachingJwtDecoder(nimbusDecoder, new JwtCacheProperties(null), new SimpleMeterRegistry());
+        converter = new JwtConfig().jwtAuthenticationConverter();
+
+        JwtTokenService tokenService = new JwtTokenService(new NimbusJwtEncoder(new ImmutableSecret<>(key)),
+                nimbusDecoder, new JwtProperties(SECRET, 3_600_000, 604_800_000L));
+        tokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = tokenService.generateToken("user" + i + "@example.com", i % 10 == 0 ? "ADMIN" : "USER", (long) i + 1);
+        }
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken verifyEveryRequest() {
+        Jwt jwt = nimbusDecoder.decode(nextToken());
+        List<GrantedAuthority> authorities = List.of();
+        Object role = jwt.getClaims().get("role");
+        if (role instanceof String roleString && !roleString.isBlank()) {
+            authorities = List.of(new SimpleGrantedAuthority("ROLE_" + roleString));
+        }
+        return new JwtAuthenticationToken(jwt, authorities, jwt.getSubject());
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken cachedVerification() {
+        return converter.convert(cachingDecoder.decode(nextToken()));
+    }
+
+    private String nextToken() {
+        next = (next + 1) % USERS;
+        return tokens[next];
+    }
+}
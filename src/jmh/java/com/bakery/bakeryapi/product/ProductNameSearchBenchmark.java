@@ -0,0 +1,127 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.infra.config.ProductSearchProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el filtro por nombre del catálogo: consulta LIKE actual frente a {@link ProductNameIndex}.
+ *
+ * Ambos lados trabajan sobre el mismo catálogo sintético de 100.000 productos. La consulta LIKE se ejecuta
+ * en H2 en memoria con la misma forma que las de {@code ProductRepository}; el índice devuelve los IDs
+ * candidatos (la posterior carga por ID es igual para los dos caminos y no se mide).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductNameSearchBenchmark {
+
+    private static final int PRODUCTS = 100_000;
+    private static final String[] BASES = {
+            "Pan", "Barra", "Baguette", "Croissant", "Napolitana", "Magdalena", "Bizcocho", "Tarta", "Ensaimada",
+            "Rosquilla", "Galleta", "Hogaza", "Chapata", "Empanada", "Palmera", "Brioche", "Bollo", "Coca"
+    };
+    private static final String[] QUALIFIERS = {
+            "de centeno", "integral", "de espelta", "de masa madre", "con semillas", "de chocolate", "de crema",
+            "de manzana", "sin gluten", "rústico", "de leña", "de maíz", "de nueces", "de limón", "casero"
+    };
+
+    @Param({"centeno", "pan", "masa madre", "xyz"})
+    private String query;
+
+    private Connection connection;
+    private PreparedStatement likeStatement;
+    private ProductNameIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Random random = new Random(42);
+        List<ProductNameEntry> entries = new ArrayList<>(PRODUCTS);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            String name = BASES[random.nextInt(BASES.length)] + " "
+                    + QUALIFIERS[random.nextInt(QUALIFIERS.length)] + " " + id;
+            entries.add(new ProductNameEntry(id, name, (long) random.nextInt(20) + 1, random.nextInt(10) > 0));
+        }
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:name_search_bench;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    create table products (
+                        id bigint primary key,
+                        name varchar(255) not null,
+                        category_id bigint not null,
+                        active boolean not null
+                    )
+                    """);
+            statement.execute("create index idx_product_category on products (category_id)");
+            statement.execute("create index idx_product_active on products (active)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into products (id, name, category_id, active) values (?, ?, ?, ?)")) {
+            for (ProductNameEntry entry : entries) {
+                insert.setLong(1, entry.id());
+                insert.setString(2, entry.name());
+                insert.setLong(3, entry.categoryId());
+                insert.setBoolean(4, entry.active());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        likeStatement = connection.prepareStatement(
+                "select id from products where active = true and lower(name) like lower(concat('%', ?, '%'))");
+
+        index = new ProductNameIndex(null, new ProductSearchProperties(Integer.MAX_VALUE, null));
+        index.load(entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        likeStatement.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table products");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> likeQuery() throws SQLException {
+        likeStatement.setString(1, query);
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet rows = likeStatement.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Long> trigramIndex() {
+        return index.search(query, null, true).orElseThrow();
+    }
+}
@@ -0,0 +1,75 @@
+package com.bakery.bakeryapi.promotion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la elección automática de promociones de {@link PromotionSelector} según el tamaño del carrito y el número
+ * de promociones activas por producto.
+ *
+ * Los candidatos y los usos ya están en memoria, como cuando {@link ActivePromotionIndex} y
+ * {@link PromotionUsageCache} están cargados; el usuario ha usado una de cada cuatro promociones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromotionSelectorBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int lines;
+
+    @Param({"0", "5", "20"})
+    private int promotionsPerProduct;
+
+    private List<PromotionSelector.Line> cart;
+    private Map<Long, List<ActivePromotion>> candidatesByProduct;
+    private UsedPromotions used;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cart = new ArrayList<>(lines);
+        candidatesByProduct = new HashMap<>();
+        List<Long> usedIds = new ArrayList<>();
+        long promotionId = 1;
+        for (long productId = 1; productId <= lines; productId++) {
+            cart.add(new PromotionSelector.Line(productId, BigDecimal.valueOf(100 + productId, 2), (int) productId % 3 + 1));
+            List<ActivePromotion> candidates = new ArrayList<>(promotionsPerProduct);
+            for (int i = 0; i < promotionsPerProduct; i++, promotionId++) {
+                candidates.add(new ActivePromotion(promotionId, "Promo " + promotionId, "PERCENTAGE", LocalDate.now(),
+                        null, productId, "Producto " + productId, BigDecimal.valueOf(5 + (promotionId * 7) % 60), null));
+                if (promotionId % 4 == 0) {
+                    usedIds.add(promotionId);
+                }
+            }
+            candidatesByProduct.put(productId, candidates);
+        }
+        used = UsedPromotions.of(usedIds);
+    }
+
+    @Benchmark
+    public List<Long> select() {
+        return PromotionSelector.select(cart, candidatesByProduct, used, Set.of());
+    }
+}
@@ -0,0 +1,115 @@
+package com.bakery.bakeryapi.promotion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el rechazo de una promoción ya usada: INSERT que viola la restricción única (camino anterior) frente a
+ * la inserción condicional de {@code PromotionUsageRepository.insertAllIfAbsent}, que devuelve 0 filas.
+ *
+ * Ambos lados se ejecutan en H2 en memoria sobre la misma tabla, con el uso ya registrado. El camino anterior
+ * incluye la traducción a {@link DataIntegrityViolationException} que hacía Spring; el flush forzado de Hibernate
+ * previo a la sentencia no se reproduce, así que la diferencia medida es una cota inferior.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromotionUsageRejectionBenchmark {
+
+    private static final long PROMOTION_ID = 1L;
+    private static final long USER_ID = 1L;
+
+    private Connection connection;
+    private PreparedStatement plainInsert;
+    private PreparedStatement insertIfAbsent;
+    private Timestamp usedAt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:usage_rejection_bench;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    create table promotion_usage (
+                        id bigint generated by default as identity primary key,
+                        promotion_id bigint not null,
+                        user_id bigint not null,
+                        used_at timestamp not null,
+                        constraint uk_promotion_user unique (promotion_id, user_id)
+                    )
+                    """);
+        }
+        usedAt = Timestamp.valueOf(LocalDateTime.now());
+        plainInsert = connection.prepareStatement(
+                "insert into promotion_usage (promotion_id, user_id, used_at) values (?, ?, ?)");
+        insertIfAbsent = connection.prepareStatement("""
+                merge into promotion_usage u
+                using (values (cast(? as bigint), cast(? as bigint), cast(? as timestamp)))
+                    as d (promotion_id, user_id, used_at)
+                on u.promotion_id = d.promotion_id and u.user_id = d.user_id
+                when not matched then insert (promotion_id, user_id, used_at)
+                    values (d.promotion_id, d.user_id, d.used_at)
+                """);
+        bind(plainInsert);
+        plainInsert.executeUpdate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        plainInsert.close();
+        insertIfAbsent.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table promotion_usage");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public boolean insertAndCatchViolation() throws SQLException {
+        bind(plainInsert);
+        try {
+            plainInsert.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (!"23505".equals(e.getSQLState())) {
+                throw e;
+            }
+            // Spring traduce la violación a una excepción propia con la traza completa.
+            return new DataIntegrityViolationException(e.getMessage(), e).getCause() == null;
+        }
+    }
+
+    @Benchmark
+    public boolean insertIfAbsent() throws SQLException {
+        bind(insertIfAbsent);
+        return insertIfAbsent.executeUpdate() == 1;
+    }
+
+    private void bind(PreparedStatement statement) throws SQLException {
+        statement.setLong(1, PROMOTION_ID);
+        statement.setLong(2, USER_ID);
+        statement.setTimestamp(3, usedAt);
+    }
+}
@@ -3,12 +3,14 @@ package com.bakery.bakeryapi;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Punto de entrada para la aplicación Spring Boot de la API de Panadería.
  */
 @SpringBootApplication
 @ConfigurationPropertiesScan
+@EnableScheduling
 public class BakeryApiApplication {
 
     public static void main(String[] args) {
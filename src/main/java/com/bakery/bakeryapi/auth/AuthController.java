@@ -5,20 +5,25 @@ import com.bakery.bakeryapi.auth.dto.LoginRequest;
 import com.bakery.bakeryapi.auth.dto.RefreshTokenRequest;
 import com.bakery.bakeryapi.auth.dto.RegisterRequest;
 import com.bakery.bakeryapi.auth.dto.LoginResponse;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.shared.ImageResponses;
 import com.bakery.bakeryapi.shared.SecurityUtils;
 import com.bakery.bakeryapi.user.UserService;
 import com.bakery.bakeryapi.user.dto.PasswordUpdateRequest;
 import com.bakery.bakeryapi.user.dto.ProfileImageUpdateRequest;
 import com.bakery.bakeryapi.user.dto.UserResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Puntos finales REST para autenticación y acciones de cuenta autenticada.
@@ -96,9 +101,40 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "Correcto"),
             @ApiResponse(responseCode = "401", description = "No autorizado")
     })
-    public ResponseEntity<UserResponse> getMe() {
+    public ResponseEntity<UserResponse> getMe(
+            @Parameter(description = "Incluir la imagen de perfil en Base64 (compatibilidad con clientes antiguos)")
+            @RequestParam(defaultValue = "false") boolean includeImageBase64
+    ) {
+        String email = SecurityUtils.requireAuthentication().getName();
+        UserResponse user = userService.getByEmail(email);
+        return ResponseEntity.ok(includeImageBase64 ? userService.withInlineProfileImage(user) : user);
+    }
+
+    /**
+     * Devuelve los bytes de la imagen de perfil del usuario autenticado.
+     *
+     * @param v versión indicada en {@code profileImageVersion}, o {@code null}
+     * @param request petición actual, para las cabeceras condicionales
+     * @return imagen, 304 si el cliente ya la tiene o 206 para peticiones Range
+     */
+    @GetMapping("/me/profile-image")
+    @PreAuthorize("isAuthenticated()")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Obtener mi imagen de perfil", description = "Devuelve los bytes de la imagen con ETag fuerte, soporte de If-None-Match y Range.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "304", description = "No modificado"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "404", description = "Sin imagen de perfil")
+    })
+    public ResponseEntity<Resource> getMyProfileImage(
+            @RequestParam(required = false) String v,
+            WebRequest request
+    ) {
         String email = SecurityUtils.requireAuthentication().getName();
-        return ResponseEntity.ok(userService.getByEmail(email));
+        User user = userService.getEntityByEmail(email);
+        String hash = userService.getProfileImageHash(user);
+        return ImageResponses.of(request, hash, v, false, () -> userService.getProfileImage(user.getId()));
     }
 
     /**
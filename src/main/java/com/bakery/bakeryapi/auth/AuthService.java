@@ -45,7 +45,7 @@ public class AuthService {
     public LoginResponse register(String email, String password) {
         log.info("Intento de registro de usuario para el correo: {}", email);
         User user = userService.rotateRefreshToken(userService.createInternal(email, password, Role.USER));
-        String accessToken = jwtTokenService.generateToken(user.getEmail(), user.getRole().name());
+        String accessToken = jwtTokenService.generateToken(user.getEmail(), user.getRole().name(), user.getId());
         String refreshToken = jwtTokenService.generateRefreshToken(user.getEmail(), user.getRefreshTokenVersion());
         log.info("Usuario registrado con éxito: {}", email);
         return new LoginResponse(accessToken, refreshToken, jwtTokenService.getExpirationMs());
@@ -82,7 +82,7 @@ public class AuthService {
         }
 
         user = userService.rotateRefreshToken(user);
-        String accessToken = jwtTokenService.generateToken(user.getEmail(), user.getRole().name());
+        String accessToken = jwtTokenService.generateToken(user.getEmail(), user.getRole().name(), user.getId());
         String refreshToken = jwtTokenService.generateRefreshToken(user.getEmail(), user.getRefreshTokenVersion());
         log.info("Inicio de sesión exitoso para el correo: {}", email);
         return new LoginResponse(accessToken, refreshToken, jwtTokenService.getExpirationMs());
@@ -130,7 +130,7 @@ public class AuthService {
         }
 
         user = userService.rotateRefreshToken(user);
-        String accessToken = jwtTokenService.generateToken(user.getEmail(), user.getRole().name());
+        String accessToken = jwtTokenService.generateToken(user.getEmail(), user.getRole().name(), user.getId());
         String newRefreshToken = jwtTokenService.generateRefreshToken(user.getEmail(), user.getRefreshTokenVersion());
         log.info("Token de refresco validado y nuevo token de acceso generado para: {}", email);
         return new LoginResponse(accessToken, newRefreshToken, jwtTokenService.getExpirationMs());
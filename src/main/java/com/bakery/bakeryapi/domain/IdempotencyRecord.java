@@ -0,0 +1,107 @@
+package com.bakery.bakeryapi.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta guardada para una petición con cabecera {@code Idempotency-Key}.
+ *
+ * La fila se inserta al empezar la petición, sin estado, para reservar la clave; al terminar con éxito se
+ * completa con el estado y el cuerpo de la respuesta, que se devuelven tal cual en los reintentos. Las filas
+ * caducan y se purgan periódicamente.
+ */
+@Entity
+@Table(
+        name = "idempotency_records",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_owner_key", columnNames = {"owner", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+)
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    private Integer status;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] body;
+
+    protected IdempotencyRecord() {
+        // Constructor for JPA
+    }
+
+    public IdempotencyRecord(String owner, String idempotencyKey, LocalDateTime createdAt) {
+        this.owner = owner;
+        this.idempotencyKey = idempotencyKey;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Guarda la respuesta final de la petición.
+     *
+     * @param status código HTTP
+     * @param contentType tipo MIME del cuerpo, o {@code null}
+     * @param body cuerpo de la respuesta
+     */
+    public void complete(int status, String contentType, byte[] body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    /**
+     * @return {@code true} si la petición original ya terminó y su respuesta se puede repetir
+     */
+    public boolean isCompleted() {
+        return status != null;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
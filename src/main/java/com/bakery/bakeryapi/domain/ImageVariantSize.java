@@ -0,0 +1,43 @@
+package com.bakery.bakeryapi.domain;
+
+import com.bakery.bakeryapi.shared.exception.InvalidImageException;
+
+import java.util.Locale;
+
+/**
+ * Tamaños de miniatura generados para las imágenes de producto.
+ *
+ * El valor indica el lado mayor máximo en píxeles; las imágenes más pequeñas no se amplían.
+ */
+public enum ImageVariantSize {
+    THUMB(160),
+    MEDIUM(640);
+
+    private final int maxDimension;
+
+    ImageVariantSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Interpreta el parámetro {@code size} de la API.
+     *
+     * @param value {@code thumb}, {@code medium}, {@code full} o {@code null}
+     * @return tamaño solicitado, o {@code null} para la imagen original
+     * @throws InvalidImageException cuando el valor no es uno de los admitidos
+     */
+    public static ImageVariantSize fromParam(String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("full")) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImageException("Tamaño de imagen no soportado: " + value + " (permitidos: thumb, medium, full)");
+        }
+    }
+}
@@ -30,12 +30,37 @@ public class PercentagePromotion extends Promotion {
             LocalDate endDate,
             Product product
     ) {
-        super(description, startDate, endDate, product);
+        this(description, discountPercentage, startDate, endDate, product, null);
+    }
+
+    public PercentagePromotion(
+            String description,
+            BigDecimal discountPercentage,
+            LocalDate startDate,
+            LocalDate endDate,
+            Product product,
+            Integer maxRedemptions
+    ) {
+        super(description, startDate, endDate, product, maxRedemptions);
         this.discountPercentage = discountPercentage;
     }
 
     @Override
     public BigDecimal calculateDiscountAmount(BigDecimal unitPrice, int quantity) {
+        return discountAmount(discountPercentage, unitPrice, quantity);
+    }
+
+    /**
+     * Descuento de un porcentaje sobre el importe bruto de una línea.
+     *
+     * Compartido con las copias en memoria de las promociones, que calculan el mismo importe sin la entidad.
+     *
+     * @param discountPercentage porcentaje de descuento
+     * @param unitPrice precio unitario del producto
+     * @param quantity cantidad solicitada
+     * @return importe de descuento antes de la normalización final
+     */
+    public static BigDecimal discountAmount(BigDecimal discountPercentage, BigDecimal unitPrice, int quantity) {
         if (quantity <= 0 || unitPrice == null || discountPercentage == null) {
             return BigDecimal.ZERO;
         }
@@ -15,13 +15,19 @@ import com.bakery.bakeryapi.product.exception.InsufficientStockException;
 import java.math.BigDecimal;
 
 /**
- * Producto de panadería vendible con stock, categoría e imagen opcional.
+ * Producto de panadería vendible con stock y categoría.
+ *
+ * La imagen opcional se guarda aparte en {@link ProductImage} para no cargarla con cada fila.
  */
 @Entity
 // Indexes speed up queries by category and active flag.
+// Composite (..., id) indexes back keyset (cursor) pagination by name and price.
 @Table(name = "products", indexes = {
         @Index(name = "idx_product_category", columnList = "category_id"),
-        @Index(name = "idx_product_active", columnList = "active")
+        @Index(name = "idx_product_active", columnList = "active"),
+        @Index(name = "idx_product_active_name_id", columnList = "active, name, id"),
+        @Index(name = "idx_product_active_price_id", columnList = "active, price, id"),
+        @Index(name = "idx_product_category_active_name_id", columnList = "category_id, active, name, id")
 })
 public class Product {
 
@@ -51,8 +57,13 @@ public class Product {
     @Column(nullable = false)
     private boolean active = true;
 
-    @Column(columnDefinition = "LONGBLOB")
-    private byte[] image;
+    /**
+     * Hash de la imagen actual (copia de {@link ProductImage#getHash()}), o {@code null} sin imagen.
+     *
+     * Permite construir la URL versionada de la imagen sin consultar la tabla de imágenes.
+     */
+    @Column(length = 64)
+    private String imageHash;
 
     protected Product() {
         // Constructor for JPA
@@ -127,11 +138,11 @@ public class Product {
         return active;
     }
 
-    public byte[] getImage() {
-        return image;
+    public String getImageHash() {
+        return imageHash;
     }
 
-    public void setImage(byte[] image) {
-        this.image = image;
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
     }
 }
@@ -0,0 +1,75 @@
+package com.bakery.bakeryapi.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import com.bakery.bakeryapi.shared.ContentHash;
+import com.bakery.bakeryapi.shared.ImageValidator;
+
+/**
+ * Imagen de un producto, guardada en su propia tabla.
+ *
+ * Separarla de {@link Product} evita que las consultas del catálogo y de compras arrastren los bytes de la
+ * imagen. Comparte la clave primaria con el producto.
+ */
+@Entity
+@Table(name = "product_images")
+public class ProductImage {
+
+    @Id
+    private Long productId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id")
+    private Product product;
+
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    @Column(nullable = false, length = 32)
+    private String contentType;
+
+    /**
+     * SHA-256 del contenido en hexadecimal; sirve como ETag y como versión en las URLs.
+     */
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    protected ProductImage() {
+        // Constructor for JPA
+    }
+
+    public ProductImage(Product product, byte[] data) {
+        this.product = product;
+        replace(data);
+    }
+
+    public void replace(byte[] data) {
+        this.data = data;
+        String detected = ImageValidator.detectMimeType(data);
+        this.contentType = detected.startsWith("image/") ? detected : "application/octet-stream";
+        this.hash = ContentHash.sha256Hex(data);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+}
@@ -0,0 +1,99 @@
+package com.bakery.bakeryapi.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import com.bakery.bakeryapi.shared.ContentHash;
+
+/**
+ * Miniatura generada a partir de la imagen de un producto.
+ *
+ * Guarda el hash de la imagen original de la que procede para descartar variantes obsoletas cuando la
+ * imagen se reemplaza y la nueva miniatura aún no se ha generado.
+ */
+@Entity
+@Table(name = "product_image_variants", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_image_variant", columnNames = {"product_id", "size"})
+})
+public class ProductImageVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImageVariantSize size;
+
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    @Column(nullable = false, length = 32)
+    private String contentType;
+
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 64)
+    private String sourceHash;
+
+    protected ProductImageVariant() {
+        // Constructor for JPA
+    }
+
+    public ProductImageVariant(Product product, ImageVariantSize size) {
+        this.product = product;
+        this.size = size;
+    }
+
+    /**
+     * Reemplaza el contenido de la variante.
+     *
+     * @param data bytes codificados de la miniatura
+     * @param contentType tipo MIME de la codificación usada
+     * @param sourceHash hash de la imagen original
+     */
+    public void replace(byte[] data, String contentType, String sourceHash) {
+        this.data = data;
+        this.contentType = contentType;
+        this.hash = ContentHash.sha256Hex(data);
+        this.sourceHash = sourceHash;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ImageVariantSize getSize() {
+        return size;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getSourceHash() {
+        return sourceHash;
+    }
+}
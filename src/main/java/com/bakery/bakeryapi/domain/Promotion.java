@@ -29,7 +29,8 @@ import java.time.LocalDate;
 @Table(name = "promotions", indexes = {
         @Index(name = "idx_promotion_product", columnList = "product_id"),
         @Index(name = "idx_promotion_dates", columnList = "start_date, end_date"),
-        @Index(name = "idx_promotion_active", columnList = "active")
+        @Index(name = "idx_promotion_active", columnList = "active"),
+        @Index(name = "idx_promotion_start_id", columnList = "start_date, id")
 })
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "type")
@@ -50,6 +51,10 @@ public abstract class Promotion {
     @Column(nullable = false)
     private boolean active = true;
 
+    // Tope global de usos (todos los usuarios); null = sin tope. El contador vive en promotion_redemptions.
+    @Column(updatable = false)
+    private Integer maxRedemptions;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
@@ -59,10 +64,21 @@ public abstract class Promotion {
     }
 
     protected Promotion(String description, LocalDate startDate, LocalDate endDate, Product product) {
+        this(description, startDate, endDate, product, null);
+    }
+
+    protected Promotion(
+            String description,
+            LocalDate startDate,
+            LocalDate endDate,
+            Product product,
+            Integer maxRedemptions
+    ) {
         this.description = description;
         this.startDate = startDate;
         this.endDate = endDate;
         this.product = product;
+        this.maxRedemptions = maxRedemptions;
     }
 
     /**
@@ -121,4 +137,8 @@ public abstract class Promotion {
     public Product getProduct() {
         return product;
     }
+
+    public Integer getMaxRedemptions() {
+        return maxRedemptions;
+    }
 }
@@ -0,0 +1,38 @@
+package com.bakery.bakeryapi.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Contador global de usos de una promoción con {@code maxRedemptions}.
+ *
+ * {@code reserved} cuenta los usos ya hechos más los permisos que cada instancia ha reservado en bloque y aún no
+ * ha repartido, así que nunca supera el tope. Está en una tabla aparte para que las compras, que bloquean en
+ * lectura la fila de la promoción al insertar claves ajenas, no esperen a las reservas. Las filas se modifican
+ * solo con UPDATE condicionales desde {@code PromotionRedemptionLimiter}.
+ */
+@Entity
+@Table(name = "promotion_redemptions")
+public class PromotionRedemptions {
+
+    @Id
+    @Column(name = "promotion_id")
+    private Long promotionId;
+
+    @Column(nullable = false)
+    private int reserved;
+
+    protected PromotionRedemptions() {
+        // Constructor for JPA
+    }
+
+    public Long getPromotionId() {
+        return promotionId;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+}
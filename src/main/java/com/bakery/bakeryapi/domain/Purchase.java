@@ -26,7 +26,10 @@ import java.util.List;
 @Entity
 @Table(name = "purchases", indexes = {
     @Index(name = "idx_purchase_user", columnList = "user_id"),
-    @Index(name = "idx_purchase_status", columnList = "status")
+    @Index(name = "idx_purchase_status", columnList = "status"),
+    @Index(name = "idx_purchase_status_created_id", columnList = "status, created_at, id"),
+    @Index(name = "idx_purchase_created_id", columnList = "created_at, id"),
+    @Index(name = "idx_purchase_user_created_id", columnList = "user_id, created_at, id")
 })
 public class Purchase {
 
@@ -0,0 +1,56 @@
+package com.bakery.bakeryapi.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Token bucket compartido entre instancias para un límite de velocidad (IP y ruta).
+ *
+ * Las filas se modifican solo con compare-and-swap sobre {@code version} desde
+ * {@code JdbcRateLimitBackend}; {@code refilledAt} es el instante (epoch ms) hasta el que ya se han sumado los
+ * tokens de relleno.
+ */
+@Entity
+@Table(
+        name = "rate_limit_buckets",
+        indexes = @Index(name = "idx_rate_limit_buckets_refilled_at", columnList = "refilled_at")
+)
+public class RateLimitBucket {
+
+    @Id
+    @Column(name = "bucket_key", length = 255)
+    private String bucketKey;
+
+    @Column(nullable = false)
+    private long available;
+
+    @Column(name = "refilled_at", nullable = false)
+    private long refilledAt;
+
+    // Versión del compare-and-swap; no es @Version porque la fila nunca se guarda a través de la entidad.
+    @Column(nullable = false)
+    private long version;
+
+    protected RateLimitBucket() {
+        // Constructor for JPA
+    }
+
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public long getRefilledAt() {
+        return refilledAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
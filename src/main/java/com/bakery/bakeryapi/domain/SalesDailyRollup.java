@@ -0,0 +1,90 @@
+package com.bakery.bakeryapi.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ventas agregadas de un producto en un día (fecha UTC de creación de la compra).
+ *
+ * Solo cuentan las compras PAGADAS. Las filas se actualizan de forma incremental (upsert) en la misma transacción
+ * que paga la compra, así que los informes de ventas leen como mucho una fila por día y producto en lugar de
+ * recorrer compras y artículos.
+ */
+@Entity
+@Table(
+        name = "sales_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollup_day_product", columnNames = {"sales_day", "product_id"}),
+        indexes = @Index(name = "idx_sales_rollup_category_day", columnList = "category_id, sales_day")
+)
+public class SalesDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate salesDay;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal gross;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal discount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal net;
+
+    protected SalesDailyRollup() {
+        // Constructor for JPA
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getSalesDay() {
+        return salesDay;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public BigDecimal getGross() {
+        return gross;
+    }
+
+    public BigDecimal getDiscount() {
+        return discount;
+    }
+
+    public BigDecimal getNet() {
+        return net;
+    }
+}
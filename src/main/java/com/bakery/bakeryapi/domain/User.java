@@ -13,7 +13,8 @@ import jakarta.persistence.Table;
  * Cuenta de usuario de la aplicación.
  *
  * Almacena datos de autenticación, rol de autorización, estado habilitado,
- * versión de token de actualización e imagen de perfil opcional.
+ * y versión de token de actualización. La imagen de perfil opcional se guarda aparte en
+ * {@link UserProfileImage}.
  */
 @Entity
 @Table(name = "users")
@@ -40,12 +41,10 @@ public class User {
     private long refreshTokenVersion = 0;
 
     /**
-     * Imagen de perfil opcional almacenada como bytes sin procesar.
-     *
-     * Los clientes de API envían y reciben este valor como Base64 a través de los DTOs de usuario.
+     * Hash de la imagen de perfil actual (copia de {@link UserProfileImage#getHash()}), o {@code null} sin imagen.
      */
-    @Column(columnDefinition = "LONGBLOB")
-    private byte[] profileImage;
+    @Column(length = 64)
+    private String profileImageHash;
 
     protected User(){
         // Constructor for JPA
@@ -104,23 +103,11 @@ public class User {
         this.refreshTokenVersion++;
     }
 
-    /**
-     * Devuelve los bytes de la imagen de perfil sin procesar.
-     *
-     * @return bytes de la imagen, o {@code null} cuando no se establece ninguna imagen de perfil
-     */
-    public byte[] getProfileImage() {
-        return profileImage;
+    public String getProfileImageHash() {
+        return profileImageHash;
     }
 
-    /**
-     * Actualiza o elimina la imagen de perfil.
-     *
-     * @param profileImage bytes de imagen, o {@code null} para eliminar la imagen
-     */
-    public void setProfileImage(byte[] profileImage) {
-        this.profileImage = profileImage;
+    public void setProfileImageHash(String profileImageHash) {
+        this.profileImageHash = profileImageHash;
     }
 }
-
-
@@ -0,0 +1,80 @@
+package com.bakery.bakeryapi.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import com.bakery.bakeryapi.shared.ContentHash;
+import com.bakery.bakeryapi.shared.ImageValidator;
+
+/**
+ * Imagen de perfil de un usuario, guardada en su propia tabla.
+ *
+ * Separarla de {@link User} evita cargar los bytes en cada búsqueda de usuario (autenticación, controles de
+ * acceso). Comparte la clave primaria con el usuario.
+ */
+@Entity
+@Table(name = "user_profile_images")
+public class UserProfileImage {
+
+    @Id
+    private Long userId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    /**
+     * Imagen almacenada como bytes sin procesar.
+     *
+     * Los clientes de API envían y reciben este valor como Base64 a través de los DTOs de usuario.
+     */
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    @Column(nullable = false, length = 32)
+    private String contentType;
+
+    /**
+     * SHA-256 del contenido en hexadecimal; sirve como ETag y como versión en las URLs.
+     */
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    protected UserProfileImage() {
+        // Constructor for JPA
+    }
+
+    public UserProfileImage(User user, byte[] data) {
+        this.user = user;
+        replace(data);
+    }
+
+    public void replace(byte[] data) {
+        this.data = data;
+        String detected = ImageValidator.detectMimeType(data);
+        this.contentType = detected.startsWith("image/") ? detected : "application/octet-stream";
+        this.hash = ContentHash.sha256Hex(data);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Fija el tiempo máximo de las peticiones MVC asíncronas.
+ *
+ * La única respuesta asíncrona de la API es la exportación de compras ({@code StreamingResponseBody}). Sin este
+ * valor se aplica el del contenedor y una exportación larga se corta a mitad, con el 200 y las cabeceras ya
+ * enviados.
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    // Para el contenedor, un tiempo negativo significa sin límite.
+    private static final long NO_TIMEOUT = -1;
+
+    private final PurchaseExportProperties exportProperties;
+
+    public AsyncRequestConfig(PurchaseExportProperties exportProperties) {
+        this.exportProperties = exportProperties;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(exportProperties.timeout().isZero()
+                ? NO_TIMEOUT
+                : exportProperties.timeout().toMillis());
+    }
+}
@@ -0,0 +1,27 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Límites de la caché en memoria del catálogo público de productos.
+ */
+@ConfigurationProperties(prefix = "app.catalog-cache")
+public record CatalogCacheProperties(
+        Integer maxPages,
+        Integer maxProducts,
+        Duration ttl
+) {
+    public CatalogCacheProperties {
+        if (maxPages == null || maxPages < 0) {
+            maxPages = 500;
+        }
+        if (maxProducts == null || maxProducts < 0) {
+            maxProducts = 2_000;
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            ttl = Duration.ofMinutes(5);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuración de las respuestas guardadas por {@code Idempotency-Key}.
+ *
+ * @param ttl tiempo durante el que se repite una respuesta guardada
+ * @param cacheSize respuestas máximas en la caché en memoria delante de la tabla
+ * @param inFlightTimeout espera máxima de una petición duplicada por la original; también marca como abandonadas
+ *                        las reservas sin terminar
+ * @param purgeInterval intervalo entre purgas de la tabla
+ */
+@ConfigurationProperties(prefix = "app.idempotency")
+public record IdempotencyProperties(
+        Duration ttl,
+        Integer cacheSize,
+        Duration inFlightTimeout,
+        Duration purgeInterval
+) {
+    public IdempotencyProperties {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            ttl = Duration.ofHours(24);
+        }
+        if (cacheSize == null || cacheSize < 0) {
+            cacheSize = 10_000;
+        }
+        if (inFlightTimeout == null || inFlightTimeout.isNegative() || inFlightTimeout.isZero()) {
+            inFlightTimeout = Duration.ofSeconds(30);
+        }
+        if (purgeInterval == null || purgeInterval.isNegative() || purgeInterval.isZero()) {
+            purgeInterval = Duration.ofHours(1);
+        }
+    }
+}
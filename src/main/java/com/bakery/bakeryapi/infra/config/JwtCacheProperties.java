@@ -0,0 +1,19 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Límites de la caché de tokens de acceso ya verificados.
+ *
+ * @param maxTokens tokens máximos en caché; {@code 0} desactiva la caché
+ */
+@ConfigurationProperties(prefix = "app.jwt-cache")
+public record JwtCacheProperties(
+        Integer maxTokens
+) {
+    public JwtCacheProperties {
+        if (maxTokens == null || maxTokens < 0) {
+            maxTokens = 10_000;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Reintentos ante conflictos de bloqueo optimista (columna {@code @Version}).
+ *
+ * @param maxAttempts intentos totales, incluido el primero; 1 desactiva los reintentos
+ * @param initialBackoff espera máxima antes del primer reintento; se duplica en cada intento
+ * @param maxBackoff tope de la espera entre intentos
+ */
+@ConfigurationProperties(prefix = "app.optimistic-retry")
+public record OptimisticRetryProperties(
+        Integer maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff
+) {
+    public OptimisticRetryProperties {
+        if (maxAttempts == null || maxAttempts < 1) {
+            maxAttempts = 3;
+        }
+        if (initialBackoff == null || initialBackoff.isNegative()) {
+            initialBackoff = Duration.ofMillis(20);
+        }
+        if (maxBackoff == null || maxBackoff.compareTo(initialBackoff) < 0) {
+            maxBackoff = initialBackoff.multipliedBy(10);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuración del índice en memoria de nombres de producto.
+ *
+ * @param maxMatches coincidencias máximas que se resuelven desde el índice; por encima se usa la consulta LIKE
+ * @param rebuildInterval cada cuánto se reconstruye el índice completo desde la base de datos (recoge escrituras
+ *                        hechas por otras instancias)
+ */
+@ConfigurationProperties(prefix = "app.product-search")
+public record ProductSearchProperties(
+        Integer maxMatches,
+        Duration rebuildInterval
+) {
+    public ProductSearchProperties {
+        if (maxMatches == null || maxMatches < 1) {
+            maxMatches = 1_000;
+        }
+        if (rebuildInterval == null || rebuildInterval.isNegative() || rebuildInterval.isZero()) {
+            rebuildInterval = Duration.ofMinutes(10);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuración del índice en memoria de promociones activas.
+ *
+ * @param refreshInterval cada cuánto se reconstruye el índice desde la base de datos, además de al arrancar y a
+ *                        medianoche; acota cuánto tardan en verse las promociones creadas o desactivadas en otras
+ *                        instancias y los cambios de nombre de producto
+ */
+@ConfigurationProperties(prefix = "app.promotion-index")
+public record PromotionIndexProperties(
+        Duration refreshInterval
+) {
+    public PromotionIndexProperties {
+        if (refreshInterval == null || refreshInterval.isNegative() || refreshInterval.isZero()) {
+            refreshInterval = Duration.ofMinutes(5);
+        }
+    }
+}
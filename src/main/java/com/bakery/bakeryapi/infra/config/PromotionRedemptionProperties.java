@@ -0,0 +1,38 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Reparto en memoria de los usos de promociones con tope global.
+ *
+ * @param leaseSize permisos que una instancia reserva de golpe en la base de datos; con menos disponibles se
+ *                  reservan de uno en uno
+ * @param stripes contadores independientes por promoción entre los que se reparten los permisos reservados
+ * @param maxCachedCaps promociones cuyo tope se mantiene en memoria
+ * @param checkpointInterval cada cuánto se devuelven a la base de datos los permisos reservados y no usados; acota
+ *                           cuánto tardan otras instancias en poder usarlos
+ */
+@ConfigurationProperties(prefix = "app.promotion-redemptions")
+public record PromotionRedemptionProperties(
+        Integer leaseSize,
+        Integer stripes,
+        Integer maxCachedCaps,
+        Duration checkpointInterval
+) {
+    public PromotionRedemptionProperties {
+        if (leaseSize == null || leaseSize < 1) {
+            leaseSize = 10;
+        }
+        if (stripes == null || stripes < 1) {
+            stripes = 8;
+        }
+        if (maxCachedCaps == null || maxCachedCaps < 0) {
+            maxCachedCaps = 10_000;
+        }
+        if (checkpointInterval == null || checkpointInterval.isNegative() || checkpointInterval.isZero()) {
+            checkpointInterval = Duration.ofSeconds(30);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Límites de la caché en memoria de promociones usadas por usuario.
+ *
+ * @param maxUsers usuarios máximos en caché; se descartan los menos usados
+ * @param ttl tiempo máximo desde que se carga un usuario hasta que se vuelve a leer de la base de datos; acota
+ *            cuánto tardan en verse los usos registrados o liberados en otras instancias
+ */
+@ConfigurationProperties(prefix = "app.promotion-usage-cache")
+public record PromotionUsageCacheProperties(
+        Integer maxUsers,
+        Duration ttl
+) {
+    public PromotionUsageCacheProperties {
+        if (maxUsers == null || maxUsers < 0) {
+            maxUsers = 10_000;
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            ttl = Duration.ofMinutes(10);
+        }
+    }
+}
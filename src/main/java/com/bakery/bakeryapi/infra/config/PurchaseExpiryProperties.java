@@ -0,0 +1,41 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuración de la expiración de compras pendientes (CREATED) sin pagar.
+ *
+ * @param enabled activa el proceso programado
+ * @param ttl antigüedad a partir de la cual una compra pendiente se cancela y su stock se devuelve
+ * @param batchSize compras canceladas por transacción
+ * @param maxBatchesPerRun lotes máximos por ejecución, para no monopolizar un hilo del planificador
+ * @param interval intervalo entre ejecuciones
+ */
+@ConfigurationProperties(prefix = "app.purchase-expiry")
+public record PurchaseExpiryProperties(
+        Boolean enabled,
+        Duration ttl,
+        Integer batchSize,
+        Integer maxBatchesPerRun,
+        Duration interval
+) {
+    public PurchaseExpiryProperties {
+        if (enabled == null) {
+            enabled = true;
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            ttl = Duration.ofMinutes(30);
+        }
+        if (batchSize == null || batchSize < 1) {
+            batchSize = 100;
+        }
+        if (maxBatchesPerRun == null || maxBatchesPerRun < 1) {
+            maxBatchesPerRun = 50;
+        }
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            interval = Duration.ofMinutes(1);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuración de la exportación de compras para contabilidad.
+ *
+ * @param fetchSize filas que el driver JDBC trae por viaje al servidor (en MySQL se leen en streaming); también
+ *                  es cada cuántas filas se vacía el búfer de la respuesta
+ * @param timeout tiempo máximo de una respuesta asíncrona (la exportación se envía así); cero desactiva el límite
+ *                en lugar de usar el del contenedor (30 s en Tomcat), que cortaría las exportaciones largas
+ */
+@ConfigurationProperties(prefix = "app.purchase-export")
+public record PurchaseExportProperties(
+        Integer fetchSize,
+        Duration timeout
+) {
+    public PurchaseExportProperties {
+        if (fetchSize == null || fetchSize < 1) {
+            fetchSize = 500;
+        }
+        if (timeout == null || timeout.isNegative()) {
+            timeout = Duration.ZERO;
+        }
+    }
+}
@@ -2,16 +2,62 @@ package com.bakery.bakeryapi.infra.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Configuración de límite de velocidad para puntos finales de autenticación.
+ *
+ * @param requestsPerMinute peticiones por minuto admitidas para cada IP y ruta
+ * @param maxTrackedKeys combinaciones IP/ruta máximas con estado en memoria
+ * @param trustedProxies direcciones o rangos CIDR de los proxies cuyo {@code X-Forwarded-For} se acepta; por
+ *                       defecto, loopback y redes privadas
+ * @param backend dónde vive el estado de los límites: en cada instancia o compartido en la base de datos
+ * @param syncBatch tokens que una instancia toma de golpe del almacén compartido; solo se escribe en la base de
+ *                  datos una vez por lote
+ * @param purgeInterval intervalo de purga de los buckets compartidos sin uso
  */
 @ConfigurationProperties(prefix = "rate-limit")
 public record RateLimitProperties(
-        Integer requestsPerMinute
+        Integer requestsPerMinute,
+        Integer maxTrackedKeys,
+        List<String> trustedProxies,
+        Backend backend,
+        Integer syncBatch,
+        Duration purgeInterval
 ) {
     public RateLimitProperties {
         if (requestsPerMinute == null) {
             requestsPerMinute = 100;
         }
+        if (maxTrackedKeys == null || maxTrackedKeys <= 0) {
+            maxTrackedKeys = 100_000;
+        }
+        if (trustedProxies == null) {
+            trustedProxies = List.of(
+                    "127.0.0.0/8", "::1/128", "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "100.64.0.0/10",
+                    "fc00::/7"
+            );
+        }
+        trustedProxies = List.copyOf(trustedProxies);
+        if (backend == null) {
+            backend = Backend.LOCAL;
+        }
+        if (syncBatch == null || syncBatch < 1) {
+            syncBatch = 5;
+        }
+        if (purgeInterval == null || purgeInterval.isNegative() || purgeInterval.isZero()) {
+            purgeInterval = Duration.ofMinutes(10);
+        }
+    }
+
+    /**
+     * Almacén del estado de los límites.
+     */
+    public enum Backend {
+        /** Un bucket por instancia: el límite efectivo se multiplica por el número de instancias. */
+        LOCAL,
+        /** Buckets compartidos en la tabla {@code rate_limit_buckets}. */
+        JDBC
     }
 }
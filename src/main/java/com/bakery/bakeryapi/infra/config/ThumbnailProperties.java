@@ -0,0 +1,29 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuración del generador de miniaturas de imágenes de producto.
+ *
+ * @param threads hilos del ejecutor en segundo plano
+ * @param queueCapacity tareas pendientes máximas; las que no caben se descartan y las recupera el relleno
+ * @param backfillBatchSize productos procesados por lote en el relleno
+ */
+@ConfigurationProperties(prefix = "app.thumbnails")
+public record ThumbnailProperties(
+        Integer threads,
+        Integer queueCapacity,
+        Integer backfillBatchSize
+) {
+    public ThumbnailProperties {
+        if (threads == null || threads < 1) {
+            threads = 2;
+        }
+        if (queueCapacity == null || queueCapacity < 1) {
+            queueCapacity = 100;
+        }
+        if (backfillBatchSize == null || backfillBatchSize < 1) {
+            backfillBatchSize = 50;
+        }
+    }
+}
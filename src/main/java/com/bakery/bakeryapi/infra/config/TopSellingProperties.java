@@ -0,0 +1,23 @@
+package com.bakery.bakeryapi.infra.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuración de los rankings en memoria de productos más vendidos.
+ *
+ * @param reconcileInterval cada cuánto se recalculan los rankings desde la base de datos; es la cota de
+ *                          desactualización: ventas que salen de una ventana o hechas en otras instancias tardan
+ *                          como mucho este tiempo en reflejarse
+ */
+@ConfigurationProperties(prefix = "app.top-selling")
+public record TopSellingProperties(
+        Duration reconcileInterval
+) {
+    public TopSellingProperties {
+        if (reconcileInterval == null || reconcileInterval.isNegative() || reconcileInterval.isZero()) {
+            reconcileInterval = Duration.ofMinutes(5);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.bakery.bakeryapi.infra.idempotency;
+
+import com.bakery.bakeryapi.infra.config.IdempotencyProperties;
+import com.bakery.bakeryapi.shared.exception.ApiException;
+import com.bakery.bakeryapi.shared.exception.IdempotencyConflictException;
+import com.bakery.bakeryapi.shared.exception.InvalidIdempotencyKeyException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hace idempotente {@code POST /purchases} cuando el cliente envía la cabecera {@code Idempotency-Key}.
+ *
+ * La primera petición de un usuario con una clave se ejecuta normalmente y, si termina con éxito (2xx), su
+ * respuesta se guarda. Los reintentos con la misma clave reciben esa respuesta con la cabecera
+ * {@code Idempotent-Replayed: true}, sin volver a crear la compra. Un duplicado que llega mientras la original
+ * sigue en curso espera su resultado. Las respuestas de error no se guardan: el cliente puede reintentar con la
+ * misma clave.
+ *
+ * Se ejecuta después de la autenticación para asociar la clave al usuario.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyStore store;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final long inFlightTimeoutMillis;
+
+    public IdempotencyFilter(
+            IdempotencyStore store,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+            IdempotencyProperties properties
+    ) {
+        this.store = store;
+        this.exceptionResolver = exceptionResolver;
+        this.inFlightTimeoutMillis = properties.inFlightTimeout().toMillis();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod())
+                || !"/purchases".equals(request.getRequestURI())
+                || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            // La autorización rechazará la petición más adelante.
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            IdempotencyStore.Key key = new IdempotencyStore.Key(auth.getName(), validKey(request.getHeader(HEADER)));
+            handle(key, request, response, filterChain);
+        } catch (ApiException e) {
+            exceptionResolver.resolveException(request, response, null, e);
+        }
+    }
+
+    private void handle(
+            IdempotencyStore.Key key,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        while (true) {
+            Optional<IdempotencyStore.StoredResponse> stored = store.find(key);
+            if (stored.isPresent()) {
+                replay(stored.get(), response);
+                return;
+            }
+
+            CompletableFuture<IdempotencyStore.StoredResponse> result = new CompletableFuture<>();
+            CompletableFuture<IdempotencyStore.StoredResponse> running = store.joinInFlight(key, result);
+            if (running != null) {
+                IdempotencyStore.StoredResponse original = await(running);
+                if (original != null) {
+                    replay(original, response);
+                    return;
+                }
+                // La original falló sin respuesta guardada: se vuelve a intentar como petición nueva.
+                continue;
+            }
+
+            execute(key, result, request, response, filterChain);
+            return;
+        }
+    }
+
+    private void execute(
+            IdempotencyStore.Key key,
+            CompletableFuture<IdempotencyStore.StoredResponse> result,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        IdempotencyStore.StoredResponse saved = null;
+        try {
+            if (!store.reserve(key)) {
+                // Reservada por otra instancia, o completada justo antes de registrarnos como original.
+                Optional<IdempotencyStore.StoredResponse> stored = store.find(key);
+                if (stored.isEmpty()) {
+                    throw new IdempotencyConflictException("Hay otra petición en curso con la misma Idempotency-Key");
+                }
+                saved = stored.get();
+                replay(saved, response);
+                return;
+            }
+
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            try {
+                filterChain.doFilter(request, wrapper);
+                int status = wrapper.getStatus();
+                if (status >= 200 && status < 300) {
+                    saved = new IdempotencyStore.StoredResponse(
+                            status,
+                            wrapper.getContentType(),
+                            wrapper.getContentAsByteArray()
+                    );
+                    store.complete(key, saved);
+                }
+            } finally {
+                if (saved == null) {
+                    store.abandon(key);
+                }
+                wrapper.copyBodyToResponse();
+            }
+        } finally {
+            store.release(key, result, saved);
+        }
+    }
+
+    private IdempotencyStore.StoredResponse await(CompletableFuture<IdempotencyStore.StoredResponse> running) {
+        try {
+            return running.get(inFlightTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new IdempotencyConflictException("Hay otra petición en curso con la misma Idempotency-Key");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Hay otra petición en curso con la misma Idempotency-Key");
+        }
+    }
+
+    private static void replay(IdempotencyStore.StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static String validKey(String value) {
+        String key = value.trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "La cabecera " + HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+        }
+        return key;
+    }
+}
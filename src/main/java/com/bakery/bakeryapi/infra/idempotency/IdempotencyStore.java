@@ -0,0 +1,194 @@
+package com.bakery.bakeryapi.infra.idempotency;
+
+import com.bakery.bakeryapi.domain.IdempotencyRecord;
+import com.bakery.bakeryapi.infra.config.IdempotencyProperties;
+import com.bakery.bakeryapi.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacén de respuestas por (usuario, {@code Idempotency-Key}).
+ *
+ * Las respuestas completadas se guardan en la tabla {@code idempotency_records} y en una caché Caffeine con el
+ * mismo TTL, de modo que los reintentos habituales se responden sin consultar la base de datos. Las peticiones en
+ * curso en esta instancia se publican como {@link CompletableFuture} para que los duplicados esperen el resultado
+ * en lugar de ejecutarse en paralelo; entre instancias, la fila reservada al empezar hace de cerrojo.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final Clock CLOCK_UTC = Clock.systemUTC();
+
+    private final IdempotencyRecordRepository repository;
+    private final IdempotencyProperties properties;
+    private final Cache<Key, StoredResponse> responses;
+    private final Map<Key, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(
+            IdempotencyRecordRepository repository,
+            IdempotencyProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.repository = repository;
+        this.properties = properties;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.cacheSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency.responses");
+    }
+
+    /**
+     * Busca una respuesta completada y vigente, primero en memoria y después en la tabla.
+     *
+     * @param key usuario y clave
+     * @return respuesta a repetir, si existe
+     */
+    public Optional<StoredResponse> find(Key key) {
+        StoredResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        LocalDateTime expiredBefore = LocalDateTime.now(CLOCK_UTC).minus(properties.ttl());
+        return repository.findByOwnerAndIdempotencyKey(key.owner(), key.idempotencyKey())
+                .filter(IdempotencyRecord::isCompleted)
+                .filter(record -> record.getCreatedAt().isAfter(expiredBefore))
+                .map(record -> {
+                    StoredResponse stored = new StoredResponse(record.getStatus(), record.getContentType(), record.getBody());
+                    responses.put(key, stored);
+                    return stored;
+                });
+    }
+
+    /**
+     * Registra esta petición como la que ejecuta la clave en esta instancia.
+     *
+     * @param key usuario y clave
+     * @param result futuro que se completará con la respuesta (o {@code null} si no se guarda)
+     * @return el futuro de la petición que ya estaba en curso, o {@code null} si esta pasa a ser la original
+     */
+    public CompletableFuture<StoredResponse> joinInFlight(Key key, CompletableFuture<StoredResponse> result) {
+        return inFlight.putIfAbsent(key, result);
+    }
+
+    /**
+     * Reserva la clave en la tabla para que otras instancias no ejecuten la misma petición.
+     *
+     * Si la fila existente es una respuesta caducada o una reserva abandonada que la purga aún no ha borrado, se
+     * elimina y se reintenta la reserva una vez.
+     *
+     * @param key usuario y clave
+     * @return {@code false} si la clave está reservada por una petición en curso o completada y vigente
+     */
+    public boolean reserve(Key key) {
+        if (insert(key)) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now(CLOCK_UTC);
+        int deleted = repository.deleteStale(
+                key.owner(),
+                key.idempotencyKey(),
+                now.minus(properties.ttl()),
+                now.minus(properties.inFlightTimeout())
+        );
+        if (deleted == 0) {
+            return false;
+        }
+        responses.invalidate(key);
+        return insert(key);
+    }
+
+    private boolean insert(Key key) {
+        try {
+            repository.saveAndFlush(new IdempotencyRecord(key.owner(), key.idempotencyKey(), LocalDateTime.now(CLOCK_UTC)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Guarda la respuesta de una petición reservada y la publica en la caché.
+     *
+     * @param key usuario y clave
+     * @param response respuesta a repetir
+     */
+    public void complete(Key key, StoredResponse response) {
+        repository.findByOwnerAndIdempotencyKey(key.owner(), key.idempotencyKey()).ifPresent(record -> {
+            record.complete(response.status(), response.contentType(), response.body());
+            repository.save(record);
+        });
+        responses.put(key, response);
+    }
+
+    /**
+     * Libera la reserva de una petición que no dejó respuesta que guardar, para que la clave pueda reintentarse.
+     *
+     * @param key usuario y clave
+     */
+    public void abandon(Key key) {
+        repository.deletePending(key.owner(), key.idempotencyKey());
+    }
+
+    /**
+     * Cierra la ejecución de esta instancia y despierta a los duplicados que la esperaban.
+     *
+     * @param key usuario y clave
+     * @param result futuro registrado en {@link #joinInFlight}
+     * @param response respuesta guardada, o {@code null} si los duplicados deben volver a intentarlo
+     */
+    public void release(Key key, CompletableFuture<StoredResponse> result, StoredResponse response) {
+        inFlight.remove(key, result);
+        result.complete(response);
+    }
+
+    /**
+     * Purga respuestas caducadas y reservas abandonadas.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.idempotency.purge-interval:1h}",
+            initialDelayString = "${app.idempotency.purge-interval:1h}"
+    )
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now(CLOCK_UTC);
+        int deleted = repository.deleteExpired(now.minus(properties.ttl()), now.minus(properties.inFlightTimeout()));
+        if (deleted > 0) {
+            log.info("Purgadas {} respuestas de Idempotency-Key caducadas", deleted);
+        }
+    }
+
+    /**
+     * Clave de idempotencia de un usuario.
+     *
+     * @param owner usuario autenticado
+     * @param idempotencyKey valor de la cabecera
+     */
+    public record Key(String owner, String idempotencyKey) {
+    }
+
+    /**
+     * Respuesta HTTP guardada.
+     *
+     * @param status código HTTP
+     * @param contentType tipo MIME del cuerpo, o {@code null}
+     * @param body cuerpo de la respuesta
+     */
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.infra.config.OptimisticRetryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Repite una operación transaccional completa cuando falla por un conflicto de versión.
+ *
+ * Debe envolver la llamada al método {@code @Transactional} desde fuera de cualquier transacción: cada intento
+ * abre una transacción nueva y vuelve a leer las entidades. Entre intentos espera un tiempo aleatorio entre cero y
+ * un tope que se duplica en cada intento (backoff exponencial con jitter completo), para que las peticiones que
+ * chocaron no vuelvan a coincidir.
+ *
+ * Métricas por operación (etiqueta {@code operation}): {@code optimistic.lock.conflicts} (conflictos detectados),
+ * {@code optimistic.lock.retries} (reintentos lanzados) y {@code optimistic.lock.failures} (operaciones que agotan
+ * los intentos y devuelven el conflicto al cliente).
+ */
+@Component
+public class OptimisticLockRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+    private final OptimisticRetryProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticLockRetry(OptimisticRetryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ejecuta la operación, reintentándola ante conflictos de versión.
+     *
+     * @param operation nombre de la operación para métricas y registros
+     * @param action operación transaccional completa
+     * @return resultado del primer intento que termina sin conflicto
+     * @throws OptimisticLockingFailureException si se agotan los intentos
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Dentro de una transacción ajena el conflicto la deja marcada para rollback: reintentar no serviría.
+            return action.get();
+        }
+        int attempt = 1;
+        while (true) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                counter("optimistic.lock.conflicts", operation).increment();
+                if (attempt >= properties.maxAttempts() || !backoff(attempt)) {
+                    counter("optimistic.lock.failures", operation).increment();
+                    log.warn("Conflicto de versión en {} tras {} intentos", operation, attempt);
+                    throw e;
+                }
+                counter("optimistic.lock.retries", operation).increment();
+                log.debug("Conflicto de versión en {}, reintento {}", operation, attempt);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Variante sin resultado de {@link #execute(String, Supplier)}.
+     *
+     * @param operation nombre de la operación para métricas y registros
+     * @param action operación transaccional completa
+     */
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private boolean backoff(int attempt) {
+        long capMillis = Math.min(
+                properties.maxBackoff().toMillis(),
+                properties.initialBackoff().toMillis() << Math.min(attempt - 1, 20)
+        );
+        if (capMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(capMillis + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual mientras hay una medición abierta.
+ *
+ * Se registra con {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}. Fuera de una
+ * medición solo devuelve la sentencia sin cambios.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    /**
+     * Empieza a contar las sentencias del hilo actual.
+     */
+    public static void start() {
+        COUNTER.set(new int[1]);
+    }
+
+    /**
+     * Termina la medición del hilo actual.
+     *
+     * @return sentencias preparadas desde {@link #start()}, o 0 si no había medición
+     */
+    public static int stop() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter == null ? 0 : counter[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+        return sql;
+    }
+}
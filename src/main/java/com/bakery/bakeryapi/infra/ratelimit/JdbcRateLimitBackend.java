@@ -0,0 +1,167 @@
+package com.bakery.bakeryapi.infra.ratelimit;
+
+import com.bakery.bakeryapi.domain.RateLimitBucket;
+import com.bakery.bakeryapi.infra.config.RateLimitProperties;
+import com.bakery.bakeryapi.repository.RateLimitBucketRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buckets compartidos por todas las instancias en la tabla {@code rate_limit_buckets}.
+ *
+ * Cada instancia toma del bucket compartido lotes de {@code syncBatch} tokens con compare-and-swap sobre la
+ * versión de la fila y los gasta en memoria, de modo que solo una de cada {@code syncBatch} peticiones escribe en
+ * la base de datos. Los tokens de un lote ya están descontados del bucket compartido, así que el límite conjunto
+ * nunca se supera; como mucho, una instancia deja sin usar parte de su lote. Un rechazo se recuerda en memoria
+ * hasta que el bucket vuelve a tener tokens, para que un cliente bloqueado no genere consultas.
+ *
+ * Si la base de datos falla, se aplica el límite local de la instancia en lugar de dejar pasar todas las
+ * peticiones.
+ */
+public class JdbcRateLimitBackend implements RateLimitBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcRateLimitBackend.class);
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final RateLimitBucketRepository repository;
+    private final long capacity;
+    private final long windowMillis;
+    private final long syncBatch;
+    private final Cache<String, Lease> leases;
+    private final LocalRateLimitBackend fallback;
+    private final Clock clock;
+
+    public JdbcRateLimitBackend(RateLimitBucketRepository repository, RateLimitProperties properties) {
+        this(repository, properties, Clock.systemUTC());
+    }
+
+    JdbcRateLimitBackend(RateLimitBucketRepository repository, RateLimitProperties properties, Clock clock) {
+        this.repository = repository;
+        this.capacity = properties.requestsPerMinute();
+        this.windowMillis = RateLimitConfig.WINDOW.toMillis();
+        this.syncBatch = properties.syncBatch();
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(properties.maxTrackedKeys())
+                .expireAfterAccess(RateLimitConfig.WINDOW)
+                .build();
+        this.fallback = new LocalRateLimitBackend(properties);
+        this.clock = clock;
+    }
+
+    @Override
+    public Decision tryConsume(String key) {
+        Lease lease = leases.get(key, ignored -> new Lease());
+        if (lease.tryTake()) {
+            return Decision.allowed();
+        }
+        // Un solo hilo por clave e instancia va a la base de datos; el resto espera su lote.
+        synchronized (lease) {
+            if (lease.tryTake()) {
+                return Decision.allowed();
+            }
+            long now = clock.millis();
+            if (now < lease.blockedUntil) {
+                return Decision.rejected(TimeUnit.MILLISECONDS.toNanos(lease.blockedUntil - now));
+            }
+            Acquired acquired;
+            try {
+                acquired = acquire(key, now);
+            } catch (DataAccessException e) {
+                log.warn("Almacén de límites de velocidad no disponible, se aplica el límite local: {}", e.getMessage());
+                return fallback.tryConsume(key);
+            }
+            if (acquired.granted() == 0) {
+                lease.blockedUntil = now + acquired.waitMillis();
+                return Decision.rejected(TimeUnit.MILLISECONDS.toNanos(acquired.waitMillis()));
+            }
+            lease.tokens.addAndGet(acquired.granted() - 1);
+            return Decision.allowed();
+        }
+    }
+
+    @Override
+    public long trackedKeys() {
+        return leases.estimatedSize();
+    }
+
+    /**
+     * Purga los buckets compartidos que llevan una ventana sin relleno (estarían llenos).
+     */
+    @Scheduled(
+            fixedDelayString = "${rate-limit.purge-interval:10m}",
+            initialDelayString = "${rate-limit.purge-interval:10m}"
+    )
+    public void purge() {
+        int deleted = repository.deleteIdleBefore(clock.millis() - windowMillis);
+        if (deleted > 0) {
+            log.info("Purgados {} buckets de límite de velocidad sin uso", deleted);
+        }
+    }
+
+    private Acquired acquire(String key, long now) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<RateLimitBucket> row = repository.findById(key);
+            if (row.isEmpty()) {
+                long granted = Math.min(syncBatch, capacity);
+                try {
+                    repository.insertBucket(key, capacity - granted, now);
+                    return new Acquired(granted, 0);
+                } catch (DataIntegrityViolationException e) {
+                    // Otra instancia ha creado el bucket a la vez: se relee.
+                    continue;
+                }
+            }
+            RateLimitBucket bucket = row.get();
+            long refill = Math.max(0, now - bucket.getRefilledAt()) * capacity / windowMillis;
+            long available;
+            long refilledAt;
+            if (bucket.getAvailable() + refill >= capacity) {
+                available = capacity;
+                refilledAt = now;
+            } else {
+                available = bucket.getAvailable() + refill;
+                refilledAt = bucket.getRefilledAt() + refill * windowMillis / capacity;
+            }
+            if (available == 0) {
+                long nextTokenAt = refilledAt + Math.ceilDiv(windowMillis, capacity);
+                return new Acquired(0, Math.max(1, nextTokenAt - now));
+            }
+            long granted = Math.min(syncBatch, available);
+            if (repository.compareAndSet(key, bucket.getVersion(), available - granted, refilledAt) == 1) {
+                return new Acquired(granted, 0);
+            }
+        }
+        // Contención persistente sobre la misma clave: se rechaza hasta el siguiente token.
+        return new Acquired(0, Math.ceilDiv(windowMillis, capacity));
+    }
+
+    private record Acquired(long granted, long waitMillis) {
+    }
+
+    private static final class Lease {
+
+        private final AtomicLong tokens = new AtomicLong();
+        private long blockedUntil;
+
+        boolean tryTake() {
+            long current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.bakery.bakeryapi.infra.ratelimit;
+
+import com.bakery.bakeryapi.infra.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+
+/**
+ * Buckets en memoria de esta instancia.
+ *
+ * Cada clave tiene un token bucket de Bucket4j (sin bloqueos) que se rellena a razón de {@code requestsPerMinute}
+ * por minuto. Los buckets viven en una caché acotada que descarta los que llevan una ventana sin uso: para
+ * entonces estarían llenos de nuevo, así que olvidarlos no cambia el límite.
+ */
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+    private final int requestsPerMinute;
+    private final Cache<String, Bucket> buckets;
+
+    public LocalRateLimitBackend(RateLimitProperties properties) {
+        this.requestsPerMinute = properties.requestsPerMinute();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxTrackedKeys())
+                .expireAfterAccess(RateLimitConfig.WINDOW)
+                .build();
+    }
+
+    @Override
+    public Decision tryConsume(String key) {
+        ConsumptionProbe probe = buckets.get(key, ignored -> newBucket()).tryConsumeAndReturnRemaining(1);
+        return probe.isConsumed() ? Decision.allowed() : Decision.rejected(probe.getNanosToWaitForRefill());
+    }
+
+    @Override
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+
+    private Bucket newBucket() {
+        return Bucket.builder()
+                .addLimit(limit -> limit.capacity(requestsPerMinute).refillGreedy(requestsPerMinute, RateLimitConfig.WINDOW))
+                .build();
+    }
+}
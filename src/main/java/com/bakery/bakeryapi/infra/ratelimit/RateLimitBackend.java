@@ -0,0 +1,39 @@
+package com.bakery.bakeryapi.infra.ratelimit;
+
+/**
+ * Almacén de los token buckets del limitador de velocidad de autenticación.
+ */
+public interface RateLimitBackend {
+
+    /**
+     * Intenta consumir un token del bucket de una clave, creándolo lleno si no existe.
+     *
+     * @param key clave del límite (IP y ruta)
+     * @return si se admite la petición y, si no, cuánto esperar
+     */
+    Decision tryConsume(String key);
+
+    /**
+     * @return claves con estado en memoria en esta instancia
+     */
+    long trackedKeys();
+
+    /**
+     * Resultado de un intento de consumo.
+     *
+     * @param allowed {@code true} si se ha consumido un token
+     * @param nanosToWait tiempo hasta que haya un token disponible cuando se rechaza
+     */
+    record Decision(boolean allowed, long nanosToWait) {
+
+        private static final Decision ALLOWED = new Decision(true, 0);
+
+        public static Decision allowed() {
+            return ALLOWED;
+        }
+
+        public static Decision rejected(long nanosToWait) {
+            return new Decision(false, nanosToWait);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bakery.bakeryapi.infra.ratelimit;
+
+import com.bakery.bakeryapi.infra.config.RateLimitProperties;
+import com.bakery.bakeryapi.repository.RateLimitBucketRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Selecciona el almacén del limitador de velocidad según {@code rate-limit.backend}.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    /** Periodo en el que se rellena un bucket completo. */
+    static final Duration WINDOW = Duration.ofMinutes(1);
+
+    @Bean
+    public RateLimitBackend rateLimitBackend(RateLimitProperties properties, RateLimitBucketRepository repository) {
+        return switch (properties.backend()) {
+            case LOCAL -> new LocalRateLimitBackend(properties);
+            case JDBC -> new JdbcRateLimitBackend(repository, properties);
+        };
+    }
+}
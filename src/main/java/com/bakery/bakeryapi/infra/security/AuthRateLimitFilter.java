@@ -1,40 +1,68 @@
 package com.bakery.bakeryapi.infra.security;
 
 import com.bakery.bakeryapi.infra.config.RateLimitProperties;
+import com.bakery.bakeryapi.infra.ratelimit.RateLimitBackend;
 import com.bakery.bakeryapi.shared.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.Instant;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Limita la velocidad de los puntos finales de autenticación pública por IP de cliente y ruta de punto final.
+ *
+ * Cada combinación IP/ruta tiene un token bucket de {@code requestsPerMinute} tokens por minuto, guardado en el
+ * {@link RateLimitBackend} configurado. La cabecera {@code X-Forwarded-For} solo se tiene en cuenta si la
+ * petición llega desde un proxy de confianza.
  */
 @Component
 public class AuthRateLimitFilter extends OncePerRequestFilter {
 
-    private static final Duration WINDOW = Duration.ofMinutes(1);
+    private static final List<String> LIMITED_PATHS = List.of("/auth/login", "/auth/register", "/auth/refresh");
 
     private final HandlerExceptionResolver exceptionResolver;
-    private final int requestsPerMinute;
-    private final Map<String, CounterWindow> counters = new ConcurrentHashMap<>();
+    private final RateLimitBackend backend;
+    private final List<IpAddressMatcher> trustedProxies;
+    private final Map<String, Counter> rejections;
 
     public AuthRateLimitFilter(
             @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
-            RateLimitProperties rateLimitProperties
+            RateLimitProperties rateLimitProperties,
+            RateLimitBackend backend,
+            MeterRegistry meterRegistry
     ) {
         this.exceptionResolver = exceptionResolver;
-        this.requestsPerMinute = rateLimitProperties.requestsPerMinute();
+        this.backend = backend;
+        this.trustedProxies = rateLimitProperties.trustedProxies().stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        Gauge.builder("auth.rate_limit.tracked_keys", backend, RateLimitBackend::trackedKeys)
+                .description("Combinaciones IP/ruta con estado de limitación en memoria")
+                .register(meterRegistry);
+        this.rejections = LIMITED_PATHS.stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        path -> path,
+                        path -> Counter.builder("auth.rate_limit.rejected")
+                                .description("Peticiones de autenticación rechazadas por límite de velocidad")
+                                .tag("path", path)
+                                .register(meterRegistry)
+                ));
     }
 
     @Override
@@ -42,8 +70,7 @@ public class AuthRateLimitFilter extends OncePerRequestFilter {
         if (!"POST".equalsIgnoreCase(request.getMethod())) {
             return true;
         }
-        String path = request.getRequestURI();
-        return !"/auth/login".equals(path) && !"/auth/register".equals(path) && !"/auth/refresh".equals(path);
+        return !LIMITED_PATHS.contains(request.getRequestURI());
     }
 
     @Override
@@ -54,44 +81,56 @@ public class AuthRateLimitFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         String path = request.getRequestURI();
         String key = clientIp(request) + ":" + path;
-        CounterWindow window = counters.computeIfAbsent(key, ignored -> new CounterWindow());
-        long retryAfterSeconds;
-
-        synchronized (window) {
-            Instant now = Instant.now();
-            if (window.windowStart.plus(WINDOW).isBefore(now) || window.windowStart.plus(WINDOW).equals(now)) {
-                window.windowStart = now;
-                window.count = 0;
-            }
-
-            if (window.count >= requestsPerMinute) {
-                retryAfterSeconds = Duration.between(now, window.windowStart.plus(WINDOW)).toSeconds() + 1;
-                response.setHeader("Retry-After", String.valueOf(Math.max(retryAfterSeconds, 1)));
-                exceptionResolver.resolveException(
-                        request,
-                        response,
-                        null,
-                        new TooManyRequestsException("Too many authentication requests, please retry later")
-                );
-                return;
-            }
+        RateLimitBackend.Decision decision = backend.tryConsume(key);
 
-            window.count++;
+        if (!decision.allowed()) {
+            rejections.get(path).increment();
+            long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(decision.nanosToWait()) + 1;
+            response.setHeader("Retry-After", String.valueOf(Math.max(retryAfterSeconds, 1)));
+            exceptionResolver.resolveException(
+                    request,
+                    response,
+                    null,
+                    new TooManyRequestsException("Too many authentication requests, please retry later")
+            );
+            return;
         }
 
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * IP del cliente. Se recorre {@code X-Forwarded-For} de derecha a izquierda saltando proxies de confianza; la
+     * primera dirección que no lo es corresponde al cliente. Sin proxy de confianza delante, la cabecera se ignora
+     * porque el cliente puede falsificarla.
+     */
     private String clientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
         String forwardedFor = request.getHeader("X-Forwarded-For");
-        if (forwardedFor != null && !forwardedFor.isBlank()) {
-            return forwardedFor.split(",")[0].trim();
+        if (forwardedFor == null || forwardedFor.isBlank() || !isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
         }
-        return request.getRemoteAddr();
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !isTrustedProxy(hop)) {
+                return hop;
+            }
+        }
+        return hops[0].trim().isEmpty() ? remoteAddr : hops[0].trim();
     }
 
-    private static final class CounterWindow {
-        private Instant windowStart = Instant.now();
-        private int count = 0;
+    private boolean isTrustedProxy(String address) {
+        for (IpAddressMatcher proxy : trustedProxies) {
+            try {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                // No es una dirección IP literal (p. ej. "unknown" o un nombre de host): nunca es de confianza.
+                return false;
+            }
+        }
+        return false;
     }
 }
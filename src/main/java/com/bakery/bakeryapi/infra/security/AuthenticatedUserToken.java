@@ -0,0 +1,36 @@
+package com.bakery.bakeryapi.infra.security;
+
+import com.bakery.bakeryapi.shared.AuthenticatedUser;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Autenticación de un token de acceso con reclamo {@code uid}: el principal es un {@link AuthenticatedUser}, de
+ * modo que el ID del usuario está disponible sin consultar la base de datos.
+ */
+public class AuthenticatedUserToken extends AbstractOAuth2TokenAuthenticationToken<Jwt> {
+
+    public AuthenticatedUserToken(Jwt jwt, AuthenticatedUser user, Collection<? extends GrantedAuthority> authorities) {
+        super(jwt, user, jwt, authorities);
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Map<String, Object> getTokenAttributes() {
+        return getToken().getClaims();
+    }
+
+    @Override
+    public AuthenticatedUser getPrincipal() {
+        return (AuthenticatedUser) super.getPrincipal();
+    }
+
+    @Override
+    public String getName() {
+        return getPrincipal().email();
+    }
+}
@@ -0,0 +1,98 @@
+package com.bakery.bakeryapi.infra.security;
+
+import com.bakery.bakeryapi.infra.config.JwtCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Decodificador JWT que guarda los tokens ya verificados hasta su expiración.
+ *
+ * Un cliente repite el mismo token de acceso en todas sus peticiones hasta que caduca; con esta caché la firma
+ * HMAC y el análisis de reclamos se hacen una vez por token y no una vez por petición. La clave es el SHA-256 del
+ * token (no se retiene el token en claro) y cada entrada caduca en el {@code exp} del propio token. Los tokens que
+ * el decodificador delegado rechaza no se guardan, así que un token inválido falla siempre.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> tokens;
+    private final Clock clock;
+
+    public CachingJwtDecoder(JwtDecoder delegate, JwtCacheProperties properties, MeterRegistry meterRegistry) {
+        this(delegate, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, JwtCacheProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(properties.maxTokens())
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "jwt-tokens");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = digest(token);
+        Jwt cached = tokens.getIfPresent(key);
+        if (cached != null && isLive(cached)) {
+            return cached;
+        }
+        Jwt jwt = delegate.decode(token);
+        tokens.put(key, jwt);
+        return jwt;
+    }
+
+    // Caffeine revisa la expiración con su propio reloj; se comprueba también aquí para no servir nunca un token
+    // pasado su exp.
+    private boolean isLive(Jwt jwt) {
+        return jwt.getExpiresAt() != null && clock.instant().isBefore(jwt.getExpiresAt());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private final class UntilTokenExpiry implements Expiry<String, Jwt> {
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(clock.instant(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.bakery.bakeryapi.infra.security;
 
+import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.infra.config.JwtCacheProperties;
 import com.bakery.bakeryapi.infra.config.JwtProperties;
+import com.bakery.bakeryapi.shared.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -20,7 +24,10 @@ import javax.crypto.spec.SecretKeySpec;
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Configuración del codificador JWT, decodificador y asignación de autoridades de Spring Security.
@@ -28,17 +35,28 @@ import java.util.List;
 @Configuration
 public class JwtConfig {
 
+    // Autoridades compartidas por rol: evitan crear una lista y una SimpleGrantedAuthority por petición.
+    private static final Map<String, List<GrantedAuthority>> ROLE_AUTHORITIES = Arrays.stream(Role.values())
+            .collect(Collectors.toUnmodifiableMap(
+                    Role::name,
+                    role -> List.of(new SimpleGrantedAuthority("ROLE_" + role.name()))
+            ));
+
     @Bean
     public SecretKey jwtSecretKey(JwtProperties properties) {
         String secret = properties.secret();
         return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
     }
 
+    /**
+     * Decodificador de tokens de acceso: verificación HS256 de Nimbus detrás de una caché de tokens ya verificados.
+     */
     @Bean
-    public JwtDecoder jwtDecoder(SecretKey jwtSecretKey) {
-        return NimbusJwtDecoder.withSecretKey(jwtSecretKey)
+    public JwtDecoder jwtDecoder(SecretKey jwtSecretKey, JwtCacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        JwtDecoder nimbus = NimbusJwtDecoder.withSecretKey(jwtSecretKey)
                 .macAlgorithm(MacAlgorithm.HS256)
                 .build();
+        return new CachingJwtDecoder(nimbus, cacheProperties, meterRegistry);
     }
 
     @Bean
@@ -47,17 +65,29 @@ public class JwtConfig {
     }
 
 
+    /**
+     * Convierte un token de acceso en la autenticación de Spring Security.
+     *
+     * Con reclamo {@code uid} el principal es un {@link AuthenticatedUser}; los tokens emitidos antes de añadir ese
+     * reclamo siguen siendo válidos y dan una {@link JwtAuthenticationToken} identificada solo por el correo.
+     */
     @Bean
     public Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter() {
         return jwt -> {
-            List<GrantedAuthority> authorities = List.of();
+            List<GrantedAuthority> authorities = authorities(jwt.getClaims().get("role"));
 
-            Object role = jwt.getClaims().get("role");
-            if (role instanceof String roleString && !roleString.isBlank()) {
-                authorities = List.of(new SimpleGrantedAuthority("ROLE_" + roleString));
+            if (jwt.getClaims().get(JwtTokenService.USER_ID_CLAIM) instanceof Number userId) {
+                return new AuthenticatedUserToken(jwt, new AuthenticatedUser(userId.longValue(), jwt.getSubject()), authorities);
             }
-
             return new JwtAuthenticationToken(jwt, authorities, jwt.getSubject());
         };
     }
+
+    private static List<GrantedAuthority> authorities(Object role) {
+        if (!(role instanceof String roleString) || roleString.isBlank()) {
+            return List.of();
+        }
+        List<GrantedAuthority> known = ROLE_AUTHORITIES.get(roleString);
+        return known != null ? known : List.of(new SimpleGrantedAuthority("ROLE_" + roleString));
+    }
 }
@@ -18,6 +18,11 @@ import java.time.Instant;
 @Component
 public class JwtTokenService {
 
+    /**
+     * Reclamo del token de acceso con el ID del usuario.
+     */
+    public static final String USER_ID_CLAIM = "uid";
+
     private final JwtEncoder jwtEncoder;
     private final JwtDecoder jwtDecoder;
     private final long expirationMs;
@@ -33,21 +38,39 @@ public class JwtTokenService {
     }
 
     /**
-     * Genera un token de acceso para el usuario autenticado.
+     * Genera un token de acceso para el usuario autenticado, sin ID de usuario.
      *
      * @param email asunto del token
      * @param role reclamo de rol sin el prefijo {@code ROLE_}
      * @return JWT de token de acceso firmado
      */
     public String generateToken(String email, String role) {
+        return generateToken(email, role, null);
+    }
+
+    /**
+     * Genera un token de acceso para el usuario autenticado.
+     *
+     * El ID del usuario viaja en el reclamo {@code uid} para que las comprobaciones de propiedad no tengan que
+     * buscar al usuario por correo en cada petición.
+     *
+     * @param email asunto del token
+     * @param role reclamo de rol sin el prefijo {@code ROLE_}
+     * @param userId ID del usuario, o {@code null} para omitir el reclamo
+     * @return JWT de token de acceso firmado
+     */
+    public String generateToken(String email, String role, Long userId) {
         Instant now = Instant.now();
-        JwtClaimsSet claims = JwtClaimsSet.builder()
+        JwtClaimsSet.Builder builder = JwtClaimsSet.builder()
                 .subject(email)
                 .issuedAt(now)
                 .expiresAt(now.plusMillis(expirationMs))
                 .claim("role", role)
-                .claim("type", "access")
-                .build();
+                .claim("type", "access");
+        if (userId != null) {
+            builder.claim(USER_ID_CLAIM, userId);
+        }
+        JwtClaimsSet claims = builder.build();
 
         JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
         return jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
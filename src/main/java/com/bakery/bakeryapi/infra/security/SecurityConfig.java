@@ -2,6 +2,7 @@ package com.bakery.bakeryapi.infra.security;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import com.bakery.bakeryapi.infra.config.CorsProperties;
+import com.bakery.bakeryapi.infra.idempotency.IdempotencyFilter;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,6 +16,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -46,7 +48,8 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(
             HttpSecurity http,
             Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter,
-            AuthRateLimitFilter authRateLimitFilter
+            AuthRateLimitFilter authRateLimitFilter,
+            IdempotencyFilter idempotencyFilter
     ){
 
         http
@@ -93,6 +96,8 @@ public class SecurityConfig {
                 );
 
         http.addFilterBefore(authRateLimitFilter, UsernamePasswordAuthenticationFilter.class);
+        // Después de validar el JWT: las claves de idempotencia son por usuario.
+        http.addFilterAfter(idempotencyFilter, BearerTokenAuthenticationFilter.class);
 
         return http.build();
     }
@@ -117,7 +122,8 @@ public class SecurityConfig {
         }
 
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        config.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        config.setAllowedHeaders(List.of("Authorization", "Content-Type", IdempotencyFilter.HEADER));
+        config.setExposedHeaders(List.of(IdempotencyFilter.REPLAYED_HEADER));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -0,0 +1,156 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.infra.config.CatalogCacheProperties;
+import com.bakery.bakeryapi.product.dto.ProductResponse;
+import com.bakery.bakeryapi.shared.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Caché acotada en memoria del catálogo público (solo productos activos).
+ *
+ * Guarda páginas de {@link ProductResponse} por (página, tamaño, orden, categoría, nombre) y productos
+ * individuales por ID. Las entradas caducan por TTL y por tamaño, y se invalidan de forma selectiva desde
+ * las escrituras de productos y los cambios de stock de las compras.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final Cache<PageKey, Page<ProductResponse>> pages;
+    private final Cache<Long, ProductResponse> products;
+
+    public ProductCatalogCache(CatalogCacheProperties properties, MeterRegistry meterRegistry) {
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(properties.maxPages())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        this.products = Caffeine.newBuilder()
+                .maximumSize(properties.maxProducts())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        // Exporta cache.gets{result=hit|miss}, cache.evictions y cache.size al registro de Micrometer/Prometheus.
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "catalog.pages");
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog.products");
+    }
+
+    /**
+     * Devuelve una página activa del catálogo, cargándola si no está en caché.
+     *
+     * @param pageable paginación ya desinfectada
+     * @param categoryId filtro de categoría opcional
+     * @param name filtro de nombre opcional
+     * @param loader carga la página desde la base de datos en caso de fallo
+     * @return página de productos activos
+     */
+    public Page<ProductResponse> getPage(Pageable pageable, Long categoryId, String name, Supplier<Page<ProductResponse>> loader) {
+        PageKey key = new PageKey(
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                pageable.getSort(),
+                categoryId,
+                normalizeName(name)
+        );
+        return pages.get(key, ignored -> loader.get());
+    }
+
+    /**
+     * Devuelve un producto activo, cargándolo si no está en caché.
+     *
+     * @param id ID del producto
+     * @param loader carga el producto; puede lanzar excepciones de dominio que no se almacenan
+     * @return producto activo
+     */
+    public ProductResponse getProduct(Long id, Supplier<ProductResponse> loader) {
+        return products.get(id, ignored -> loader.get());
+    }
+
+    /**
+     * Invalida las entradas afectadas por un cambio de stock.
+     *
+     * El conjunto de productos de cada página no cambia, así que solo se descartan las páginas que contienen
+     * alguno de los productos o que están ordenadas por stock.
+     *
+     * @param productIds productos cuyo stock ha cambiado
+     */
+    public void evictStock(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(productIds);
+        Runnable eviction = () -> {
+            products.invalidateAll(ids);
+            pages.asMap().entrySet().removeIf(entry ->
+                    entry.getKey().sort().getOrderFor("stock") != null || containsAny(entry.getValue(), ids));
+        };
+        // Invalidar ahora y otra vez tras la confirmación: un lector concurrente podría recargar el valor anterior
+        // entre ambos momentos.
+        eviction.run();
+        TransactionCallbacks.afterCommit(eviction);
+    }
+
+    /**
+     * Invalida las entradas cuya pertenencia puede cambiar por crear, editar, activar o eliminar un producto.
+     *
+     * Debe llamarse con el estado anterior y con el posterior del producto para cubrir los cambios de
+     * categoría o nombre.
+     *
+     * @param productId ID del producto modificado
+     * @param states pares (categoría, nombre) que ha tenido el producto
+     */
+    public void evictProduct(Long productId, List<CatalogState> states) {
+        Runnable eviction = () -> {
+            if (productId != null) {
+                products.invalidate(productId);
+            }
+            pages.asMap().entrySet().removeIf(entry ->
+                    containsAny(entry.getValue(), productId == null ? Set.of() : Set.of(productId))
+                            || states.stream().anyMatch(state -> entry.getKey().matches(state)));
+        };
+        eviction.run();
+        TransactionCallbacks.afterCommit(eviction);
+    }
+
+    private static boolean containsAny(Page<ProductResponse> page, Set<Long> ids) {
+        for (ProductResponse product : page.getContent()) {
+            if (ids.contains(product.id())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalizeName(String name) {
+        return name == null || name.isBlank() ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Categoría y nombre de un producto en un momento dado, usados para decidir qué páginas invalidar.
+     */
+    public record CatalogState(Long categoryId, String name) {
+    }
+
+    private record PageKey(int page, int size, Sort sort, Long categoryId, String name) {
+
+        boolean matches(CatalogState state) {
+            if (categoryId != null && !categoryId.equals(state.categoryId())) {
+                return false;
+            }
+            return name == null
+                    || (state.name() != null && state.name().toLowerCase(Locale.ROOT).contains(name));
+        }
+    }
+}
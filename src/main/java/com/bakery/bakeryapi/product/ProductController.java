@@ -1,17 +1,21 @@
 package com.bakery.bakeryapi.product;
 
 import jakarta.validation.Valid;
+import com.bakery.bakeryapi.domain.ImageVariantSize;
 import com.bakery.bakeryapi.shared.dto.ActiveUpdateRequest;
 import com.bakery.bakeryapi.product.dto.ProductRequest;
 import com.bakery.bakeryapi.product.dto.ProductResponse;
 import com.bakery.bakeryapi.product.dto.ProductSalesResponse;
 import com.bakery.bakeryapi.product.ProductService;
+import com.bakery.bakeryapi.shared.ImageResponses;
+import com.bakery.bakeryapi.shared.dto.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -21,6 +25,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Puntos finales REST para el catálogo de productos.
@@ -31,9 +36,11 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService service;
+    private final ProductThumbnailService thumbnailService;
 
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service, ProductThumbnailService thumbnailService) {
         this.service = service;
+        this.thumbnailService = thumbnailService;
     }
 
     @GetMapping("/{id}")
@@ -42,19 +49,86 @@ public class ProductController {
             @ApiResponse(responseCode = "200", description = "Correcto"),
             @ApiResponse(responseCode = "404", description = "No encontrado")
     })
-    public ResponseEntity<ProductResponse> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getById(id));
+    public ResponseEntity<ProductResponse> getById(
+            @PathVariable Long id,
+            @Parameter(description = "Incluir la imagen en Base64 (compatibilidad con clientes antiguos)")
+            @RequestParam(defaultValue = "false") boolean includeImageBase64
+    ) {
+        ProductResponse product = service.getById(id);
+        return ResponseEntity.ok(includeImageBase64 ? service.withInlineImage(product) : product);
+    }
+
+    @GetMapping("/{id}/image")
+    @Operation(summary = "Obtener imagen del producto", description = """
+            Devuelve los bytes de la imagen con su tipo de contenido. Usa un ETag fuerte (hash del contenido),
+            responde 304 a If-None-Match y admite peticiones Range. Con ?v=<versión> la respuesta es cacheable
+            de forma indefinida.
+
+            size=thumb|medium devuelve una miniatura generada en segundo plano; mientras no exista, o para
+            formatos sin miniatura (WebP), se devuelve la imagen original. Por defecto: full.
+            """)
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "206", description = "Contenido parcial"),
+            @ApiResponse(responseCode = "304", description = "No modificado"),
+            @ApiResponse(responseCode = "404", description = "Producto o imagen no encontrados")
+    })
+    public ResponseEntity<Resource> getImage(
+            @PathVariable Long id,
+            @Parameter(description = "Versión de la imagen indicada en imageUrl") @RequestParam(required = false) String v,
+            @Parameter(description = "Tamaño: thumb, medium o full") @RequestParam(required = false) String size,
+            WebRequest request
+    ) {
+        ImageVariantSize variant = ImageVariantSize.fromParam(size);
+        ProductImageVersion version = service.getImageVersion(id);
+        String sourceHash = version.hash();
+        // Mientras la miniatura no exista se sirve la original con su propio hash.
+        String hash = variant == null
+                ? sourceHash
+                : thumbnailService.findVariantHash(id, variant, sourceHash).orElse(sourceHash);
+        // La versión de la URL es la de la original. Solo se marca como inmutable lo que ya no va a cambiar:
+        // la original o una miniatura ya generada, nunca la original servida en lugar de la miniatura.
+        boolean immutable = sourceHash.equals(v) && (variant == null || !hash.equals(sourceHash));
+        // Las imágenes de productos inactivos solo las ve un administrador: no pueden quedar en una caché compartida.
+        return ImageResponses.of(request, hash, immutable ? hash : null, version.active(),
+                () -> service.getImage(id, variant));
+    }
+
+    @PostMapping("/images/thumbnails/backfill")
+    @Operation(summary = "Generar miniaturas pendientes", description = "Solo para administradores. Genera en segundo plano, por lotes, las miniaturas de los productos que no las tienen.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Relleno iniciado"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "403", description = "Prohibido"),
+            @ApiResponse(responseCode = "409", description = "Ya hay un relleno en curso o la cola está llena")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> backfillThumbnails() {
+        return thumbnailService.startBackfill()
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
     }
 
     @GetMapping("/top-selling")
-    @Operation(summary = "Productos más vendidos", description = "Devuelve los productos más vendidos (basado en compras PAGADAS).")
+    @Operation(summary = "Productos más vendidos", description = """
+            Devuelve los productos más vendidos (basado en compras PAGADAS), desde rankings en memoria que se
+            recalculan periódicamente (app.top-selling.reconcile-interval).
+            
+            Parámetros de consulta:
+            - window: 24h, 7d, 30d o all (por defecto: all)
+            - categoryId: Filtro opcional por categoría
+            """)
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Correcto")
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "400", description = "Ventana no válida")
     })
     public ResponseEntity<Page<ProductSalesResponse>> getTopSelling(
-            @PageableDefault(size = 10) Pageable pageable
+            @PageableDefault(size = 10) Pageable pageable,
+            @Parameter(description = "Ventana temporal (24h, 7d, 30d, all)") @RequestParam(required = false) String window,
+            @Parameter(description = "Filtro por categoría") @RequestParam(required = false) Long categoryId
     ) {
-        return ResponseEntity.ok(service.getTopSelling(pageable));
+        return ResponseEntity.ok(service.getTopSelling(pageable, SalesWindow.from(window), categoryId));
     }
 
     @GetMapping
@@ -68,6 +142,7 @@ public class ProductController {
             - order: Dirección de ordenación (asc, desc - por defecto: asc)
             - categoryId: Filtro opcional por categoría
             - name: Filtro opcional por nombre (coincidencia parcial, insensible a mayúsculas)
+            - includeImageBase64: Incluir la imagen en Base64 además de imageUrl (por defecto: false)
             
             Ejemplo: /products?page=0&size=10&sortBy=price&order=desc&categoryId=1&name=pan
             """)
@@ -81,11 +156,46 @@ public class ProductController {
             @Parameter(description = "Campo por el que ordenar (name, price, category, createdAt)") @RequestParam(required = false) String sortBy,
             @Parameter(description = "Dirección de ordenación (asc, desc)") @RequestParam(required = false) String order,
             @Parameter(description = "Filtro opcional por categoría") @RequestParam(required = false) Long categoryId,
-            @Parameter(description = "Filtro opcional por nombre (coincidencia parcial)") @RequestParam(required = false) String name
+            @Parameter(description = "Filtro opcional por nombre (coincidencia parcial)") @RequestParam(required = false) String name,
+            @Parameter(description = "Incluir las imágenes en Base64 (compatibilidad con clientes antiguos)")
+            @RequestParam(defaultValue = "false") boolean includeImageBase64
     ) {
         Sort sort = buildSort(sortBy, order, "name");
         Pageable pageable = PageRequest.of(page, size, sort);
-        return ResponseEntity.ok(service.getAll(pageable, categoryId, name));
+        Page<ProductResponse> products = service.getAll(pageable, categoryId, name);
+        return ResponseEntity.ok(includeImageBase64 ? service.withInlineImages(products) : products);
+    }
+
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Listar productos (modo cursor)", description = """
+            Paginación por clave: en lugar de page se envía cursor (vacío en la primera petición) y la respuesta
+            incluye nextCursor para la siguiente página (null al llegar al final). No calcula el total, y el coste
+            de cada página no crece con la profundidad.
+            
+            Parámetros de consulta:
+            - cursor: Cursor opaco devuelto en nextCursor (vacío para empezar)
+            - size: Elementos por página (por defecto: 20, máx: 100)
+            - sortBy: Campo por el que ordenar (name, price - por defecto: name). Debe mantenerse entre páginas.
+            - order: Dirección de ordenación (asc, desc - por defecto: asc)
+            - categoryId, name: Mismos filtros que en el modo por páginas
+            
+            Ejemplo: /products?cursor=&size=20&sortBy=price
+            """)
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "400", description = "Cursor u ordenación no válidos"),
+            @ApiResponse(responseCode = "404", description = "Categoría no encontrada")
+    })
+    public ResponseEntity<CursorPage<ProductResponse>> getAllByCursor(
+            @Parameter(description = "Cursor devuelto en nextCursor; vacío para la primera página") @RequestParam String cursor,
+            @Parameter(description = "Elementos por página") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Campo por el que ordenar (name, price)") @RequestParam(required = false) String sortBy,
+            @Parameter(description = "Dirección de ordenación (asc, desc)") @RequestParam(required = false) String order,
+            @Parameter(description = "Filtro opcional por categoría") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Filtro opcional por nombre (coincidencia parcial)") @RequestParam(required = false) String name
+    ) {
+        Sort sort = buildSort(sortBy, order, "name");
+        return ResponseEntity.ok(service.getAllByCursor(cursor, size, sort, categoryId, name));
     }
 
     private Sort buildSort(String sortBy, String order, String defaultField) {
@@ -0,0 +1,11 @@
+package com.bakery.bakeryapi.product;
+
+/**
+ * Versión de la imagen de un producto visible, sin sus bytes.
+ *
+ * @param hash hash de la imagen original
+ * @param active si el producto es visible en el catálogo público; las imágenes de productos inactivos solo las
+ *               ven los administradores y no deben guardarse en cachés compartidas
+ */
+public record ProductImageVersion(String hash, boolean active) {
+}
@@ -0,0 +1,12 @@
+package com.bakery.bakeryapi.product;
+
+/**
+ * Datos mínimos de un producto que necesita {@link ProductNameIndex}.
+ *
+ * @param id ID del producto
+ * @param name nombre tal como está guardado
+ * @param categoryId ID de la categoría
+ * @param active si el producto es visible en el catálogo público
+ */
+public record ProductNameEntry(Long id, String name, Long categoryId, boolean active) {
+}
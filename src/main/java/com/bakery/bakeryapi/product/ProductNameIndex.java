@@ -0,0 +1,372 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.infra.config.ProductSearchProperties;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas sobre los nombres de producto, en memoria.
+ *
+ * Cada producto recibe un número de documento creciente; las listas de apariciones de cada trigrama son
+ * arrays de {@code int} ordenados, así que una búsqueda es la intersección de las listas de los trigramas de la
+ * consulta seguida de una comprobación {@code contains} sobre los candidatos. Las modificaciones añaden un
+ * documento nuevo y marcan el anterior como borrado; cuando los borrados superan a los vivos se compacta.
+ *
+ * El índice solo acota candidatos: {@link ProductService} vuelve a aplicar el filtro en la base de datos sobre
+ * los IDs devueltos, por lo que un índice desactualizado nunca devuelve productos de más. Se reconstruye al
+ * arrancar y periódicamente, y se actualiza tras la confirmación de cada escritura de producto de esta instancia.
+ */
+@Component
+public class ProductNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductNameIndex.class);
+
+    private static final int GRAM = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ProductRepository repository;
+    private final int maxMatches;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+
+    // Protegidos por lock. segment es null hasta la primera carga; pending no es null durante una reconstrucción.
+    private Segment segment;
+    private List<ProductNameEntry> pendingPuts;
+    private List<Long> pendingRemovals;
+
+    public ProductNameIndex(ProductRepository repository, ProductSearchProperties properties) {
+        this.repository = repository;
+        this.maxMatches = properties.maxMatches();
+    }
+
+    /**
+     * Reconstruye el índice completo desde la base de datos.
+     *
+     * Las escrituras que llegan mientras se lee la tabla se guardan y se vuelven a aplicar sobre el índice nuevo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            fixedDelayString = "${app.product-search.rebuild-interval:10m}",
+            initialDelayString = "${app.product-search.rebuild-interval:10m}"
+    )
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                pendingPuts = new ArrayList<>();
+                pendingRemovals = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<ProductNameEntry> entries;
+            try {
+                entries = repository.findAllNameEntries();
+            } catch (RuntimeException e) {
+                log.warn("No se pudo reconstruir el índice de nombres de producto", e);
+                lock.writeLock().lock();
+                try {
+                    pendingPuts = null;
+                    pendingRemovals = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return;
+            }
+
+            Segment built = Segment.of(entries);
+            lock.writeLock().lock();
+            try {
+                pendingPuts.forEach(built::put);
+                pendingRemovals.forEach(built::remove);
+                pendingPuts = null;
+                pendingRemovals = null;
+                segment = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Índice de nombres de producto reconstruido con {} productos", built.liveCount);
+        }
+    }
+
+    /**
+     * Sustituye el contenido del índice por las entradas dadas, sin consultar la base de datos.
+     *
+     * @param entries productos a indexar
+     */
+    public void load(Collection<ProductNameEntry> entries) {
+        Segment built = Segment.of(entries);
+        lock.writeLock().lock();
+        try {
+            segment = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserta o reemplaza un producto.
+     *
+     * @param entry estado actual del producto
+     */
+    public void put(ProductNameEntry entry) {
+        lock.writeLock().lock();
+        try {
+            if (pendingPuts != null) {
+                pendingPuts.add(entry);
+            }
+            if (segment != null) {
+                segment.put(entry);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice.
+     *
+     * @param productId ID del producto eliminado
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (pendingRemovals != null) {
+                pendingRemovals.add(productId);
+            }
+            if (segment != null) {
+                segment.remove(productId);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos cuyo nombre contiene el texto dado (sin distinguir mayúsculas ni acentos).
+     *
+     * @param name texto buscado
+     * @param categoryId filtro de categoría opcional
+     * @param activeOnly si solo se devuelven productos activos
+     * @return IDs coincidentes, o vacío si el índice aún no está cargado o hay más de {@code maxMatches}
+     *         coincidencias (el llamador debe usar entonces la consulta LIKE)
+     */
+    public Optional<List<Long>> search(String name, Long categoryId, boolean activeOnly) {
+        String query = normalize(name);
+        lock.readLock().lock();
+        try {
+            if (segment == null) {
+                return Optional.empty();
+            }
+            return segment.search(query, categoryId, activeOnly, maxMatches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        int dead = segment.size - segment.liveCount;
+        if (dead > 1_024 && dead > segment.liveCount) {
+            segment = segment.compact();
+        }
+    }
+
+    static String normalize(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        return DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    private static long gram(String value, int start) {
+        return ((long) value.charAt(start) << 32)
+                | ((long) value.charAt(start + 1) << 16)
+                | value.charAt(start + 2);
+    }
+
+    /**
+     * Lista creciente de números de documento de un trigrama.
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            // Un nombre con el mismo trigrama repetido solo aparece una vez; los documentos llegan en orden.
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+
+    /**
+     * Estado mutable del índice; solo se accede con el candado de {@link ProductNameIndex}.
+     */
+    private static final class Segment {
+
+        private long[] productIds;
+        private long[] categoryIds;
+        private String[] names;
+        private final BitSet active = new BitSet();
+        private final BitSet live = new BitSet();
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private int size;
+        private int liveCount;
+
+        private Segment(int capacity) {
+            int initial = Math.max(16, capacity);
+            productIds = new long[initial];
+            categoryIds = new long[initial];
+            names = new String[initial];
+        }
+
+        static Segment of(Collection<ProductNameEntry> entries) {
+            Segment segment = new Segment(entries.size());
+            entries.forEach(segment::put);
+            return segment;
+        }
+
+        void put(ProductNameEntry entry) {
+            remove(entry.id());
+            if (size == productIds.length) {
+                int capacity = size * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            int doc = size++;
+            String name = entry.name() == null ? "" : normalize(entry.name());
+            productIds[doc] = entry.id();
+            categoryIds[doc] = entry.categoryId() == null ? Long.MIN_VALUE : entry.categoryId();
+            names[doc] = name;
+            active.set(doc, entry.active());
+            live.set(doc);
+            liveCount++;
+            docByProduct.put(entry.id(), doc);
+            for (int i = 0; i + GRAM <= name.length(); i++) {
+                postings.computeIfAbsent(gram(name, i), ignored -> new Postings()).add(doc);
+            }
+        }
+
+        void remove(Long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc != null) {
+                live.clear(doc);
+                liveCount--;
+            }
+        }
+
+        Segment compact() {
+            Segment compacted = new Segment(liveCount);
+            for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                compacted.put(new ProductNameEntry(
+                        productIds[doc],
+                        names[doc],
+                        categoryIds[doc] == Long.MIN_VALUE ? null : categoryIds[doc],
+                        active.get(doc)
+                ));
+            }
+            return compacted;
+        }
+
+        Optional<List<Long>> search(String query, Long categoryId, boolean activeOnly, int maxMatches) {
+            List<Long> matches = new ArrayList<>();
+            if (query.length() < GRAM) {
+                // Sin trigramas que intersectar: recorrido lineal sobre los nombres ya normalizados.
+                for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                    if (accepts(doc, query, categoryId, activeOnly)) {
+                        if (matches.size() == maxMatches) {
+                            return Optional.empty();
+                        }
+                        matches.add(productIds[doc]);
+                    }
+                }
+                return Optional.of(matches);
+            }
+
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= query.length(); i++) {
+                Postings list = postings.get(gram(query, i));
+                if (list == null) {
+                    return Optional.of(List.of());
+                }
+                if (!lists.contains(list)) {
+                    lists.add(list);
+                }
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            Postings smallest = lists.get(0);
+            int[] candidates = Arrays.copyOf(smallest.docs, smallest.size);
+            int count = smallest.size;
+            for (int i = 1; i < lists.size() && count > 0; i++) {
+                count = intersect(candidates, count, lists.get(i));
+            }
+            for (int i = 0; i < count; i++) {
+                int doc = candidates[i];
+                if (live.get(doc) && accepts(doc, query, categoryId, activeOnly)) {
+                    if (matches.size() == maxMatches) {
+                        return Optional.empty();
+                    }
+                    matches.add(productIds[doc]);
+                }
+            }
+            return Optional.of(matches);
+        }
+
+        private boolean accepts(int doc, String query, Long categoryId, boolean activeOnly) {
+            return (!activeOnly || active.get(doc))
+                    && (categoryId == null || categoryIds[doc] == categoryId)
+                    // Los trigramas comunes no garantizan que aparezcan contiguos.
+                    && names[doc].contains(query);
+        }
+
+        /**
+         * Intersección in situ de dos listas ordenadas; el resultado ocupa el principio de {@code candidates}.
+         */
+        private static int intersect(int[] candidates, int count, Postings other) {
+            int written = 0;
+            int i = 0;
+            int j = 0;
+            while (i < count && j < other.size) {
+                int left = candidates[i];
+                int right = other.docs[j];
+                if (left == right) {
+                    candidates[written++] = left;
+                    i++;
+                    j++;
+                } else if (left < right) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return written;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bakery.bakeryapi.product;
+
+/**
+ * Unidades vendidas de un producto en una ventana, con los datos que necesita {@link TopSellingRankings}.
+ *
+ * @param productId ID del producto
+ * @param name nombre del producto
+ * @param categoryId ID de la categoría
+ * @param active si el producto es visible en el catálogo público
+ * @param quantity unidades vendidas en compras PAGADAS
+ */
+public record ProductSalesTotal(Long productId, String name, Long categoryId, boolean active, Long quantity) {
+}
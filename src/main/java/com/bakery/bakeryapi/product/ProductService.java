@@ -3,32 +3,55 @@ package com.bakery.bakeryapi.product;
 import com.bakery.bakeryapi.category.CategoryService;
 import com.bakery.bakeryapi.infra.config.PaginationProperties;
 import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.ImageVariantSize;
 import com.bakery.bakeryapi.domain.Product;
-import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.domain.ProductImage;
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
 import com.bakery.bakeryapi.shared.PageableUtils;
 import com.bakery.bakeryapi.shared.SecurityUtils;
+import com.bakery.bakeryapi.shared.TransactionCallbacks;
 import com.bakery.bakeryapi.shared.ImageValidator;
+import com.bakery.bakeryapi.shared.KeysetPagination;
+import com.bakery.bakeryapi.shared.dto.CursorPage;
+import com.bakery.bakeryapi.shared.dto.ImageContent;
+import com.bakery.bakeryapi.shared.exception.ImageNotFoundException;
 import com.bakery.bakeryapi.product.dto.ProductRequest;
 import com.bakery.bakeryapi.product.dto.ProductResponse;
 import com.bakery.bakeryapi.product.dto.ProductSalesResponse;
+import com.bakery.bakeryapi.product.exception.InsufficientStockException;
 import com.bakery.bakeryapi.product.exception.ProductInactiveException;
 import com.bakery.bakeryapi.product.exception.ProductNotFoundException;
+import com.bakery.bakeryapi.repository.ProductImageRepository;
 import com.bakery.bakeryapi.repository.ProductRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Servicio de aplicación para productos.
  *
  * Aplica reglas de visibilidad para productos inactivos, valida imágenes de productos opcionales
- * y previene eliminación forzada cuando existe historial de compras.
+ * (guardadas en su propia tabla) y previene eliminación forzada cuando existe historial de compras. Las lecturas públicas del catálogo
+ * se sirven desde {@link ProductCatalogCache}, que se invalida desde cada escritura. Los filtros por nombre
+ * resuelven candidatos en {@link ProductNameIndex} en lugar de recorrer la tabla con LIKE.
  */
 @Service
 @Transactional(readOnly = true)
@@ -36,18 +59,37 @@ public class ProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
 
+    private static final KeysetPagination<Product> CURSOR = KeysetPagination.byId(Product::getId)
+            .sortableBy("name", Product::getName, Function.identity())
+            .sortableBy("price", Product::getPrice, BigDecimal::new);
+
     private final ProductRepository repository;
+    private final ProductImageRepository imageRepository;
     private final CategoryService categoryService;
     private final PaginationProperties paginationProperties;
+    private final ProductCatalogCache catalogCache;
+    private final ProductThumbnailService thumbnailService;
+    private final ProductNameIndex nameIndex;
+    private final TopSellingRankings topSelling;
 
     public ProductService(
             ProductRepository repository,
+            ProductImageRepository imageRepository,
             CategoryService categoryService,
-            PaginationProperties paginationProperties
+            PaginationProperties paginationProperties,
+            ProductCatalogCache catalogCache,
+            ProductThumbnailService thumbnailService,
+            ProductNameIndex nameIndex,
+            TopSellingRankings topSelling
     ) {
         this.repository = repository;
+        this.imageRepository = imageRepository;
         this.categoryService = categoryService;
         this.paginationProperties = paginationProperties;
+        this.catalogCache = catalogCache;
+        this.thumbnailService = thumbnailService;
+        this.nameIndex = nameIndex;
+        this.topSelling = topSelling;
     }
 
     @Transactional
@@ -67,10 +109,12 @@ public class ProductService {
                 request.stock(),
                 category
         );
+        Product saved = repository.save(product);
         if (request.imageBase64() != null && !request.imageBase64().isBlank()) {
-            product.setImage(decodeImageBase64(request.imageBase64()));
+            storeImage(saved, decodeImageBase64(request.imageBase64()));
         }
-        Product saved = repository.save(product);
+        catalogCache.evictProduct(saved.getId(), List.of(catalogState(saved)));
+        reindex(saved);
         log.info("Producto creado con éxito con ID: {}", saved.getId());
         return ProductResponse.from(saved);
     }
@@ -92,26 +136,223 @@ public class ProductService {
         return product;
     }
 
+    /**
+     * Carga varios productos activos en una sola consulta.
+     *
+     * @param ids IDs de producto (se ignoran los repetidos)
+     * @return productos por ID
+     * @throws ProductNotFoundException si falta alguno
+     * @throws ProductInactiveException si alguno está inactivo
+     */
+    public Map<Long, Product> getActiveEntitiesByIds(Collection<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : repository.findAllById(Set.copyOf(ids))) {
+            products.put(product.getId(), product);
+        }
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product == null) {
+                log.warn("Producto no encontrado: {}", id);
+                throw new ProductNotFoundException(id);
+            }
+            if (!product.isActive()) {
+                throw new ProductInactiveException(id);
+            }
+        }
+        return products;
+    }
+
     public ProductResponse getById(Long id) {
         Authentication auth = SecurityUtils.optionalAuthentication();
-        Product product = getEntityById(id);
         if (auth != null && SecurityUtils.isAdmin(auth)) {
-            return ProductResponse.from(product);
+            return ProductResponse.from(getEntityById(id));
         }
-        if (!product.isActive()) {
-            // No filtrar productos inactivos para no-administradores (incluyendo usuarios anónimos).
-            throw new ProductNotFoundException(id);
-        }
-        return ProductResponse.from(product);
+        return getActiveByIdCached(id);
     }
 
+    /**
+     * Devuelve un producto activo desde la caché del catálogo.
+     *
+     * @param id ID del producto
+     * @return producto activo
+     * @throws ProductNotFoundException cuando no existe o está inactivo (no se revela a no-administradores)
+     */
     public ProductResponse getActiveByIdCached(Long id) {
-        return ProductResponse.from(getActiveEntityById(id));
+        return catalogCache.getProduct(id, () -> {
+            Product product = getEntityById(id);
+            if (!product.isActive()) {
+                // No filtrar productos inactivos para no-administradores (incluyendo usuarios anónimos).
+                throw new ProductNotFoundException(id);
+            }
+            return ProductResponse.from(product);
+        });
     }
 
+    /**
+     * Devuelve una página de productos activos desde la caché del catálogo.
+     *
+     * @param pageable paginación solicitada
+     * @param categoryId filtro de categoría opcional
+     * @param name filtro de nombre opcional
+     * @return página de productos activos
+     */
     public Page<ProductResponse> getAllActiveCached(Pageable pageable, Long categoryId, String name) {
         Pageable safePageable = PageableUtils.safe(pageable, paginationProperties.maxPageSize());
-        
+        return catalogCache.getPage(safePageable, categoryId, name,
+                () -> loadActivePage(safePageable, categoryId, name));
+    }
+
+    /**
+     * Devuelve la versión (hash) de la imagen de un producto visible sin cargar sus bytes.
+     *
+     * @param id ID del producto
+     * @return hash de la imagen y si el producto está activo
+     * @throws ProductNotFoundException cuando no existe o no es visible para el usuario actual
+     * @throws ImageNotFoundException cuando el producto no tiene imagen
+     */
+    public ProductImageVersion getImageVersion(Long id) {
+        Product product = getVisibleEntityById(id);
+        if (product.getImageHash() == null) {
+            throw new ImageNotFoundException("El producto " + id + " no tiene imagen");
+        }
+        return new ProductImageVersion(product.getImageHash(), product.isActive());
+    }
+
+    /**
+     * Carga la variante solicitada de la imagen de un producto visible, o la original si aún no existe.
+     *
+     * @param id ID del producto
+     * @param size tamaño solicitado, o {@code null} para la original
+     * @return imagen con su tipo y hash
+     * @throws ProductNotFoundException cuando no existe o no es visible para el usuario actual
+     * @throws ImageNotFoundException cuando el producto no tiene imagen
+     */
+    public ImageContent getImage(Long id, ImageVariantSize size) {
+        Product product = getVisibleEntityById(id);
+        if (size != null && product.getImageHash() != null) {
+            Optional<ImageContent> variant = thumbnailService.findVariant(id, size, product.getImageHash());
+            if (variant.isPresent()) {
+                return variant.get();
+            }
+        }
+        return imageRepository.findById(id)
+                .map(image -> new ImageContent(image.getData(), image.getContentType(), image.getHash()))
+                .orElseThrow(() -> new ImageNotFoundException("El producto " + id + " no tiene imagen"));
+    }
+
+    /**
+     * Rellena {@code imageBase64} en una página ya construida (modo de compatibilidad), con una única consulta.
+     *
+     * @param page página de respuestas
+     * @return página con las imágenes en Base64
+     */
+    public Page<ProductResponse> withInlineImages(Page<ProductResponse> page) {
+        List<Long> ids = page.getContent().stream()
+                .filter(product -> product.imageUrl() != null)
+                .map(ProductResponse::id)
+                .toList();
+        if (ids.isEmpty()) {
+            return page;
+        }
+        Map<Long, byte[]> images = new HashMap<>();
+        for (ProductImage image : imageRepository.findAllById(ids)) {
+            images.put(image.getProductId(), image.getData());
+        }
+        return page.map(product -> images.containsKey(product.id())
+                ? product.withImageBase64(images.get(product.id()))
+                : product);
+    }
+
+    /**
+     * Rellena {@code imageBase64} en una respuesta individual (modo de compatibilidad).
+     *
+     * @param product respuesta ya construida
+     * @return copia con la imagen en Base64, o la misma respuesta si no tiene imagen
+     */
+    public ProductResponse withInlineImage(ProductResponse product) {
+        if (product.imageUrl() == null) {
+            return product;
+        }
+        return product.withImageBase64(
+                imageRepository.findById(product.id()).map(ProductImage::getData).orElse(null)
+        );
+    }
+
+    private Product getVisibleEntityById(Long id) {
+        Authentication auth = SecurityUtils.optionalAuthentication();
+        Product product = getEntityById(id);
+        if (!product.isActive() && (auth == null || !SecurityUtils.isAdmin(auth))) {
+            throw new ProductNotFoundException(id);
+        }
+        return product;
+    }
+
+    /**
+     * Reserva stock de un producto activo con una única sentencia UPDATE condicional.
+     *
+     * No depende del bloqueo optimista: compras concurrentes del mismo producto esperan el bloqueo de fila en
+     * lugar de fallar por conflicto de versión, y nunca se vende más stock del disponible.
+     *
+     * @param productId ID del producto
+     * @param quantity cantidad a reservar
+     * @throws InsufficientStockException cuando el stock es menor que la cantidad solicitada
+     * @throws ProductInactiveException cuando el producto se ha desactivado
+     */
+    @Transactional
+    public void reserveStock(Long productId, int quantity) {
+        if (repository.decreaseStockIfAvailable(productId, quantity) == 1) {
+            return;
+        }
+        int available = repository.findActiveStockById(productId)
+                .orElseThrow(() -> new ProductInactiveException(productId));
+        log.info("Stock insuficiente para el producto {}: disponible {}, solicitado {}", productId, available, quantity);
+        throw new InsufficientStockException(productId, available, quantity);
+    }
+
+    /**
+     * Devuelve al stock las cantidades de las compras indicadas con una única sentencia UPDATE.
+     *
+     * Como {@link #reserveStock}, no modifica las entidades gestionadas: una cancelación no compite por la versión
+     * del producto con otras compras o con la edición del catálogo.
+     *
+     * @param purchaseIds compras cuyas cantidades se devuelven
+     */
+    @Transactional
+    public void restoreStockForPurchases(Collection<Long> purchaseIds) {
+        repository.restoreStockForPurchases(purchaseIds);
+    }
+
+    /**
+     * Invalida las entradas del catálogo afectadas por un cambio de stock hecho fuera de este servicio.
+     *
+     * @param productIds productos cuyo stock ha cambiado
+     */
+    public void onStockChanged(Collection<Long> productIds) {
+        catalogCache.evictStock(productIds);
+    }
+
+    /**
+     * Suma los artículos de una compra recién pagada a los rankings de más vendidos cuando se confirme la
+     * transacción.
+     *
+     * @param purchase compra pagada, con sus artículos y productos cargados
+     */
+    public void onPurchasePaid(Purchase purchase) {
+        List<ProductSalesTotal> sales = new ArrayList<>(purchase.getItems().size());
+        for (PurchaseItem item : purchase.getItems()) {
+            Product product = item.getProduct();
+            sales.add(new ProductSalesTotal(
+                    product.getId(),
+                    product.getName(),
+                    product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.isActive(),
+                    (long) item.getQuantity()
+            ));
+        }
+        TransactionCallbacks.afterCommit(() -> topSelling.recordSales(sales));
+    }
+
+    private Page<ProductResponse> loadActivePage(Pageable safePageable, Long categoryId, String name) {
         // Si ambos filtros son null, devolver todos
         if (categoryId == null && (name == null || name.isBlank())) {
             return repository.findAllByActiveTrue(safePageable).map(ProductResponse::from);
@@ -123,14 +364,34 @@ public class ProductService {
             return repository.findAllByCategoryIdAndActiveTrue(categoryId, safePageable).map(ProductResponse::from);
         }
         
-        // Solo nombre
+        // Nombre, con o sin categoría
+        if (categoryId != null) {
+            categoryService.getEntityById(categoryId);
+        }
+        return findByName(name, categoryId, true, safePageable).map(ProductResponse::from);
+    }
+
+    /**
+     * Filtra por nombre resolviendo los candidatos en el índice en memoria.
+     *
+     * Si el índice no está cargado o la búsqueda es demasiado amplia se usa la consulta LIKE original.
+     */
+    private Page<Product> findByName(String name, Long categoryId, boolean activeOnly, Pageable pageable) {
+        Optional<List<Long>> ids = nameIndex.search(name, categoryId, activeOnly);
+        if (ids.isPresent()) {
+            if (ids.get().isEmpty()) {
+                return Page.empty(pageable);
+            }
+            return repository.findByIdInAndNameContainsIgnoreCase(ids.get(), name, categoryId, activeOnly, pageable);
+        }
         if (categoryId == null) {
-            return repository.findByNameContainsIgnoreCaseAndActiveTrue(name, safePageable).map(ProductResponse::from);
+            return activeOnly
+                    ? repository.findByNameContainsIgnoreCaseAndActiveTrue(name, pageable)
+                    : repository.findByNameContainsIgnoreCase(name, pageable);
         }
-        
-        // Ambos filtros
-        categoryService.getEntityById(categoryId);
-        return repository.findByCategoryIdAndNameContainsIgnoreCaseAndActiveTrue(categoryId, name, safePageable).map(ProductResponse::from);
+        return activeOnly
+                ? repository.findByCategoryIdAndNameContainsIgnoreCaseAndActiveTrue(categoryId, name, pageable)
+                : repository.findByCategoryIdAndNameContainsIgnoreCase(categoryId, name, pageable);
     }
 
     public Page<ProductResponse> getAll(Pageable pageable, Long categoryId, String name) {
@@ -154,7 +415,7 @@ public class ProductService {
         // Solo nombre
         if (categoryId == null) {
             if (admin) {
-                return repository.findByNameContainsIgnoreCase(name, safePageable).map(ProductResponse::from);
+                return findByName(name, null, false, safePageable).map(ProductResponse::from);
             }
             return getAllActiveCached(safePageable, null, name);
         }
@@ -169,17 +430,67 @@ public class ProductService {
 
         // Ambos filtros
         if (admin) {
-            return repository.findByCategoryIdAndNameContainsIgnoreCase(categoryId, name, safePageable).map(ProductResponse::from);
+            return findByName(name, categoryId, false, safePageable).map(ProductResponse::from);
         }
         return getAllActiveCached(safePageable, categoryId, name);
     }
 
-    public Page<ProductSalesResponse> getTopSelling(Pageable pageable) {
+    /**
+     * Lista productos en modo cursor (paginación por clave), con los mismos filtros y reglas de visibilidad
+     * que {@link #getAll}.
+     *
+     * @param cursor cursor de la página anterior; vacío para la primera
+     * @param size tamaño de página solicitado
+     * @param sort ordenación (name o price; el ID se añade como desempate)
+     * @param categoryId filtro de categoría opcional
+     * @param name filtro de nombre opcional
+     * @return página con el cursor siguiente
+     */
+    public CursorPage<ProductResponse> getAllByCursor(String cursor, int size, Sort sort, Long categoryId, String name) {
+        KeysetPagination.Request request = CURSOR.request(cursor, size, sort, paginationProperties.maxPageSize());
+        Authentication auth = SecurityUtils.optionalAuthentication();
+        boolean admin = auth != null && SecurityUtils.isAdmin(auth);
+        boolean byName = name != null && !name.isBlank();
+        if (categoryId != null) {
+            categoryService.getEntityById(categoryId);
+        }
+
+        Window<Product> window;
+        if (categoryId == null && !byName) {
+            window = admin
+                    ? repository.findAllBy(request.position(), request.limit(), request.sort())
+                    : repository.findByActiveTrue(request.position(), request.limit(), request.sort());
+        } else if (categoryId == null) {
+            window = admin
+                    ? repository.findByNameContainingIgnoreCase(name, request.position(), request.limit(), request.sort())
+                    : repository.findByNameContainingIgnoreCaseAndActiveTrue(name, request.position(), request.limit(), request.sort());
+        } else if (!byName) {
+            window = admin
+                    ? repository.findByCategoryId(categoryId, request.position(), request.limit(), request.sort())
+                    : repository.findByCategoryIdAndActiveTrue(categoryId, request.position(), request.limit(), request.sort());
+        } else {
+            window = admin
+                    ? repository.findByCategoryIdAndNameContainingIgnoreCase(
+                            categoryId, name, request.position(), request.limit(), request.sort())
+                    : repository.findByCategoryIdAndNameContainingIgnoreCaseAndActiveTrue(
+                            categoryId, name, request.position(), request.limit(), request.sort());
+        }
+        return CURSOR.page(window, request, ProductResponse::from);
+    }
+
+    /**
+     * Ranking de productos más vendidos (compras PAGADAS) de una ventana, servido desde memoria.
+     *
+     * @param pageable página solicitada; la ordenación es siempre por unidades vendidas
+     * @param window ventana temporal
+     * @param categoryId filtro de categoría opcional
+     * @return página del ranking; los no administradores solo ven productos activos
+     */
+    public Page<ProductSalesResponse> getTopSelling(Pageable pageable, SalesWindow window, Long categoryId) {
         Pageable safePageable = PageableUtils.safe(pageable, paginationProperties.maxPageSize());
         Authentication auth = SecurityUtils.optionalAuthentication();
-        return auth != null && SecurityUtils.isAdmin(auth)
-                ? repository.findTopSellingByStatus(PurchaseStatus.PAID, safePageable)
-                : repository.findTopSellingByStatusAndActiveTrue(PurchaseStatus.PAID, safePageable);
+        boolean activeOnly = auth == null || !SecurityUtils.isAdmin(auth);
+        return topSelling.top(window, categoryId, activeOnly, safePageable);
     }
 
     @Transactional
@@ -192,6 +503,7 @@ public class ProductService {
         }
         
         Product product = getEntityById(id);
+        ProductCatalogCache.CatalogState previous = catalogState(product);
         Category category = categoryService.getEntityById(request.categoryId());
         product.update(
                 request.name(),
@@ -201,9 +513,11 @@ public class ProductService {
                 category
         );
         if (request.imageBase64() != null && !request.imageBase64().isBlank()) {
-            product.setImage(decodeImageBase64(request.imageBase64()));
+            storeImage(product, decodeImageBase64(request.imageBase64()));
         }
         Product updated = repository.save(product);
+        catalogCache.evictProduct(id, List.of(previous, catalogState(updated)));
+        reindex(product);
         log.info("Producto actualizado con éxito: {}", id);
         return ProductResponse.from(updated);
     }
@@ -218,6 +532,8 @@ public class ProductService {
             product.disable();
         }
         repository.save(product);
+        catalogCache.evictProduct(id, List.of(catalogState(product)));
+        reindex(product);
         log.info("Estado activo del producto {} actualizado", id);
     }
 
@@ -230,10 +546,54 @@ public class ProductService {
             log.info("El producto {} tiene compras, desactivando en lugar de eliminar", id);
             product.disable();
             repository.save(product);
+            reindex(product);
         } else {
             log.info("El producto {} no tiene compras, realizando eliminación física", id);
+            thumbnailService.deleteVariants(id);
+            imageRepository.deleteById(id);
             repository.delete(product);
+            TransactionCallbacks.afterCommit(() -> nameIndex.remove(id));
         }
+        catalogCache.evictProduct(id, List.of(catalogState(product)));
+    }
+
+    /**
+     * Guarda o reemplaza la imagen del producto y actualiza su versión en la fila del producto.
+     *
+     * @param product producto ya persistido
+     * @param image bytes validados de la imagen
+     */
+    private void storeImage(Product product, byte[] image) {
+        ProductImage stored = imageRepository.findById(product.getId()).orElse(null);
+        if (stored == null) {
+            stored = new ProductImage(product, image);
+            imageRepository.save(stored);
+        } else {
+            stored.replace(image);
+        }
+        product.setImageHash(stored.getHash());
+        Long productId = product.getId();
+        TransactionCallbacks.afterCommit(() -> thumbnailService.scheduleGeneration(productId));
+    }
+
+    private void reindex(Product product) {
+        ProductNameEntry entry = new ProductNameEntry(
+                product.getId(),
+                product.getName(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.isActive()
+        );
+        TransactionCallbacks.afterCommit(() -> {
+            nameIndex.put(entry);
+            topSelling.updateProduct(entry);
+        });
+    }
+
+    private static ProductCatalogCache.CatalogState catalogState(Product product) {
+        return new ProductCatalogCache.CatalogState(
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getName()
+        );
     }
 
     private byte[] decodeImageBase64(String imageBase64) {
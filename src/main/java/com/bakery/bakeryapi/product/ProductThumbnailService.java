@@ -0,0 +1,348 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.domain.ImageVariantSize;
+import com.bakery.bakeryapi.domain.ProductImageVariant;
+import com.bakery.bakeryapi.infra.config.ThumbnailProperties;
+import com.bakery.bakeryapi.repository.ProductImageRepository;
+import com.bakery.bakeryapi.repository.ProductImageVariantRepository;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import com.bakery.bakeryapi.shared.dto.ImageContent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Genera y sirve miniaturas de las imágenes de producto.
+ *
+ * La generación usa solo {@code javax.imageio} y se ejecuta en un ejecutor acotado, fuera del hilo de la
+ * petición. Las entradas PNG producen PNG (conservan la transparencia) y el resto JPEG. Los formatos sin
+ * lector en el JDK (WebP) no generan miniaturas y se sirve la imagen original.
+ *
+ * Solo la lectura de la imagen y la escritura de las variantes abren transacción (cada una corta): la
+ * decodificación, el escalado y la codificación no retienen una conexión del pool. Los flujos de ImageIO se crean
+ * en memoria, sin caché en disco.
+ */
+@Service
+public class ProductThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductThumbnailService.class);
+
+    // Evita descomprimir imágenes enormes en memoria (un PNG de 5MB puede declarar decenas de miles de píxeles de lado).
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ProductRepository productRepository;
+    private final ProductImageRepository imageRepository;
+    private final ProductImageVariantRepository variantRepository;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThumbnailProperties properties;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+    private final Timer generationTimer;
+    private final Counter rejectedCounter;
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    public ProductThumbnailService(
+            ProductRepository productRepository,
+            ProductImageRepository imageRepository,
+            ProductImageVariantRepository variantRepository,
+            PlatformTransactionManager transactionManager,
+            ThumbnailProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.productRepository = productRepository;
+        this.imageRepository = imageRepository;
+        this.variantRepository = variantRepository;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.generationTimer = Timer.builder("product.thumbnail.generation")
+                .description("Tiempo de generación de las miniaturas de una imagen de producto")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("product.thumbnail.rejected")
+                .description("Tareas de miniaturas descartadas por cola llena")
+                .register(meterRegistry);
+        this.executor = new ThreadPoolExecutor(
+                properties.threads(),
+                properties.threads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                queue,
+                Thread.ofPlatform().name("thumbnails-", 0).daemon(true).factory(),
+                (task, pool) -> {
+                    // No bloquear al llamador: el relleno recupera después los productos sin miniaturas.
+                    rejectedCounter.increment();
+                    throw new RejectedExecutionException("Cola de miniaturas llena");
+                }
+        );
+        Gauge.builder("product.thumbnail.queue.depth", queue, BlockingQueue::size)
+                .description("Tareas de miniaturas pendientes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola la generación de miniaturas de un producto.
+     *
+     * Debe llamarse tras confirmar la transacción que guardó la imagen.
+     *
+     * @param productId ID del producto
+     */
+    public void scheduleGeneration(Long productId) {
+        try {
+            executor.execute(() -> generate(productId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Cola de miniaturas llena; el producto {} queda pendiente para el relleno", productId);
+        }
+    }
+
+    /**
+     * Lanza en segundo plano la generación de miniaturas para todos los productos que no las tienen.
+     *
+     * @return {@code false} si ya hay un relleno en curso o la cola está llena
+     */
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runBackfill();
+                } finally {
+                    backfillRunning.set(false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            backfillRunning.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * Devuelve el hash de una miniatura vigente sin cargar sus bytes.
+     *
+     * @param productId ID del producto
+     * @param size tamaño solicitado
+     * @param sourceHash hash de la imagen original actual
+     * @return hash de la miniatura, o vacío si aún no existe para esta versión de la imagen
+     */
+    public Optional<String> findVariantHash(Long productId, ImageVariantSize size, String sourceHash) {
+        return variantRepository.findCurrentHash(productId, size, sourceHash);
+    }
+
+    /**
+     * Carga una miniatura vigente.
+     *
+     * @param productId ID del producto
+     * @param size tamaño solicitado
+     * @param sourceHash hash de la imagen original actual
+     * @return miniatura, o vacío si aún no existe para esta versión de la imagen
+     */
+    public Optional<ImageContent> findVariant(Long productId, ImageVariantSize size, String sourceHash) {
+        return variantRepository.findByProductIdAndSize(productId, size)
+                .filter(variant -> variant.getSourceHash().equals(sourceHash))
+                .map(variant -> new ImageContent(variant.getData(), variant.getContentType(), variant.getHash()));
+    }
+
+    /**
+     * Elimina las miniaturas de un producto. Debe llamarse dentro de la transacción que elimina el producto.
+     *
+     * @param productId ID del producto
+     */
+    public void deleteVariants(Long productId) {
+        variantRepository.deleteByProductId(productId);
+    }
+
+    void generate(Long productId) {
+        Timer.Sample sample = Timer.start();
+        try {
+            generateVariants(productId);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron generar las miniaturas del producto {}", productId, e);
+        } finally {
+            sample.stop(generationTimer);
+        }
+    }
+
+    private void generateVariants(Long productId) {
+        SourceImage image = readTemplate.execute(status -> imageRepository.findById(productId)
+                .map(stored -> new SourceImage(stored.getData(), stored.getContentType(), stored.getHash()))
+                .orElse(null));
+        if (image == null) {
+            return;
+        }
+        BufferedImage source = read(image.data());
+        if (source == null) {
+            log.debug("Imagen del producto {} sin lector disponible ({}); se servirá la original",
+                    productId, image.contentType());
+            return;
+        }
+        boolean png = "image/png".equals(image.contentType());
+        Map<ImageVariantSize, byte[]> encoded = new EnumMap<>(ImageVariantSize.class);
+        for (ImageVariantSize size : ImageVariantSize.values()) {
+            encoded.put(size, encode(scale(source, size.getMaxDimension(), png), png));
+        }
+        transactionTemplate.executeWithoutResult(status -> store(productId, image.hash(), encoded, png));
+    }
+
+    private void store(Long productId, String sourceHash, Map<ImageVariantSize, byte[]> encoded, boolean png) {
+        // La imagen puede haberse sustituido o borrado mientras se codificaba; su propia tarea generará las nuevas.
+        if (!productRepository.findImageHashById(productId).map(sourceHash::equals).orElse(false)) {
+            log.debug("Imagen del producto {} sustituida durante la generación; se descartan las miniaturas", productId);
+            return;
+        }
+        encoded.forEach((size, data) -> {
+            ProductImageVariant variant = variantRepository.findByProductIdAndSize(productId, size)
+                    .orElseGet(() -> new ProductImageVariant(productRepository.getReferenceById(productId), size));
+            variant.replace(data, png ? "image/png" : "image/jpeg", sourceHash);
+            variantRepository.save(variant);
+        });
+        log.debug("Miniaturas generadas para el producto {}", productId);
+    }
+
+    private void runBackfill() {
+        log.info("Iniciando relleno de miniaturas de productos");
+        long afterId = 0;
+        int processed = 0;
+        while (true) {
+            List<Long> ids = imageRepository.findIdsMissingVariants(
+                    afterId,
+                    ImageVariantSize.values().length,
+                    PageRequest.of(0, properties.backfillBatchSize())
+            );
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                generate(id);
+            }
+            processed += ids.size();
+            afterId = ids.getLast();
+            log.info("Relleno de miniaturas: {} productos procesados", processed);
+        }
+        log.info("Relleno de miniaturas finalizado: {} productos procesados", processed);
+    }
+
+    private static BufferedImage read(byte[] data) {
+        try (ImageInputStream in = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS) {
+                    log.warn("Imagen demasiado grande para generar miniaturas: {}x{}", reader.getWidth(0), reader.getHeight(0));
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer la imagen", e);
+        }
+    }
+
+    static BufferedImage scale(BufferedImage source, int maxDimension, boolean alpha) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        // Reducir a la mitad en varios pasos evita el aliasing de un único escalado bilineal grande.
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height, alpha);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            if (!alpha) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    static byte[] encode(BufferedImage image, boolean png) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(png ? "png" : "jpeg").next();
+        try (ImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!png) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo codificar la miniatura", e);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private record SourceImage(byte[] data, String contentType, String hash) {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
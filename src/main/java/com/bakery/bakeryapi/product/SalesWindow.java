@@ -0,0 +1,55 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.product.exception.InvalidSalesWindowException;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Ventanas temporales de los rankings de productos más vendidos, contadas hacia atrás desde ahora.
+ */
+public enum SalesWindow {
+    LAST_24_HOURS("24h", Duration.ofHours(24)),
+    LAST_7_DAYS("7d", Duration.ofDays(7)),
+    LAST_30_DAYS("30d", Duration.ofDays(30)),
+    ALL_TIME("all", null);
+
+    private final String code;
+    private final Duration length;
+
+    SalesWindow(String code, Duration length) {
+        this.code = code;
+        this.length = length;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    /**
+     * @return duración de la ventana, o {@code null} para el histórico completo
+     */
+    public Duration length() {
+        return length;
+    }
+
+    /**
+     * Interpreta el parámetro {@code window} sin distinguir mayúsculas.
+     *
+     * @param value valor recibido (24h, 7d, 30d o all); {@code null} equivale al histórico completo
+     * @return ventana solicitada
+     * @throws InvalidSalesWindowException si la ventana no existe
+     */
+    public static SalesWindow from(String value) {
+        if (value == null || value.isBlank()) {
+            return ALL_TIME;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        for (SalesWindow window : values()) {
+            if (window.code.equals(normalized)) {
+                return window;
+            }
+        }
+        throw new InvalidSalesWindowException(value);
+    }
+}
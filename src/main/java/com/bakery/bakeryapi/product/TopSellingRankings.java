@@ -0,0 +1,226 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.product.dto.ProductSalesResponse;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rankings en memoria de productos más vendidos por ventana temporal (24h, 7d, 30d, histórico).
+ *
+ * Cada ranking guarda las unidades vendidas por producto en conjuntos ordenados (unidades desc, ID asc): uno
+ * global y uno por categoría, con y sin productos inactivos. Una página de k elementos se sirve recorriendo los
+ * primeros elementos del conjunto, sin consultar la base de datos.
+ *
+ * Los pagos confirmados en esta instancia se suman al momento; además, los rankings se recalculan desde la base de
+ * datos al arrancar y cada {@code app.top-selling.reconcile-interval}. Esa es la cota de desactualización: las
+ * ventas que salen de una ventana, las de otras instancias y las que llegan mientras se recalcula se reflejan como
+ * mucho en ese tiempo.
+ */
+@Component
+public class TopSellingRankings {
+
+    private static final Logger log = LoggerFactory.getLogger(TopSellingRankings.class);
+    private static final Clock CLOCK_UTC = Clock.systemUTC();
+
+    private static final Comparator<ProductSalesTotal> ORDER = Comparator
+            .comparing(ProductSalesTotal::quantity, Comparator.reverseOrder())
+            .thenComparing(ProductSalesTotal::productId);
+
+    // Intervalo del bean TopSellingProperties (con el nombre que le da @ConfigurationPropertiesScan), para que la
+    // tarea use el mismo valor por defecto y la misma validación que el resto de la configuración.
+    private static final String RECONCILE_INTERVAL_MS = "#{@'app.top-selling-com.bakery.bakeryapi.infra.config"
+            + ".TopSellingProperties'.reconcileInterval().toMillis()}";
+
+    private final ProductRepository repository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconcileMonitor = new Object();
+
+    // Se modifica con el candado de escritura; null hasta la primera carga (volatile para comprobarlo sin candado).
+    private volatile Map<SalesWindow, Ranking> rankings;
+
+    public TopSellingRankings(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Recalcula todos los rankings desde la base de datos y sustituye los actuales.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = RECONCILE_INTERVAL_MS, initialDelayString = RECONCILE_INTERVAL_MS)
+    public void reconcile() {
+        synchronized (reconcileMonitor) {
+            LocalDateTime now = LocalDateTime.now(CLOCK_UTC);
+            Map<SalesWindow, Ranking> built = new EnumMap<>(SalesWindow.class);
+            try {
+                for (SalesWindow window : SalesWindow.values()) {
+                    List<ProductSalesTotal> totals = window.length() == null
+                            ? repository.findAllTimeSalesTotals()
+                            : repository.findSalesTotalsSince(PurchaseStatus.PAID, now.minus(window.length()));
+                    built.put(window, Ranking.of(totals));
+                }
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron recalcular los rankings de productos más vendidos", e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                rankings = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Rankings de productos más vendidos recalculados");
+        }
+    }
+
+    /**
+     * Suma ventas recién confirmadas a todas las ventanas.
+     *
+     * @param sales unidades vendidas por producto, con los datos actuales de cada producto
+     */
+    public void recordSales(Collection<ProductSalesTotal> sales) {
+        lock.writeLock().lock();
+        try {
+            if (rankings != null) {
+                rankings.values().forEach(ranking -> sales.forEach(ranking::add));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Actualiza nombre, categoría y estado de un producto ya presente en los rankings.
+     *
+     * @param product estado actual del producto
+     */
+    public void updateProduct(ProductNameEntry product) {
+        lock.writeLock().lock();
+        try {
+            if (rankings != null) {
+                rankings.values().forEach(ranking -> ranking.update(product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve una página del ranking de una ventana.
+     *
+     * @param window ventana temporal
+     * @param categoryId filtro de categoría opcional
+     * @param activeOnly si solo se incluyen productos activos
+     * @param pageable página solicitada (la ordenación es siempre por unidades vendidas)
+     * @return productos de la página y total de productos con ventas
+     */
+    public Page<ProductSalesResponse> top(SalesWindow window, Long categoryId, boolean activeOnly, Pageable pageable) {
+        if (rankings == null) {
+            reconcile();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableSet<ProductSalesTotal> ranked = rankings == null
+                    ? Collections.emptyNavigableSet()
+                    : rankings.get(window).ranked(categoryId, activeOnly);
+            List<ProductSalesResponse> content = new ArrayList<>(pageable.getPageSize());
+            Iterator<ProductSalesTotal> iterator = ranked.iterator();
+            for (long skipped = 0; skipped < pageable.getOffset() && iterator.hasNext(); skipped++) {
+                iterator.next();
+            }
+            while (content.size() < pageable.getPageSize() && iterator.hasNext()) {
+                ProductSalesTotal total = iterator.next();
+                content.add(new ProductSalesResponse(total.productId(), total.name(), total.quantity()));
+            }
+            return new PageImpl<>(content, pageable, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranking de una ventana; solo se accede con el candado de {@link TopSellingRankings}.
+     */
+    private static final class Ranking {
+
+        private final Map<Long, ProductSalesTotal> byProduct = new HashMap<>();
+        private final Map<Scope, NavigableSet<ProductSalesTotal>> ranked = new HashMap<>();
+
+        static Ranking of(Collection<ProductSalesTotal> totals) {
+            Ranking ranking = new Ranking();
+            totals.forEach(ranking::put);
+            return ranking;
+        }
+
+        void add(ProductSalesTotal sale) {
+            ProductSalesTotal current = byProduct.get(sale.productId());
+            long quantity = current == null ? sale.quantity() : current.quantity() + sale.quantity();
+            put(new ProductSalesTotal(sale.productId(), sale.name(), sale.categoryId(), sale.active(), quantity));
+        }
+
+        void update(ProductNameEntry product) {
+            ProductSalesTotal current = byProduct.get(product.id());
+            if (current != null) {
+                put(new ProductSalesTotal(product.id(), product.name(), product.categoryId(), product.active(),
+                        current.quantity()));
+            }
+        }
+
+        NavigableSet<ProductSalesTotal> ranked(Long categoryId, boolean activeOnly) {
+            return ranked.getOrDefault(new Scope(categoryId, activeOnly), Collections.emptyNavigableSet());
+        }
+
+        private void put(ProductSalesTotal total) {
+            ProductSalesTotal previous = byProduct.put(total.productId(), total);
+            if (previous != null) {
+                for (Scope scope : scopes(previous)) {
+                    ranked.get(scope).remove(previous);
+                }
+            }
+            for (Scope scope : scopes(total)) {
+                ranked.computeIfAbsent(scope, ignored -> new TreeSet<>(ORDER)).add(total);
+            }
+        }
+
+        private static List<Scope> scopes(ProductSalesTotal total) {
+            List<Scope> scopes = new ArrayList<>(4);
+            scopes.add(new Scope(null, false));
+            scopes.add(new Scope(total.categoryId(), false));
+            if (total.active()) {
+                scopes.add(new Scope(null, true));
+                scopes.add(new Scope(total.categoryId(), true));
+            }
+            return scopes;
+        }
+    }
+
+    /**
+     * Conjunto ordenado de un ranking: todas las categorías ({@code categoryId} nulo) o una, con o sin inactivos.
+     */
+    private record Scope(Long categoryId, boolean activeOnly) {
+    }
+}
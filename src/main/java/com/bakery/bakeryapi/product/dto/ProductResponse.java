@@ -17,7 +17,9 @@ public record ProductResponse(
         int stock,
         boolean active,
         Long categoryId,
-        @Schema(description = "Imagen del producto en formato base64 (null si no está establecida)", type = "string")
+        @Schema(description = "URL versionada de la imagen del producto (null si no está establecida)")
+        String imageUrl,
+        @Schema(description = "Imagen del producto en formato base64; solo se rellena con includeImageBase64=true", type = "string")
         String imageBase64
 ) {
     public static ProductResponse from(Product product) {
@@ -29,9 +31,30 @@ public record ProductResponse(
                 product.getStock(),
                 product.isActive(),
                 product.getCategory() != null ? product.getCategory().getId() : null,
-                product.getImage() == null ? null : Base64.getEncoder().encodeToString(product.getImage())
+                product.getImageHash() == null
+                        ? null
+                        : "/products/" + product.getId() + "/image?v=" + product.getImageHash(),
+                null
         );
     }
-}
-
 
+    /**
+     * Devuelve una copia con la imagen incluida en Base64, para clientes que aún no usan {@code imageUrl}.
+     *
+     * @param image bytes de la imagen, o {@code null} cuando no tiene
+     * @return copia de la respuesta con {@code imageBase64} relleno
+     */
+    public ProductResponse withImageBase64(byte[] image) {
+        return new ProductResponse(
+                id,
+                name,
+                description,
+                price,
+                stock,
+                active,
+                categoryId,
+                imageUrl,
+                image == null ? null : Base64.getEncoder().encodeToString(image)
+        );
+    }
+}
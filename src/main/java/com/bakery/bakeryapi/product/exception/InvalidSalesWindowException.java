@@ -0,0 +1,14 @@
+package com.bakery.bakeryapi.product.exception;
+
+import com.bakery.bakeryapi.shared.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Se lanza cuando la ventana temporal pedida para el ranking de ventas no existe.
+ */
+public class InvalidSalesWindowException extends ApiException {
+
+    public InvalidSalesWindowException(String value) {
+        super("Ventana de ventas no admitida: " + value + " (admitidas: 24h, 7d, 30d, all)", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,65 @@
+package com.bakery.bakeryapi.promotion;
+
+import com.bakery.bakeryapi.domain.PercentagePromotion;
+import com.bakery.bakeryapi.domain.Promotion;
+import com.bakery.bakeryapi.promotion.dto.PromotionResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Copia inmutable de una promoción activa que guarda {@link ActivePromotionIndex}.
+ *
+ * @param id ID de la promoción
+ * @param description descripción
+ * @param type tipo de promoción
+ * @param startDate primer día activo
+ * @param endDate último día activo, o {@code null} si no caduca
+ * @param productId ID del producto
+ * @param productName nombre del producto al indexar
+ * @param discountPercentage porcentaje de descuento
+ * @param maxRedemptions usos máximos entre todos los usuarios, o {@code null} sin tope
+ */
+public record ActivePromotion(
+        Long id,
+        String description,
+        String type,
+        LocalDate startDate,
+        LocalDate endDate,
+        Long productId,
+        String productName,
+        BigDecimal discountPercentage,
+        Integer maxRedemptions
+) {
+
+    public static ActivePromotion from(Promotion promotion) {
+        return new ActivePromotion(
+                promotion.getId(),
+                promotion.getDescription(),
+                promotion.getType(),
+                promotion.getStartDate(),
+                promotion.getEndDate(),
+                promotion.getProduct().getId(),
+                promotion.getProduct().getName(),
+                promotion.getDiscountPercentage(),
+                promotion.getMaxRedemptions()
+        );
+    }
+
+    /**
+     * Calcula el descuento de una línea igual que {@link Promotion#calculateDiscountAmount(BigDecimal, int)}.
+     *
+     * @param unitPrice precio unitario del producto
+     * @param quantity cantidad solicitada
+     * @return importe de descuento antes de la normalización final
+     */
+    public BigDecimal calculateDiscountAmount(BigDecimal unitPrice, int quantity) {
+        // Este proyecto solo expone promociones de porcentaje.
+        return PercentagePromotion.discountAmount(discountPercentage, unitPrice, quantity);
+    }
+
+    public PromotionResponse toResponse() {
+        return new PromotionResponse(id, description, type, startDate, endDate, true, productId, productName,
+                discountPercentage, maxRedemptions);
+    }
+}
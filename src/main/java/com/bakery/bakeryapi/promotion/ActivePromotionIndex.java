@@ -0,0 +1,307 @@
+package com.bakery.bakeryapi.promotion;
+
+import com.bakery.bakeryapi.repository.PromotionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de las promociones activas por producto y fecha.
+ *
+ * Por cada producto guarda dos arrays ordenados por fecha de inicio: las promociones sin fecha de fin y las que
+ * tienen una, estas últimas con el máximo acumulado de fechas de fin. Para una fecha, una búsqueda binaria da las
+ * promociones ya empezadas; las abiertas valen todas y las acotadas se recorren hacia atrás hasta que el máximo
+ * acumulado queda antes de la fecha, sin mirar las que ya terminaron hace tiempo.
+ *
+ * Solo contiene promociones con la bandera activa. Se reconstruye al arrancar, a medianoche (para descartar las
+ * caducadas) y cada {@code app.promotion-index.refresh-interval}, y se actualiza tras la confirmación de cada
+ * alta o cambio de estado de esta instancia.
+ */
+@Component
+public class ActivePromotionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivePromotionIndex.class);
+
+    // Intervalo leído del bean PromotionIndexProperties, no de la propiedad en bruto.
+    private static final String REFRESH_INTERVAL_MS = "#{@'app.promotion-index-com.bakery.bakeryapi.infra.config"
+            + ".PromotionIndexProperties'.refreshInterval().toMillis()}";
+
+    private final PromotionRepository repository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+
+    // Protegidos por lock. byProduct es null hasta la primera carga; pending no es null durante una reconstrucción
+    // y guarda altas y bajas en orden de llegada, para que una baja seguida de un alta de la misma promoción (o al
+    // revés) deje el mismo resultado que sin reconstrucción.
+    private Map<Long, ProductPromotions> byProduct;
+    private Map<Long, Long> productByPromotion;
+    private List<Runnable> pending;
+
+    public ActivePromotionIndex(PromotionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Reconstruye el índice desde la base de datos, sin las promociones ya caducadas.
+     *
+     * Las escrituras que llegan mientras se lee la tabla se guardan y se vuelven a aplicar, en el orden en que
+     * llegaron, sobre el índice nuevo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * *")
+    @Scheduled(fixedDelayString = REFRESH_INTERVAL_MS, initialDelayString = REFRESH_INTERVAL_MS)
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<ActivePromotion> promotions;
+            try {
+                promotions = repository.findAllActiveFrom(LocalDate.now()).stream()
+                        .map(ActivePromotion::from)
+                        .toList();
+            } catch (RuntimeException e) {
+                log.warn("No se pudo reconstruir el índice de promociones activas", e);
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                replace(promotions);
+                pending.forEach(Runnable::run);
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Índice de promociones activas reconstruido con {} promociones", promotions.size());
+        }
+    }
+
+    /**
+     * Sustituye el contenido del índice por las promociones dadas, sin consultar la base de datos.
+     *
+     * @param promotions promociones activas
+     */
+    public void load(Collection<ActivePromotion> promotions) {
+        lock.writeLock().lock();
+        try {
+            replace(promotions);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserta o reemplaza una promoción activa.
+     *
+     * @param promotion estado actual de la promoción
+     */
+    public void put(ActivePromotion promotion) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(() -> apply(promotion));
+            }
+            if (byProduct != null) {
+                apply(promotion);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita una promoción desactivada.
+     *
+     * @param promotionId ID de la promoción
+     */
+    public void remove(Long promotionId) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(() -> unapply(promotionId));
+            }
+            if (byProduct != null) {
+                unapply(promotionId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve las promociones de un producto activas en una fecha.
+     *
+     * @param productId ID del producto
+     * @param date fecha a evaluar
+     * @return promociones activas, o vacío si el índice aún no está cargado (el llamador debe consultar la base
+     *         de datos)
+     */
+    public Optional<List<ActivePromotion>> activeOn(Long productId, LocalDate date) {
+        lock.readLock().lock();
+        try {
+            if (byProduct == null) {
+                return Optional.empty();
+            }
+            ProductPromotions promotions = byProduct.get(productId);
+            return Optional.of(promotions == null ? List.of() : promotions.activeOn(date));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve las promociones de todos los productos activas en una fecha.
+     *
+     * @param date fecha a evaluar
+     * @return promociones activas, o vacío si el índice aún no está cargado
+     */
+    public Optional<List<ActivePromotion>> allActiveOn(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            if (byProduct == null) {
+                return Optional.empty();
+            }
+            List<ActivePromotion> active = new ArrayList<>();
+            byProduct.values().forEach(promotions -> active.addAll(promotions.activeOn(date)));
+            return Optional.of(active);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void replace(Collection<ActivePromotion> promotions) {
+        Map<Long, List<ActivePromotion>> grouped = new HashMap<>();
+        Map<Long, Long> products = new HashMap<>();
+        for (ActivePromotion promotion : promotions) {
+            grouped.computeIfAbsent(promotion.productId(), ignored -> new ArrayList<>()).add(promotion);
+            products.put(promotion.id(), promotion.productId());
+        }
+        Map<Long, ProductPromotions> built = new HashMap<>();
+        grouped.forEach((productId, list) -> built.put(productId, ProductPromotions.of(list)));
+        byProduct = built;
+        productByPromotion = products;
+    }
+
+    private void apply(ActivePromotion promotion) {
+        unapply(promotion.id());
+        List<ActivePromotion> list = new ArrayList<>();
+        ProductPromotions current = byProduct.get(promotion.productId());
+        if (current != null) {
+            list.addAll(current.all());
+        }
+        list.add(promotion);
+        byProduct.put(promotion.productId(), ProductPromotions.of(list));
+        productByPromotion.put(promotion.id(), promotion.productId());
+    }
+
+    private void unapply(Long promotionId) {
+        Long productId = productByPromotion.remove(promotionId);
+        if (productId == null) {
+            return;
+        }
+        List<ActivePromotion> list = new ArrayList<>(byProduct.get(productId).all());
+        list.removeIf(promotion -> promotion.id().equals(promotionId));
+        if (list.isEmpty()) {
+            byProduct.remove(productId);
+        } else {
+            byProduct.put(productId, ProductPromotions.of(list));
+        }
+    }
+
+    /**
+     * Promociones activas de un producto; inmutable, se sustituye entera en cada cambio.
+     */
+    private static final class ProductPromotions {
+
+        private static final Comparator<ActivePromotion> BY_START = Comparator
+                .comparing(ActivePromotion::startDate)
+                .thenComparing(ActivePromotion::id);
+
+        private final ActivePromotion[] openEnded;
+        private final ActivePromotion[] bounded;
+        // maxEnd[i] es la fecha de fin más tardía de bounded[0..i].
+        private final LocalDate[] maxEnd;
+
+        private ProductPromotions(ActivePromotion[] openEnded, ActivePromotion[] bounded) {
+            this.openEnded = openEnded;
+            this.bounded = bounded;
+            this.maxEnd = new LocalDate[bounded.length];
+            for (int i = 0; i < bounded.length; i++) {
+                LocalDate end = bounded[i].endDate();
+                maxEnd[i] = i > 0 && maxEnd[i - 1].isAfter(end) ? maxEnd[i - 1] : end;
+            }
+        }
+
+        static ProductPromotions of(Collection<ActivePromotion> promotions) {
+            ActivePromotion[] openEnded = promotions.stream()
+                    .filter(promotion -> promotion.endDate() == null)
+                    .sorted(BY_START)
+                    .toArray(ActivePromotion[]::new);
+            ActivePromotion[] bounded = promotions.stream()
+                    .filter(promotion -> promotion.endDate() != null)
+                    .sorted(BY_START)
+                    .toArray(ActivePromotion[]::new);
+            return new ProductPromotions(openEnded, bounded);
+        }
+
+        List<ActivePromotion> all() {
+            List<ActivePromotion> all = new ArrayList<>(openEnded.length + bounded.length);
+            all.addAll(List.of(openEnded));
+            all.addAll(List.of(bounded));
+            return all;
+        }
+
+        List<ActivePromotion> activeOn(LocalDate date) {
+            List<ActivePromotion> active = new ArrayList<>();
+            int started = startedBy(openEnded, date);
+            for (int i = 0; i < started; i++) {
+                active.add(openEnded[i]);
+            }
+            for (int i = startedBy(bounded, date) - 1; i >= 0 && !maxEnd[i].isBefore(date); i--) {
+                if (!bounded[i].endDate().isBefore(date)) {
+                    active.add(bounded[i]);
+                }
+            }
+            return active;
+        }
+
+        // Número de promociones del array con fecha de inicio anterior o igual a la fecha.
+        private static int startedBy(ActivePromotion[] sorted, LocalDate date) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid].startDate().isAfter(date)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.bakery.bakeryapi.shared.dto.ActiveUpdateRequest;
 import com.bakery.bakeryapi.promotion.dto.PercentagePromotionRequest;
 import com.bakery.bakeryapi.promotion.dto.PromotionResponse;
 import com.bakery.bakeryapi.promotion.PromotionService;
+import com.bakery.bakeryapi.shared.dto.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,6 +14,8 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -59,6 +62,28 @@ public class PromotionController {
         return ResponseEntity.ok(service.getAll(pageable));
     }
 
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Listar promociones (modo cursor)", description = """
+            Solo para administradores. Paginación por clave: se envía cursor (vacío en la primera petición) y la
+            respuesta incluye nextCursor (null al llegar al final), sin total. Ordenación admitida: sort=id o
+            sort=startDate (asc/desc), que debe mantenerse entre páginas.
+            """)
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "400", description = "Cursor u ordenación no válidos"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "403", description = "Prohibido")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<PromotionResponse>> getAllByCursor(
+            @Parameter(description = "Cursor devuelto en nextCursor; vacío para la primera página") @RequestParam String cursor,
+            @Parameter(description = "Elementos por página") @RequestParam(defaultValue = "20") int size,
+            @SortDefault(sort = "id") Sort sort
+    ) {
+        return ResponseEntity.ok(service.getAllByCursor(cursor, size, sort));
+    }
+
     @GetMapping("/active")
     @Operation(
             summary = "Listar promociones activas para un producto",
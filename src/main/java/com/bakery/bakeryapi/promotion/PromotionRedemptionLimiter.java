@@ -0,0 +1,226 @@
+package com.bakery.bakeryapi.promotion;
+
+import com.bakery.bakeryapi.infra.config.PromotionRedemptionProperties;
+import com.bakery.bakeryapi.promotion.exception.PromotionSoldOutException;
+import com.bakery.bakeryapi.repository.PromotionRedemptionsRepository;
+import com.bakery.bakeryapi.repository.PromotionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reparte los usos de las promociones con tope global ({@code maxRedemptions}) sin serializar las compras en
+ * una fila.
+ *
+ * Cada instancia reserva permisos en bloques de {@code leaseSize} con un UPDATE condicional sobre
+ * {@code promotion_redemptions} ({@code reserved + n <= max}) y los reparte en memoria con un
+ * {@link RedemptionPool} por promoción. Cuando quedan menos permisos que un bloque, se reservan de uno en uno con el
+ * mismo UPDATE, que es la referencia: la suma de lo reservado por todas las instancias nunca supera el tope, así
+ * que los usos tampoco. Si no queda ninguno, la promoción se da por agotada en esta instancia hasta el siguiente
+ * checkpoint.
+ *
+ * Los permisos se toman antes de abrir la transacción de la compra y se devuelven al reparto si la compra falla o
+ * se cancela después. En cada checkpoint (y al parar) los permisos reservados y no usados vuelven a la base de
+ * datos para que otras instancias puedan usarlos; si una instancia cae sin hacerlo, se pierden como mucho
+ * {@code leaseSize} usos por promoción.
+ */
+@Component
+public class PromotionRedemptionLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionRedemptionLimiter.class);
+
+    // Valor en caché para las promociones sin tope.
+    private static final int UNCAPPED = 0;
+
+    private final PromotionRepository promotionRepository;
+    private final PromotionRedemptionsRepository redemptionsRepository;
+    private final PromotionRedemptionProperties properties;
+    private final Cache<Long, Integer> caps;
+    private final Map<Long, RedemptionPool> pools = new ConcurrentHashMap<>();
+    private final Counter blockLeases;
+    private final Counter singleLeases;
+    private final Counter rejected;
+
+    public PromotionRedemptionLimiter(
+            PromotionRepository promotionRepository,
+            PromotionRedemptionsRepository redemptionsRepository,
+            PromotionRedemptionProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.promotionRepository = promotionRepository;
+        this.redemptionsRepository = redemptionsRepository;
+        this.properties = properties;
+        // El tope no cambia tras crear la promoción, así que no caduca.
+        this.caps = Caffeine.newBuilder()
+                .maximumSize(properties.maxCachedCaps())
+                .build();
+        this.blockLeases = leaseCounter("block", meterRegistry);
+        this.singleLeases = leaseCounter("single", meterRegistry);
+        this.rejected = Counter.builder("promotion.redemptions.rejected")
+                .description("Compras rechazadas por promoción agotada")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Crea el contador de una promoción con tope recién guardada, en la transacción actual.
+     *
+     * @param promotionId ID de la promoción
+     */
+    public void registerCounter(Long promotionId) {
+        redemptionsRepository.insertCounter(promotionId);
+    }
+
+    /**
+     * Toma un permiso de cada promoción con tope.
+     *
+     * Debe llamarse fuera de la transacción de la compra. Si alguna está agotada, se devuelven los permisos ya
+     * tomados.
+     *
+     * @param promotionIds promociones solicitadas (se ignoran las repetidas y las que no tienen tope)
+     * @return promociones de las que se ha tomado un permiso, para devolverlo con {@link #release(Collection)}
+     * @throws PromotionSoldOutException si alguna ha alcanzado su tope
+     */
+    public List<Long> acquire(Collection<Long> promotionIds) {
+        if (promotionIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> capsById = capsOf(promotionIds);
+        List<Long> acquired = new ArrayList<>();
+        for (Long promotionId : new TreeSet<>(promotionIds)) {
+            int cap = capsById.getOrDefault(promotionId, UNCAPPED);
+            if (cap == UNCAPPED) {
+                continue;
+            }
+            if (!acquireOne(promotionId, cap)) {
+                release(acquired);
+                rejected.increment();
+                throw new PromotionSoldOutException(promotionId);
+            }
+            acquired.add(promotionId);
+        }
+        return acquired;
+    }
+
+    /**
+     * Devuelve permisos al reparto de esta instancia: compras revertidas, canceladas o caducadas.
+     *
+     * @param promotionIds una entrada por uso liberado (se ignoran las promociones sin tope)
+     */
+    public void release(Collection<Long> promotionIds) {
+        if (promotionIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> capsById = capsOf(promotionIds);
+        for (Long promotionId : promotionIds) {
+            if (capsById.getOrDefault(promotionId, UNCAPPED) != UNCAPPED) {
+                RedemptionPool pool = pool(promotionId);
+                pool.giveBack();
+                pool.markExhausted(false);
+            }
+        }
+    }
+
+    /**
+     * Devuelve a la base de datos los permisos reservados y no usados, y vuelve a permitir reservar en las
+     * promociones dadas por agotadas.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.promotion-redemptions.checkpoint-interval:30s}",
+            initialDelayString = "${app.promotion-redemptions.checkpoint-interval:30s}"
+    )
+    @PreDestroy
+    public void checkpoint() {
+        pools.forEach((promotionId, pool) -> {
+            int unused;
+            synchronized (pool) {
+                unused = pool.drain();
+                pool.markExhausted(false);
+            }
+            if (unused == 0) {
+                return;
+            }
+            try {
+                redemptionsRepository.giveBack(promotionId, unused);
+            } catch (RuntimeException e) {
+                // Se quedan en memoria y se reintenta en el siguiente checkpoint.
+                pool.add(unused);
+                log.warn("No se pudieron devolver {} permisos de la promoción {}", unused, promotionId, e);
+            }
+        });
+    }
+
+    private boolean acquireOne(Long promotionId, int cap) {
+        RedemptionPool pool = pool(promotionId);
+        if (pool.tryTake()) {
+            return true;
+        }
+        if (pool.isExhausted()) {
+            return false;
+        }
+        // Un solo hilo por promoción reserva en la base de datos; los demás esperan y reparten lo que reserve.
+        synchronized (pool) {
+            if (pool.tryTake()) {
+                return true;
+            }
+            if (pool.isExhausted()) {
+                return false;
+            }
+            int leased = lease(promotionId, cap);
+            if (leased == 0) {
+                pool.markExhausted(true);
+                return false;
+            }
+            pool.add(leased - 1);
+            return true;
+        }
+    }
+
+    private int lease(Long promotionId, int cap) {
+        int block = Math.min(properties.leaseSize(), cap);
+        if (redemptionsRepository.reserve(promotionId, block, cap) == 1) {
+            blockLeases.increment();
+            return block;
+        }
+        if (block > 1 && redemptionsRepository.reserve(promotionId, 1, cap) == 1) {
+            singleLeases.increment();
+            return 1;
+        }
+        return 0;
+    }
+
+    private RedemptionPool pool(Long promotionId) {
+        return pools.computeIfAbsent(promotionId, id -> new RedemptionPool(properties.stripes()));
+    }
+
+    // Las promociones inexistentes no se guardan en caché: su ID podría asignarse después a una con tope.
+    private Map<Long, Integer> capsOf(Collection<Long> promotionIds) {
+        return caps.getAll(promotionIds, missing -> {
+            Map<Long, Integer> loaded = new HashMap<>();
+            for (RedemptionCap cap : promotionRepository.findRedemptionCaps(List.copyOf(missing))) {
+                loaded.put(cap.promotionId(), cap.maxRedemptions() == null ? UNCAPPED : cap.maxRedemptions());
+            }
+            return loaded;
+        });
+    }
+
+    private static Counter leaseCounter(String size, MeterRegistry meterRegistry) {
+        return Counter.builder("promotion.redemptions.leases")
+                .description("Reservas de permisos de uso en la base de datos")
+                .tag("size", size)
+                .register(meterRegistry);
+    }
+}
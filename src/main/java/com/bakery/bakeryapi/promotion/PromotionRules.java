@@ -45,6 +45,17 @@ public class PromotionRules {
         }
     }
 
+    /**
+     * Valida el tope global de usos, si lo hay.
+     *
+     * @param maxRedemptions usos máximos entre todos los usuarios, o {@code null} sin tope
+     */
+    public void validateMaxRedemptions(Integer maxRedemptions) {
+        if (maxRedemptions != null && maxRedemptions < 1) {
+            throw new InvalidPromotionException("maxRedemptions debe ser al menos 1");
+        }
+    }
+
     /**
      * Valida que una promoción pueda aplicarse a un producto y cantidad.
      *
@@ -54,15 +65,15 @@ public class PromotionRules {
      */
     public void validateApplicable(Promotion promotion, Product product, int quantity) {
         if (!promotion.getProduct().getId().equals(product.getId())) {
-            throw new InvalidPromotionException("La promoción no se aplica a este producto");
+            throw new InvalidPromotionException("La promoción no se aplica a este producto", promotion.getId());
         }
 
         if (!promotion.isActiveOn(LocalDate.now())) {
-            throw new InvalidPromotionException("La promoción no está activa");
+            throw new InvalidPromotionException("La promoción no está activa", promotion.getId());
         }
 
         if (promotion.calculateDiscountAmount(product.getPrice(), quantity).compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidPromotionException("La promoción no se aplica a la cantidad solicitada");
+            throw new InvalidPromotionException("La promoción no se aplica a la cantidad solicitada", promotion.getId());
         }
     }
 
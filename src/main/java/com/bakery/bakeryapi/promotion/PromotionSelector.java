@@ -0,0 +1,72 @@
+package com.bakery.bakeryapi.promotion;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Elige la mejor promoción de cada línea de compra sin consultar la base de datos.
+ *
+ * Recibe las promociones activas de cada producto (normalmente de {@link ActivePromotionIndex}) y las que el
+ * usuario ya ha usado, y recorre una sola vez los candidatos de cada línea calculando su descuento. Gana el mayor
+ * descuento positivo y, a igualdad, el ID más bajo. Una promoción solo puede aplicarse a una línea, así que si dos
+ * líneas son del mismo producto la segunda toma el mejor candidato restante.
+ */
+public final class PromotionSelector {
+
+    private PromotionSelector() {
+    }
+
+    /**
+     * Línea de compra sin promoción explícita.
+     *
+     * @param productId ID del producto
+     * @param unitPrice precio unitario actual
+     * @param quantity unidades
+     */
+    public record Line(Long productId, BigDecimal unitPrice, int quantity) {
+    }
+
+    /**
+     * Elige una promoción por línea.
+     *
+     * @param lines líneas a resolver
+     * @param candidatesByProduct promociones activas hoy por ID de producto
+     * @param used promociones ya usadas por el comprador
+     * @param excluded promociones que no se pueden elegir (ya pedidas en la compra o agotadas)
+     * @return ID de la promoción elegida para cada línea, en el mismo orden; {@code null} si ninguna aplica
+     */
+    static List<Long> select(
+            List<Line> lines,
+            Map<Long, List<ActivePromotion>> candidatesByProduct,
+            UsedPromotions used,
+            Collection<Long> excluded
+    ) {
+        Set<Long> taken = new HashSet<>(excluded);
+        List<Long> chosen = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            ActivePromotion best = null;
+            BigDecimal bestDiscount = BigDecimal.ZERO;
+            for (ActivePromotion candidate : candidatesByProduct.getOrDefault(line.productId(), List.of())) {
+                if (used.contains(candidate.id()) || taken.contains(candidate.id())) {
+                    continue;
+                }
+                BigDecimal discount = candidate.calculateDiscountAmount(line.unitPrice(), line.quantity());
+                int order = discount.compareTo(bestDiscount);
+                if (order > 0 || (order == 0 && best != null && candidate.id() < best.id())) {
+                    best = candidate;
+                    bestDiscount = discount;
+                }
+            }
+            if (best != null) {
+                taken.add(best.id());
+            }
+            chosen.add(best == null ? null : best.id());
+        }
+        return chosen;
+    }
+}
@@ -7,18 +7,22 @@ import com.bakery.bakeryapi.product.ProductService;
 import com.bakery.bakeryapi.user.UserService;
 import com.bakery.bakeryapi.domain.PercentagePromotion;
 import com.bakery.bakeryapi.domain.Promotion;
-import com.bakery.bakeryapi.domain.PromotionUsage;
 import com.bakery.bakeryapi.promotion.dto.PercentagePromotionRequest;
 import com.bakery.bakeryapi.promotion.dto.PromotionResponse;
 import com.bakery.bakeryapi.promotion.exception.InvalidPromotionException;
 import com.bakery.bakeryapi.promotion.exception.PromotionNotFoundException;
 import com.bakery.bakeryapi.shared.exception.ForbiddenOperationException;
+import com.bakery.bakeryapi.shared.KeysetPagination;
 import com.bakery.bakeryapi.shared.PageableUtils;
 import com.bakery.bakeryapi.shared.SecurityUtils;
+import com.bakery.bakeryapi.shared.TransactionCallbacks;
+import com.bakery.bakeryapi.shared.dto.CursorPage;
 import com.bakery.bakeryapi.repository.PromotionRepository;
 import com.bakery.bakeryapi.repository.PromotionUsageRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
@@ -28,6 +32,14 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Servicio de aplicación para promociones.
@@ -39,12 +51,28 @@ import java.time.LocalDateTime;
 @Transactional(readOnly = true)
 public class PromotionService {
 
+    private static final KeysetPagination<Promotion> CURSOR = KeysetPagination.byId(Promotion::getId)
+            .sortableBy("startDate", Promotion::getStartDate, LocalDate::parse);
+
+    // Ordenaciones que el índice de promociones activas resuelve en memoria; el resto va a la base de datos.
+    private static final Map<String, Comparator<ActivePromotion>> INDEX_SORTS = Map.of(
+            "id", Comparator.comparing(ActivePromotion::id),
+            "description", Comparator.comparing(ActivePromotion::description),
+            "startDate", Comparator.comparing(ActivePromotion::startDate),
+            "endDate", Comparator.comparing(ActivePromotion::endDate, Comparator.nullsLast(Comparator.naturalOrder())),
+            "discountPercentage", Comparator.comparing(
+                    ActivePromotion::discountPercentage, Comparator.nullsFirst(Comparator.naturalOrder()))
+    );
+
     private final PromotionRepository repository;
     private final ProductService productService;
     private final PromotionUsageRepository usageRepository;
     private final UserService userService;
     private final PaginationProperties paginationProperties;
     private final PromotionRules promotionRules;
+    private final ActivePromotionIndex activePromotionIndex;
+    private final PromotionUsageCache usageCache;
+    private final PromotionRedemptionLimiter redemptionLimiter;
 
     public PromotionService(
             PromotionRepository repository,
@@ -52,7 +80,10 @@ public class PromotionService {
             PromotionUsageRepository usageRepository,
             UserService userService,
             PaginationProperties paginationProperties,
-            PromotionRules promotionRules
+            PromotionRules promotionRules,
+            ActivePromotionIndex activePromotionIndex,
+            PromotionUsageCache usageCache,
+            PromotionRedemptionLimiter redemptionLimiter
     ) {
         this.repository = repository;
         this.productService = productService;
@@ -60,12 +91,16 @@ public class PromotionService {
         this.userService = userService;
         this.paginationProperties = paginationProperties;
         this.promotionRules = promotionRules;
+        this.activePromotionIndex = activePromotionIndex;
+        this.usageCache = usageCache;
+        this.redemptionLimiter = redemptionLimiter;
     }
 
     @Transactional
     public PromotionResponse createPercentage(PercentagePromotionRequest request) {
         promotionRules.validateDates(request.getStartDate(), request.getEndDate());
         promotionRules.validatePercentage(request.getDiscountPercentage());
+        promotionRules.validateMaxRedemptions(request.getMaxRedemptions());
 
         Product product = productService.getActiveEntityById(request.getProductId());
         BigDecimal discountPercentage = promotionRules.normalizeAmount(request.getDiscountPercentage());
@@ -75,10 +110,17 @@ public class PromotionService {
                 discountPercentage,
                 request.getStartDate(),
                 request.getEndDate(),
-                product
+                product,
+                request.getMaxRedemptions()
         );
 
-        return PromotionResponse.from(repository.save(promotion));
+        PercentagePromotion saved = repository.save(promotion);
+        if (saved.getMaxRedemptions() != null) {
+            redemptionLimiter.registerCounter(saved.getId());
+        }
+        ActivePromotion indexed = ActivePromotion.from(saved);
+        TransactionCallbacks.afterCommit(() -> activePromotionIndex.put(indexed));
+        return PromotionResponse.from(saved);
     }
 
     public Promotion getEntityById(Long id) {
@@ -86,6 +128,26 @@ public class PromotionService {
                 .orElseThrow(() -> new PromotionNotFoundException(id));
     }
 
+    /**
+     * Carga varias promociones en una sola consulta.
+     *
+     * @param ids IDs de promoción (se ignoran los repetidos)
+     * @return promociones por ID
+     * @throws PromotionNotFoundException si falta alguna
+     */
+    public Map<Long, Promotion> getEntitiesByIds(Collection<Long> ids) {
+        Map<Long, Promotion> promotions = new HashMap<>();
+        for (Promotion promotion : repository.findAllById(Set.copyOf(ids))) {
+            promotions.put(promotion.getId(), promotion);
+        }
+        for (Long id : ids) {
+            if (!promotions.containsKey(id)) {
+                throw new PromotionNotFoundException(id);
+            }
+        }
+        return promotions;
+    }
+
     public PromotionResponse getById(Long id) {
         return PromotionResponse.from(getEntityById(id));
     }
@@ -96,10 +158,45 @@ public class PromotionService {
                 .map(PromotionResponse::from);
     }
 
+    /**
+     * Lista promociones en modo cursor (paginación por clave).
+     *
+     * @param cursor cursor de la página anterior; vacío para la primera
+     * @param size tamaño de página solicitado
+     * @param sort ordenación (id o startDate)
+     * @return página con el cursor siguiente
+     */
+    public CursorPage<PromotionResponse> getAllByCursor(String cursor, int size, Sort sort) {
+        KeysetPagination.Request request = CURSOR.request(cursor, size, sort, paginationProperties.maxPageSize());
+        return CURSOR.page(
+                repository.findAllBy(request.position(), request.limit(), request.sort()),
+                request,
+                PromotionResponse::from
+        );
+    }
+
+    /**
+     * Lista las promociones activas hoy de un producto.
+     *
+     * Se responde desde {@link ActivePromotionIndex} salvo que aún no esté cargado o la ordenación pedida no se
+     * pueda resolver en memoria; entonces se usa la consulta por rango de fechas.
+     *
+     * @param productId ID del producto
+     * @param userId usuario cuyas promociones ya usadas se excluyen, o {@code null}
+     * @param pageable página solicitada
+     * @return promociones activas
+     */
     public Page<PromotionResponse> getActiveByProduct(Long productId, Long userId, Pageable pageable) {
         Pageable safePageable = PageableUtils.safe(pageable, paginationProperties.maxPageSize());
-        productService.getEntityById(productId);
         LocalDate today = LocalDate.now();
+        Optional<Comparator<ActivePromotion>> indexOrder = indexOrder(safePageable.getSort());
+        Optional<List<ActivePromotion>> indexed = indexOrder.isPresent()
+                ? activePromotionIndex.activeOn(productId, today)
+                : Optional.empty();
+        if (indexed.isEmpty() || indexed.get().isEmpty()) {
+            // Sin promociones en el índice hay que comprobar que el producto existe (404); con alguna, existe.
+            productService.getEntityById(productId);
+        }
 
         Authentication auth = SecurityUtils.optionalAuthentication();
         if (auth == null) {
@@ -112,12 +209,25 @@ public class PromotionService {
 
         // Si effectiveUserId es null: devolver todas las promociones activas.
         // Si no: devolver solo promociones que el usuario aún no ha usado.
+        if (indexed.isPresent()) {
+            return page(unusedBy(effectiveUserId, indexed.get()), indexOrder.get(), safePageable);
+        }
         Page<Promotion> promotions = effectiveUserId == null
                 ? repository.findActiveByProductId(productId, today, safePageable)
                 : repository.findActiveByProductIdAndUserId(productId, effectiveUserId, today, safePageable);
         return promotions.map(PromotionResponse::from);
     }
 
+    /**
+     * Lista las promociones activas hoy que un usuario aún no ha usado.
+     *
+     * Combina {@link ActivePromotionIndex} con {@link PromotionUsageCache}; solo consulta la base de datos si el
+     * índice aún no está cargado o la ordenación pedida no se puede resolver en memoria.
+     *
+     * @param userId usuario a consultar; por defecto, el autenticado
+     * @param pageable página solicitada
+     * @return promociones disponibles
+     */
     public Page<PromotionResponse> getAvailablePromotions(Long userId, Pageable pageable) {
         Pageable safePageable = PageableUtils.safe(pageable, paginationProperties.maxPageSize());
         LocalDate today = LocalDate.now();
@@ -128,6 +238,13 @@ public class PromotionService {
         }
         Long effectiveUserId = resolveUserIdForPromotionFiltering(auth, userId);
 
+        Optional<Comparator<ActivePromotion>> indexOrder = indexOrder(safePageable.getSort());
+        Optional<List<ActivePromotion>> indexed = indexOrder.isPresent()
+                ? activePromotionIndex.allActiveOn(today)
+                : Optional.empty();
+        if (indexed.isPresent()) {
+            return page(unusedBy(effectiveUserId, indexed.get()), indexOrder.get(), safePageable);
+        }
         return repository.findActiveAndUnusedByUser(effectiveUserId, today, safePageable)
                 .map(PromotionResponse::from);
     }
@@ -141,25 +258,164 @@ public class PromotionService {
             promotion.disable();
         }
         repository.save(promotion);
+        if (active) {
+            ActivePromotion indexed = ActivePromotion.from(promotion);
+            TransactionCallbacks.afterCommit(() -> activePromotionIndex.put(indexed));
+        } else {
+            TransactionCallbacks.afterCommit(() -> activePromotionIndex.remove(id));
+        }
     }
 
-    public BigDecimal applyPromotion(Promotion promotion, Product product, int quantity, User user) {
+    /**
+     * Elige la mejor promoción aplicable y no usada para cada línea de compra.
+     *
+     * Los candidatos salen de {@link ActivePromotionIndex} (o de una sola consulta para todo el carrito si aún no
+     * está cargado) y las promociones usadas de {@link PromotionUsageCache}; la elección la hace
+     * {@link PromotionSelector} sin consultas por candidato.
+     *
+     * @param lines líneas sin promoción explícita
+     * @param userId comprador, o {@code null} si aún no se conoce
+     * @param excluded promociones que no se pueden elegir
+     * @return ID de la promoción elegida para cada línea, en el mismo orden; {@code null} si ninguna aplica
+     */
+    public List<Long> selectBest(List<PromotionSelector.Line> lines, Long userId, Collection<Long> excluded) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> productIds = lines.stream().map(PromotionSelector.Line::productId).collect(Collectors.toSet());
+        UsedPromotions used = userId == null ? UsedPromotions.of(List.of()) : usageCache.get(userId);
+        return PromotionSelector.select(lines, candidatesByProduct(productIds, LocalDate.now()), used, excluded);
+    }
+
+    /**
+     * Valida una promoción para una línea de compra y calcula su descuento, sin registrar el uso.
+     *
+     * @param promotion promoción solicitada
+     * @param product producto de la línea
+     * @param quantity cantidad de la línea
+     * @return descuento normalizado a dos decimales
+     */
+    public BigDecimal calculateDiscount(Promotion promotion, Product product, int quantity) {
         promotionRules.validateApplicable(promotion, product, quantity);
-        BigDecimal discountAmount = promotion.calculateDiscountAmount(product.getPrice(), quantity);
+        return promotionRules.normalizeAmount(promotion.calculateDiscountAmount(product.getPrice(), quantity));
+    }
 
+    /**
+     * Registra el uso de varias promociones por un usuario con un único INSERT que omite los usos existentes.
+     *
+     * Un uso repetido se detecta por el número de filas insertadas, sin forzar la violación de la restricción
+     * única ni construir la excepción correspondiente. Las filas se insertan en orden de ID para que dos compras
+     * concurrentes tomen los bloqueos del índice único en el mismo orden.
+     *
+     * @param promotions promociones usadas en la compra, una por línea
+     * @param user usuario que las usa
+     */
+    @Transactional
+    public void recordUsages(Collection<Promotion> promotions, User user) {
+        List<Long> ids = promotions.stream()
+                .map(Promotion::getId)
+                .sorted()
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            if (ids.get(i).equals(ids.get(i - 1))) {
+                // Misma promoción en dos líneas: equivale a usarla dos veces.
+                throw new InvalidPromotionException("La promoción ya ha sido utilizada por este usuario", ids.get(i));
+            }
+        }
+        Long userId = user.getId();
+        // Con varias promociones el recuento de filas no dice cuál estaba usada.
+        Long rejectedId = ids.size() == 1 ? ids.getFirst() : null;
+        int inserted;
         try {
-            // La restricción única (promotion_id, user_id) garantiza "usar una sola vez".
-            // saveAndFlush dispara la violación de restricción dentro de este método para que podamos devolver un error de dominio de tipo 400.
-            usageRepository.saveAndFlush(new PromotionUsage(promotion, user, LocalDateTime.now()));
+            inserted = usageRepository.insertAllIfAbsent(ids, userId, LocalDateTime.now());
         } catch (DataIntegrityViolationException e) {
-            throw new InvalidPromotionException("La promoción ya ha sido utilizada por este usuario");
+            // Solo ante dos compras simultáneas que insertan el mismo uso a la vez; la restricción única
+            // (promotion_id, user_id) sigue garantizando "usar una sola vez".
+            throw new InvalidPromotionException("La promoción ya ha sido utilizada por este usuario", rejectedId);
+        }
+        if (inserted != ids.size()) {
+            // Alguna ya estaba usada: la excepción revierte también las filas que sí se insertaron.
+            throw new InvalidPromotionException("La promoción ya ha sido utilizada por este usuario", rejectedId);
         }
+        TransactionCallbacks.afterCommit(() -> usageCache.recordUsed(userId, ids));
+    }
 
-        return promotionRules.normalizeAmount(discountAmount);
+    /**
+     * Descarta de la caché los usos de un usuario para que la próxima elección los lea de la base de datos.
+     *
+     * @param userId ID del usuario, o {@code null} si no se conoce
+     */
+    public void evictUsages(Long userId) {
+        if (userId != null) {
+            usageCache.evict(List.of(userId));
+        }
     }
 
     public void releaseUsage(Promotion promotion, User user) {
         usageRepository.deleteByPromotionIdAndUserId(promotion.getId(), user.getId());
+        Long promotionId = promotion.getId();
+        Long userId = user.getId();
+        TransactionCallbacks.afterCommit(() -> usageCache.recordReleased(userId, promotionId));
+        if (promotion.getMaxRedemptions() != null) {
+            TransactionCallbacks.afterCommit(() -> redemptionLimiter.release(List.of(promotionId)));
+        }
+    }
+
+    private static Optional<Comparator<ActivePromotion>> indexOrder(Sort sort) {
+        Comparator<ActivePromotion> order = null;
+        for (Sort.Order sortOrder : sort) {
+            Comparator<ActivePromotion> field = INDEX_SORTS.get(sortOrder.getProperty());
+            if (field == null) {
+                return Optional.empty();
+            }
+            field = sortOrder.isDescending() ? field.reversed() : field;
+            order = order == null ? field : order.thenComparing(field);
+        }
+        Comparator<ActivePromotion> byId = INDEX_SORTS.get("id");
+        return Optional.of(order == null ? byId : order.thenComparing(byId));
+    }
+
+    private Map<Long, List<ActivePromotion>> candidatesByProduct(Set<Long> productIds, LocalDate date) {
+        Map<Long, List<ActivePromotion>> candidates = new HashMap<>();
+        for (Long productId : productIds) {
+            Optional<List<ActivePromotion>> indexed = activePromotionIndex.activeOn(productId, date);
+            if (indexed.isEmpty()) {
+                return repository.findActiveByProductIds(productIds, date).stream()
+                        .map(ActivePromotion::from)
+                        .collect(Collectors.groupingBy(ActivePromotion::productId));
+            }
+            candidates.put(productId, indexed.get());
+        }
+        return candidates;
+    }
+
+    // Sin usuario (anónimo o administrador sin filtro) se devuelven todas.
+    private List<ActivePromotion> unusedBy(Long userId, List<ActivePromotion> promotions) {
+        if (userId == null || promotions.isEmpty()) {
+            return promotions;
+        }
+        UsedPromotions used = usageCache.get(userId);
+        if (used.size() == 0) {
+            return promotions;
+        }
+        return promotions.stream().filter(promotion -> !used.contains(promotion.id())).toList();
+    }
+
+    private static Page<PromotionResponse> page(
+            List<ActivePromotion> promotions,
+            Comparator<ActivePromotion> order,
+            Pageable pageable
+    ) {
+        List<PromotionResponse> content = promotions.stream()
+                .sorted(order)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(ActivePromotion::toResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, promotions.size());
     }
 
     private Long resolveUserIdForPromotionFiltering(Authentication auth, Long requestedUserId) {
@@ -170,11 +426,15 @@ public class PromotionService {
             return requestedUserId;
         }
 
-        User currentUser = userService.getEntityByEmail(auth.getName());
-        if (requestedUserId != null && !currentUser.getId().equals(requestedUserId)) {
+        // Con el reclamo uid del token no hace falta buscar al usuario; los tokens antiguos se resuelven por correo.
+        Long currentUserId = SecurityUtils.currentUserId(auth);
+        if (currentUserId == null) {
+            currentUserId = userService.getEntityByEmail(auth.getName()).getId();
+        }
+        if (requestedUserId != null && !currentUserId.equals(requestedUserId)) {
             throw new ForbiddenOperationException("No se pueden solicitar promociones para otro usuario");
         }
-        return currentUser.getId();
+        return currentUserId;
     }
 
 }
@@ -0,0 +1,98 @@
+package com.bakery.bakeryapi.promotion;
+
+import com.bakery.bakeryapi.infra.config.PromotionUsageCacheProperties;
+import com.bakery.bakeryapi.repository.PromotionUsageRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Caché acotada de las promociones usadas por cada usuario.
+ *
+ * Sustituye al anti-join contra {@code promotion_usages} al listar promociones disponibles: la lista de
+ * promociones activas sale de {@link ActivePromotionIndex} y se filtra en memoria con el conjunto del usuario. Cada
+ * usuario se carga con una consulta la primera vez que se necesita; los usos que registra o libera esta instancia
+ * se aplican tras la confirmación. La entrada caduca a los {@code ttl} de cargarse aunque se haya actualizado
+ * después, de modo que los cambios de otras instancias se ven como mucho en ese tiempo. El registro de un uso sigue
+ * protegido por la restricción única, así que una entrada desactualizada nunca permite usar dos veces una promoción.
+ */
+@Component
+public class PromotionUsageCache {
+
+    private final PromotionUsageRepository repository;
+    private final Cache<Long, UsedPromotions> users;
+
+    public PromotionUsageCache(
+            PromotionUsageRepository repository,
+            PromotionUsageCacheProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.repository = repository;
+        long ttlNanos = properties.ttl().toNanos();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(properties.maxUsers())
+                .expireAfter(new Expiry<Long, UsedPromotions>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, UsedPromotions used, long currentTime) {
+                        return ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, UsedPromotions used, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, UsedPromotions used, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "promotion.usages");
+    }
+
+    /**
+     * Devuelve las promociones usadas por un usuario, cargándolas si no están en caché.
+     *
+     * @param userId ID del usuario
+     * @return promociones usadas
+     */
+    UsedPromotions get(Long userId) {
+        return users.get(userId, id -> UsedPromotions.of(repository.findPromotionIdsByUserId(id)));
+    }
+
+    /**
+     * Añade usos recién confirmados a un usuario en caché.
+     *
+     * @param userId ID del usuario
+     * @param promotionIds promociones usadas
+     */
+    public void recordUsed(Long userId, Collection<Long> promotionIds) {
+        users.asMap().computeIfPresent(userId, (id, used) -> used.with(promotionIds));
+    }
+
+    /**
+     * Quita un uso liberado de un usuario en caché.
+     *
+     * @param userId ID del usuario
+     * @param promotionId promoción liberada
+     */
+    public void recordReleased(Long userId, Long promotionId) {
+        users.asMap().computeIfPresent(userId, (id, used) -> used.without(promotionId));
+    }
+
+    /**
+     * Descarta usuarios cuyos usos han cambiado en bloque (p. ej. al caducar sus compras pendientes).
+     *
+     * @param userIds IDs de usuario
+     */
+    public void evict(Collection<Long> userIds) {
+        users.invalidateAll(userIds);
+    }
+}
@@ -0,0 +1,10 @@
+package com.bakery.bakeryapi.promotion;
+
+/**
+ * Tope global de usos de una promoción que necesita {@link PromotionRedemptionLimiter}.
+ *
+ * @param promotionId ID de la promoción
+ * @param maxRedemptions usos máximos entre todos los usuarios, o {@code null} si no tiene tope
+ */
+public record RedemptionCap(Long promotionId, Integer maxRedemptions) {
+}
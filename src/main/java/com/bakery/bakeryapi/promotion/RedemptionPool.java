@@ -0,0 +1,98 @@
+package com.bakery.bakeryapi.promotion;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Permisos de uso de una promoción ya reservados por esta instancia, repartidos en varios contadores.
+ *
+ * Como en {@link java.util.concurrent.atomic.LongAdder}, cada hilo empieza por un contador al azar y solo pasa a
+ * los demás si el suyo está vacío, de modo que las compras simultáneas de la misma promoción no compiten por una
+ * única variable. Los contadores ocupan cada uno su propia línea de caché.
+ */
+final class RedemptionPool {
+
+    // 16 int = 64 bytes: separa los contadores para que no compartan línea de caché.
+    private static final int STRIDE = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+    private volatile boolean exhausted;
+
+    RedemptionPool(int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * STRIDE);
+    }
+
+    /**
+     * Toma un permiso de cualquier contador.
+     *
+     * @return {@code true} si había alguno
+     */
+    boolean tryTake() {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int cell = ((start + i) % stripes) * STRIDE;
+            int available = cells.get(cell);
+            while (available > 0) {
+                if (cells.compareAndSet(cell, available, available - 1)) {
+                    return true;
+                }
+                available = cells.get(cell);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reparte permisos nuevos entre todos los contadores.
+     *
+     * @param permits permisos a añadir
+     */
+    void add(int permits) {
+        int each = permits / stripes;
+        int remainder = permits % stripes;
+        for (int i = 0; i < stripes; i++) {
+            int share = each + (i < remainder ? 1 : 0);
+            if (share > 0) {
+                cells.addAndGet(i * STRIDE, share);
+            }
+        }
+    }
+
+    /**
+     * Devuelve un permiso (uso revertido o liberado) a un contador al azar.
+     */
+    void giveBack() {
+        cells.incrementAndGet(ThreadLocalRandom.current().nextInt(stripes) * STRIDE);
+    }
+
+    /**
+     * Vacía todos los contadores.
+     *
+     * @return permisos retirados
+     */
+    int drain() {
+        int drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += cells.getAndSet(i * STRIDE, 0);
+        }
+        return drained;
+    }
+
+    int available() {
+        int available = 0;
+        for (int i = 0; i < stripes; i++) {
+            available += cells.get(i * STRIDE);
+        }
+        return available;
+    }
+
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    void markExhausted(boolean exhausted) {
+        this.exhausted = exhausted;
+    }
+}
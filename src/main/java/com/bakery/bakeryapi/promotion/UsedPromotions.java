@@ -0,0 +1,55 @@
+package com.bakery.bakeryapi.promotion;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * IDs de las promociones que ha usado un usuario, en un array de {@code long} ordenado.
+ *
+ * Inmutable: cada cambio devuelve una copia, así que se puede leer sin candados desde {@link PromotionUsageCache}.
+ */
+final class UsedPromotions {
+
+    private static final UsedPromotions NONE = new UsedPromotions(new long[0]);
+
+    private final long[] ids;
+
+    private UsedPromotions(long[] ids) {
+        this.ids = ids;
+    }
+
+    static UsedPromotions of(Collection<Long> promotionIds) {
+        if (promotionIds.isEmpty()) {
+            return NONE;
+        }
+        return new UsedPromotions(promotionIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray());
+    }
+
+    boolean contains(long promotionId) {
+        return Arrays.binarySearch(ids, promotionId) >= 0;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    UsedPromotions with(Collection<Long> promotionIds) {
+        long[] merged = Arrays.copyOf(ids, ids.length + promotionIds.size());
+        int size = ids.length;
+        for (Long id : promotionIds) {
+            merged[size++] = id;
+        }
+        return new UsedPromotions(Arrays.stream(merged).sorted().distinct().toArray());
+    }
+
+    UsedPromotions without(long promotionId) {
+        int index = Arrays.binarySearch(ids, promotionId);
+        if (index < 0) {
+            return this;
+        }
+        long[] remaining = new long[ids.length - 1];
+        System.arraycopy(ids, 0, remaining, 0, index);
+        System.arraycopy(ids, index + 1, remaining, index, ids.length - index - 1);
+        return new UsedPromotions(remaining);
+    }
+}
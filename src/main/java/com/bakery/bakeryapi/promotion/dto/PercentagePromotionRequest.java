@@ -4,6 +4,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -19,13 +20,23 @@ public class PercentagePromotionRequest extends PromotionRequest {
     @DecimalMax(value = "100.0", message = "El porcentaje de descuento no debe exceder 100")
     private BigDecimal discountPercentage;
 
+    @Schema(description = "Opcional. Usos máximos entre todos los usuarios; sin valor no hay tope", example = "500")
+    @Positive(message = "El número máximo de usos debe ser al menos 1")
+    private Integer maxRedemptions;
+
     public PercentagePromotionRequest() {
     }
 
     public PercentagePromotionRequest(String description, LocalDate startDate, LocalDate endDate,
                                        Long productId, BigDecimal discountPercentage) {
+        this(description, startDate, endDate, productId, discountPercentage, null);
+    }
+
+    public PercentagePromotionRequest(String description, LocalDate startDate, LocalDate endDate,
+                                       Long productId, BigDecimal discountPercentage, Integer maxRedemptions) {
         super(description, startDate, endDate, productId);
         this.discountPercentage = discountPercentage;
+        this.maxRedemptions = maxRedemptions;
     }
 
     public BigDecimal getDiscountPercentage() {
@@ -35,4 +46,12 @@ public class PercentagePromotionRequest extends PromotionRequest {
     public void setDiscountPercentage(BigDecimal discountPercentage) {
         this.discountPercentage = discountPercentage;
     }
+
+    public Integer getMaxRedemptions() {
+        return maxRedemptions;
+    }
+
+    public void setMaxRedemptions(Integer maxRedemptions) {
+        this.maxRedemptions = maxRedemptions;
+    }
 }
@@ -16,7 +16,8 @@ public record PromotionResponse(
         boolean active,
         Long productId,
         String productName,
-        BigDecimal discountPercentage
+        BigDecimal discountPercentage,
+        Integer maxRedemptions
 ) {
     public static PromotionResponse from(com.bakery.bakeryapi.domain.Promotion promotion) {
         return new PromotionResponse(
@@ -28,7 +29,8 @@ public record PromotionResponse(
                 promotion.isActive(),
                 promotion.getProduct() != null ? promotion.getProduct().getId() : null,
                 promotion.getProduct() != null ? promotion.getProduct().getName() : null,
-                promotion.getDiscountPercentage()
+                promotion.getDiscountPercentage(),
+                promotion.getMaxRedemptions()
         );
     }
 }
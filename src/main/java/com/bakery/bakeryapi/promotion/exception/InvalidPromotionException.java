@@ -8,9 +8,21 @@ import org.springframework.http.HttpStatus;
  */
 public class InvalidPromotionException extends ApiException {
 
+    private final Long promotionId;
+
     public InvalidPromotionException(String message) {
-        super(message, HttpStatus.BAD_REQUEST);
+        this(message, null);
     }
-}
 
+    public InvalidPromotionException(String message, Long promotionId) {
+        super(message, HttpStatus.BAD_REQUEST);
+        this.promotionId = promotionId;
+    }
 
+    /**
+     * @return promoción rechazada, o {@code null} si no se conoce o el error no es de una promoción concreta
+     */
+    public Long getPromotionId() {
+        return promotionId;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bakery.bakeryapi.promotion.exception;
+
+import com.bakery.bakeryapi.shared.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Se lanza cuando una promoción ha alcanzado su número máximo de usos.
+ */
+public class PromotionSoldOutException extends ApiException {
+
+    private final Long promotionId;
+
+    public PromotionSoldOutException(Long id) {
+        super("La promoción con id '" + id + "' ha alcanzado su número máximo de usos", HttpStatus.CONFLICT);
+        this.promotionId = id;
+    }
+
+    public Long getPromotionId() {
+        return promotionId;
+    }
+}
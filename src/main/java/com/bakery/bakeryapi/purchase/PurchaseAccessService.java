@@ -11,6 +11,9 @@ import org.springframework.stereotype.Service;
 
 /**
  * Resuelve y aplica reglas de propiedad de compra.
+ *
+ * El ID del usuario actual sale del reclamo {@code uid} del token, así que las comprobaciones de propiedad no
+ * consultan la base de datos; solo los tokens antiguos sin ese reclamo buscan al usuario por correo.
  */
 @Service
 public class PurchaseAccessService {
@@ -38,11 +41,8 @@ public class PurchaseAccessService {
             return userService.getEntityById(requestedUserId);
         }
 
-        User currentUser = userService.getEntityByEmail(auth.getName());
-        if (requestedUserId == null) {
-            return currentUser;
-        }
-        if (!currentUser.getId().equals(requestedUserId)) {
+        User currentUser = currentUser(auth);
+        if (requestedUserId != null && !currentUser.getId().equals(requestedUserId)) {
             throw new ForbiddenOperationException("No se puede crear una compra para otro usuario");
         }
         return currentUser;
@@ -60,19 +60,41 @@ public class PurchaseAccessService {
         if (SecurityUtils.isAdmin(auth)) {
             return;
         }
-        User currentUser = userService.getEntityByEmail(auth.getName());
-        if (!purchase.getUser().getId().equals(currentUser.getId())) {
+        if (!purchase.getUser().getId().equals(currentUserId(auth))) {
             throw new ForbiddenOperationException("No se puede acceder a las compras de otro usuario");
         }
     }
 
     /**
-     * Devuelve la entidad del usuario autenticado actual.
+     * Resuelve el ID del propietario de una nueva compra sin cargar la entidad.
+     *
+     * No repite las comprobaciones de {@link #resolvePurchaseUser(Long)}, que se hacen igualmente al crear la compra.
      *
-     * @return usuario actual
+     * @param requestedUserId identificación de usuario solicitada por el cliente
+     * @return ID del propietario, o {@code null} si un administrador no lo ha indicado
      */
-    public User currentUser() {
+    public Long resolvePurchaseUserId(Long requestedUserId) {
         Authentication auth = SecurityUtils.requireAuthentication();
-        return userService.getEntityByEmail(auth.getName());
+        return SecurityUtils.isAdmin(auth) ? requestedUserId : currentUserId(auth);
+    }
+
+    /**
+     * Devuelve el ID del usuario autenticado actual.
+     *
+     * @return ID del usuario actual
+     */
+    public Long currentUserId() {
+        return currentUserId(SecurityUtils.requireAuthentication());
+    }
+
+    private Long currentUserId(Authentication auth) {
+        Long userId = SecurityUtils.currentUserId(auth);
+        return userId != null ? userId : userService.getEntityByEmail(auth.getName()).getId();
+    }
+
+    // Con el ID en el token basta una referencia sin consulta; la compra y sus usos solo necesitan la clave ajena.
+    private User currentUser(Authentication auth) {
+        Long userId = SecurityUtils.currentUserId(auth);
+        return userId != null ? userService.getReferenceById(userId) : userService.getEntityByEmail(auth.getName());
     }
 }
@@ -1,9 +1,12 @@
 package com.bakery.bakeryapi.purchase;
 
 import jakarta.validation.Valid;
+import com.bakery.bakeryapi.infra.persistence.OptimisticLockRetry;
 import com.bakery.bakeryapi.purchase.dto.PurchaseRequest;
 import com.bakery.bakeryapi.purchase.dto.PurchaseResponse;
+import com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse;
 import com.bakery.bakeryapi.purchase.PurchaseService;
+import com.bakery.bakeryapi.shared.dto.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,9 +17,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 
@@ -30,9 +36,13 @@ import java.time.LocalDateTime;
 public class PurchaseController {
 
     private final PurchaseService service;
+    private final PurchaseExportService exportService;
+    private final OptimisticLockRetry retry;
 
-    public PurchaseController(PurchaseService service) {
+    public PurchaseController(PurchaseService service, PurchaseExportService exportService, OptimisticLockRetry retry) {
         this.service = service;
+        this.exportService = exportService;
+        this.retry = retry;
     }
 
     @GetMapping("/{id}")
@@ -81,6 +91,95 @@ public class PurchaseController {
         return ResponseEntity.ok(service.getAll(pageable, userId, startDate, endDate));
     }
 
+    @GetMapping("/summary")
+    @Operation(summary = "Listar resúmenes de compras", description = """
+            Historial ligero: id, userId, fecha, estado, total e itemCount, sin los artículos. Admite los mismos
+            parámetros, filtros y permisos que el listado completo. El detalle de cada compra se obtiene con
+            GET /purchases/{id}.
+            """)
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
+    })
+    public ResponseEntity<Page<PurchaseSummaryResponse>> getSummaries(
+            @Parameter(description = "Número de página (empezando en 0)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Elementos por página") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Campo por el que ordenar (createdAt, total, status)") @RequestParam(required = false) String sortBy,
+            @Parameter(description = "Dirección de ordenación (asc, desc)") @RequestParam(required = false) String order,
+            @Parameter(description = "Filtro solo para administradores") @RequestParam(required = false) Long userId,
+            @Parameter(description = "Fecha de inicio (formato ISO 8601)") @RequestParam(required = false) LocalDateTime startDate,
+            @Parameter(description = "Fecha de fin (formato ISO 8601)") @RequestParam(required = false) LocalDateTime endDate
+    ) {
+        Sort sort = buildSort(sortBy, order, "createdAt");
+        Pageable pageable = PageRequest.of(page, size, sort);
+        return ResponseEntity.ok(service.getSummaries(pageable, userId, startDate, endDate));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Exportar compras (solo administradores)", description = """
+            Descarga en streaming todas las líneas de compra creadas en [from, to), ordenadas por fecha, en NDJSON
+            (una línea JSON por artículo) o CSV. No hay paginación: la respuesta se envía a medida que se lee.
+            La última línea indica el fin y el número de filas ({"eof":true,"rows":N} en NDJSON, #eof,N en CSV);
+            si falta, la descarga se ha cortado.
+            
+            Parámetros de consulta:
+            - from: Inicio del rango, incluido (formato ISO 8601)
+            - to: Fin del rango, excluido (formato ISO 8601)
+            - format: ndjson (por defecto) o csv
+            """)
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "400", description = "Rango o formato no válidos"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "403", description = "Prohibido")
+    })
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "Inicio del rango (formato ISO 8601)") @RequestParam LocalDateTime from,
+            @Parameter(description = "Fin del rango (formato ISO 8601)") @RequestParam LocalDateTime to,
+            @Parameter(description = "Formato de salida (ndjson, csv)") @RequestParam(required = false) String format
+    ) {
+        PurchaseExportFormat exportFormat = PurchaseExportFormat.from(format);
+        StreamingResponseBody body = exportService.export(from, to, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"purchases." + exportFormat.extension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Listar compras (modo cursor)", description = """
+            Paginación por clave con los mismos filtros y permisos que el listado por páginas. Se envía cursor
+            (vacío en la primera petición) y la respuesta incluye nextCursor (null al llegar al final), sin total.
+            
+            Parámetros de consulta:
+            - cursor: Cursor opaco devuelto en nextCursor (vacío para empezar)
+            - size: Elementos por página (por defecto: 20, máx: 100)
+            - sortBy: Campo por el que ordenar (createdAt, total - por defecto: createdAt). Debe mantenerse entre páginas.
+            - order: Dirección de ordenación (asc, desc - por defecto: desc)
+            - userId, startDate, endDate: Mismos filtros que en el modo por páginas
+            """)
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "400", description = "Cursor u ordenación no válidos"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
+    })
+    public ResponseEntity<CursorPage<PurchaseResponse>> getAllByCursor(
+            @Parameter(description = "Cursor devuelto en nextCursor; vacío para la primera página") @RequestParam String cursor,
+            @Parameter(description = "Elementos por página") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Campo por el que ordenar (createdAt, total)") @RequestParam(required = false) String sortBy,
+            @Parameter(description = "Dirección de ordenación (asc, desc)") @RequestParam(required = false) String order,
+            @Parameter(description = "Filtro solo para administradores") @RequestParam(required = false) Long userId,
+            @Parameter(description = "Fecha de inicio (formato ISO 8601)") @RequestParam(required = false) LocalDateTime startDate,
+            @Parameter(description = "Fecha de fin (formato ISO 8601)") @RequestParam(required = false) LocalDateTime endDate
+    ) {
+        Sort sort = buildSort(sortBy, order, "createdAt");
+        return ResponseEntity.ok(service.getAllByCursor(cursor, size, sort, userId, startDate, endDate));
+    }
+
     private Sort buildSort(String sortBy, String order, String defaultField) {
         String field = (sortBy == null || sortBy.isBlank()) ? defaultField : sortBy;
         Sort.Direction direction = (order != null && order.equalsIgnoreCase("asc")) 
@@ -100,7 +199,8 @@ public class PurchaseController {
             @ApiResponse(responseCode = "409", description = "Actualización concurrente / conflicto")
     })
     public ResponseEntity<PurchaseResponse> create(@Valid @RequestBody PurchaseRequest request) {
-        PurchaseResponse purchase = service.create(request);
+        // Cada intento es una transacción completa; los conflictos de versión se reintentan antes de devolver 409.
+        PurchaseResponse purchase = retry.execute("purchase.create", () -> service.create(request));
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(purchase);
     }
@@ -115,7 +215,7 @@ public class PurchaseController {
             @ApiResponse(responseCode = "404", description = "No encontrada")
     })
     public ResponseEntity<Void> cancel(@PathVariable Long id) {
-        service.cancel(id);
+        retry.run("purchase.cancel", () -> service.cancel(id));
         return ResponseEntity.noContent().build();
     }
 
@@ -129,7 +229,7 @@ public class PurchaseController {
             @ApiResponse(responseCode = "404", description = "No encontrada")
     })
     public ResponseEntity<Void> pay(@PathVariable Long id) {
-        service.pay(id);
+        retry.run("purchase.pay", () -> service.pay(id));
         return ResponseEntity.noContent().build();
     }
 }
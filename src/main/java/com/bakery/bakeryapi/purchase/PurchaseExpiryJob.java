@@ -0,0 +1,139 @@
+package com.bakery.bakeryapi.purchase;
+
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.infra.config.PurchaseExpiryProperties;
+import com.bakery.bakeryapi.product.ProductService;
+import com.bakery.bakeryapi.promotion.PromotionRedemptionLimiter;
+import com.bakery.bakeryapi.promotion.PromotionUsageCache;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import com.bakery.bakeryapi.repository.PromotionUsageRepository;
+import com.bakery.bakeryapi.repository.PurchaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cancela las compras pendientes (CREATED) que nadie ha pagado ni cancelado dentro del TTL configurado.
+ *
+ * Cada lote es una transacción: reclama hasta {@code batchSize} compras caducadas con
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED} (varios nodos pueden ejecutar el proceso a la vez sin pisarse), las
+ * pasa a CANCELLED, devuelve el stock de todos sus artículos con un único UPDATE y libera sus usos de promoción con
+ * un único DELETE.
+ *
+ * Métricas: {@code purchase.expiry.expired} (compras canceladas) y {@code purchase.expiry.batch} (duración de
+ * cada lote).
+ */
+@Component
+public class PurchaseExpiryJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseExpiryJob.class);
+    private static final Clock CLOCK_UTC = Clock.systemUTC();
+
+    private final PurchaseRepository purchaseRepository;
+    private final ProductRepository productRepository;
+    private final PromotionUsageRepository usageRepository;
+    private final ProductService productService;
+    private final PromotionUsageCache promotionUsageCache;
+    private final PromotionRedemptionLimiter redemptionLimiter;
+    private final TransactionTemplate transactionTemplate;
+    private final PurchaseExpiryProperties properties;
+    private final Counter expiredCounter;
+    private final Timer batchTimer;
+
+    public PurchaseExpiryJob(
+            PurchaseRepository purchaseRepository,
+            ProductRepository productRepository,
+            PromotionUsageRepository usageRepository,
+            ProductService productService,
+            PromotionUsageCache promotionUsageCache,
+            PromotionRedemptionLimiter redemptionLimiter,
+            PlatformTransactionManager transactionManager,
+            PurchaseExpiryProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.purchaseRepository = purchaseRepository;
+        this.productRepository = productRepository;
+        this.usageRepository = usageRepository;
+        this.productService = productService;
+        this.promotionUsageCache = promotionUsageCache;
+        this.redemptionLimiter = redemptionLimiter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.expiredCounter = Counter.builder("purchase.expiry.expired")
+                .description("Compras pendientes canceladas por caducidad")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("purchase.expiry.batch")
+                .description("Duración de cada lote de expiración de compras")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${app.purchase-expiry.interval:1m}",
+            initialDelayString = "${app.purchase-expiry.interval:1m}"
+    )
+    public void run() {
+        if (!properties.enabled()) {
+            return;
+        }
+        int total = 0;
+        for (int batch = 0; batch < properties.maxBatchesPerRun(); batch++) {
+            int expired = expireBatch();
+            total += expired;
+            if (expired < properties.batchSize()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Canceladas {} compras pendientes caducadas", total);
+        }
+    }
+
+    /**
+     * Cancela un lote de compras pendientes caducadas.
+     *
+     * @return compras canceladas en el lote
+     */
+    public int expireBatch() {
+        LocalDateTime cutoff = LocalDateTime.now(CLOCK_UTC).minus(properties.ttl());
+        Timer.Sample sample = Timer.start();
+        BatchResult result = transactionTemplate.execute(status -> {
+            List<Long> ids = purchaseRepository.claimExpired(cutoff, properties.batchSize());
+            if (ids.isEmpty()) {
+                return new BatchResult(0, List.of(), List.of(), List.of());
+            }
+            // Las filas ya están bloqueadas por este nodo, así que la transición no puede perder contra otro.
+            int cancelled = purchaseRepository.transitionStatus(ids, PurchaseStatus.CREATED, PurchaseStatus.CANCELLED);
+            List<Long> promotionUserIds = purchaseRepository.findPromotionUserIdsByPurchaseIds(ids);
+            List<Long> releasedPromotionIds = purchaseRepository.findPromotionIdsByPurchaseIds(ids);
+            usageRepository.deleteByPurchaseIds(ids);
+            productRepository.restoreStockForPurchases(ids);
+            return new BatchResult(cancelled, purchaseRepository.findProductIdsByPurchaseIds(ids), promotionUserIds,
+                    releasedPromotionIds);
+        });
+        sample.stop(batchTimer);
+
+        expiredCounter.increment(result.cancelled());
+        productService.onStockChanged(result.productIds());
+        promotionUsageCache.evict(result.promotionUserIds());
+        redemptionLimiter.release(result.releasedPromotionIds());
+        return result.cancelled();
+    }
+
+    private record BatchResult(
+            int cancelled,
+            List<Long> productIds,
+            List<Long> promotionUserIds,
+            List<Long> releasedPromotionIds
+    ) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.bakery.bakeryapi.purchase;
+
+import com.bakery.bakeryapi.purchase.exception.InvalidPurchaseException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Formatos de exportación de compras.
+ */
+public enum PurchaseExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    PurchaseExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Interpreta el parámetro {@code format} sin distinguir mayúsculas.
+     *
+     * @param value valor recibido; {@code null} equivale a NDJSON
+     * @return formato solicitado
+     * @throws InvalidPurchaseException si el formato no existe
+     */
+    public static PurchaseExportFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPurchaseException("Formato de exportación no admitido: " + value + " (admitidos: ndjson, csv)");
+        }
+    }
+}
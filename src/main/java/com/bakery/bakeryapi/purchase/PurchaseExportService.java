@@ -0,0 +1,224 @@
+package com.bakery.bakeryapi.purchase;
+
+import com.bakery.bakeryapi.infra.config.PurchaseExportProperties;
+import com.bakery.bakeryapi.purchase.exception.InvalidPurchaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Exportación en streaming de las líneas de compra de un rango de fechas (NDJSON o CSV).
+ *
+ * Las filas se leen con un cursor JDBC de solo avance y tamaño de lote fijo y se escriben según llegan, vaciando
+ * el búfer cada lote: la memoria usada no depende del tamaño del rango. Si el cliente corta la descarga, la
+ * escritura falla, la sentencia se cancela y la conexión vuelve al pool.
+ *
+ * La última línea es un cierre con el número de filas ({@code {"eof":true,"rows":N}} en NDJSON, {@code #eof,N} en
+ * CSV): un fichero sin ella está truncado.
+ *
+ * En MySQL la sentencia usa el modo streaming de Connector/J ({@code fetchSize = Integer.MIN_VALUE}): el servidor
+ * envía las filas según se leen sin cargar el resultado en memoria, y sin activar {@code useCursorFetch} (que
+ * convertiría todas las sentencias del pool en preparadas en el servidor).
+ */
+@Service
+public class PurchaseExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseExportService.class);
+
+    private static final String SQL = """
+            select p.id, p.created_at, p.user_id, p.status, p.total,
+                   i.product_id, pr.name, i.promotion_id, i.quantity, i.unit_price, i.discount_amount, i.subtotal
+            from purchases p
+            join purchase_items i on i.purchase_id = p.id
+            join products pr on pr.id = i.product_id
+            where p.created_at >= ? and p.created_at < ?
+            order by p.created_at, p.id, i.id
+            """;
+
+    private static final String CSV_HEADER = "purchase_id,created_at,user_id,status,total,product_id,product_name,"
+            + "promotion_id,quantity,unit_price,discount_amount,subtotal\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PurchaseExportProperties properties;
+
+    public PurchaseExportService(JdbcTemplate jdbcTemplate, PurchaseExportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Prepara la exportación de las líneas de compra creadas en {@code [from, to)}.
+     *
+     * @param from inicio del rango (incluido)
+     * @param to fin del rango (excluido)
+     * @param format formato de salida
+     * @return cuerpo que escribe las filas al enviarse la respuesta
+     */
+    public StreamingResponseBody export(LocalDateTime from, LocalDateTime to, PurchaseExportFormat format) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new InvalidPurchaseException("La exportación requiere un rango from < to");
+        }
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            if (format == PurchaseExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            long rows = write(from, to, format, writer);
+            writer.write(format == PurchaseExportFormat.CSV
+                    ? "#eof," + rows + "\n"
+                    : "{\"eof\":true,\"rows\":" + rows + "}\n");
+            writer.flush();
+            log.info("Exportadas {} líneas de compra ({} a {}, {})", rows, from, to, format);
+        };
+    }
+
+    private long write(LocalDateTime from, LocalDateTime to, PurchaseExportFormat format, Writer writer) {
+        int fetchSize = properties.fetchSize();
+        Long rows = jdbcTemplate.execute(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(isMySql(connection) ? Integer.MIN_VALUE : fetchSize);
+                    statement.setTimestamp(1, Timestamp.valueOf(from));
+                    statement.setTimestamp(2, Timestamp.valueOf(to));
+                    return statement;
+                },
+                (PreparedStatement statement) -> {
+                    long count = 0;
+                    try (ResultSet rs = statement.executeQuery()) {
+                        StringBuilder line = new StringBuilder(256);
+                        while (rs.next()) {
+                            line.setLength(0);
+                            if (format == PurchaseExportFormat.CSV) {
+                                appendCsv(rs, line);
+                            } else {
+                                appendJson(rs, line);
+                            }
+                            writeOrCancel(statement, writer, line);
+                            if (++count % fetchSize == 0) {
+                                flushOrCancel(statement, writer);
+                            }
+                        }
+                    }
+                    return count;
+                }
+        );
+        return rows == null ? 0 : rows;
+    }
+
+    // Valor del driver, no del dialecto de Hibernate: el modo streaming es propio de Connector/J.
+    private static boolean isMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    private static void writeOrCancel(PreparedStatement statement, Writer writer, CharSequence line) throws SQLException {
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            cancel(statement, e);
+        }
+    }
+
+    private static void flushOrCancel(PreparedStatement statement, Writer writer) throws SQLException {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            cancel(statement, e);
+        }
+    }
+
+    private static void cancel(PreparedStatement statement, IOException cause) throws SQLException {
+        // El cliente ha cerrado la conexión: se aborta la consulta en lugar de leer el resto del cursor.
+        log.info("Exportación de compras interrumpida por el cliente");
+        statement.cancel();
+        throw new UncheckedIOException(cause);
+    }
+
+    private static void appendJson(ResultSet rs, StringBuilder line) throws SQLException {
+        line.append("{\"purchaseId\":").append(rs.getLong(1))
+                .append(",\"createdAt\":\"").append(rs.getTimestamp(2).toLocalDateTime()).append('"')
+                .append(",\"userId\":").append(rs.getLong(3))
+                .append(",\"status\":\"").append(rs.getString(4)).append('"')
+                .append(",\"total\":").append(plain(rs.getBigDecimal(5)))
+                .append(",\"productId\":").append(rs.getLong(6))
+                .append(",\"productName\":");
+        appendJsonString(rs.getString(7), line);
+        long promotionId = rs.getLong(8);
+        line.append(",\"promotionId\":").append(rs.wasNull() ? "null" : String.valueOf(promotionId))
+                .append(",\"quantity\":").append(rs.getInt(9))
+                .append(",\"unitPrice\":").append(plain(rs.getBigDecimal(10)))
+                .append(",\"discountAmount\":").append(plain(rs.getBigDecimal(11)))
+                .append(",\"subtotal\":").append(plain(rs.getBigDecimal(12)))
+                .append("}\n");
+    }
+
+    private static void appendCsv(ResultSet rs, StringBuilder line) throws SQLException {
+        line.append(rs.getLong(1)).append(',')
+                .append(rs.getTimestamp(2).toLocalDateTime()).append(',')
+                .append(rs.getLong(3)).append(',')
+                .append(rs.getString(4)).append(',')
+                .append(plain(rs.getBigDecimal(5))).append(',')
+                .append(rs.getLong(6)).append(',');
+        appendCsvField(rs.getString(7), line);
+        long promotionId = rs.getLong(8);
+        line.append(',').append(rs.wasNull() ? "" : String.valueOf(promotionId)).append(',')
+                .append(rs.getInt(9)).append(',')
+                .append(plain(rs.getBigDecimal(10))).append(',')
+                .append(plain(rs.getBigDecimal(11))).append(',')
+                .append(plain(rs.getBigDecimal(12)))
+                .append('\n');
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? "0" : value.toPlainString();
+    }
+
+    private static void appendJsonString(String value, StringBuilder line) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static void appendCsvField(String value, StringBuilder line) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -1,10 +1,18 @@
 package com.bakery.bakeryapi.purchase;
 
 import com.bakery.bakeryapi.infra.config.PaginationProperties;
+import com.bakery.bakeryapi.infra.persistence.QueryCountInspector;
 import com.bakery.bakeryapi.product.ProductService;
+import com.bakery.bakeryapi.promotion.PromotionRedemptionLimiter;
+import com.bakery.bakeryapi.promotion.PromotionSelector;
 import com.bakery.bakeryapi.promotion.PromotionService;
+import com.bakery.bakeryapi.promotion.exception.InvalidPromotionException;
+import com.bakery.bakeryapi.promotion.exception.PromotionSoldOutException;
+import com.bakery.bakeryapi.report.SalesRollupService;
+import com.bakery.bakeryapi.shared.KeysetPagination;
 import com.bakery.bakeryapi.shared.PageableUtils;
 import com.bakery.bakeryapi.shared.SecurityUtils;
+import com.bakery.bakeryapi.shared.dto.CursorPage;
 import com.bakery.bakeryapi.domain.Purchase;
 import com.bakery.bakeryapi.domain.PurchaseItem;
 import com.bakery.bakeryapi.domain.PurchaseStatus;
@@ -13,20 +21,37 @@ import com.bakery.bakeryapi.domain.Promotion;
 import com.bakery.bakeryapi.purchase.dto.PurchaseItemRequest;
 import com.bakery.bakeryapi.purchase.dto.PurchaseRequest;
 import com.bakery.bakeryapi.purchase.dto.PurchaseResponse;
+import com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse;
 import com.bakery.bakeryapi.purchase.exception.InvalidPurchaseException;
 import com.bakery.bakeryapi.purchase.exception.PurchaseNotFoundException;
 import com.bakery.bakeryapi.domain.User;
 import com.bakery.bakeryapi.repository.PurchaseRepository;
 import com.bakery.bakeryapi.user.UserService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Servicio de aplicación de compra.
@@ -35,62 +60,223 @@ import java.time.LocalDateTime;
  * - Los usuarios solo pueden crear/acceder a sus propias compras.
  * - Los administradores pueden crear/acceder a compras para cualquier usuario.
  * - El stock y el uso de promoción se actualizan dentro de una única transacción para que los fallos se reviertan limpiamente.
+ * - El resumen diario de ventas se actualiza en la misma transacción que el pago.
  */
 @Service
 public class PurchaseService {
 
     private static final Clock CLOCK_UTC = Clock.systemUTC();
 
+    private static final KeysetPagination<Purchase> CURSOR = KeysetPagination.byId(Purchase::getId)
+            .sortableBy("createdAt", Purchase::getCreatedAt, LocalDateTime::parse)
+            .sortableBy("total", Purchase::getTotal, BigDecimal::new);
+
     private final PurchaseRepository repository;
     private final UserService userService;
     private final ProductService productService;
     private final PromotionService promotionService;
+    private final PromotionRedemptionLimiter redemptionLimiter;
     private final PurchaseAccessService purchaseAccessService;
     private final PurchasePricingService purchasePricingService;
+    private final SalesRollupService salesRollupService;
     private final PaginationProperties paginationProperties;
+    private final DistributionSummary createQueries;
+    private final TransactionTemplate transactionTemplate;
 
     public PurchaseService(
             PurchaseRepository repository,
             UserService userService,
             ProductService productService,
             PromotionService promotionService,
+            PromotionRedemptionLimiter redemptionLimiter,
             PurchaseAccessService purchaseAccessService,
             PurchasePricingService purchasePricingService,
-            PaginationProperties paginationProperties
+            SalesRollupService salesRollupService,
+            PaginationProperties paginationProperties,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager
     ) {
         this.repository = repository;
         this.userService = userService;
         this.productService = productService;
         this.promotionService = promotionService;
+        this.redemptionLimiter = redemptionLimiter;
         this.purchaseAccessService = purchaseAccessService;
         this.purchasePricingService = purchasePricingService;
+        this.salesRollupService = salesRollupService;
         this.paginationProperties = paginationProperties;
+        this.createQueries = DistributionSummary.builder("purchase.create.queries")
+                .description("Sentencias SQL ejecutadas por cada creación de compra")
+                .baseUnit("queries")
+                .register(meterRegistry);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * Crea una compra.
+     *
+     * Productos y promociones se cargan con una consulta cada uno, el stock se reserva en orden de ID de producto
+     * (dos compras con los mismos productos bloquean las filas en el mismo orden y no se interbloquean) y los usos
+     * de promoción se insertan en una sola sentencia. Las sentencias SQL de cada llamada se registran en la
+     * métrica {@code purchase.create.queries}.
+     *
+     * Los usos de promociones con tope global se toman de {@link PromotionRedemptionLimiter} antes de abrir la
+     * transacción, para que una reserva en la base de datos no retenga la conexión de la compra, y se devuelven si
+     * la compra falla.
+     *
+     * Con {@code autoApplyPromotions}, las líneas sin promoción reciben antes la mejor promoción aplicable que el
+     * comprador no haya usado (ver {@link PromotionService#selectBest}). Si una de las elegidas está agotada o se
+     * rechaza en la transacción (uso ya registrado que la caché aún no veía, o promoción que ha dejado de aplicar),
+     * se descarta, se recargan los usos del comprador y se vuelve a elegir.
+     *
+     * @param request artículos y usuario opcional (solo administradores)
+     * @return compra creada
+     */
     public PurchaseResponse create(PurchaseRequest request) {
+        Set<Long> rejected = new HashSet<>();
+        PurchaseRequest lastRejected = null;
+        while (true) {
+            PurchaseRequest effective = request.autoApplyPromotions() ? withBestPromotions(request, rejected) : request;
+            List<Long> redemptions;
+            try {
+                redemptions = redemptionLimiter.acquire(requestedPromotionIds(effective));
+            } catch (PromotionSoldOutException e) {
+                // Una promoción elegida automáticamente que se ha agotado se descarta y se elige otra para su línea.
+                if (!request.autoApplyPromotions() || requestedPromotionIds(request).contains(e.getPromotionId())) {
+                    throw e;
+                }
+                rejected.add(e.getPromotionId());
+                continue;
+            }
+            try {
+                return transactionTemplate.execute(status -> {
+                    QueryCountInspector.start();
+                    try {
+                        return doCreate(effective);
+                    } finally {
+                        createQueries.record(QueryCountInspector.stop());
+                    }
+                });
+            } catch (InvalidPromotionException e) {
+                redemptionLimiter.release(redemptions);
+                // Sin ID (varias promociones en un solo INSERT) se reintenta con los usos recargados, salvo que la
+                // nueva elección repita la rechazada: entonces el culpable es una promoción pedida explícitamente.
+                Set<Long> autoPicked = autoPickedPromotionIds(request, effective);
+                if (autoPicked.isEmpty() || effective.equals(lastRejected)
+                        || (e.getPromotionId() != null && !autoPicked.contains(e.getPromotionId()))) {
+                    throw e;
+                }
+                if (e.getPromotionId() != null) {
+                    rejected.add(e.getPromotionId());
+                }
+                promotionService.evictUsages(purchaseAccessService.resolvePurchaseUserId(request.userId()));
+                lastRejected = effective;
+            } catch (RuntimeException e) {
+                redemptionLimiter.release(redemptions);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Completa las líneas sin promoción con la mejor promoción aplicable que el comprador aún no ha usado.
+     *
+     * Los precios salen de la caché del catálogo y la elección de {@link PromotionService#selectBest}, así que sin
+     * fallos de caché no se consulta la base de datos. El descuento definitivo se valida y calcula igualmente en la
+     * transacción, con los productos ya bloqueados.
+     */
+    private PurchaseRequest withBestPromotions(PurchaseRequest request, Set<Long> rejected) {
+        if (request.items() == null) {
+            return request;
+        }
+        List<Integer> positions = new ArrayList<>();
+        List<PromotionSelector.Line> lines = new ArrayList<>();
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (int i = 0; i < request.items().size(); i++) {
+            PurchaseItemRequest item = request.items().get(i);
+            if (item.promotionId() != null || item.productId() == null || item.quantity() <= 0) {
+                continue;
+            }
+            BigDecimal price = prices.computeIfAbsent(item.productId(),
+                    id -> productService.getActiveByIdCached(id).price());
+            positions.add(i);
+            lines.add(new PromotionSelector.Line(item.productId(), price, item.quantity()));
+        }
+        if (lines.isEmpty()) {
+            return request;
+        }
+
+        Set<Long> excluded = new HashSet<>(rejected);
+        excluded.addAll(requestedPromotionIds(request));
+        Long userId = purchaseAccessService.resolvePurchaseUserId(request.userId());
+        List<Long> chosen = promotionService.selectBest(lines, userId, excluded);
+
+        List<PurchaseItemRequest> items = new ArrayList<>(request.items());
+        for (int i = 0; i < chosen.size(); i++) {
+            if (chosen.get(i) != null) {
+                PurchaseItemRequest item = items.get(positions.get(i));
+                items.set(positions.get(i), new PurchaseItemRequest(item.productId(), item.quantity(), chosen.get(i)));
+            }
+        }
+        return new PurchaseRequest(request.userId(), items, true);
+    }
+
+    private static List<Long> requestedPromotionIds(PurchaseRequest request) {
+        if (request.items() == null) {
+            return List.of();
+        }
+        return request.items().stream()
+                .map(PurchaseItemRequest::promotionId)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static Set<Long> autoPickedPromotionIds(PurchaseRequest request, PurchaseRequest effective) {
+        Set<Long> ids = new HashSet<>(requestedPromotionIds(effective));
+        requestedPromotionIds(request).forEach(ids::remove);
+        return ids;
+    }
+
+    private PurchaseResponse doCreate(PurchaseRequest request) {
         if (request.items() == null || request.items().isEmpty()) {
             throw new InvalidPurchaseException("La compra debe incluir al menos un artículo");
         }
 
-        User user = purchaseAccessService.resolvePurchaseUser(request.userId());
-        Purchase purchase = new Purchase(user, LocalDateTime.now(CLOCK_UTC), PurchaseStatus.CREATED);
-
+        // Cantidad total por producto, ordenada por ID para reservar siempre en el mismo orden.
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Set<Long> promotionIds = new HashSet<>();
         for (PurchaseItemRequest itemRequest : request.items()) {
             if (itemRequest.quantity() <= 0) {
                 throw new InvalidPurchaseException("La cantidad del artículo debe ser mayor que cero");
             }
+            quantities.merge(itemRequest.productId(), itemRequest.quantity(), Integer::sum);
+            if (itemRequest.promotionId() != null) {
+                promotionIds.add(itemRequest.promotionId());
+            }
+        }
 
-            Product product = productService.getActiveEntityById(itemRequest.productId());
+        User user = purchaseAccessService.resolvePurchaseUser(request.userId());
+        Purchase purchase = new Purchase(user, LocalDateTime.now(CLOCK_UTC), PurchaseStatus.CREATED);
 
-            // Disminuir stock primero, luego aplicar promoción. Si algo falla después, la transacción se revierte.
-            product.decreaseStock(itemRequest.quantity());
+        Map<Long, Product> products = productService.getActiveEntitiesByIds(quantities.keySet());
+        Map<Long, Promotion> promotions = promotionIds.isEmpty()
+                ? Map.of()
+                : promotionService.getEntitiesByIds(promotionIds);
+
+        // Reservar stock primero (UPDATE condicional atómico), luego aplicar promociones. Si algo falla después,
+        // la transacción se revierte.
+        quantities.forEach(productService::reserveStock);
+
+        List<Promotion> usedPromotions = new ArrayList<>();
+        for (PurchaseItemRequest itemRequest : request.items()) {
+            Product product = products.get(itemRequest.productId());
 
             Promotion promotion = null;
             BigDecimal discountAmount = BigDecimal.ZERO;
             if (itemRequest.promotionId() != null) {
-                promotion = promotionService.getEntityById(itemRequest.promotionId());
-                discountAmount = promotionService.applyPromotion(promotion, product, itemRequest.quantity(), user);
+                promotion = promotions.get(itemRequest.promotionId());
+                discountAmount = promotionService.calculateDiscount(promotion, product, itemRequest.quantity());
+                usedPromotions.add(promotion);
             }
 
             BigDecimal unitPrice = product.getPrice();
@@ -111,8 +297,11 @@ public class PurchaseService {
 
             purchase.addItem(item);
         }
+        promotionService.recordUsages(usedPromotions, user);
 
-        return PurchaseResponse.from(repository.save(purchase));
+        Purchase saved = repository.save(purchase);
+        productService.onStockChanged(stockProductIds(saved));
+        return PurchaseResponse.from(saved);
     }
 
     @Transactional(readOnly = true)
@@ -138,11 +327,9 @@ public class PurchaseService {
             
             if (!hasDateFilter) {
                 if (userId != null) {
-                    return repository.findAllDetailedByUserId(userId, safePageable)
-                            .map(PurchaseResponse::from);
+                    return detailedPage(repository.findIdPageByUserId(userId, safePageable));
                 }
-                return repository.findAllDetailed(safePageable)
-                        .map(PurchaseResponse::from);
+                return detailedPage(repository.findIdPage(safePageable));
             }
 
             // Con filtro de fechas
@@ -150,26 +337,144 @@ public class PurchaseService {
             LocalDateTime to = endDate != null ? endDate : LocalDateTime.now(CLOCK_UTC).plusYears(100);
 
             if (userId != null) {
-                return repository.findAllDetailedByUserIdBetweenDates(userId, from, to, safePageable)
-                        .map(PurchaseResponse::from);
+                return detailedPage(repository.findIdPageByUserIdBetweenDates(userId, from, to, safePageable));
             }
-            return repository.findAllDetailedBetweenDates(from, to, safePageable)
-                    .map(PurchaseResponse::from);
+            return detailedPage(repository.findIdPageBetweenDates(from, to, safePageable));
         }
 
         // No-admin users: solo ven sus propias compras
-        User currentUser = purchaseAccessService.currentUser();
+        Long currentUserId = purchaseAccessService.currentUserId();
         
         if (!hasDateFilter) {
-            return repository.findAllDetailedByUserId(currentUser.getId(), safePageable)
-                    .map(PurchaseResponse::from);
+            return detailedPage(repository.findIdPageByUserId(currentUserId, safePageable));
         }
 
         LocalDateTime from = startDate != null ? startDate : LocalDateTime.of(1900, 1, 1, 0, 0, 0);
         LocalDateTime to = endDate != null ? endDate : LocalDateTime.now(CLOCK_UTC).plusYears(100);
 
-        return repository.findAllDetailedByUserIdBetweenDates(currentUser.getId(), from, to, safePageable)
-                .map(PurchaseResponse::from);
+        return detailedPage(repository.findIdPageByUserIdBetweenDates(currentUserId, from, to, safePageable));
+    }
+
+    /**
+     * Lista resúmenes de compras (sin artículos), con los mismos filtros y permisos que {@link #getAll}.
+     *
+     * Cada fila sale de una proyección sobre {@code purchases} con el número de artículos calculado en una
+     * subconsulta; no se cargan artículos, productos ni promociones.
+     *
+     * @param pageable paginación y ordenación solicitadas
+     * @param userId filtro de usuario (solo administradores)
+     * @param startDate fecha de inicio opcional
+     * @param endDate fecha de fin opcional
+     * @return página de resúmenes
+     */
+    @Transactional(readOnly = true)
+    public Page<PurchaseSummaryResponse> getSummaries(
+            Pageable pageable,
+            Long userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate
+    ) {
+        Pageable safePageable = PageableUtils.safe(pageable, paginationProperties.maxPageSize());
+        Authentication auth = SecurityUtils.requireAuthentication();
+
+        Long effectiveUserId;
+        if (SecurityUtils.isAdmin(auth)) {
+            if (userId != null) {
+                userService.getEntityById(userId);
+            }
+            effectiveUserId = userId;
+        } else {
+            effectiveUserId = purchaseAccessService.currentUserId();
+        }
+
+        if (startDate == null && endDate == null) {
+            return effectiveUserId == null
+                    ? repository.findSummaryPage(safePageable)
+                    : repository.findSummaryPageByUserId(effectiveUserId, safePageable);
+        }
+        LocalDateTime from = startDate != null ? startDate : LocalDateTime.of(1900, 1, 1, 0, 0, 0);
+        LocalDateTime to = endDate != null ? endDate : LocalDateTime.now(CLOCK_UTC).plusYears(100);
+        return effectiveUserId == null
+                ? repository.findSummaryPageBetweenDates(from, to, safePageable)
+                : repository.findSummaryPageByUserIdBetweenDates(effectiveUserId, from, to, safePageable);
+    }
+
+    /**
+     * Lista compras en modo cursor (paginación por clave), con los mismos filtros y permisos que {@link #getAll}.
+     *
+     * Primero se obtiene la ventana de compras con LIMIT en SQL y después se cargan los artículos solo de esas
+     * compras.
+     *
+     * @param cursor cursor de la página anterior; vacío para la primera
+     * @param size tamaño de página solicitado
+     * @param sort ordenación (createdAt o total; el ID se añade como desempate)
+     * @param userId filtro de usuario (solo administradores)
+     * @param startDate fecha de inicio opcional
+     * @param endDate fecha de fin opcional
+     * @return página con el cursor siguiente
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PurchaseResponse> getAllByCursor(
+            String cursor,
+            int size,
+            Sort sort,
+            Long userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate
+    ) {
+        KeysetPagination.Request request = CURSOR.request(cursor, size, sort, paginationProperties.maxPageSize());
+        Authentication auth = SecurityUtils.requireAuthentication();
+
+        Long effectiveUserId;
+        if (SecurityUtils.isAdmin(auth)) {
+            if (userId != null) {
+                userService.getEntityById(userId);
+            }
+            effectiveUserId = userId;
+        } else {
+            effectiveUserId = purchaseAccessService.currentUserId();
+        }
+
+        Window<Purchase> window;
+        if (startDate == null && endDate == null) {
+            window = effectiveUserId == null
+                    ? repository.findAllBy(request.position(), request.limit(), request.sort())
+                    : repository.findByUserId(effectiveUserId, request.position(), request.limit(), request.sort());
+        } else {
+            LocalDateTime from = startDate != null ? startDate : LocalDateTime.of(1900, 1, 1, 0, 0, 0);
+            LocalDateTime to = endDate != null ? endDate : LocalDateTime.now(CLOCK_UTC).plusYears(100);
+            window = effectiveUserId == null
+                    ? repository.findByCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+                            from, to, request.position(), request.limit(), request.sort())
+                    : repository.findByUserIdAndCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+                            effectiveUserId, from, to, request.position(), request.limit(), request.sort());
+        }
+
+        List<Long> ids = window.getContent().stream().map(Purchase::getId).toList();
+        Map<Long, Purchase> detailed = loadDetailed(ids);
+        List<PurchaseResponse> content = ids.stream()
+                .map(id -> PurchaseResponse.from(detailed.get(id)))
+                .toList();
+        return new CursorPage<>(content, CURSOR.nextCursor(window, request), request.limit().max());
+    }
+
+    private Page<PurchaseResponse> detailedPage(Page<Long> ids) {
+        Map<Long, Purchase> detailed = loadDetailed(ids.getContent());
+        return ids.map(id -> PurchaseResponse.from(detailed.get(id)));
+    }
+
+    /**
+     * Carga artículos, productos y promociones de una página de compras en una sola consulta.
+     *
+     * @param ids IDs de la página, ya limitados en SQL
+     * @return compras detalladas por ID
+     */
+    private Map<Long, Purchase> loadDetailed(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return repository.findAllDetailedByIdIn(ids).stream()
+                .collect(Collectors.toMap(Purchase::getId, Function.identity(), (first, duplicate) -> first));
     }
 
     @Transactional
@@ -185,6 +490,12 @@ public class PurchaseService {
             throw new InvalidPurchaseException("Solo las compras pendientes pueden ser canceladas");
         }
 
+        // La expiración de compras pendientes puede cancelar la misma compra a la vez: solo sigue quien gana la
+        // transición condicional CREATED -> CANCELLED, para no devolver el stock dos veces.
+        if (repository.transitionStatus(List.of(id), PurchaseStatus.CREATED, PurchaseStatus.CANCELLED) == 0) {
+            throw new InvalidPurchaseException("Solo las compras pendientes pueden ser canceladas");
+        }
+
         // Liberar uso de promoción primero, luego restaurar stock. Si algo falla, la transacción se revierte.
         for (PurchaseItem item : purchase.getItems()) {
             if (item.getPromotion() != null) {
@@ -192,12 +503,21 @@ public class PurchaseService {
             }
         }
 
-        for (PurchaseItem item : purchase.getItems()) {
-            item.getProduct().increaseStock(item.getQuantity());
-        }
+        // UPDATE en bloque, como la expiración: no se tocan los productos gestionados ni su versión.
+        productService.restoreStockForPurchases(List.of(purchase.getId()));
 
+        // Solo se cancelan compras pendientes, que nunca han entrado en el resumen de ventas: no hay nada que restar.
         purchase.cancel();
         repository.save(purchase);
+        productService.onStockChanged(stockProductIds(purchase));
+    }
+
+    private static Set<Long> stockProductIds(Purchase purchase) {
+        Set<Long> ids = new HashSet<>();
+        for (PurchaseItem item : purchase.getItems()) {
+            ids.add(item.getProduct().getId());
+        }
+        return ids;
     }
 
     @Transactional
@@ -216,8 +536,15 @@ public class PurchaseService {
             throw new InvalidPurchaseException("La compra no puede ser marcada como pagada");
         }
 
+        // Una compra que la expiración acaba de cancelar (y cuyo stock ya devolvió) no puede marcarse como pagada.
+        if (repository.transitionStatus(List.of(id), PurchaseStatus.CREATED, PurchaseStatus.PAID) == 0) {
+            throw new InvalidPurchaseException("La compra no puede ser marcada como pagada");
+        }
+
         purchase.pay();
         repository.save(purchase);
+        salesRollupService.recordPaid(purchase);
+        productService.onPurchasePaid(purchase);
     }
 
 }
@@ -13,8 +13,13 @@ public record PurchaseRequest(
         @Schema(description = "Opcional. ID del usuario propietario. Requerido para administradores; ignorado/resuelto desde el JWT para usuarios regulares.", example = "1")
         Long userId,
         @Schema(description = "Artículos en la compra")
-        @NotEmpty @Valid List<PurchaseItemRequest> items
+        @NotEmpty @Valid List<PurchaseItemRequest> items,
+        @Schema(description = "Opcional. Si es true, cada línea sin promotionId recibe la mejor promoción activa que el usuario aún no ha usado", example = "false")
+        boolean autoApplyPromotions
 ) {
+    public PurchaseRequest(Long userId, List<PurchaseItemRequest> items) {
+        this(userId, items, false);
+    }
 }
 
 
@@ -0,0 +1,21 @@
+package com.bakery.bakeryapi.purchase.dto;
+
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de una compra para listados (historial de pedidos), sin artículos.
+ *
+ * Se construye directamente desde una proyección JPQL; el detalle completo está en {@code GET /purchases/{id}}.
+ */
+public record PurchaseSummaryResponse(
+        Long id,
+        Long userId,
+        LocalDateTime createdAt,
+        PurchaseStatus status,
+        BigDecimal total,
+        Long itemCount
+) {
+}
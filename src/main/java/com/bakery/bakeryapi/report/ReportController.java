@@ -0,0 +1,76 @@
+package com.bakery.bakeryapi.report;
+
+import com.bakery.bakeryapi.report.dto.SalesReportResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * Puntos finales REST de informes para administradores.
+ */
+@RestController
+@RequestMapping("/reports")
+@Tag(name = "Informes", description = "Informes de ventas a partir del resumen diario (solo administradores)")
+@SecurityRequirement(name = "bearerAuth")
+public class ReportController {
+
+    private final SalesReportService reportService;
+    private final SalesRollupService rollupService;
+
+    public ReportController(SalesReportService reportService, SalesRollupService rollupService) {
+        this.reportService = reportService;
+        this.rollupService = rollupService;
+    }
+
+    @GetMapping("/sales")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Informe de ventas", description = """
+            Ventas PAGADAS de un rango de días (ambos incluidos, por fecha UTC de creación de la compra), con totales
+            del rango y por periodo. Se calcula a partir del resumen diario, sin recorrer las compras.
+            
+            Parámetros de consulta:
+            - from: Primer día (formato ISO 8601, ej. 2024-01-01)
+            - to: Último día (formato ISO 8601, ej. 2024-01-31)
+            - granularity: day (por defecto), week (semanas de lunes a domingo) o month
+            - categoryId: Filtro opcional por categoría
+            """)
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "400", description = "Rango o agrupación no válidos"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "403", description = "Prohibido")
+    })
+    public ResponseEntity<SalesReportResponse> getSales(
+            @Parameter(description = "Primer día (formato ISO 8601)") @RequestParam LocalDate from,
+            @Parameter(description = "Último día (formato ISO 8601)") @RequestParam LocalDate to,
+            @Parameter(description = "Agrupación (day, week, month)") @RequestParam(required = false) String granularity,
+            @Parameter(description = "Filtro por categoría") @RequestParam(required = false) Long categoryId
+    ) {
+        return ResponseEntity.ok(reportService.getSales(from, to, SalesGranularity.from(granularity), categoryId));
+    }
+
+    @PostMapping("/sales/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recalcular el resumen de ventas", description = "Solo para administradores. Regenera el resumen diario a partir de todas las compras PAGADAS. Se ejecuta una vez al desplegar el resumen o para repararlo.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Resumen recalculado"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "403", description = "Prohibido")
+    })
+    public ResponseEntity<Void> backfillSales() {
+        rollupService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.bakery.bakeryapi.report;
+
+import com.bakery.bakeryapi.report.exception.InvalidSalesReportException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Agrupación temporal de un informe de ventas. Las semanas empiezan en lunes (ISO-8601).
+ */
+public enum SalesGranularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * @param day día de venta
+     * @return primer día del periodo al que pertenece
+     */
+    public LocalDate periodStart(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Interpreta el parámetro {@code granularity} sin distinguir mayúsculas.
+     *
+     * @param value valor recibido; {@code null} equivale a DAY
+     * @return agrupación solicitada
+     * @throws InvalidSalesReportException si la agrupación no existe
+     */
+    public static SalesGranularity from(String value) {
+        if (value == null || value.isBlank()) {
+            return DAY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSalesReportException("Agrupación no admitida: " + value + " (admitidas: day, week, month)");
+        }
+    }
+}
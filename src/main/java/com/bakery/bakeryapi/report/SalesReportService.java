@@ -0,0 +1,83 @@
+package com.bakery.bakeryapi.report;
+
+import com.bakery.bakeryapi.report.dto.SalesPeriodResponse;
+import com.bakery.bakeryapi.report.dto.SalesReportResponse;
+import com.bakery.bakeryapi.report.exception.InvalidSalesReportException;
+import com.bakery.bakeryapi.repository.SalesDailyRollupRepository;
+import com.bakery.bakeryapi.repository.SalesDailyRollupRepository.DailyTotalsRow;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Informes de ventas a partir del resumen diario.
+ *
+ * La base de datos devuelve como mucho una fila por día del rango (sumando productos); la agrupación por semanas o
+ * meses se hace en memoria sobre esas filas. El coste depende del número de días, no del de compras.
+ */
+@Service
+public class SalesReportService {
+
+    // Diez años: más que suficiente para cualquier panel y limita el tamaño de la respuesta diaria.
+    private static final long MAX_RANGE_DAYS = 3_660;
+
+    private final SalesDailyRollupRepository repository;
+
+    public SalesReportService(SalesDailyRollupRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Calcula las ventas PAGADAS de [from, to] agrupadas por periodo.
+     *
+     * @param from primer día, incluido
+     * @param to último día, incluido
+     * @param granularity agrupación de los periodos
+     * @param categoryId filtro opcional por categoría
+     * @return totales del rango y de cada periodo con ventas
+     * @throws InvalidSalesReportException si el rango está invertido o es demasiado largo
+     */
+    @Transactional(readOnly = true)
+    public SalesReportResponse getSales(LocalDate from, LocalDate to, SalesGranularity granularity, Long categoryId) {
+        if (to.isBefore(from)) {
+            throw new InvalidSalesReportException("La fecha de fin no puede ser anterior a la de inicio");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new InvalidSalesReportException("El rango no puede superar " + MAX_RANGE_DAYS + " días");
+        }
+
+        Map<LocalDate, Totals> periods = new LinkedHashMap<>();
+        Totals total = new Totals();
+        for (DailyTotalsRow row : repository.findDailyTotals(from, to, categoryId)) {
+            periods.computeIfAbsent(granularity.periodStart(row.getSalesDay()), start -> new Totals()).add(row);
+            total.add(row);
+        }
+
+        List<SalesPeriodResponse> content = new ArrayList<>(periods.size());
+        periods.forEach((start, totals) ->
+                content.add(new SalesPeriodResponse(start, totals.units, totals.gross, totals.discount, totals.net)));
+        return new SalesReportResponse(from, to, granularity, categoryId,
+                total.units, total.gross, total.discount, total.net, content);
+    }
+
+    private static final class Totals {
+        private long units;
+        private BigDecimal gross = BigDecimal.ZERO;
+        private BigDecimal discount = BigDecimal.ZERO;
+        private BigDecimal net = BigDecimal.ZERO;
+
+        private void add(DailyTotalsRow row) {
+            units += row.getUnits();
+            gross = gross.add(row.getGross());
+            discount = discount.add(row.getDiscount());
+            net = net.add(row.getNet());
+        }
+    }
+}
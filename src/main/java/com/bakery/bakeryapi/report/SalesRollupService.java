@@ -0,0 +1,78 @@
+package com.bakery.bakeryapi.report;
+
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
+import com.bakery.bakeryapi.repository.SalesDailyRollupRepository;
+import com.bakery.bakeryapi.repository.SalesDailyRollupRepositoryCustom.Delta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantiene el resumen diario de ventas ({@code sales_daily_rollup}).
+ *
+ * Cada compra pagada suma sus artículos a las filas (día, producto) dentro de la misma transacción que la marca
+ * como PAGADA: si el pago se revierte, el resumen también. El día es la fecha UTC de creación de la compra, igual
+ * que en el relleno, para que ambos caminos produzcan las mismas filas.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private final SalesDailyRollupRepository repository;
+
+    public SalesRollupService(SalesDailyRollupRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Suma una compra recién pagada al resumen. Debe llamarse dentro de la transacción del pago.
+     *
+     * Las filas se actualizan en orden de ID de producto, así que dos pagos simultáneos con los mismos productos
+     * bloquean las filas en el mismo orden y no se interbloquean.
+     *
+     * @param purchase compra pagada, con sus artículos y productos cargados
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPaid(Purchase purchase) {
+        LocalDate day = purchase.getCreatedAt().toLocalDate();
+        Map<Long, Delta> deltas = new TreeMap<>();
+        for (PurchaseItem item : purchase.getItems()) {
+            Long productId = item.getProduct().getId();
+            BigDecimal gross = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            Delta delta = new Delta(day, productId, item.getProduct().getCategory().getId(), item.getQuantity(),
+                    gross, item.getDiscountAmount(), item.getSubtotal());
+            deltas.merge(productId, delta, SalesRollupService::sum);
+        }
+        repository.upsertAll(deltas.values());
+    }
+
+    /**
+     * Recalcula el resumen completo a partir de las compras PAGADAS existentes.
+     *
+     * Pensado para ejecutarse una vez al desplegar el resumen (o para repararlo): borra todas las filas y las
+     * vuelve a insertar con un único INSERT ... SELECT agrupado, en una sola transacción.
+     *
+     * @return filas (día, producto) generadas
+     */
+    @Transactional
+    public int rebuild() {
+        int deleted = repository.deleteAllRows();
+        int inserted = repository.insertFromPaidPurchases();
+        log.info("Resumen diario de ventas recalculado: {} filas borradas, {} filas generadas", deleted, inserted);
+        return inserted;
+    }
+
+    private static Delta sum(Delta a, Delta b) {
+        return new Delta(a.day(), a.productId(), a.categoryId(), a.units() + b.units(),
+                a.gross().add(b.gross()), a.discount().add(b.discount()), a.net().add(b.net()));
+    }
+}
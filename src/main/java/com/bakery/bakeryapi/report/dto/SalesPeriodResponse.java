@@ -0,0 +1,22 @@
+package com.bakery.bakeryapi.report.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ventas de un periodo (día, semana o mes) de un informe.
+ *
+ * @param periodStart primer día del periodo
+ * @param units unidades vendidas
+ * @param gross importe bruto
+ * @param discount descuentos aplicados
+ * @param net importe neto
+ */
+public record SalesPeriodResponse(
+        LocalDate periodStart,
+        long units,
+        BigDecimal gross,
+        BigDecimal discount,
+        BigDecimal net
+) {
+}
@@ -0,0 +1,23 @@
+package com.bakery.bakeryapi.report.dto;
+
+import com.bakery.bakeryapi.report.SalesGranularity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Informe de ventas PAGADAS de un rango de días, agrupado por periodos. Los periodos sin ventas no aparecen.
+ */
+public record SalesReportResponse(
+        LocalDate from,
+        LocalDate to,
+        SalesGranularity granularity,
+        Long categoryId,
+        long units,
+        BigDecimal gross,
+        BigDecimal discount,
+        BigDecimal net,
+        List<SalesPeriodResponse> periods
+) {
+}
@@ -0,0 +1,14 @@
+package com.bakery.bakeryapi.report.exception;
+
+import com.bakery.bakeryapi.shared.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Se lanza cuando los parámetros de un informe de ventas (rango o agrupación) no son válidos.
+ */
+public class InvalidSalesReportException extends ApiException {
+
+    public InvalidSalesReportException(String message) {
+        super(message, HttpStatus.BAD_REQUEST);
+    }
+}
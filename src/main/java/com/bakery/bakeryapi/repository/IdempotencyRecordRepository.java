@@ -0,0 +1,52 @@
+package com.bakery.bakeryapi.repository;
+
+import com.bakery.bakeryapi.domain.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Acceso de persistencia para las respuestas guardadas por {@code Idempotency-Key}.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByOwnerAndIdempotencyKey(String owner, String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.owner = :owner and r.idempotencyKey = :key and r.status is null")
+    int deletePending(@Param("owner") String owner, @Param("key") String idempotencyKey);
+
+    // Misma condición que la purga, para una sola clave: libera una fila caducada o abandonada antes de reservarla.
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.owner = :owner and r.idempotencyKey = :key
+              and (r.createdAt < :expiredBefore or (r.status is null and r.createdAt < :abandonedBefore))
+            """)
+    int deleteStale(
+            @Param("owner") String owner,
+            @Param("key") String idempotencyKey,
+            @Param("expiredBefore") LocalDateTime expiredBefore,
+            @Param("abandonedBefore") LocalDateTime abandonedBefore
+    );
+
+    // Purga: respuestas caducadas y reservas de peticiones que no terminaron (p. ej. por un reinicio).
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.createdAt < :expiredBefore
+               or (r.status is null and r.createdAt < :abandonedBefore)
+            """)
+    int deleteExpired(
+            @Param("expiredBefore") LocalDateTime expiredBefore,
+            @Param("abandonedBefore") LocalDateTime abandonedBefore
+    );
+}
@@ -0,0 +1,53 @@
+package com.bakery.bakeryapi.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Utilidades para las sentencias nativas de varias filas de los repositorios personalizados, que cambian de forma
+ * según el dialecto: MySQL/MariaDB en producción y SQL estándar ({@code MERGE}) en el resto (H2 en pruebas).
+ */
+final class NativeSql {
+
+    private NativeSql() {
+    }
+
+    /**
+     * @param entityManager gestor de entidades del repositorio
+     * @return {@code true} si la base de datos es MySQL o MariaDB
+     */
+    static boolean isMySql(EntityManager entityManager) {
+        Dialect dialect = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        return dialect instanceof MySQLDialect;
+    }
+
+    /**
+     * Genera la lista de filas de un {@code VALUES} con parámetros posicionales numerados desde 1, fila a fila.
+     *
+     * En una tabla derivada {@code VALUES} (la fuente de un {@code MERGE}) los parámetros no tienen tipo, así que
+     * con {@code typed} cada uno se declara con CAST al tipo de su columna.
+     *
+     * @param rows número de filas
+     * @param types tipo SQL de cada columna, en orden
+     * @param typed si se envuelve cada parámetro en CAST
+     * @return filas separadas por comas, p. ej. {@code (?1, ?2), (?3, ?4)}
+     */
+    static String valuesRows(int rows, String[] types, boolean typed) {
+        StringBuilder values = new StringBuilder();
+        for (int row = 0; row < rows; row++) {
+            values.append(row == 0 ? "(" : ", (");
+            for (int column = 0; column < types.length; column++) {
+                String parameter = "?" + (row * types.length + column + 1);
+                values.append(column == 0 ? "" : ", ")
+                        .append(typed ? "cast(" + parameter + " as " + types[column] + ")" : parameter);
+            }
+            values.append(')');
+        }
+        return values.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.bakery.bakeryapi.repository;
+
+import com.bakery.bakeryapi.domain.ProductImage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Acceso de persistencia para imágenes de productos (clave = ID del producto).
+ */
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+
+    /**
+     * Devuelve, por orden de ID, los productos cuya imagen no tiene todas sus miniaturas vigentes.
+     *
+     * Solo lee IDs, nunca los bytes de las imágenes.
+     */
+    @Query("""
+            select i.productId from ProductImage i
+            where i.productId > :afterId
+              and (select count(v) from ProductImageVariant v
+                   where v.product.id = i.productId and v.sourceHash = i.hash) < :variantCount
+            order by i.productId
+            """)
+    List<Long> findIdsMissingVariants(
+            @Param("afterId") Long afterId,
+            @Param("variantCount") long variantCount,
+            Pageable pageable
+    );
+}
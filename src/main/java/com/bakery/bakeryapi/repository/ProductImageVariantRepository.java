@@ -0,0 +1,39 @@
+package com.bakery.bakeryapi.repository;
+
+import com.bakery.bakeryapi.domain.ImageVariantSize;
+import com.bakery.bakeryapi.domain.ProductImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Acceso de persistencia para miniaturas de imágenes de producto.
+ */
+public interface ProductImageVariantRepository extends JpaRepository<ProductImageVariant, Long> {
+
+    @Query("select v from ProductImageVariant v where v.product.id = :productId and v.size = :size")
+    Optional<ProductImageVariant> findByProductIdAndSize(
+            @Param("productId") Long productId,
+            @Param("size") ImageVariantSize size
+    );
+
+    /**
+     * Devuelve el hash de una variante vigente sin cargar sus bytes.
+     */
+    @Query("""
+            select v.hash from ProductImageVariant v
+            where v.product.id = :productId and v.size = :size and v.sourceHash = :sourceHash
+            """)
+    Optional<String> findCurrentHash(
+            @Param("productId") Long productId,
+            @Param("size") ImageVariantSize size,
+            @Param("sourceHash") String sourceHash
+    );
+
+    @Modifying
+    @Query("delete from ProductImageVariant v where v.product.id = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
@@ -1,15 +1,26 @@
 package com.bakery.bakeryapi.repository;
 
 import com.bakery.bakeryapi.domain.Product;
-import com.bakery.bakeryapi.product.dto.ProductSalesResponse;
+import com.bakery.bakeryapi.product.ProductNameEntry;
+import com.bakery.bakeryapi.product.ProductSalesTotal;
 import com.bakery.bakeryapi.domain.PurchaseStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Acceso de persistencia para productos y proyecciones de ventas de productos.
  */
@@ -28,45 +39,81 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @EntityGraph(attributePaths = {"category"})
     Page<Product> findAllByCategoryIdAndActiveTrue(Long categoryId, Pageable pageable);
 
+    // Carga en bloque de los productos de una compra: una sola consulta "id in (...)" con la categoría.
+    @Override
+    @EntityGraph(attributePaths = {"category"})
+    List<Product> findAllById(Iterable<Long> ids);
+
+    // Reserva atómica: la condición y la resta se evalúan en la misma sentencia, sin leer-modificar-escribir.
+    // Incrementa la versión para que una escritura posterior con una copia antigua de la entidad falle en lugar de
+    // sobrescribir el stock.
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stock = p.stock - :quantity, p.version = p.version + 1
+            where p.id = :id and p.stock >= :quantity and p.active = true
+            """)
+    int decreaseStockIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Devolución de stock en bloque: suma en una sola sentencia las cantidades de todas las compras indicadas.
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stock = p.stock + (
+                    select sum(i.quantity) from PurchaseItem i
+                    where i.purchase.id in :purchaseIds and i.product = p
+                ),
+                p.version = p.version + 1
+            where p.id in (select i2.product.id from PurchaseItem i2 where i2.purchase.id in :purchaseIds)
+            """)
+    int restoreStockForPurchases(@Param("purchaseIds") Collection<Long> purchaseIds);
+
+    @Query("select p.stock from Product p where p.id = :id and p.active = true")
+    Optional<Integer> findActiveStockById(@Param("id") Long id);
+
+    // Versión actual de la imagen, para descartar miniaturas generadas a partir de una imagen ya sustituida.
+    @Query("select p.imageHash from Product p where p.id = :id")
+    Optional<String> findImageHashById(@Param("id") Long id);
+
     @Query("select count(pi) > 0 from PurchaseItem pi where pi.product.id = :productId")
     boolean existsPurchasesByProductId(@Param("productId") Long productId);
 
+    // Rankings de más vendidos (TopSellingRankings): se calculan periódicamente, no en cada petición. Las ventanas
+    // acotadas leen compras PAGADAS desde "since" siguiendo el índice (status, created_at, id); el histórico se
+    // suma desde el resumen diario de ventas en lugar de recorrer todos los artículos.
     @Query("""
-            select new com.bakery.bakeryapi.product.dto.ProductSalesResponse(
+            select new com.bakery.bakeryapi.product.ProductSalesTotal(
                 p.id,
                 p.name,
+                p.category.id,
+                p.active,
                 sum(pi.quantity)
             )
             from PurchaseItem pi
             join pi.purchase purchase
             join pi.product p
             where purchase.status = :status
-            group by p.id, p.name
-            order by sum(pi.quantity) desc
+              and purchase.createdAt >= :since
+            group by p.id, p.name, p.category.id, p.active
             """)
-    Page<ProductSalesResponse> findTopSellingByStatus(
+    List<ProductSalesTotal> findSalesTotalsSince(
             @Param("status") PurchaseStatus status,
-            Pageable pageable
+            @Param("since") LocalDateTime since
     );
 
     @Query("""
-            select new com.bakery.bakeryapi.product.dto.ProductSalesResponse(
+            select new com.bakery.bakeryapi.product.ProductSalesTotal(
                 p.id,
                 p.name,
-                sum(pi.quantity)
+                p.category.id,
+                p.active,
+                sum(r.units)
             )
-            from PurchaseItem pi
-            join pi.purchase purchase
-            join pi.product p
-            where purchase.status = :status
-              and p.active = true
-            group by p.id, p.name
-            order by sum(pi.quantity) desc
+            from SalesDailyRollup r
+            join Product p on p.id = r.productId
+            group by p.id, p.name, p.category.id, p.active
             """)
-    Page<ProductSalesResponse> findTopSellingByStatusAndActiveTrue(
-            @Param("status") PurchaseStatus status,
-            Pageable pageable
-    );
+    List<ProductSalesTotal> findAllTimeSalesTotals();
 
     @EntityGraph(attributePaths = {"category"})
     @Query("select p from Product p where lower(p.name) like lower(concat('%', :name, '%'))")
@@ -91,4 +138,62 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             @Param("name") String name,
             Pageable pageable
     );
+
+    // Carga ligera para reconstruir el índice de nombres (sin descripción ni precio).
+    @Query("select new com.bakery.bakeryapi.product.ProductNameEntry(p.id, p.name, p.category.id, p.active) from Product p")
+    List<ProductNameEntry> findAllNameEntries();
+
+    // Candidatos resueltos por el índice de nombres: se vuelve a aplicar el filtro por si el índice está desactualizado.
+    @EntityGraph(attributePaths = {"category"})
+    @Query("""
+            select p from Product p
+            where p.id in :ids
+              and (:activeOnly = false or p.active = true)
+              and (:categoryId is null or p.category.id = :categoryId)
+              and lower(p.name) like lower(concat('%', :name, '%'))
+            """)
+    Page<Product> findByIdInAndNameContainsIgnoreCase(
+            @Param("ids") Collection<Long> ids,
+            @Param("name") String name,
+            @Param("categoryId") Long categoryId,
+            @Param("activeOnly") boolean activeOnly,
+            Pageable pageable
+    );
+
+    // Modo cursor: consultas por clave (sin OFFSET ni count). Ordenación siempre con el ID como desempate.
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findByActiveTrue(ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findByCategoryId(Long categoryId, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findByCategoryIdAndActiveTrue(Long categoryId, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findByNameContainingIgnoreCase(String name, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findByNameContainingIgnoreCaseAndActiveTrue(String name, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findByCategoryIdAndNameContainingIgnoreCase(
+            Long categoryId,
+            String name,
+            ScrollPosition position,
+            Limit limit,
+            Sort sort
+    );
+
+    @EntityGraph(attributePaths = {"category"})
+    Window<Product> findByCategoryIdAndNameContainingIgnoreCaseAndActiveTrue(
+            Long categoryId,
+            String name,
+            ScrollPosition position,
+            Limit limit,
+            Sort sort
+    );
 }
@@ -0,0 +1,48 @@
+package com.bakery.bakeryapi.repository;
+
+import com.bakery.bakeryapi.domain.PromotionRedemptions;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Acceso de persistencia para los contadores globales de usos de promoción.
+ */
+public interface PromotionRedemptionsRepository extends JpaRepository<PromotionRedemptions, Long> {
+
+    // Inserción explícita: save() con ID asignado haría merge (SELECT previo) sin necesidad.
+    @Modifying
+    @Query(value = "insert into promotion_redemptions (promotion_id, reserved) values (:promotionId, 0)",
+            nativeQuery = true)
+    int insertCounter(@Param("promotionId") Long promotionId);
+
+    // Reserva atómica de permisos: solo se aplica si no se supera el tope. Transacción propia para que la fila
+    // quede libre en cuanto se confirma, sin esperar a la compra que la pidió.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("""
+            update PromotionRedemptions r
+            set r.reserved = r.reserved + :permits
+            where r.promotionId = :promotionId
+              and r.reserved + :permits <= :maxRedemptions
+            """)
+    int reserve(
+            @Param("promotionId") Long promotionId,
+            @Param("permits") int permits,
+            @Param("maxRedemptions") int maxRedemptions
+    );
+
+    // Devuelve permisos reservados y no usados (checkpoint) o liberados por cancelaciones.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("""
+            update PromotionRedemptions r
+            set r.reserved = r.reserved - :permits
+            where r.promotionId = :promotionId
+              and r.reserved >= :permits
+            """)
+    int giveBack(@Param("promotionId") Long promotionId, @Param("permits") int permits);
+}
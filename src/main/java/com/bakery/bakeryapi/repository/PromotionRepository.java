@@ -1,14 +1,21 @@
 package com.bakery.bakeryapi.repository;
 
 import com.bakery.bakeryapi.domain.Promotion;
+import com.bakery.bakeryapi.promotion.RedemptionCap;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Acceso de persistencia para promociones y consultas de promoción activa.
@@ -19,6 +26,28 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
     @EntityGraph(attributePaths = "product")
     Page<Promotion> findAll(Pageable pageable);
 
+    // Carga en bloque de las promociones de una compra junto con su producto.
+    @Override
+    @EntityGraph(attributePaths = "product")
+    List<Promotion> findAllById(Iterable<Long> ids);
+
+    // Topes de uso de PromotionRedemptionLimiter, sin cargar las entidades.
+    @Query("""
+            select new com.bakery.bakeryapi.promotion.RedemptionCap(p.id, p.maxRedemptions)
+            from Promotion p
+            where p.id in :ids
+            """)
+    List<RedemptionCap> findRedemptionCaps(@Param("ids") Collection<Long> ids);
+
+    // Carga de ActivePromotionIndex: promociones activas que no han terminado antes de la fecha.
+    @Query("""
+            select p from Promotion p
+            where p.active = true
+              and (p.endDate is null or p.endDate >= :date)
+            """)
+    @EntityGraph(attributePaths = "product")
+    List<Promotion> findAllActiveFrom(@Param("date") LocalDate date);
+
     @Query("""
             select p from Promotion p
             where p.active = true
@@ -33,6 +62,20 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
             Pageable pageable
     );
 
+    // Candidatos de PromotionSelector mientras ActivePromotionIndex no está cargado: todo el carrito a la vez.
+    @Query("""
+            select p from Promotion p
+            where p.active = true
+              and p.product.id in :productIds
+              and p.startDate <= :date
+              and (p.endDate is null or p.endDate >= :date)
+            """)
+    @EntityGraph(attributePaths = "product")
+    List<Promotion> findActiveByProductIds(
+            @Param("productIds") Collection<Long> productIds,
+            @Param("date") LocalDate date
+    );
+
     @Query("""
             select distinct p from Promotion p
             left join PromotionUsage pu on pu.promotion = p and pu.user.id = :userId
@@ -66,4 +109,7 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
             Pageable pageable
     );
 
+    // Modo cursor: consulta por clave (sin OFFSET ni count).
+    @EntityGraph(attributePaths = "product")
+    Window<Promotion> findAllBy(ScrollPosition position, Limit limit, Sort sort);
 }
@@ -2,15 +2,38 @@ package com.bakery.bakeryapi.repository;
 
 import com.bakery.bakeryapi.domain.PromotionUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Acceso de persistencia para registros de uso de promoción.
  */
-public interface PromotionUsageRepository extends JpaRepository<PromotionUsage, Long> {
+public interface PromotionUsageRepository extends JpaRepository<PromotionUsage, Long>, PromotionUsageRepositoryCustom {
 
     boolean existsByPromotionIdAndUserId(Long promotionId, Long userId);
 
     void deleteByPromotionIdAndUserId(Long promotionId, Long userId);
+
+    // Carga de PromotionUsageCache: todas las promociones usadas por un usuario.
+    @Query("select u.promotion.id from PromotionUsage u where u.user.id = :userId")
+    List<Long> findPromotionIdsByUserId(@Param("userId") Long userId);
+
+    // Libera en una sola sentencia los usos de promoción de varias compras (uno por promoción y comprador).
+    @Modifying
+    @Query("""
+            delete from PromotionUsage u
+            where exists (
+                select 1 from PurchaseItem i
+                where i.purchase.id in :purchaseIds
+                  and i.promotion = u.promotion
+                  and i.purchase.user = u.user
+            )
+            """)
+    int deleteByPurchaseIds(@Param("purchaseIds") Collection<Long> purchaseIds);
 }
 
 
@@ -0,0 +1,24 @@
+package com.bakery.bakeryapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Operaciones de escritura en bloque sobre los registros de uso de promoción.
+ */
+public interface PromotionUsageRepositoryCustom {
+
+    /**
+     * Inserta los usos de varias promociones por un mismo usuario en una única sentencia, omitiendo los que ya
+     * existen.
+     *
+     * Un uso repetido no lanza excepción: se detecta porque el número de filas insertadas es menor que el de
+     * promociones.
+     *
+     * @param promotionIds promociones usadas, en el orden en que se insertan
+     * @param userId usuario que las usa
+     * @param usedAt momento del uso
+     * @return filas insertadas
+     */
+    int insertAllIfAbsent(List<Long> promotionIds, Long userId, LocalDateTime usedAt);
+}
@@ -0,0 +1,90 @@
+package com.bakery.bakeryapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementación de {@link PromotionUsageRepositoryCustom}.
+ *
+ * Los IDs IDENTITY impiden que Hibernate agrupe los INSERT en lotes JDBC (necesita cada ID generado), así que los
+ * usos se insertan con una única sentencia de varias filas. Para no depender de la violación de la restricción
+ * única (promotion_id, user_id) para detectar un uso repetido, la sentencia omite las filas existentes y depende del
+ * dialecto: {@code INSERT IGNORE} en MySQL/MariaDB, revisando sus avisos cuando omite filas, y
+ * {@code MERGE ... WHEN NOT MATCHED} estándar en el resto (H2 en pruebas).
+ */
+class PromotionUsageRepositoryImpl implements PromotionUsageRepositoryCustom {
+
+    private static final String COLUMNS = "promotion_id, user_id, used_at";
+    private static final String[] TYPES = {"bigint", "bigint", "timestamp"};
+
+    // Código de MySQL para la clave duplicada: el único aviso que corresponde a un uso ya registrado.
+    private static final int ER_DUP_ENTRY = 1062;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int insertAllIfAbsent(List<Long> promotionIds, Long userId, LocalDateTime usedAt) {
+        if (promotionIds.isEmpty()) {
+            return 0;
+        }
+        boolean mySql = NativeSql.isMySql(entityManager);
+        String sql = mySql ? mySqlInsertIgnore(promotionIds.size()) : mergeInsert(promotionIds.size());
+        Query query = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < promotionIds.size(); i++) {
+            int base = i * 3;
+            query.setParameter(base + 1, promotionIds.get(i));
+            query.setParameter(base + 2, userId);
+            query.setParameter(base + 3, usedAt);
+        }
+        int inserted = query.executeUpdate();
+        if (mySql && inserted < promotionIds.size()) {
+            failOnNonDuplicateWarnings();
+        }
+        return inserted;
+    }
+
+    /**
+     * {@code INSERT IGNORE} convierte en aviso cualquier error de una fila (clave ajena inexistente, valor fuera de
+     * rango...), no solo la clave duplicada. Si se ha omitido alguna fila, se revisan los avisos de la sentencia y
+     * cualquier código distinto de 1062 se propaga como error en lugar de contarse como uso repetido.
+     *
+     * Con filas insertadas completas no hace falta revisarlos: los valores son IDs {@code bigint} y una fecha, así que
+     * no hay truncamientos posibles.
+     */
+    private void failOnNonDuplicateWarnings() {
+        Query showWarnings = entityManager.createNativeQuery("show warnings");
+        // Un flush previo ejecutaría otra sentencia y borraría los avisos del INSERT.
+        showWarnings.setFlushMode(FlushModeType.COMMIT);
+        for (Object row : showWarnings.getResultList()) {
+            Object[] warning = (Object[]) row;
+            int code = ((Number) warning[1]).intValue();
+            if (code != ER_DUP_ENTRY) {
+                throw new IllegalStateException(
+                        "No se pudieron registrar los usos de promoción: " + warning[0] + " " + code + " " + warning[2]);
+            }
+        }
+    }
+
+    // ON DUPLICATE KEY UPDATE no sirve aquí: con useAffectedRows=false (por defecto en Connector/J) una fila
+    // existente cuenta como afectada y el uso repetido no se distinguiría de uno nuevo. Activar useAffectedRows
+    // cambiaría el recuento de todas las sentencias de la conexión, incluidas las comprobaciones de Hibernate.
+    private static String mySqlInsertIgnore(int rows) {
+        return "insert ignore into promotion_usage (" + COLUMNS + ") values "
+                + NativeSql.valuesRows(rows, TYPES, false);
+    }
+
+    private static String mergeInsert(int rows) {
+        return "merge into promotion_usage u using (values " + NativeSql.valuesRows(rows, TYPES, true)
+                + ") as d (" + COLUMNS + ")" + """
+                 on u.promotion_id = d.promotion_id and u.user_id = d.user_id
+                when not matched then insert (%s)
+                    values (d.promotion_id, d.user_id, d.used_at)
+                """.formatted(COLUMNS);
+    }
+}
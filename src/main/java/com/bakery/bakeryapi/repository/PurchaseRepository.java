@@ -2,74 +2,167 @@ package com.bakery.bakeryapi.repository;
 
 import com.bakery.bakeryapi.domain.Purchase;
 import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * Acceso de persistencia para compras, incluidas consultas de búsqueda detallada y totales de ventas.
+ * Acceso de persistencia para compras, incluidas consultas de búsqueda detallada. Los totales de ventas salen
+ * del resumen diario ({@link SalesDailyRollupRepository}).
  */
 public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
 
-    interface PurchaseTotalRow {
-        LocalDateTime getCreatedAt();
-        BigDecimal getTotal();
-    }
-
     @EntityGraph(attributePaths = {"items", "items.product", "items.promotion"})
     @Query("select p from Purchase p where p.id = :id")
     Optional<Purchase> findDetailedById(@Param("id") Long id);
 
-    @EntityGraph(attributePaths = {"items", "items.product", "items.promotion"})
-    @Query("select p from Purchase p")
-    Page<Purchase> findAllDetailed(Pageable pageable);
+    // Listados en dos fases. Un fetch de la colección items con Pageable no admite LIMIT en SQL (Hibernate cargaría
+    // todas las compras y paginaría en memoria), así que primero se pagina sobre los IDs y después se cargan los
+    // detalles con findAllDetailedByIdIn.
+    @Query("select p.id from Purchase p")
+    Page<Long> findIdPage(Pageable pageable);
 
-    @EntityGraph(attributePaths = {"items", "items.product", "items.promotion"})
-    @Query("select p from Purchase p where p.user.id = :userId")
-    Page<Purchase> findAllDetailedByUserId(@Param("userId") Long userId, Pageable pageable);
+    @Query("select p.id from Purchase p where p.user.id = :userId")
+    Page<Long> findIdPageByUserId(@Param("userId") Long userId, Pageable pageable);
 
-    long countByStatus(PurchaseStatus status);
+    // Cambio de estado condicional: solo pasa a "to" la compra que sigue en "from". Devuelve las filas cambiadas, lo
+    // que permite a cancelar, pagar y la expiración saber quién ganó si compiten por la misma compra.
+    @Modifying
+    @Query("update Purchase p set p.status = :to where p.id in :ids and p.status = :from")
+    int transitionStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("from") PurchaseStatus from,
+            @Param("to") PurchaseStatus to
+    );
 
-    @Query("select coalesce(sum(p.total), 0) from Purchase p where p.status = :status")
-    BigDecimal sumTotalByStatus(@Param("status") PurchaseStatus status);
+    // Expiración: reclama un lote de compras pendientes caducadas siguiendo el índice (status, created_at, id).
+    // SKIP LOCKED salta las filas que otro nodo (o una cancelación manual) ya tiene bloqueadas.
+    @Query(value = """
+            select id from purchases
+            where status = 'CREATED' and created_at < :cutoff
+            order by created_at, id
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<Long> claimExpired(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 
-    @Query("""
-            select p.createdAt as createdAt, p.total as total
-            from Purchase p
-            where p.status = :status
-              and p.createdAt >= :from
-              and p.createdAt < :to
-            """)
-    List<PurchaseTotalRow> findTotalsByStatusBetween(
-            @Param("status") PurchaseStatus status,
+    @Query("select distinct i.product.id from PurchaseItem i where i.purchase.id in :ids")
+    List<Long> findProductIdsByPurchaseIds(@Param("ids") Collection<Long> ids);
+
+    // Compradores de las compras con promoción, cuyos usos de promoción cambian al cancelarlas en bloque.
+    @Query("select distinct i.purchase.user.id from PurchaseItem i where i.purchase.id in :ids and i.promotion is not null")
+    List<Long> findPromotionUserIdsByPurchaseIds(@Param("ids") Collection<Long> ids);
+
+    // Promoción de cada línea con promoción (una entrada por uso), para devolver los usos de las que tienen tope.
+    @Query("select i.promotion.id from PurchaseItem i where i.purchase.id in :ids and i.promotion is not null")
+    List<Long> findPromotionIdsByPurchaseIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id from Purchase p where p.createdAt >= :from and p.createdAt < :to order by p.createdAt desc")
+    Page<Long> findIdPageBetweenDates(
             @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to
+            @Param("to") LocalDateTime to,
+            Pageable pageable
     );
 
-    @EntityGraph(attributePaths = {"items", "items.product", "items.promotion"})
-    @Query("select p from Purchase p where p.createdAt >= :from and p.createdAt < :to order by p.createdAt desc")
-    Page<Purchase> findAllDetailedBetweenDates(
+    @Query("select p.id from Purchase p where p.user.id = :userId and p.createdAt >= :from and p.createdAt < :to order by p.createdAt desc")
+    Page<Long> findIdPageByUserIdBetweenDates(
+            @Param("userId") Long userId,
             @Param("from") LocalDateTime from,
             @Param("to") LocalDateTime to,
             Pageable pageable
     );
 
-    @EntityGraph(attributePaths = {"items", "items.product", "items.promotion"})
-    @Query("select p from Purchase p where p.user.id = :userId and p.createdAt >= :from and p.createdAt < :to order by p.createdAt desc")
-    Page<Purchase> findAllDetailedByUserIdBetweenDates(
+    // Listados resumidos: proyección por constructor sobre purchases; de purchase_items solo se lee el recuento.
+    @Query(value = """
+            select new com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse(
+                p.id, p.user.id, p.createdAt, p.status, p.total,
+                (select count(i) from PurchaseItem i where i.purchase = p))
+            from Purchase p
+            """, countQuery = "select count(p) from Purchase p")
+    Page<PurchaseSummaryResponse> findSummaryPage(Pageable pageable);
+
+    @Query(value = """
+            select new com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse(
+                p.id, p.user.id, p.createdAt, p.status, p.total,
+                (select count(i) from PurchaseItem i where i.purchase = p))
+            from Purchase p
+            where p.user.id = :userId
+            """, countQuery = "select count(p) from Purchase p where p.user.id = :userId")
+    Page<PurchaseSummaryResponse> findSummaryPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = """
+            select new com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse(
+                p.id, p.user.id, p.createdAt, p.status, p.total,
+                (select count(i) from PurchaseItem i where i.purchase = p))
+            from Purchase p
+            where p.createdAt >= :from and p.createdAt < :to
+            """, countQuery = "select count(p) from Purchase p where p.createdAt >= :from and p.createdAt < :to")
+    Page<PurchaseSummaryResponse> findSummaryPageBetweenDates(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable
+    );
+
+    @Query(value = """
+            select new com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse(
+                p.id, p.user.id, p.createdAt, p.status, p.total,
+                (select count(i) from PurchaseItem i where i.purchase = p))
+            from Purchase p
+            where p.user.id = :userId and p.createdAt >= :from and p.createdAt < :to
+            """, countQuery = """
+            select count(p) from Purchase p
+            where p.user.id = :userId and p.createdAt >= :from and p.createdAt < :to
+            """)
+    Page<PurchaseSummaryResponse> findSummaryPageByUserIdBetweenDates(
             @Param("userId") Long userId,
             @Param("from") LocalDateTime from,
             @Param("to") LocalDateTime to,
             Pageable pageable
     );
-}
 
+    // Modo cursor, fase 1: ventana por clave sin colecciones (el LIMIT se aplica en SQL).
+    @EntityGraph(attributePaths = {"user"})
+    Window<Purchase> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"user"})
+    Window<Purchase> findByUserId(Long userId, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = {"user"})
+    Window<Purchase> findByCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+            LocalDateTime from,
+            LocalDateTime to,
+            ScrollPosition position,
+            Limit limit,
+            Sort sort
+    );
+
+    @EntityGraph(attributePaths = {"user"})
+    Window<Purchase> findByUserIdAndCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+            Long userId,
+            LocalDateTime from,
+            LocalDateTime to,
+            ScrollPosition position,
+            Limit limit,
+            Sort sort
+    );
 
+    // Fase 2 (listados y modo cursor): artículos, productos y promociones solo de los IDs de la página; el orden lo
+    // restaura el llamador.
+    @EntityGraph(attributePaths = {"items", "items.product", "items.promotion"})
+    @Query("select p from Purchase p where p.id in :ids")
+    List<Purchase> findAllDetailedByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,47 @@
+package com.bakery.bakeryapi.repository;
+
+import com.bakery.bakeryapi.domain.RateLimitBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Acceso de persistencia para los buckets de límite de velocidad compartidos.
+ */
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    // Inserción explícita: save() con ID asignado haría merge y pisaría la fila creada por otra instancia.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into rate_limit_buckets (bucket_key, available, refilled_at, version)
+            values (:key, :available, :refilledAt, 0)
+            """, nativeQuery = true)
+    int insertBucket(
+            @Param("key") String key,
+            @Param("available") long available,
+            @Param("refilledAt") long refilledAt
+    );
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update RateLimitBucket b
+            set b.available = :available, b.refilledAt = :refilledAt, b.version = b.version + 1
+            where b.bucketKey = :key and b.version = :version
+            """)
+    int compareAndSet(
+            @Param("key") String key,
+            @Param("version") long expectedVersion,
+            @Param("available") long available,
+            @Param("refilledAt") long refilledAt
+    );
+
+    // Un bucket sin relleno desde hace una ventana completa estaría lleno: borrarlo no cambia el límite.
+    @Transactional
+    @Modifying
+    @Query("delete from RateLimitBucket b where b.refilledAt < :refilledBefore")
+    int deleteIdleBefore(@Param("refilledBefore") long refilledBefore);
+}
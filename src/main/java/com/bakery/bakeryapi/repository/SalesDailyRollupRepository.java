@@ -0,0 +1,60 @@
+package com.bakery.bakeryapi.repository;
+
+import com.bakery.bakeryapi.domain.SalesDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Acceso de persistencia para el resumen diario de ventas por producto.
+ */
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollup, Long>, SalesDailyRollupRepositoryCustom {
+
+    interface DailyTotalsRow {
+        LocalDate getSalesDay();
+        Long getUnits();
+        BigDecimal getGross();
+        BigDecimal getDiscount();
+        BigDecimal getNet();
+    }
+
+    // Totales por día del rango: como mucho una fila por día, sumando los productos (de una categoría, si se indica).
+    @Query("""
+            select r.salesDay as salesDay, sum(r.units) as units, sum(r.gross) as gross,
+                   sum(r.discount) as discount, sum(r.net) as net
+            from SalesDailyRollup r
+            where r.salesDay >= :from
+              and r.salesDay <= :to
+              and (:categoryId is null or r.categoryId = :categoryId)
+            group by r.salesDay
+            order by r.salesDay
+            """)
+    List<DailyTotalsRow> findDailyTotals(
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("categoryId") Long categoryId
+    );
+
+    @Modifying
+    @Query("delete from SalesDailyRollup r")
+    int deleteAllRows();
+
+    // Relleno: recalcula el resumen completo a partir de las compras PAGADAS, en una sola sentencia.
+    @Modifying
+    @Query(value = """
+            insert into sales_daily_rollup (sales_day, product_id, category_id, units, gross, discount, net)
+            select cast(p.created_at as date), i.product_id, pr.category_id, sum(i.quantity),
+                   sum(i.unit_price * i.quantity), sum(i.discount_amount), sum(i.subtotal)
+            from purchases p
+            join purchase_items i on i.purchase_id = p.id
+            join products pr on pr.id = i.product_id
+            where p.status = 'PAID'
+            group by cast(p.created_at as date), i.product_id, pr.category_id
+            """, nativeQuery = true)
+    int insertFromPaidPurchases();
+}
@@ -0,0 +1,41 @@
+package com.bakery.bakeryapi.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Actualización incremental del resumen diario de ventas.
+ */
+public interface SalesDailyRollupRepositoryCustom {
+
+    /**
+     * Suma los incrementos a las filas (día, producto) existentes e inserta las que faltan, en una única sentencia.
+     *
+     * @param deltas incrementos, como mucho uno por día y producto; los importes pueden ser negativos
+     * @return filas afectadas según el driver
+     */
+    int upsertAll(Collection<Delta> deltas);
+
+    /**
+     * Incremento de ventas de un producto en un día.
+     *
+     * @param day día de la venta
+     * @param productId producto vendido
+     * @param categoryId categoría del producto
+     * @param units unidades
+     * @param gross importe bruto (precio unitario por cantidad)
+     * @param discount descuento aplicado
+     * @param net importe neto (bruto menos descuento)
+     */
+    record Delta(
+            LocalDate day,
+            Long productId,
+            Long categoryId,
+            long units,
+            BigDecimal gross,
+            BigDecimal discount,
+            BigDecimal net
+    ) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.bakery.bakeryapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementación de {@link SalesDailyRollupRepositoryCustom}.
+ *
+ * Un UPDATE seguido de INSERT no sirve con compras concurrentes: dos pagos del mismo producto el mismo día podrían
+ * insertar la misma fila y el segundo fallaría por la restricción única, revirtiendo su transacción. Por eso el
+ * upsert es atómico y depende del dialecto: {@code INSERT ... ON DUPLICATE KEY UPDATE} en MySQL/MariaDB y
+ * {@code MERGE ... USING} estándar en el resto (H2 en pruebas).
+ */
+class SalesDailyRollupRepositoryImpl implements SalesDailyRollupRepositoryCustom {
+
+    private static final String COLUMNS = "sales_day, product_id, category_id, units, gross, discount, net";
+    private static final String[] TYPES =
+            {"date", "bigint", "bigint", "bigint", "decimal(14,2)", "decimal(14,2)", "decimal(14,2)"};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int upsertAll(Collection<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        List<Delta> rows = new ArrayList<>(deltas);
+        String sql = NativeSql.isMySql(entityManager) ? mySqlUpsert(rows.size()) : mergeUpsert(rows.size());
+        Query query = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < rows.size(); i++) {
+            Delta delta = rows.get(i);
+            int base = i * 7;
+            query.setParameter(base + 1, delta.day());
+            query.setParameter(base + 2, delta.productId());
+            query.setParameter(base + 3, delta.categoryId());
+            query.setParameter(base + 4, delta.units());
+            query.setParameter(base + 5, delta.gross());
+            query.setParameter(base + 6, delta.discount());
+            query.setParameter(base + 7, delta.net());
+        }
+        return query.executeUpdate();
+    }
+
+    private static String mySqlUpsert(int rows) {
+        return "insert into sales_daily_rollup (" + COLUMNS + ") values "
+                + NativeSql.valuesRows(rows, TYPES, false) + """
+                 on duplicate key update
+                    units = units + values(units),
+                    gross = gross + values(gross),
+                    discount = discount + values(discount),
+                    net = net + values(net)
+                """;
+    }
+
+    private static String mergeUpsert(int rows) {
+        return "merge into sales_daily_rollup r using (values " + NativeSql.valuesRows(rows, TYPES, true)
+                + ") as d (" + COLUMNS + ")" + """
+                 on r.sales_day = d.sales_day and r.product_id = d.product_id
+                when matched then update set
+                    units = r.units + d.units,
+                    gross = r.gross + d.gross,
+                    discount = r.discount + d.discount,
+                    net = r.net + d.net
+                when not matched then insert (%s)
+                    values (d.sales_day, d.product_id, d.category_id, d.units, d.gross, d.discount, d.net)
+                """.formatted(COLUMNS);
+    }
+}
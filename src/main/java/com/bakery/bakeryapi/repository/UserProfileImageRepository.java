@@ -0,0 +1,10 @@
+package com.bakery.bakeryapi.repository;
+
+import com.bakery.bakeryapi.domain.UserProfileImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Acceso de persistencia para imágenes de perfil (clave = ID del usuario).
+ */
+public interface UserProfileImageRepository extends JpaRepository<UserProfileImage, Long> {
+}
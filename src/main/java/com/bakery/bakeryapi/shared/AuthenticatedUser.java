@@ -0,0 +1,17 @@
+package com.bakery.bakeryapi.shared;
+
+import java.security.Principal;
+
+/**
+ * Usuario autenticado tal como viene en el token de acceso, sin consultar la base de datos.
+ *
+ * @param id ID del usuario (reclamo {@code uid})
+ * @param email correo del usuario (asunto del token)
+ */
+public record AuthenticatedUser(Long id, String email) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,29 @@
+package com.bakery.bakeryapi.shared;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Calcula hashes de contenido estables para versionar recursos binarios.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * Devuelve el SHA-256 del contenido en hexadecimal (64 caracteres).
+     *
+     * @param data bytes a resumir
+     * @return hash en hexadecimal en minúsculas
+     */
+    public static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            // Todas las JVM deben proporcionar SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.bakery.bakeryapi.shared;
+
+import com.bakery.bakeryapi.shared.dto.ImageContent;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Construye respuestas HTTP para servir imágenes almacenadas como bytes sin procesar.
+ *
+ * El ETag es fuerte (hash del contenido), por lo que {@code If-None-Match} se resuelve antes de cargar los
+ * bytes. Al devolver un {@link Resource}, Spring MVC atiende las cabeceras {@code Range} con 206.
+ */
+public final class ImageResponses {
+
+    private static final Duration VERSIONED_MAX_AGE = Duration.ofDays(365);
+
+    private ImageResponses() {
+    }
+
+    /**
+     * Devuelve la imagen o un 304 cuando el cliente ya tiene la versión actual.
+     *
+     * @param request petición actual, para las cabeceras condicionales
+     * @param hash hash actual de la imagen
+     * @param requestedVersion valor del parámetro {@code v} de la URL, o {@code null}
+     * @param publicCache si la respuesta puede guardarse en cachés compartidas (CDN)
+     * @param loader carga los bytes solo cuando hay que enviarlos
+     * @return respuesta 200 con la imagen o 304 sin cuerpo
+     */
+    public static ResponseEntity<Resource> of(
+            WebRequest request,
+            String hash,
+            String requestedVersion,
+            boolean publicCache,
+            Supplier<ImageContent> loader
+    ) {
+        // Las URLs versionadas (?v=hash) nunca cambian de contenido; sin versión el cliente debe revalidar.
+        CacheControl cacheControl = hash.equals(requestedVersion)
+                ? CacheControl.maxAge(VERSIONED_MAX_AGE).immutable()
+                : CacheControl.noCache();
+        cacheControl = publicCache ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+
+        if (request.checkNotModified(etag(hash))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag(hash))
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        ImageContent image = loader.get();
+        return ResponseEntity.ok()
+                .eTag(etag(image.hash()))
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(image.contentType()))
+                .body(new ByteArrayResource(image.data()));
+    }
+
+    private static String etag(String hash) {
+        return "\"" + hash + "\"";
+    }
+}
@@ -52,7 +52,13 @@ public class ImageValidator {
         }
     }
 
-    private static String detectMimeType(byte[] bytes) {
+    /**
+     * Detecta el tipo MIME a partir de la firma de los primeros bytes.
+     *
+     * @param bytes contenido de la imagen
+     * @return {@code image/png}, {@code image/jpeg}, {@code image/webp} o {@code "desconocido"}
+     */
+    public static String detectMimeType(byte[] bytes) {
         if (bytes.length < 4) {
             return "desconocido";
         }
@@ -0,0 +1,160 @@
+package com.bakery.bakeryapi.shared;
+
+import com.bakery.bakeryapi.shared.dto.CursorPage;
+import com.bakery.bakeryapi.shared.exception.InvalidCursorException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Paginación por clave (seek) con cursores opacos.
+ *
+ * Cada recurso declara los campos por los que se puede ordenar en modo cursor; el ID se añade siempre como
+ * desempate para que el orden sea total. El cursor codifica en Base64url el campo y la dirección de la
+ * ordenación junto con el valor de ese campo y el ID del último elemento devuelto, y se traduce a una
+ * {@link KeysetScrollPosition} de Spring Data ({@code where (campo, id) > (:valor, :id)}), sin OFFSET ni count.
+ *
+ * @param <E> tipo de entidad paginada
+ */
+public final class KeysetPagination<E> {
+
+    private static final String ID = "id";
+
+    private final Function<E, Long> idExtractor;
+    private final Map<String, SortKey<E>> sortKeys = new LinkedHashMap<>();
+
+    private KeysetPagination(Function<E, Long> idExtractor) {
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Crea una definición de paginación cuyo desempate es el ID de la entidad.
+     *
+     * @param idExtractor obtiene el ID de una entidad
+     * @return definición sin más campos ordenables que el ID
+     */
+    public static <E> KeysetPagination<E> byId(Function<E, Long> idExtractor) {
+        return new KeysetPagination<E>(idExtractor).sortableBy(ID, idExtractor, Long::valueOf);
+    }
+
+    /**
+     * Admite un campo de ordenación no nulo en modo cursor.
+     *
+     * @param field nombre de la propiedad JPA
+     * @param extractor obtiene el valor del campo de una entidad
+     * @param parser reconstruye el valor a partir de su {@code toString()}
+     * @return esta misma definición
+     */
+    public KeysetPagination<E> sortableBy(String field, Function<E, ?> extractor, Function<String, ?> parser) {
+        sortKeys.put(field, new SortKey<>(extractor, parser));
+        return this;
+    }
+
+    /**
+     * Valida la ordenación y el cursor recibidos y prepara la consulta.
+     *
+     * @param cursor cursor de la página anterior; vacío o {@code null} para la primera página
+     * @param size tamaño solicitado
+     * @param sort ordenación solicitada; solo se usa su primer criterio
+     * @param maxPageSize tamaño máximo de página aceptado
+     * @return ordenación con desempate, posición y límite
+     * @throws InvalidCursorException si el campo no admite cursor o el cursor no es válido
+     */
+    public Request request(String cursor, int size, Sort sort, int maxPageSize) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc(ID));
+        String field = order.getProperty();
+        if (!sortKeys.containsKey(field)) {
+            throw new InvalidCursorException("Campo de ordenación no admitido en modo cursor: " + field
+                    + " (admitidos: " + String.join(", ", sortKeys.keySet()) + ")");
+        }
+        Sort.Direction direction = order.getDirection();
+        Sort fullSort = ID.equals(field)
+                ? Sort.by(direction, ID)
+                : Sort.by(direction, field).and(Sort.by(direction, ID));
+        Limit limit = Limit.of(Math.clamp(size, 1, maxPageSize));
+
+        if (cursor == null || cursor.isBlank()) {
+            return new Request(field, direction, fullSort, ScrollPosition.keyset(), limit);
+        }
+        String[] parts = decode(cursor);
+        if (!parts[0].equals(field) || !parts[1].equals(direction.name())) {
+            throw new InvalidCursorException("El cursor no corresponde a la ordenación solicitada");
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            keys.put(field, sortKeys.get(field).parser().apply(parts[3]));
+            keys.put(ID, Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Cursor inválido");
+        }
+        return new Request(field, direction, fullSort, ScrollPosition.forward(keys), limit);
+    }
+
+    /**
+     * Convierte una ventana de resultados en una página con cursor.
+     *
+     * @param window resultados de la consulta por clave
+     * @param request petición usada en la consulta
+     * @param mapper convierte cada entidad en su respuesta
+     * @return página con el cursor siguiente si hay más resultados
+     */
+    public <R> CursorPage<R> page(Window<E> window, Request request, Function<E, R> mapper) {
+        List<R> content = window.getContent().stream().map(mapper).toList();
+        return new CursorPage<>(content, nextCursor(window, request), request.limit().max());
+    }
+
+    /**
+     * Calcula el cursor de la página siguiente a partir del último elemento de la ventana.
+     *
+     * @param window resultados de la consulta por clave
+     * @param request petición usada en la consulta
+     * @return cursor opaco, o {@code null} si no hay más resultados
+     */
+    public String nextCursor(Window<E> window, Request request) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        E last = window.getContent().get(window.size() - 1);
+        Object value = sortKeys.get(request.field()).extractor().apply(last);
+        String payload = request.field() + "\n" + request.direction().name() + "\n"
+                + idExtractor.apply(last) + "\n" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = payload.split("\n", 4);
+            if (parts.length != 4) {
+                throw new InvalidCursorException("Cursor inválido");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Parámetros de una consulta por clave ya validados.
+     *
+     * @param field campo principal de ordenación
+     * @param direction dirección de la ordenación
+     * @param sort ordenación completa (campo + ID)
+     * @param position posición de inicio de la ventana
+     * @param limit tamaño de la ventana
+     */
+    public record Request(String field, Sort.Direction direction, Sort sort, KeysetScrollPosition position, Limit limit) {
+    }
+
+    private record SortKey<E>(Function<E, ?> extractor, Function<String, ?> parser) {
+    }
+}
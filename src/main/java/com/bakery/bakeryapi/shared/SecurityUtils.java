@@ -39,6 +39,17 @@ public final class SecurityUtils {
         return auth;
     }
 
+    /**
+     * Devuelve el ID del usuario autenticado cuando el token lo incluye.
+     *
+     * @param auth autenticación a inspeccionar
+     * @return ID del reclamo {@code uid}, o {@code null} si el principal no lo lleva (tokens antiguos); en ese caso
+     *         hay que resolver al usuario por {@link Authentication#getName()}
+     */
+    public static Long currentUserId(Authentication auth) {
+        return auth.getPrincipal() instanceof AuthenticatedUser user ? user.id() : null;
+    }
+
     /**
      * Comprueba si una autenticación tiene el rol de administrador.
      *
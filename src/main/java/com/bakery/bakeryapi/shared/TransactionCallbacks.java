@@ -0,0 +1,33 @@
+package com.bakery.bakeryapi.shared;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ayudantes para ejecutar acciones en memoria en sincronía con la transacción actual.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Ejecuta una acción cuando la transacción actual se confirma.
+     *
+     * Sin transacción activa la acción se ejecuta inmediatamente.
+     *
+     * @param action acción a ejecutar tras la confirmación
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.bakery.bakeryapi.shared.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados en modo cursor (paginación por clave, sin total).
+ *
+ * @param content elementos de la página
+ * @param nextCursor cursor opaco para pedir la siguiente página, o {@code null} si no hay más
+ * @param size tamaño de página aplicado
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, int size) {
+}
@@ -0,0 +1,11 @@
+package com.bakery.bakeryapi.shared.dto;
+
+/**
+ * Bytes de una imagen almacenada junto con su tipo y su hash de contenido.
+ *
+ * @param data bytes sin procesar
+ * @param contentType tipo MIME detectado al guardarla
+ * @param hash SHA-256 en hexadecimal, usado como ETag fuerte y como versión en las URLs
+ */
+public record ImageContent(byte[] data, String contentType, String hash) {
+}
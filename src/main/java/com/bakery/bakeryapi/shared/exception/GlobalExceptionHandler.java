@@ -93,7 +93,8 @@ public class GlobalExceptionHandler {
 
     /**
      * Optimistic locking conflicts typically indicate concurrent updates (e.g., two purchases updating the same stock).
-     * Clients should retry the operation.
+     * Purchase operations are already retried server-side (see OptimisticLockRetry); reaching this handler means the
+     * attempts were exhausted, so clients may retry later.
      */
     @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
     public ResponseEntity<ProblemDetail> handleOptimisticLocking(ObjectOptimisticLockingFailureException ex) {
@@ -0,0 +1,13 @@
+package com.bakery.bakeryapi.shared.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Se lanza cuando otra petición con la misma {@code Idempotency-Key} sigue en curso.
+ */
+public class IdempotencyConflictException extends ApiException {
+
+    public IdempotencyConflictException(String message) {
+        super(message, HttpStatus.CONFLICT);
+    }
+}
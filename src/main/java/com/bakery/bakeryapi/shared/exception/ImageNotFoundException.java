@@ -0,0 +1,12 @@
+package com.bakery.bakeryapi.shared.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Se lanza cuando el recurso existe pero no tiene imagen asociada.
+ */
+public class ImageNotFoundException extends ApiException {
+    public ImageNotFoundException(String message) {
+        super(message, HttpStatus.NOT_FOUND);
+    }
+}
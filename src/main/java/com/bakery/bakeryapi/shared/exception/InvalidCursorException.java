@@ -0,0 +1,12 @@
+package com.bakery.bakeryapi.shared.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Se lanza cuando un cursor de paginación no es válido o no corresponde a la ordenación solicitada.
+ */
+public class InvalidCursorException extends ApiException {
+    public InvalidCursorException(String message) {
+        super(message, HttpStatus.BAD_REQUEST);
+    }
+}
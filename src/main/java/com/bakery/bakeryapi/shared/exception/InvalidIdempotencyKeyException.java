@@ -0,0 +1,13 @@
+package com.bakery.bakeryapi.shared.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Se lanza cuando la cabecera {@code Idempotency-Key} no tiene un formato válido.
+ */
+public class InvalidIdempotencyKeyException extends ApiException {
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -1,19 +1,24 @@
 package com.bakery.bakeryapi.user;
 
 import jakarta.validation.Valid;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.shared.ImageResponses;
 import com.bakery.bakeryapi.shared.dto.ActiveUpdateRequest;
 import com.bakery.bakeryapi.user.dto.UserRequest;
 import com.bakery.bakeryapi.user.dto.UserResponse;
 import com.bakery.bakeryapi.user.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Puntos finales REST solo para administradores para la gestión de usuarios.
@@ -39,8 +44,32 @@ public class UserController {
             @ApiResponse(responseCode = "403", description = "Prohibido"),
             @ApiResponse(responseCode = "404", description = "No encontrado")
     })
-    public ResponseEntity<UserResponse> getUser(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getById(id));
+    public ResponseEntity<UserResponse> getUser(
+            @PathVariable Long id,
+            @Parameter(description = "Incluir la imagen de perfil en Base64 (compatibilidad con clientes antiguos)")
+            @RequestParam(defaultValue = "false") boolean includeImageBase64
+    ) {
+        UserResponse user = service.getById(id);
+        return ResponseEntity.ok(includeImageBase64 ? service.withInlineProfileImage(user) : user);
+    }
+
+    @GetMapping("/{id}/profile-image")
+    @Operation(summary = "Obtener imagen de perfil de un usuario", description = "Solo para administradores. ETag fuerte, If-None-Match y Range.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Correcto"),
+            @ApiResponse(responseCode = "304", description = "No modificado"),
+            @ApiResponse(responseCode = "401", description = "No autorizado"),
+            @ApiResponse(responseCode = "403", description = "Prohibido"),
+            @ApiResponse(responseCode = "404", description = "Usuario o imagen no encontrados")
+    })
+    public ResponseEntity<Resource> getProfileImage(
+            @PathVariable Long id,
+            @RequestParam(required = false) String v,
+            WebRequest request
+    ) {
+        User user = service.getEntityById(id);
+        String hash = service.getProfileImageHash(user);
+        return ImageResponses.of(request, hash, v, false, () -> service.getProfileImage(id));
     }
 
     @GetMapping
@@ -51,8 +80,13 @@ public class UserController {
             @ApiResponse(responseCode = "403", description = "Prohibido"),
             @ApiResponse(responseCode = "404", description = "No encontrado")
     })
-    public ResponseEntity<UserResponse> getByEmail(@RequestParam String email) {
-        return ResponseEntity.ok(service.getByEmail(email));
+    public ResponseEntity<UserResponse> getByEmail(
+            @RequestParam String email,
+            @Parameter(description = "Incluir la imagen de perfil en Base64 (compatibilidad con clientes antiguos)")
+            @RequestParam(defaultValue = "false") boolean includeImageBase64
+    ) {
+        UserResponse user = service.getByEmail(email);
+        return ResponseEntity.ok(includeImageBase64 ? service.withInlineProfileImage(user) : user);
     }
 
 
@@ -2,13 +2,17 @@ package com.bakery.bakeryapi.user;
 
 import com.bakery.bakeryapi.domain.Role;
 import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.domain.UserProfileImage;
 import com.bakery.bakeryapi.auth.exception.InvalidCredentialsException;
 import com.bakery.bakeryapi.user.dto.UserRequest;
 import com.bakery.bakeryapi.user.dto.UserResponse;
 import com.bakery.bakeryapi.user.exception.EmailAlreadyExistsException;
 import com.bakery.bakeryapi.user.exception.UserNotFoundException;
+import com.bakery.bakeryapi.repository.UserProfileImageRepository;
 import com.bakery.bakeryapi.repository.UserRepository;
 import com.bakery.bakeryapi.shared.ImageValidator;
+import com.bakery.bakeryapi.shared.dto.ImageContent;
+import com.bakery.bakeryapi.shared.exception.ImageNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,10 +31,16 @@ public class UserService {
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository repository;
+    private final UserProfileImageRepository profileImageRepository;
     private final PasswordEncoder passwordEncoder;
 
-    public UserService(UserRepository repository, PasswordEncoder passwordEncoder) {
+    public UserService(
+            UserRepository repository,
+            UserProfileImageRepository profileImageRepository,
+            PasswordEncoder passwordEncoder
+    ) {
         this.repository = repository;
+        this.profileImageRepository = profileImageRepository;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -43,6 +53,17 @@ public class UserService {
                 });
     }
 
+    /**
+     * Devuelve una referencia gestionada al usuario sin consultarlo, para asociarlo a otras entidades (p. ej. como
+     * propietario de una compra) dentro de la transacción actual.
+     *
+     * @param id ID del usuario
+     * @return referencia perezosa al usuario
+     */
+    public User getReferenceById(Long id) {
+        return repository.getReferenceById(id);
+    }
+
     public User getEntityByEmail(String email) {
         log.debug("Obteniendo entidad de usuario por correo electrónico: {}", email);
         return repository.findByEmail(email)
@@ -60,6 +81,48 @@ public class UserService {
         return UserResponse.from(getEntityByEmail(email));
     }
 
+    /**
+     * Rellena la imagen de perfil en Base64 para clientes que aún no usan el endpoint binario.
+     *
+     * @param response respuesta ya construida
+     * @return copia con {@code profileImageBase64}, o la misma respuesta si el usuario no tiene imagen
+     */
+    public UserResponse withInlineProfileImage(UserResponse response) {
+        if (response.profileImageVersion() == null) {
+            return response;
+        }
+        return response.withProfileImageBase64(
+                profileImageRepository.findById(response.id()).map(UserProfileImage::getData).orElse(null)
+        );
+    }
+
+    /**
+     * Devuelve la versión (hash) de la imagen de perfil sin cargar sus bytes.
+     *
+     * @param user usuario propietario
+     * @return hash de la imagen
+     * @throws ImageNotFoundException cuando el usuario no tiene imagen de perfil
+     */
+    public String getProfileImageHash(User user) {
+        if (user.getProfileImageHash() == null) {
+            throw new ImageNotFoundException("El usuario no tiene imagen de perfil");
+        }
+        return user.getProfileImageHash();
+    }
+
+    /**
+     * Carga los bytes de la imagen de perfil.
+     *
+     * @param userId ID del usuario propietario
+     * @return imagen con su tipo y hash
+     * @throws ImageNotFoundException cuando el usuario no tiene imagen de perfil
+     */
+    public ImageContent getProfileImage(Long userId) {
+        return profileImageRepository.findById(userId)
+                .map(image -> new ImageContent(image.getData(), image.getContentType(), image.getHash()))
+                .orElseThrow(() -> new ImageNotFoundException("El usuario no tiene imagen de perfil"));
+    }
+
     @Transactional
     public UserResponse create(UserRequest request) {
         log.info("Creando nuevo usuario con el correo: {}", request.email());
@@ -116,7 +179,20 @@ public class UserService {
     public UserResponse updateProfileImage(String email, String profileImageBase64) {
         log.info("Actualizando imagen de perfil para el usuario: {}", email);
         User user = getEntityByEmail(email);
-        user.setProfileImage(decodeOptionalImage(profileImageBase64));
+        byte[] image = decodeOptionalImage(profileImageBase64);
+        if (image == null) {
+            profileImageRepository.deleteById(user.getId());
+            user.setProfileImageHash(null);
+        } else {
+            UserProfileImage stored = profileImageRepository.findById(user.getId()).orElse(null);
+            if (stored == null) {
+                stored = new UserProfileImage(user, image);
+                profileImageRepository.save(stored);
+            } else {
+                stored.replace(image);
+            }
+            user.setProfileImageHash(stored.getHash());
+        }
         User saved = repository.save(user);
         log.info("Imagen de perfil actualizada para el usuario: {}", email);
         return UserResponse.from(saved);
@@ -11,20 +11,23 @@ import java.util.Base64;
  * @param email correo electrónico único del usuario
  * @param role rol de usuario asignado
  * @param enabled si la cuenta puede autenticarse
- * @param profileImageBase64 imagen de perfil codificada como Base64, o {@code null} cuando está ausente
+ * @param profileImageVersion versión (hash) de la imagen de perfil, o {@code null} cuando está ausente; se sirve en
+ *                            {@code /auth/me/profile-image} y {@code /users/{id}/profile-image}
+ * @param profileImageBase64 imagen de perfil codificada como Base64; solo se rellena con {@code includeImageBase64=true}
  */
 public record UserResponse(
         Long id,
         String email,
         Role role,
         boolean enabled,
+        String profileImageVersion,
         String profileImageBase64
 ) {
     /**
      * Crea una respuesta de API a partir de una entidad de usuario.
      *
      * @param user entidad de usuario a convertir
-     * @return DTO de respuesta con la imagen de perfil codificada como Base64 cuando está presente
+     * @return DTO de respuesta sin los bytes de la imagen de perfil
      */
     public static UserResponse from(com.bakery.bakeryapi.domain.User user) {
         return new UserResponse(
@@ -32,9 +35,25 @@ public record UserResponse(
                 user.getEmail(),
                 user.getRole(),
                 user.isEnabled(),
-                user.getProfileImage() == null ? null : Base64.getEncoder().encodeToString(user.getProfileImage())
+                user.getProfileImageHash(),
+                null
         );
     }
-}
-
 
+    /**
+     * Devuelve una copia con la imagen de perfil incluida en Base64 (modo de compatibilidad).
+     *
+     * @param profileImage bytes de la imagen de perfil, o {@code null} cuando está ausente
+     * @return copia de la respuesta con {@code profileImageBase64} relleno
+     */
+    public UserResponse withProfileImageBase64(byte[] profileImage) {
+        return new UserResponse(
+                id,
+                email,
+                role,
+                enabled,
+                profileImageVersion,
+                profileImage == null ? null : Base64.getEncoder().encodeToString(profileImage)
+        );
+    }
+}
@@ -154,7 +154,7 @@ class AuthControllerTest {
     @Test
     void getMe_authenticated_returnsCurrentUser() throws Exception {
         setAuth("user@example.com");
-        UserResponse response = new UserResponse(1L, "user@example.com", Role.USER, true, null);
+        UserResponse response = new UserResponse(1L, "user@example.com", Role.USER, true, null, null);
         when(userService.getByEmail("user@example.com")).thenReturn(response);
 
         mockMvc.perform(get("/auth/me"))
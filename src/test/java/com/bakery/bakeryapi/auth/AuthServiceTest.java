@@ -21,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -57,7 +58,7 @@ class AuthServiceTest {
 
         when(userService.createInternal(eq(email), eq(password), eq(Role.USER))).thenReturn(createdUser);
         when(userService.rotateRefreshToken(eq(createdUser))).thenReturn(createdUser);
-        when(jwtTokenService.generateToken(eq(email), eq(Role.USER.name()))).thenReturn("jwt-token");
+        when(jwtTokenService.generateToken(eq(email), eq(Role.USER.name()), isNull())).thenReturn("jwt-token");
         when(jwtTokenService.generateRefreshToken(eq(email), eq(createdUser.getRefreshTokenVersion()))).thenReturn("refresh-token");
         when(jwtTokenService.getExpirationMs()).thenReturn(900000L);
 
@@ -82,7 +83,7 @@ class AuthServiceTest {
 
         when(userService.getEntityByEmail(email)).thenReturn(user);
         when(userService.rotateRefreshToken(eq(user))).thenReturn(user);
-        when(jwtTokenService.generateToken(email, Role.USER.name())).thenReturn("jwt-token");
+        when(jwtTokenService.generateToken(email, Role.USER.name(), null)).thenReturn("jwt-token");
         when(jwtTokenService.generateRefreshToken(eq(email), eq(user.getRefreshTokenVersion()))).thenReturn("refresh-token");
         when(jwtTokenService.getExpirationMs()).thenReturn(900000L);
 
@@ -106,7 +107,7 @@ class AuthServiceTest {
         assertThrows(InvalidCredentialsException.class,
                 () -> authService.login(email, "wrongPassword"));
 
-        verify(jwtTokenService, never()).generateToken(anyString(), anyString());
+        verify(jwtTokenService, never()).generateToken(anyString(), anyString(), any());
     }
 
     /**
@@ -122,7 +123,7 @@ class AuthServiceTest {
         assertThrows(InvalidCredentialsException.class,
                 () -> authService.login(email, "anyPassword"));
 
-        verify(jwtTokenService, never()).generateToken(any(), any());
+        verify(jwtTokenService, never()).generateToken(any(), any(), any());
     }
 
     /**
@@ -141,7 +142,7 @@ class AuthServiceTest {
         assertThrows(UserDisabledException.class,
                 () -> authService.login(email, password));
 
-        verify(jwtTokenService, never()).generateToken(anyString(), anyString());
+        verify(jwtTokenService, never()).generateToken(anyString(), anyString(), any());
     }
 
     /**
@@ -163,7 +164,7 @@ class AuthServiceTest {
                 .thenReturn(new JwtTokenService.RefreshTokenPayload(email, previousVersion));
         when(userService.getEntityByEmail(email)).thenReturn(currentUser);
         when(userService.rotateRefreshToken(eq(currentUser))).thenReturn(rotatedUser);
-        when(jwtTokenService.generateToken(email, Role.USER.name())).thenReturn("new-access");
+        when(jwtTokenService.generateToken(email, Role.USER.name(), null)).thenReturn("new-access");
         when(jwtTokenService.generateRefreshToken(email, newVersion)).thenReturn("new-refresh");
         when(jwtTokenService.getExpirationMs()).thenReturn(900000L);
 
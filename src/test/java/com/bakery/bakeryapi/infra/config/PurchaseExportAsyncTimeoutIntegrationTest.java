@@ -0,0 +1,100 @@
+package com.bakery.bakeryapi.infra.config;
+
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.infra.persistence.IntegrationTestSupport;
+import com.bakery.bakeryapi.infra.security.JwtTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+// Servidor real en puerto aleatorio: esta anotación sustituye a la de la base y arranca su propio contexto.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PurchaseExportAsyncTimeoutIntegrationTest extends IntegrationTestSupport {
+
+    // Tiempo asíncrono del contenedor en la prueba, en lugar de los 30 s por defecto de Tomcat.
+    private static final int CONTAINER_ASYNC_TIMEOUT_MS = 300;
+
+    @TestConfiguration
+    static class ShortContainerTimeout {
+
+        @Bean
+        TomcatConnectorCustomizer shortAsyncTimeout() {
+            return connector -> connector.setAsyncTimeout(CONTAINER_ASYNC_TIMEOUT_MS);
+        }
+    }
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @MockitoSpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @BeforeEach
+    void seed() {
+        User user = saveUser("export-timeout@example.com");
+        Product product = saveProduct("Baguette", "1.00", 100, saveCategory("Bread"));
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 10, 0);
+        for (int i = 0; i < 3; i++) {
+            Purchase purchase = new Purchase(user, base.plusHours(i), PurchaseStatus.PAID);
+            purchase.addItem(new PurchaseItem(product, null, 1, product.getPrice(), BigDecimal.ZERO, product.getPrice()));
+            purchaseRepository.save(purchase);
+        }
+    }
+
+    /**
+     * CP-INT.19: export_streamingLongerThanContainerAsyncTimeout_completesWithTrailer
+     * Verifica que una exportación que tarda más que el tiempo asíncrono del contenedor no se corte: responde 200
+     * con todas las filas y la línea de cierre.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_streamingLongerThanContainerAsyncTimeout_completesWithTrailer() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(CONTAINER_ASYNC_TIMEOUT_MS * 3L);
+            return invocation.callRealMethod();
+        }).when(jdbcTemplate).execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/purchases/export?from=2024-03-01T00:00:00&to=2024-03-02T00:00:00"))
+                .header("Authorization", "Bearer " + jwtTokenService.generateToken("admin@example.com", "ADMIN"))
+                .GET()
+                .build();
+        HttpResponse<String> response;
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        assertEquals(200, response.statusCode());
+        List<String> lines = response.body().lines().toList();
+        assertEquals(4, lines.size());
+        assertEquals("{\"eof\":true,\"rows\":3}", lines.getLast());
+    }
+}
@@ -0,0 +1,46 @@
+package com.bakery.bakeryapi.infra.idempotency;
+
+import com.bakery.bakeryapi.infra.persistence.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {
+        "app.idempotency.ttl=1s",
+        "app.idempotency.in-flight-timeout=1s"
+})
+class IdempotencyStoreIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private IdempotencyStore store;
+
+    /**
+     * CP-INT.20: reserve_afterTtlOrInFlightTimeout_reusesKeyBeforePurge
+     * Verifica que una clave con la respuesta caducada, o con una reserva abandonada más antigua que el tiempo de
+     * espera, se pueda reservar de nuevo sin esperar a la purga, y que una reserva reciente siga bloqueándola.
+     */
+    @Test
+    void reserve_afterTtlOrInFlightTimeout_reusesKeyBeforePurge() throws InterruptedException {
+        IdempotencyStore.Key completed = new IdempotencyStore.Key("user@example.com", "completed-key");
+        IdempotencyStore.Key abandoned = new IdempotencyStore.Key("user@example.com", "abandoned-key");
+        assertTrue(store.reserve(completed));
+        store.complete(completed, new IdempotencyStore.StoredResponse(
+                201, "application/json", "{}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(store.reserve(abandoned));
+        assertFalse(store.reserve(completed));
+        assertFalse(store.reserve(abandoned));
+
+        Thread.sleep(1_500);
+
+        assertTrue(store.find(completed).isEmpty());
+        assertTrue(store.reserve(completed));
+        assertTrue(store.reserve(abandoned));
+        assertEquals(2, idempotencyRecordRepository.count());
+    }
+}
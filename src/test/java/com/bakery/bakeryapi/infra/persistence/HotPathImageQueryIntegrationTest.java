@@ -0,0 +1,63 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.ProductImage;
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.domain.UserProfileImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotPathImageQueryIntegrationTest extends IntegrationTestSupport {
+
+    private static final byte[] PNG = {(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A};
+
+    private Long purchaseId;
+
+    @BeforeEach
+    void seed() {
+        User user = saveUser("images@example.com");
+        profileImageRepository.save(new UserProfileImage(user, PNG));
+
+        Category category = saveCategory("Bread");
+        Product product = saveProduct("Baguette", "1.00", 10, category);
+        productImageRepository.save(new ProductImage(product, PNG));
+
+        Purchase purchase = new Purchase(user, LocalDateTime.now(), PurchaseStatus.CREATED);
+        purchase.addItem(new PurchaseItem(product, null, 1, product.getPrice(), BigDecimal.ZERO, product.getPrice()));
+        purchaseId = purchaseRepository.save(purchase).getId();
+
+        SqlCaptureInspector.clear();
+    }
+
+    /**
+     * CP-INT.06: hotPathQueries_doNotSelectImageColumns
+     * Verifica que la página de productos, el detalle de una compra y la búsqueda de usuario por correo no lean bytes de imagen.
+     */
+    @Test
+    void hotPathQueries_doNotSelectImageColumns() {
+        assertEquals(1, productRepository.findAllByActiveTrue(PageRequest.of(0, 10)).getNumberOfElements());
+        assertTrue(purchaseRepository.findDetailedById(purchaseId).isPresent());
+        assertTrue(userRepository.findByEmail("images@example.com").isPresent());
+
+        List<String> statements = SqlCaptureInspector.statements();
+        assertFalse(statements.isEmpty());
+        for (String sql : statements) {
+            String normalized = sql.toLowerCase();
+            assertFalse(normalized.contains("product_images") || normalized.contains("user_profile_images"),
+                    () -> "La consulta lee imágenes: " + sql);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.repository.CategoryRepository;
+import com.bakery.bakeryapi.repository.IdempotencyRecordRepository;
+import com.bakery.bakeryapi.repository.ProductImageRepository;
+import com.bakery.bakeryapi.repository.ProductImageVariantRepository;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import com.bakery.bakeryapi.repository.PromotionRedemptionsRepository;
+import com.bakery.bakeryapi.repository.PromotionRepository;
+import com.bakery.bakeryapi.repository.PromotionUsageRepository;
+import com.bakery.bakeryapi.repository.PurchaseRepository;
+import com.bakery.bakeryapi.repository.SalesDailyRollupRepository;
+import com.bakery.bakeryapi.repository.UserProfileImageRepository;
+import com.bakery.bakeryapi.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Base de las pruebas de integración sobre la base H2 en memoria.
+ *
+ * Todas las subclases que no declaran configuración propia comparten estas propiedades y, por tanto, un único
+ * contexto de Spring. Si una prueba necesita otro valor, lo añade con {@code @TestPropertySource} y solo ella
+ * arranca un contexto aparte.
+ *
+ * Cada prueba empieza y termina con las tablas de la aplicación vacías y sin autenticación.
+ */
+@SpringBootTest(properties = {
+        // Las pruebas de concurrencia esperan bloqueos de fila más allá del segundo por defecto de H2.
+        "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bakery.bakeryapi.infra.persistence.SqlCaptureInspector",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // La expiración se lanza a mano con expireBatch(); la tarea programada no debe tocar compras de otras pruebas.
+        "app.purchase-expiry.enabled=false",
+        "app.purchase-expiry.ttl=30m",
+        "app.purchase-expiry.batch-size=2",
+        "app.purchase-export.fetch-size=2",
+        // Bloques pequeños para que los topes de promoción reserven muchas veces y acaben en la reserva de uno en uno.
+        "app.promotion-redemptions.lease-size=7",
+        "app.promotion-redemptions.stripes=4"
+})
+public abstract class IntegrationTestSupport {
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected UserProfileImageRepository profileImageRepository;
+
+    @Autowired
+    protected CategoryRepository categoryRepository;
+
+    @Autowired
+    protected ProductRepository productRepository;
+
+    @Autowired
+    protected ProductImageRepository productImageRepository;
+
+    @Autowired
+    protected ProductImageVariantRepository productImageVariantRepository;
+
+    @Autowired
+    protected PromotionRepository promotionRepository;
+
+    @Autowired
+    protected PromotionUsageRepository promotionUsageRepository;
+
+    @Autowired
+    protected PromotionRedemptionsRepository redemptionsRepository;
+
+    @Autowired
+    protected PurchaseRepository purchaseRepository;
+
+    @Autowired
+    protected SalesDailyRollupRepository rollupRepository;
+
+    @Autowired
+    protected IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @BeforeEach
+    @AfterEach
+    protected void cleanDb() {
+        SecurityContextHolder.clearContext();
+        SqlCaptureInspector.clear();
+        // En orden de claves ajenas: las compras borran sus artículos en cascada antes que los productos.
+        idempotencyRecordRepository.deleteAll();
+        rollupRepository.deleteAll();
+        promotionUsageRepository.deleteAll();
+        purchaseRepository.deleteAll();
+        redemptionsRepository.deleteAll();
+        promotionRepository.deleteAll();
+        productImageVariantRepository.deleteAll();
+        productImageRepository.deleteAll();
+        profileImageRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    protected User saveUser(String email) {
+        return userRepository.save(new User(email, "hashed", Role.USER));
+    }
+
+    protected Category saveCategory(String name) {
+        return categoryRepository.save(new Category(name));
+    }
+
+    protected Product saveProduct(String name, String price, int stock, Category category) {
+        return productRepository.save(new Product(name, "Test", new BigDecimal(price), stock, category));
+    }
+
+    /**
+     * Autentica el hilo actual como en una petición con token sin reclamo {@code uid} (búsqueda por correo).
+     *
+     * @param email correo del usuario
+     * @param role rol concedido
+     */
+    protected static void setAuth(String email, Role role) {
+        var auth = new UsernamePasswordAuthenticationToken(
+                email,
+                null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role.name()))
+        );
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(auth);
+        SecurityContextHolder.setContext(context);
+    }
+}
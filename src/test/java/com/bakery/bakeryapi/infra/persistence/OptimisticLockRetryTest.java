@@ -0,0 +1,59 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.infra.config.OptimisticRetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimisticLockRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticLockRetry retry = new OptimisticLockRetry(
+            new OptimisticRetryProperties(3, Duration.ZERO, Duration.ZERO),
+            meterRegistry
+    );
+
+    /**
+     * CP-INT.09: execute_retriesVersionConflicts_untilAttemptLimit
+     * Verifica que un conflicto de versión se reintente hasta el límite configurado, que un intento posterior con
+     * éxito devuelva su resultado y que las métricas cuenten conflictos, reintentos y fallos finales.
+     */
+    @Test
+    void execute_retriesVersionConflicts_untilAttemptLimit() {
+        AtomicInteger calls = new AtomicInteger();
+        String result = retry.execute("purchase.create", () -> {
+            if (calls.incrementAndGet() < 2) {
+                throw new ObjectOptimisticLockingFailureException("Product", 10L);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+
+        calls.set(0);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retry.run("purchase.pay", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Product", 10L);
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(1, count("optimistic.lock.conflicts", "purchase.create"));
+        assertEquals(1, count("optimistic.lock.retries", "purchase.create"));
+        assertEquals(0, count("optimistic.lock.failures", "purchase.create"));
+        assertEquals(3, count("optimistic.lock.conflicts", "purchase.pay"));
+        assertEquals(2, count("optimistic.lock.retries", "purchase.pay"));
+        assertEquals(1, count("optimistic.lock.failures", "purchase.pay"));
+    }
+
+    private double count(String name, String operation) {
+        var counter = meterRegistry.find(name).tag("operation", operation).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
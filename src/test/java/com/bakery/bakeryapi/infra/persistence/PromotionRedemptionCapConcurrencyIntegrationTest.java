@@ -0,0 +1,112 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.promotion.PromotionRedemptionLimiter;
+import com.bakery.bakeryapi.promotion.PromotionService;
+import com.bakery.bakeryapi.promotion.dto.PercentagePromotionRequest;
+import com.bakery.bakeryapi.promotion.exception.PromotionSoldOutException;
+import com.bakery.bakeryapi.purchase.PurchaseService;
+import com.bakery.bakeryapi.purchase.dto.PurchaseItemRequest;
+import com.bakery.bakeryapi.purchase.dto.PurchaseRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromotionRedemptionCapConcurrencyIntegrationTest extends IntegrationTestSupport {
+
+    private static final int BUYERS = 1_000;
+    private static final int MAX_REDEMPTIONS = 100;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private PromotionService promotionService;
+
+    @Autowired
+    private PromotionRedemptionLimiter redemptionLimiter;
+
+    private Long productId;
+    private Long promotionId;
+
+    @BeforeEach
+    void seed() {
+        List<User> buyers = new ArrayList<>(BUYERS);
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(new User(email(i), "hashed", Role.USER));
+        }
+        userRepository.saveAll(buyers);
+        Category category = saveCategory("Pastry");
+        productId = saveProduct("Croissant", "1.20", BUYERS * 2, category).getId();
+        promotionId = promotionService.createPercentage(new PercentagePromotionRequest(
+                "Lanzamiento", LocalDate.now(), null, productId, new BigDecimal("50.00"), MAX_REDEMPTIONS)).id();
+    }
+
+    /**
+     * CP-INT.18: create_concurrentBuyersOnCappedPromotion_neverExceedsMaxRedemptions
+     * Verifica que 1.000 compras simultáneas de distintos usuarios con una promoción limitada a 100 usos apliquen
+     * la promoción exactamente 100 veces, rechacen el resto por promoción agotada (Error 409) y que, tras el
+     * checkpoint, el contador de la base de datos coincida con los usos registrados.
+     */
+    @Test
+    void create_concurrentBuyersOnCappedPromotion_neverExceedsMaxRedemptions() throws InterruptedException {
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        for (int i = 0; i < BUYERS; i++) {
+            String email = email(i);
+            executor.submit(() -> {
+                setAuth(email, Role.USER);
+                try {
+                    start.await();
+                    purchaseService.create(new PurchaseRequest(null, List.of(
+                            new PurchaseItemRequest(productId, 1, promotionId))));
+                    redeemed.incrementAndGet();
+                } catch (PromotionSoldOutException e) {
+                    soldOut.incrementAndGet();
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(120, TimeUnit.SECONDS));
+
+        assertTrue(unexpected.isEmpty(), () -> "Errores inesperados: " + unexpected);
+        assertEquals(MAX_REDEMPTIONS, redeemed.get());
+        assertEquals(BUYERS - MAX_REDEMPTIONS, soldOut.get());
+        assertEquals(MAX_REDEMPTIONS, promotionUsageRepository.count());
+        assertEquals(MAX_REDEMPTIONS, purchaseRepository.count());
+
+        redemptionLimiter.checkpoint();
+        assertEquals(MAX_REDEMPTIONS, redemptionsRepository.findById(promotionId).orElseThrow().getReserved());
+    }
+
+    private static String email(int index) {
+        return "buyer" + index + "@example.com";
+    }
+}
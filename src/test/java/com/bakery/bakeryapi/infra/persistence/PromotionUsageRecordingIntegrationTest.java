@@ -0,0 +1,77 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.PercentagePromotion;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.Promotion;
+import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.promotion.exception.InvalidPromotionException;
+import com.bakery.bakeryapi.purchase.PurchaseService;
+import com.bakery.bakeryapi.purchase.dto.PurchaseItemRequest;
+import com.bakery.bakeryapi.purchase.dto.PurchaseRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PromotionUsageRecordingIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+    private Product baguette;
+    private Product croissant;
+    private Promotion baguettePromotion;
+    private Promotion croissantPromotion;
+
+    @BeforeEach
+    void seed() {
+        user = saveUser("usage@example.com");
+        Category category = saveCategory("Bread");
+        baguette = saveProduct("Baguette", "1.00", 10, category);
+        croissant = saveProduct("Croissant", "1.50", 10, category);
+        baguettePromotion = promotionRepository.save(new PercentagePromotion(
+                "10%", new BigDecimal("10.00"), LocalDate.now(), null, baguette));
+        croissantPromotion = promotionRepository.save(new PercentagePromotion(
+                "20%", new BigDecimal("20.00"), LocalDate.now(), null, croissant));
+        setAuth("usage@example.com", Role.USER);
+    }
+
+    /**
+     * CP-INT.17: create_withAlreadyUsedPromotion_rejectsByInsertedRowCount
+     * Verifica que una compra con una promoción ya usada se rechace (Error 400) sin dejar usos, stock ni compras a
+     * medias, y que la inserción condicional solo inserte los usos que aún no existían.
+     */
+    @Test
+    void create_withAlreadyUsedPromotion_rejectsByInsertedRowCount() {
+        purchaseService.create(new PurchaseRequest(null, List.of(
+                new PurchaseItemRequest(baguette.getId(), 1, baguettePromotion.getId()))));
+
+        assertThrows(InvalidPromotionException.class, () -> purchaseService.create(new PurchaseRequest(null, List.of(
+                new PurchaseItemRequest(croissant.getId(), 2, croissantPromotion.getId()),
+                new PurchaseItemRequest(baguette.getId(), 1, baguettePromotion.getId())))));
+
+        assertEquals(1, promotionUsageRepository.count());
+        assertEquals(1, purchaseRepository.count());
+        assertEquals(9, productRepository.findById(baguette.getId()).orElseThrow().getStock());
+        assertEquals(10, productRepository.findById(croissant.getId()).orElseThrow().getStock());
+
+        Integer inserted = transactionTemplate.execute(status -> promotionUsageRepository.insertAllIfAbsent(
+                List.of(baguettePromotion.getId(), croissantPromotion.getId()), user.getId(), LocalDateTime.now()));
+        assertEquals(1, inserted);
+        assertEquals(2, promotionUsageRepository.count());
+    }
+}
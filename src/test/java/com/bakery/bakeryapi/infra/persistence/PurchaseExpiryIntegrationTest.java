@@ -0,0 +1,87 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.PercentagePromotion;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.Promotion;
+import com.bakery.bakeryapi.domain.PromotionUsage;
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.purchase.PurchaseExpiryJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// TTL de 30 minutos y lotes de 2 compras (ver IntegrationTestSupport).
+class PurchaseExpiryIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private PurchaseExpiryJob expiryJob;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+    private Product baguette;
+    private Promotion promotion;
+
+    @BeforeEach
+    void seed() {
+        user = saveUser("expiry@example.com");
+        Category category = saveCategory("Bread");
+        baguette = saveProduct("Baguette", "1.00", 10, category);
+        promotion = promotionRepository.save(new PercentagePromotion(
+                "10%", new BigDecimal("10.00"), LocalDate.now(), null, baguette));
+    }
+
+    /**
+     * CP-INT.11: expireBatch_cancelsOnlyStaleCreatedPurchases_andRestoresStock
+     * Verifica que la expiración cancele por lotes solo las compras pendientes más antiguas que el TTL, devuelva
+     * su stock, libere sus usos de promoción y deje intactas las compras recientes o pagadas.
+     */
+    @Test
+    void expireBatch_cancelsOnlyStaleCreatedPurchases_andRestoresStock() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        Purchase staleWithPromotion = purchase(now.minusHours(2), PurchaseStatus.CREATED, 2, promotion);
+        Purchase stale = purchase(now.minusHours(1), PurchaseStatus.CREATED, 1, null);
+        Purchase staleThird = purchase(now.minusMinutes(45), PurchaseStatus.CREATED, 1, null);
+        Purchase recent = purchase(now.minusMinutes(5), PurchaseStatus.CREATED, 1, null);
+        Purchase paid = purchase(now.minusHours(3), PurchaseStatus.PAID, 1, null);
+        promotionUsageRepository.save(new PromotionUsage(promotion, user, now.minusHours(2)));
+        double expiredBefore = meterRegistry.get("purchase.expiry.expired").counter().count();
+
+        assertEquals(2, expiryJob.expireBatch());
+        assertEquals(1, expiryJob.expireBatch());
+        assertEquals(0, expiryJob.expireBatch());
+
+        assertEquals(PurchaseStatus.CANCELLED, statusOf(staleWithPromotion));
+        assertEquals(PurchaseStatus.CANCELLED, statusOf(stale));
+        assertEquals(PurchaseStatus.CANCELLED, statusOf(staleThird));
+        assertEquals(PurchaseStatus.CREATED, statusOf(recent));
+        assertEquals(PurchaseStatus.PAID, statusOf(paid));
+        assertEquals(14, productRepository.findById(baguette.getId()).orElseThrow().getStock());
+        assertEquals(0, promotionUsageRepository.count());
+        assertEquals(3, meterRegistry.get("purchase.expiry.expired").counter().count() - expiredBefore);
+    }
+
+    private Purchase purchase(LocalDateTime createdAt, PurchaseStatus status, int quantity, Promotion promotion) {
+        Purchase purchase = new Purchase(user, createdAt, status);
+        BigDecimal subtotal = baguette.getPrice().multiply(BigDecimal.valueOf(quantity));
+        purchase.addItem(new PurchaseItem(baguette, promotion, quantity, baguette.getPrice(), BigDecimal.ZERO, subtotal));
+        return purchaseRepository.save(purchase);
+    }
+
+    private PurchaseStatus statusOf(Purchase purchase) {
+        return purchaseRepository.findById(purchase.getId()).orElseThrow().getStatus();
+    }
+}
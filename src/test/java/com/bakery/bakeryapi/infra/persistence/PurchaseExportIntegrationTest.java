@@ -0,0 +1,73 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.purchase.PurchaseExportFormat;
+import com.bakery.bakeryapi.purchase.PurchaseExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Fetch size de 2 (ver IntegrationTestSupport): las cinco compras se leen en varios viajes.
+class PurchaseExportIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private PurchaseExportService exportService;
+
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void seed() {
+        user = saveUser("export@example.com");
+        Category category = saveCategory("Pastry");
+        product = saveProduct("Tarta \"de queso\", grande", "12.50", 100, category);
+    }
+
+    /**
+     * CP-INT.13: export_streamsItemLinesInRange_asNdjsonAndCsv
+     * Verifica que la exportación escriba una línea por artículo de las compras del rango, en orden de fecha, con
+     * los textos escapados tanto en NDJSON como en CSV, y que termine con la línea de cierre y el número de filas.
+     */
+    @Test
+    void export_streamsItemLinesInRange_asNdjsonAndCsv() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 10, 0);
+        for (int i = 0; i < 5; i++) {
+            Purchase purchase = new Purchase(user, base.plusDays(i), PurchaseStatus.PAID);
+            purchase.addItem(new PurchaseItem(product, null, 1, product.getPrice(), BigDecimal.ZERO, product.getPrice()));
+            purchaseRepository.save(purchase);
+        }
+
+        List<String> ndjson = export(base, base.plusDays(4), PurchaseExportFormat.NDJSON);
+        List<String> csv = export(base, base.plusDays(4), PurchaseExportFormat.CSV);
+
+        assertEquals(5, ndjson.size());
+        assertTrue(ndjson.getFirst().contains("\"createdAt\":\"2024-03-01T10:00\""));
+        assertTrue(ndjson.getFirst().contains("\"productName\":\"Tarta \\\"de queso\\\", grande\""));
+        assertTrue(ndjson.getFirst().contains("\"promotionId\":null"));
+        assertEquals(6, csv.size());
+        assertTrue(csv.getFirst().startsWith("purchase_id,created_at"));
+        assertTrue(csv.get(1).contains(",\"Tarta \"\"de queso\"\", grande\","));
+        assertEquals("{\"eof\":true,\"rows\":4}", ndjson.getLast());
+        assertEquals("#eof,4", csv.getLast());
+    }
+
+    private List<String> export(LocalDateTime from, LocalDateTime to, PurchaseExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(from, to, format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
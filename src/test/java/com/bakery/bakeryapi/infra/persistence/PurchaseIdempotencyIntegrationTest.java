@@ -0,0 +1,71 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PurchaseIdempotencyIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private Long productId;
+
+    @BeforeEach
+    void seed() {
+        saveUser("retry@example.com");
+        productId = saveProduct("Baguette", "1.00", 10, saveCategory("Bread")).getId();
+    }
+
+    /**
+     * CP-INT.10: createPurchase_withSameIdempotencyKey_replaysFirstResponse
+     * Verifica que repetir POST /purchases con la misma Idempotency-Key devuelva la respuesta original marcada como
+     * repetida, sin crear otra compra ni descontar stock de nuevo.
+     */
+    @Test
+    void createPurchase_withSameIdempotencyKey_replaysFirstResponse() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        String first = mockMvc.perform(purchaseRequest("order-1"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(purchaseRequest("order-1"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().json(first));
+
+        mockMvc.perform(purchaseRequest("order-2"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        assertEquals(2, purchaseRepository.count());
+        assertEquals(6, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    private MockHttpServletRequestBuilder purchaseRequest(String idempotencyKey) {
+        return post("/purchases")
+                .with(jwt().jwt(token -> token.subject("retry@example.com"))
+                        .authorities(new SimpleGrantedAuthority("ROLE_USER")))
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"items\":[{\"productId\":" + productId + ",\"quantity\":2}]}");
+    }
+}
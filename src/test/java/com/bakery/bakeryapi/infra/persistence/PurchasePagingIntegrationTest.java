@@ -0,0 +1,126 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.purchase.PurchaseService;
+import com.bakery.bakeryapi.purchase.dto.PurchaseResponse;
+import com.bakery.bakeryapi.purchase.dto.PurchaseSummaryResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PurchasePagingIntegrationTest extends IntegrationTestSupport {
+
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private Product baguette;
+    private Product croissant;
+    private int seeded;
+
+    @BeforeEach
+    void seed() {
+        user = saveUser("paging@example.com");
+        Category category = saveCategory("Bread");
+        baguette = saveProduct("Baguette", "1.00", 1_000, category);
+        croissant = saveProduct("Croissant", "1.50", 1_000, category);
+        seeded = 0;
+        setAuth("admin@example.com", Role.ADMIN);
+    }
+
+    /**
+     * CP-INT.07: getAll_pagesPurchaseIdsInSql_withFlatEntityLoads
+     * Verifica que el listado de compras aplique LIMIT en SQL y que el número de entidades cargadas por página no
+     * crezca con el tamaño de la tabla.
+     */
+    @Test
+    void getAll_pagesPurchaseIdsInSql_withFlatEntityLoads() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        seedPurchases(20);
+        long loadsWithSmallTable = loadFirstPage(statistics);
+        List<String> statements = SqlCaptureInspector.statements();
+
+        seedPurchases(80);
+        long loadsWithLargeTable = loadFirstPage(statistics);
+
+        assertTrue(statements.stream()
+                        .map(String::toLowerCase)
+                        .anyMatch(sql -> sql.contains("from purchases")
+                                && (sql.contains(" fetch first ") || sql.contains(" limit "))),
+                () -> "Ninguna consulta de compras limita filas en SQL: " + statements);
+        assertEquals(loadsWithSmallTable, loadsWithLargeTable);
+    }
+
+    /**
+     * CP-INT.12: getSummaries_projectsPurchasesWithItemCount_withoutLoadingItems
+     * Verifica que el historial resumido devuelva el número de artículos de cada compra sin cargar entidades ni
+     * unir purchase_items más allá de la subconsulta de recuento.
+     */
+    @Test
+    void getSummaries_projectsPurchasesWithItemCount_withoutLoadingItems() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        seedPurchases(12);
+        SqlCaptureInspector.clear();
+        statistics.clear();
+
+        Page<PurchaseSummaryResponse> page = purchaseService.getSummaries(
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt")), null, null, null);
+
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertEquals(12, page.getTotalElements());
+        assertTrue(page.getContent().stream().allMatch(summary -> summary.itemCount() == 2));
+        assertEquals(0, statistics.getEntityLoadCount());
+        List<String> statements = SqlCaptureInspector.statements();
+        assertTrue(statements.stream()
+                        .map(String::toLowerCase)
+                        .noneMatch(sql -> sql.contains("join purchase_items")),
+                () -> "El resumen no debe unir purchase_items: " + statements);
+    }
+
+    private long loadFirstPage(Statistics statistics) {
+        SqlCaptureInspector.clear();
+        statistics.clear();
+        Page<PurchaseResponse> page = purchaseService.getAll(
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt")), null, null, null);
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertEquals(seeded, page.getTotalElements());
+        assertEquals(2, page.getContent().getFirst().items().size());
+        return statistics.getEntityLoadCount();
+    }
+
+    private void seedPurchases(int count) {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            Purchase purchase = new Purchase(user, base.plusMinutes(seeded + i), PurchaseStatus.PAID);
+            purchase.addItem(new PurchaseItem(baguette, null, 1, baguette.getPrice(), BigDecimal.ZERO, baguette.getPrice()));
+            purchase.addItem(new PurchaseItem(croissant, null, 2, croissant.getPrice(), BigDecimal.ZERO, new BigDecimal("3.00")));
+            purchaseRepository.save(purchase);
+        }
+        seeded += count;
+    }
+}
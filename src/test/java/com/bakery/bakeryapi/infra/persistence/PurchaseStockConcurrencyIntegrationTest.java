@@ -0,0 +1,80 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.product.exception.InsufficientStockException;
+import com.bakery.bakeryapi.purchase.PurchaseService;
+import com.bakery.bakeryapi.purchase.dto.PurchaseItemRequest;
+import com.bakery.bakeryapi.purchase.dto.PurchaseRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PurchaseStockConcurrencyIntegrationTest extends IntegrationTestSupport {
+
+    private static final int BUYERS = 200;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    private Long productId;
+
+    @BeforeEach
+    void seed() {
+        saveUser("buyer@example.com");
+        productId = saveProduct("Croissant", "1.20", STOCK, saveCategory("Pastry")).getId();
+    }
+
+    /**
+     * CP-INT.08: create_concurrentBuyers_neverOversellsNorFailsOnVersion
+     * Verifica que 200 compras simultáneas del mismo producto vendan exactamente el stock disponible, rechacen el
+     * resto por stock insuficiente y no produzcan ningún conflicto de bloqueo optimista.
+     */
+    @Test
+    void create_concurrentBuyers_neverOversellsNorFailsOnVersion() throws InterruptedException {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        for (int i = 0; i < BUYERS; i++) {
+            executor.submit(() -> {
+                setAuth("buyer@example.com", Role.USER);
+                try {
+                    start.await();
+                    purchaseService.create(new PurchaseRequest(null, List.of(new PurchaseItemRequest(productId, 1, null))));
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(unexpected.isEmpty(), () -> "Errores inesperados: " + unexpected);
+        assertEquals(STOCK, sold.get());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStock());
+        assertEquals(STOCK, purchaseRepository.count());
+    }
+}
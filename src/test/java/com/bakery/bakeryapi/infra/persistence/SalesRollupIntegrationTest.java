@@ -0,0 +1,94 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.Purchase;
+import com.bakery.bakeryapi.domain.PurchaseItem;
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.purchase.PurchaseService;
+import com.bakery.bakeryapi.purchase.dto.PurchaseItemRequest;
+import com.bakery.bakeryapi.purchase.dto.PurchaseRequest;
+import com.bakery.bakeryapi.report.SalesGranularity;
+import com.bakery.bakeryapi.report.SalesReportService;
+import com.bakery.bakeryapi.report.SalesRollupService;
+import com.bakery.bakeryapi.report.dto.SalesReportResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesRollupIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private SalesRollupService rollupService;
+
+    @Autowired
+    private SalesReportService reportService;
+
+    private User user;
+    private Product baguette;
+    private Product croissant;
+
+    @BeforeEach
+    void seed() {
+        user = saveUser("sales@example.com");
+        Category category = saveCategory("Bread");
+        baguette = saveProduct("Baguette", "1.00", 100, category);
+        croissant = saveProduct("Croissant", "1.50", 100, category);
+        setAuth("sales@example.com", Role.USER);
+    }
+
+    /**
+     * CP-INT.14: pay_upsertsDailyRollup_andRebuildMatchesIncrementalRows
+     * Verifica que cada pago sume sus artículos a las filas (día, producto) del resumen, que las compras sin pagar
+     * no cuenten y que el relleno desde las compras PAGADAS produzca los mismos totales e incluya el histórico.
+     */
+    @Test
+    void pay_upsertsDailyRollup_andRebuildMatchesIncrementalRows() {
+        Long first = purchaseService.create(new PurchaseRequest(null, List.of(
+                new PurchaseItemRequest(croissant.getId(), 2, null),
+                new PurchaseItemRequest(baguette.getId(), 1, null)))).id();
+        Long second = purchaseService.create(new PurchaseRequest(null, List.of(
+                new PurchaseItemRequest(croissant.getId(), 1, null)))).id();
+        purchaseService.create(new PurchaseRequest(null, List.of(new PurchaseItemRequest(baguette.getId(), 5, null))));
+        purchaseService.pay(first);
+        purchaseService.pay(second);
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SalesReportResponse incremental = reportService.getSales(
+                today.minusDays(1), today.plusDays(1), SalesGranularity.DAY, null);
+        assertEquals(2, rollupRepository.count());
+        assertEquals(4, incremental.units());
+        assertEquals(0, new BigDecimal("5.50").compareTo(incremental.net()));
+        assertEquals(1, incremental.periods().size());
+
+        Purchase old = new Purchase(user, LocalDateTime.of(2024, 1, 10, 9, 0), PurchaseStatus.PAID);
+        old.addItem(new PurchaseItem(baguette, null, 3, baguette.getPrice(), new BigDecimal("0.50"), new BigDecimal("2.50")));
+        purchaseRepository.save(old);
+
+        assertEquals(3, rollupService.rebuild());
+        SalesReportResponse rebuilt = reportService.getSales(
+                today.minusDays(1), today.plusDays(1), SalesGranularity.DAY, null);
+        assertEquals(incremental.units(), rebuilt.units());
+        assertEquals(0, incremental.net().compareTo(rebuilt.net()));
+
+        SalesReportResponse january = reportService.getSales(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), SalesGranularity.MONTH, null);
+        assertEquals(1, january.periods().size());
+        assertEquals(LocalDate.of(2024, 1, 1), january.periods().getFirst().periodStart());
+        assertEquals(3, january.units());
+        assertEquals(0, new BigDecimal("0.50").compareTo(january.discount()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.bakery.bakeryapi.infra.persistence;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * StatementInspector de pruebas que registra cada sentencia SQL preparada por Hibernate.
+ *
+ * Se activa con {@code spring.jpa.properties.hibernate.session_factory.statement_inspector} y sigue contando como
+ * {@link QueryCountInspector}, así que la métrica {@code purchase.create.queries} funciona igual con él.
+ */
+public class SqlCaptureInspector extends QueryCountInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return super.inspect(sql);
+    }
+}
@@ -0,0 +1,71 @@
+package com.bakery.bakeryapi.infra.ratelimit;
+
+import com.bakery.bakeryapi.infra.config.RateLimitProperties;
+import com.bakery.bakeryapi.repository.RateLimitBucketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class JdbcRateLimitBackendIntegrationTest {
+
+    private static final String KEY = "203.0.113.10:/auth/login";
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Autowired
+    private RateLimitBucketRepository repository;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDb() {
+        repository.deleteAll();
+    }
+
+    /**
+     * CP-INT.16: tryConsume_sharesOneLimitAcrossInstances_withBatchedWrites
+     * Verifica que dos instancias con el almacén compartido admitan entre las dos exactamente el límite por
+     * minuto, que solo escriban en la base de datos una vez por lote de tokens y que el bucket se rellene con el
+     * paso del tiempo.
+     */
+    @Test
+    void tryConsume_sharesOneLimitAcrossInstances_withBatchedWrites() {
+        RateLimitProperties properties = new RateLimitProperties(10, null, null, RateLimitProperties.Backend.JDBC, 3, null);
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        JdbcRateLimitBackend first = new JdbcRateLimitBackend(repository, properties, clock);
+        JdbcRateLimitBackend second = new JdbcRateLimitBackend(repository, properties, clock);
+
+        int allowed = 0;
+        for (int i = 0; i < 15; i++) {
+            allowed += first.tryConsume(KEY).allowed() ? 1 : 0;
+            allowed += second.tryConsume(KEY).allowed() ? 1 : 0;
+        }
+
+        assertEquals(10, allowed);
+        assertEquals(0, repository.findById(KEY).orElseThrow().getAvailable());
+        // 10 tokens en lotes de 3 (3 + 3 + 3 + 1): una inserción y tres actualizaciones.
+        assertEquals(3, repository.findById(KEY).orElseThrow().getVersion());
+
+        RateLimitBackend.Decision rejected = first.tryConsume(KEY);
+        assertFalse(rejected.allowed());
+        assertTrue(rejected.nanosToWait() > 0);
+
+        JdbcRateLimitBackend later = new JdbcRateLimitBackend(
+                repository, properties, Clock.offset(clock, Duration.ofSeconds(30)));
+        int refilled = 0;
+        for (int i = 0; i < 10; i++) {
+            refilled += later.tryConsume(KEY).allowed() ? 1 : 0;
+        }
+        assertEquals(5, refilled);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -60,4 +61,45 @@ class AuthRateLimitIntegrationTest {
                 .andExpect(header().exists("Retry-After"))
                 .andExpect(jsonPath("$.message").value("Too many authentication requests, please retry later"));
     }
+
+    /**
+     * CP-INT.15: authEndpoints_ignoreForwardedForFromUntrustedClients
+     * Verifica que un cliente que no es un proxy de confianza no pueda esquivar el límite rotando la cabecera
+     * X-Forwarded-For: se limita por su IP de conexión (Error 429).
+     */
+    @Test
+    void authEndpoints_ignoreForwardedForFromUntrustedClients() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        String body = objectMapper.writeValueAsString(Map.of(
+                "email", "missing@example.com",
+                "password", "wrong-password"
+        ));
+
+        for (int i = 1; i <= 2; i++) {
+            mockMvc.perform(post("/auth/login")
+                            .with(remoteAddr("198.51.100.7"))
+                            .header("X-Forwarded-For", "203.0.113." + i)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(post("/auth/login")
+                        .with(remoteAddr("198.51.100.7"))
+                        .header("X-Forwarded-For", "203.0.113.3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    private static RequestPostProcessor remoteAddr(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
 }
@@ -3,6 +3,7 @@ package com.bakery.bakeryapi.infra.security;
 import com.bakery.bakeryapi.domain.Category;
 import com.bakery.bakeryapi.domain.PercentagePromotion;
 import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.promotion.ActivePromotionIndex;
 import com.bakery.bakeryapi.repository.CategoryRepository;
 import com.bakery.bakeryapi.repository.ProductRepository;
 import com.bakery.bakeryapi.repository.PromotionRepository;
@@ -58,6 +59,9 @@ class AuthTokenFlowIntegrationTest {
     @Autowired
     private PromotionUsageRepository promotionUsageRepository;
 
+    @Autowired
+    private ActivePromotionIndex activePromotionIndex;
+
     @BeforeEach
     void cleanDb() {
         // Mantener la limpieza explícita porque estas pruebas llaman a la app por HTTP (sin reversión de transacción de prueba).
@@ -214,6 +218,8 @@ class AuthTokenFlowIntegrationTest {
                 today.plusDays(1),
                 product
         ));
+        // La promoción se guarda sin pasar por PromotionService: el índice en memoria no la conoce hasta recargarse.
+        activePromotionIndex.rebuild();
 
         return product;
     }
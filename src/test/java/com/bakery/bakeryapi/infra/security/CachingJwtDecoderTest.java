@@ -0,0 +1,54 @@
+package com.bakery.bakeryapi.infra.security;
+
+import com.bakery.bakeryapi.infra.config.JwtCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    /**
+     * CP-SEC.04: decode_verifiesEachValidTokenOnce_andNeverCachesRejections
+     * Verifica que un token válido se verifique una sola vez mientras no caduca, que cada token distinto se
+     * verifique por separado y que los tokens rechazados fallen en todas las peticiones.
+     */
+    @Test
+    void decode_verifiesEachValidTokenOnce_andNeverCachesRejections() {
+        AtomicInteger verifications = new AtomicInteger();
+        JwtDecoder delegate = token -> {
+            verifications.incrementAndGet();
+            if (token.startsWith("bad")) {
+                throw new BadJwtException("firma inválida");
+            }
+            return Jwt.withTokenValue(token)
+                    .header("alg", "HS256")
+                    .subject(token)
+                    .issuedAt(NOW)
+                    .expiresAt(NOW.plusSeconds(900))
+                    .build();
+        };
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, new JwtCacheProperties(null),
+                new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        Jwt first = decoder.decode("token-a");
+        assertSame(first, decoder.decode("token-a"));
+        assertEquals("token-b", decoder.decode("token-b").getSubject());
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad-token"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad-token"));
+
+        assertEquals(4, verifications.get());
+    }
+}
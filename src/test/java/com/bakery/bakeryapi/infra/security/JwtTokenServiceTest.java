@@ -1,8 +1,10 @@
 package com.bakery.bakeryapi.infra.security;
 
 import com.bakery.bakeryapi.infra.config.JwtProperties;
+import com.bakery.bakeryapi.shared.SecurityUtils;
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
@@ -16,6 +18,7 @@ import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class JwtTokenServiceTest {
 
@@ -39,4 +42,29 @@ class JwtTokenServiceTest {
         assertEquals("ADMIN", decoded.getClaimAsString("role"));
         assertNotNull(decoded.getExpiresAt());
     }
+
+    /**
+     * CP-SEC.03: generateToken_withUserId_exposesTypedPrincipal
+     * Verifica que el reclamo uid llegue al principal autenticado sin consultar la base de datos y que los tokens
+     * sin ese reclamo sigan autenticando por correo.
+     */
+    @Test
+    void generateToken_withUserId_exposesTypedPrincipal() {
+        String secret = "0123456789abcdef0123456789abcdef";
+        SecretKey key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+        JwtEncoder encoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        JwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+
+        JwtTokenService service = new JwtTokenService(encoder, decoder, new JwtProperties(secret, 60_000, 604_800_000L));
+        var converter = new JwtConfig().jwtAuthenticationConverter();
+
+        Authentication withId = converter.convert(decoder.decode(service.generateToken("user@example.com", "USER", 42L)));
+        Authentication legacy = converter.convert(decoder.decode(service.generateToken("user@example.com", "USER")));
+
+        assertEquals(42L, SecurityUtils.currentUserId(withId));
+        assertEquals("user@example.com", withId.getName());
+        assertNull(SecurityUtils.currentUserId(legacy));
+        assertEquals("user@example.com", legacy.getName());
+    }
 }
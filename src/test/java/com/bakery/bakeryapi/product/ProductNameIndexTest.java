@@ -0,0 +1,75 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.infra.config.ProductSearchProperties;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductNameIndexTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductNameIndex(repository, new ProductSearchProperties(2, null));
+    }
+
+    /**
+     * CP-PRD.11: search_filtersByNameCategoryAndActive
+     * Verifica que la búsqueda ignore mayúsculas y acentos, respete categoría y estado activo y refleje las
+     * escrituras incrementales.
+     */
+    @Test
+    void search_filtersByNameCategoryAndActive() {
+        when(repository.findAllNameEntries()).thenReturn(List.of(
+                new ProductNameEntry(1L, "Pan de Centeno", 10L, true),
+                new ProductNameEntry(2L, "Panecillo", 20L, true),
+                new ProductNameEntry(3L, "Croissant", 10L, true),
+                new ProductNameEntry(4L, "Pan rústico", 10L, false)
+        ));
+        index.rebuild();
+
+        assertEquals(Optional.of(List.of(1L, 2L)), index.search("PAN", null, true));
+        assertEquals(Optional.of(List.of(1L)), index.search("pan", 10L, true));
+        assertEquals(Optional.of(List.of(4L)), index.search("rustico", null, false));
+        assertEquals(Optional.of(List.of()), index.search("rustico", null, true));
+
+        index.put(new ProductNameEntry(3L, "Croissant de mantequilla", 10L, true));
+        index.remove(1L);
+
+        assertEquals(Optional.of(List.of(3L)), index.search("mantequilla", null, true));
+        assertEquals(Optional.of(List.of(2L)), index.search("pan", null, true));
+    }
+
+    /**
+     * CP-PRD.12: search_tooManyMatchesOrNotLoaded_fallsBack
+     * Asegura que el índice delegue en la consulta LIKE antes de cargarse y cuando las coincidencias superan el límite.
+     */
+    @Test
+    void search_tooManyMatchesOrNotLoaded_fallsBack() {
+        assertTrue(index.search("pan", null, true).isEmpty());
+
+        index.load(List.of(
+                new ProductNameEntry(1L, "Pan blanco", 10L, true),
+                new ProductNameEntry(2L, "Pan integral", 10L, true),
+                new ProductNameEntry(3L, "Pan de maíz", 10L, true)
+        ));
+
+        assertTrue(index.search("pan", null, true).isEmpty());
+        assertEquals(Optional.of(List.of(3L)), index.search("maiz", null, true));
+    }
+}
@@ -1,17 +1,21 @@
 package com.bakery.bakeryapi.product;
 
 import com.bakery.bakeryapi.category.CategoryService;
+import com.bakery.bakeryapi.infra.config.CatalogCacheProperties;
 import com.bakery.bakeryapi.infra.config.PaginationProperties;
 import com.bakery.bakeryapi.domain.Category;
 import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.product.exception.InsufficientStockException;
 import com.bakery.bakeryapi.product.exception.ProductNotFoundException;
-import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.repository.ProductImageRepository;
 import com.bakery.bakeryapi.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -28,6 +32,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,12 +44,30 @@ class ProductServiceTest {
     @Mock
     private ProductRepository repository;
 
+    @Mock
+    private ProductImageRepository imageRepository;
+
     @Mock
     private CategoryService categoryService;
 
     @Mock
     private PaginationProperties paginationProperties;
 
+    @Mock
+    private ProductThumbnailService thumbnailService;
+
+    @Mock
+    private ProductNameIndex nameIndex;
+
+    @Mock
+    private TopSellingRankings topSelling;
+
+    @Spy
+    private ProductCatalogCache catalogCache = new ProductCatalogCache(
+            new CatalogCacheProperties(null, null, null),
+            new SimpleMeterRegistry()
+    );
+
     @InjectMocks
     private ProductService service;
 
@@ -113,19 +138,106 @@ class ProductServiceTest {
     }
 
     /**
-     * CP-PRD.05: topSelling_asUser_callsActiveOnlyQuery
-     * Verifica que el listado de productos más vendidos para usuarios solo incluya productos activos.
+     * CP-PRD.16: getImageVersion_inactive_asAdmin_isNotPublic
+     * Verifica que la imagen de un producto inactivo, visible solo para administradores, se marque como no
+     * publicable en cachés compartidas.
+     */
+    @Test
+    void getImageVersion_inactive_asAdmin_isNotPublic() {
+        setAuth(Role.ADMIN);
+        Product inactive = new Product("Old", null, new BigDecimal("1.00"), 1, new Category("Bread"));
+        inactive.setImageHash("abc123");
+        inactive.disable();
+        when(repository.findById(1L)).thenReturn(Optional.of(inactive));
+
+        ProductImageVersion version = service.getImageVersion(1L);
+
+        assertEquals("abc123", version.hash());
+        assertEquals(false, version.active());
+    }
+
+    /**
+     * CP-PRD.05: topSelling_asUser_servesActiveOnlyRanking
+     * Verifica que el listado de productos más vendidos para usuarios solo incluya productos activos y se sirva
+     * desde los rankings en memoria de la ventana pedida.
      */
     @Test
-    void topSelling_asUser_callsActiveOnlyQuery() {
+    void topSelling_asUser_servesActiveOnlyRanking() {
         when(paginationProperties.maxPageSize()).thenReturn(100);
         setAuth(Role.USER);
-        when(repository.findTopSellingByStatusAndActiveTrue(eq(PurchaseStatus.PAID), any(PageRequest.class)))
+        when(topSelling.top(eq(SalesWindow.LAST_7_DAYS), eq(10L), eq(true), any(PageRequest.class)))
                 .thenReturn(new PageImpl<>(List.of()));
 
-        service.getTopSelling(PageRequest.of(0, 10));
+        service.getTopSelling(PageRequest.of(0, 10), SalesWindow.LAST_7_DAYS, 10L);
+
+        verify(topSelling).top(eq(SalesWindow.LAST_7_DAYS), eq(10L), eq(true), any(PageRequest.class));
+        verify(repository, never()).findSalesTotalsSince(any(), any());
+    }
+
+    /**
+     * CP-PRD.06: getAll_asUser_servesRepeatedPageFromCache
+     * Verifica que una misma página pública se consulte una sola vez en base de datos mientras siga en caché.
+     */
+    @Test
+    void getAll_asUser_servesRepeatedPageFromCache() {
+        when(paginationProperties.maxPageSize()).thenReturn(100);
+        setAuth(Role.USER);
+        when(repository.findAllByActiveTrue(any(PageRequest.class))).thenReturn(new PageImpl<>(List.of()));
+
+        service.getAll(PageRequest.of(0, 10), null, null);
+        service.getAll(PageRequest.of(0, 10), null, null);
+
+        verify(repository, times(1)).findAllByActiveTrue(any(PageRequest.class));
+    }
+
+    /**
+     * CP-PRD.07: onStockChanged_evictsCachedProduct
+     * Asegura que un cambio de stock invalide la ficha en caché para que la siguiente lectura refleje el nuevo valor.
+     */
+    @Test
+    void onStockChanged_evictsCachedProduct() {
+        Product product = new Product("Pan", null, new BigDecimal("1.00"), 5, new Category("Bread"));
+        when(repository.findById(1L)).thenReturn(Optional.of(product));
+
+        assertEquals(5, service.getActiveByIdCached(1L).stock());
+        product.decreaseStock(2);
+        service.onStockChanged(List.of(1L));
+
+        assertEquals(3, service.getActiveByIdCached(1L).stock());
+        verify(repository, times(2)).findById(1L);
+    }
+
+    /**
+     * CP-PRD.10: getAll_byName_resolvesCandidatesFromIndex
+     * Comprueba que el filtro por nombre consulte solo los IDs devueltos por el índice en lugar de la consulta LIKE.
+     */
+    @Test
+    void getAll_byName_resolvesCandidatesFromIndex() {
+        when(paginationProperties.maxPageSize()).thenReturn(100);
+        setAuth(Role.USER);
+        when(nameIndex.search("pan", null, true)).thenReturn(Optional.of(List.of(3L, 7L)));
+        when(repository.findByIdInAndNameContainsIgnoreCase(
+                eq(List.of(3L, 7L)), eq("pan"), isNull(), eq(true), any(PageRequest.class)
+        )).thenReturn(new PageImpl<>(List.of()));
+
+        service.getAll(PageRequest.of(0, 10), null, "pan");
+
+        verify(repository).findByIdInAndNameContainsIgnoreCase(
+                eq(List.of(3L, 7L)), eq("pan"), isNull(), eq(true), any(PageRequest.class)
+        );
+        verify(repository, never()).findByNameContainsIgnoreCaseAndActiveTrue(any(), any());
+    }
+
+    /**
+     * CP-PRD.13: reserveStock_whenConditionalUpdateMisses_throwsInsufficientStock
+     * Asegura que si el UPDATE condicional no afecta a ninguna fila se informe del stock disponible real (Error 409).
+     */
+    @Test
+    void reserveStock_whenConditionalUpdateMisses_throwsInsufficientStock() {
+        when(repository.decreaseStockIfAvailable(1L, 3)).thenReturn(0);
+        when(repository.findActiveStockById(1L)).thenReturn(Optional.of(2));
 
-        verify(repository).findTopSellingByStatusAndActiveTrue(eq(PurchaseStatus.PAID), any(PageRequest.class));
+        assertThrows(InsufficientStockException.class, () -> service.reserveStock(1L, 3));
     }
 
     private enum Role { USER, ADMIN }
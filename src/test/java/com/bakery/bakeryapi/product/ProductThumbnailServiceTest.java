@@ -0,0 +1,136 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.domain.Category;
+import com.bakery.bakeryapi.domain.ImageVariantSize;
+import com.bakery.bakeryapi.domain.Product;
+import com.bakery.bakeryapi.domain.ProductImage;
+import com.bakery.bakeryapi.domain.ProductImageVariant;
+import com.bakery.bakeryapi.infra.config.ThumbnailProperties;
+import com.bakery.bakeryapi.repository.ProductImageRepository;
+import com.bakery.bakeryapi.repository.ProductImageVariantRepository;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductThumbnailServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductImageRepository imageRepository;
+
+    @Mock
+    private ProductImageVariantRepository variantRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductThumbnailService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProductThumbnailService(
+                productRepository,
+                imageRepository,
+                variantRepository,
+                transactionManager,
+                new ThumbnailProperties(null, null, null),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    /**
+     * CP-PRD.08: generate_pngImage_storesBoundedPngVariants
+     * Verifica que una imagen PNG genere una miniatura y una variante media en PNG sin superar el lado máximo de cada tamaño.
+     */
+    @Test
+    void generate_pngImage_storesBoundedPngVariants() throws IOException {
+        Product product = new Product("Pan", null, new BigDecimal("1.00"), 1, new Category("Bread"));
+        ProductImage image = new ProductImage(product, png(1000, 500));
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(image));
+        when(productRepository.findImageHashById(1L)).thenReturn(Optional.of(image.getHash()));
+        when(variantRepository.findByProductIdAndSize(any(), any())).thenReturn(Optional.empty());
+        when(productRepository.getReferenceById(1L)).thenReturn(product);
+
+        service.generate(1L);
+
+        ArgumentCaptor<ProductImageVariant> captor = ArgumentCaptor.forClass(ProductImageVariant.class);
+        verify(variantRepository, times(2)).save(captor.capture());
+        for (ProductImageVariant variant : captor.getAllValues()) {
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(variant.getData()));
+            assertEquals("image/png", variant.getContentType());
+            assertEquals(image.getHash(), variant.getSourceHash());
+            assertEquals(variant.getSize().getMaxDimension(), decoded.getWidth());
+            assertEquals(variant.getSize().getMaxDimension() / 2, decoded.getHeight());
+        }
+        assertTrue(captor.getAllValues().stream().anyMatch(v -> v.getSize() == ImageVariantSize.THUMB));
+    }
+
+    /**
+     * CP-PRD.09: generate_webpImage_keepsOriginalOnly
+     * Asegura que los formatos sin lector en el JDK (WebP) no generen variantes y se sirva la imagen original.
+     */
+    @Test
+    void generate_webpImage_keepsOriginalOnly() {
+        byte[] webp = {0x52, 0x49, 0x46, 0x46, 0, 0, 0, 0, 0x57, 0x45, 0x42, 0x50};
+        Product product = new Product("Pan", null, new BigDecimal("1.00"), 1, new Category("Bread"));
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(new ProductImage(product, webp)));
+
+        service.generate(1L);
+
+        verify(variantRepository, never()).save(any());
+    }
+
+    /**
+     * CP-PRD.15: generate_imageReplacedWhileEncoding_discardsVariants
+     * Verifica que, si la imagen del producto cambia mientras se generan las miniaturas, no se guarden variantes
+     * de la imagen anterior.
+     */
+    @Test
+    void generate_imageReplacedWhileEncoding_discardsVariants() throws IOException {
+        Product product = new Product("Pan", null, new BigDecimal("1.00"), 1, new Category("Bread"));
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(new ProductImage(product, png(400, 400))));
+        when(productRepository.findImageHashById(1L)).thenReturn(Optional.of("otro-hash"));
+
+        service.generate(1L);
+
+        verify(variantRepository, never()).save(any());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+}
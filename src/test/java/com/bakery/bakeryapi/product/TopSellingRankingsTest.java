@@ -0,0 +1,76 @@
+package com.bakery.bakeryapi.product;
+
+import com.bakery.bakeryapi.domain.PurchaseStatus;
+import com.bakery.bakeryapi.product.dto.ProductSalesResponse;
+import com.bakery.bakeryapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TopSellingRankingsTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    private TopSellingRankings rankings;
+
+    @BeforeEach
+    void setUp() {
+        rankings = new TopSellingRankings(repository);
+    }
+
+    /**
+     * CP-PRD.14: top_servesWindowRankings_andAppliesSalesIncrementally
+     * Verifica que cada ventana se cargue una vez desde la base de datos, que el ranking respete categoría y estado
+     * activo y que las ventas y cambios de producto posteriores reordenen el ranking sin nuevas consultas.
+     */
+    @Test
+    void top_servesWindowRankings_andAppliesSalesIncrementally() {
+        when(repository.findSalesTotalsSince(eq(PurchaseStatus.PAID), any())).thenReturn(List.of(
+                new ProductSalesTotal(1L, "Baguette", 10L, true, 5L),
+                new ProductSalesTotal(2L, "Croissant", 20L, true, 8L)
+        ));
+        when(repository.findAllTimeSalesTotals()).thenReturn(List.of(
+                new ProductSalesTotal(1L, "Baguette", 10L, true, 50L),
+                new ProductSalesTotal(2L, "Croissant", 20L, true, 80L),
+                new ProductSalesTotal(3L, "Pan rústico", 10L, false, 99L)
+        ));
+        rankings.reconcile();
+
+        assertEquals(List.of(2L, 1L), ids(rankings.top(SalesWindow.LAST_24_HOURS, null, true, PageRequest.of(0, 10))));
+        assertEquals(List.of(3L, 2L, 1L), ids(rankings.top(SalesWindow.ALL_TIME, null, false, PageRequest.of(0, 10))));
+        Page<ProductSalesResponse> second = rankings.top(SalesWindow.ALL_TIME, null, false, PageRequest.of(1, 1));
+        assertEquals(List.of(2L), ids(second));
+        assertEquals(3, second.getTotalElements());
+        assertEquals(List.of(1L), ids(rankings.top(SalesWindow.ALL_TIME, 10L, true, PageRequest.of(0, 10))));
+
+        rankings.recordSales(List.of(new ProductSalesTotal(1L, "Baguette", 10L, true, 4L)));
+        rankings.updateProduct(new ProductNameEntry(2L, "Croissant", 20L, false));
+
+        List<ProductSalesResponse> day = rankings.top(SalesWindow.LAST_24_HOURS, null, false, PageRequest.of(0, 10))
+                .getContent();
+        assertEquals(List.of(1L, 2L), day.stream().map(ProductSalesResponse::productId).toList());
+        assertEquals(9L, day.getFirst().totalQuantity());
+        assertEquals(List.of(1L), ids(rankings.top(SalesWindow.LAST_24_HOURS, null, true, PageRequest.of(0, 10))));
+        verify(repository, times(3)).findSalesTotalsSince(eq(PurchaseStatus.PAID), any());
+        verify(repository, times(1)).findAllTimeSalesTotals();
+    }
+
+    private static List<Long> ids(Page<ProductSalesResponse> page) {
+        return page.getContent().stream().map(ProductSalesResponse::productId).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.bakery.bakeryapi.promotion;
+
+import com.bakery.bakeryapi.repository.PromotionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivePromotionIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 15);
+
+    /**
+     * CP-PRM.12: activeOn_answersDateWindows_andAppliesPatches
+     * Verifica que el índice devuelva solo las promociones del producto cuya ventana incluye la fecha (con y sin
+     * fecha de fin) y que refleje altas y desactivaciones sin reconstruirse.
+     */
+    @Test
+    void activeOn_answersDateWindows_andAppliesPatches() {
+        ActivePromotionIndex index = new ActivePromotionIndex(null);
+        assertTrue(index.activeOn(5L, TODAY).isEmpty());
+
+        index.load(List.of(
+                promotion(1L, 5L, TODAY.minusDays(30), null),
+                promotion(2L, 5L, TODAY.minusDays(60), TODAY.minusDays(40)),
+                promotion(3L, 5L, TODAY.minusDays(90), TODAY.plusDays(10)),
+                promotion(4L, 5L, TODAY.minusDays(5), TODAY),
+                promotion(5L, 5L, TODAY.plusDays(1), null),
+                promotion(6L, 7L, TODAY.minusDays(1), null)
+        ));
+
+        assertEquals(List.of(1L, 3L, 4L), ids(index, 5L, TODAY));
+        assertEquals(List.of(1L, 3L, 5L), ids(index, 5L, TODAY.plusDays(1)));
+        assertEquals(List.of(2L, 3L), ids(index, 5L, TODAY.minusDays(45)));
+        assertEquals(List.of(), ids(index, 9L, TODAY));
+
+        index.put(promotion(7L, 5L, TODAY, TODAY));
+        index.remove(1L);
+        index.remove(6L);
+
+        assertEquals(List.of(3L, 4L, 7L), ids(index, 5L, TODAY));
+        assertEquals(List.of(), ids(index, 7L, TODAY));
+    }
+
+    /**
+     * CP-PRM.17: rebuild_replaysConcurrentWritesInArrivalOrder
+     * Verifica que las altas y bajas que llegan mientras se lee la tabla se apliquen sobre el índice nuevo en el
+     * orden en que llegaron: una promoción desactivada y reactivada durante la lectura queda en el índice.
+     */
+    @Test
+    void rebuild_replaysConcurrentWritesInArrivalOrder() {
+        PromotionRepository repository = mock(PromotionRepository.class);
+        ActivePromotionIndex index = new ActivePromotionIndex(repository);
+        index.load(List.of(promotion(1L, 5L, TODAY.minusDays(1), null)));
+        when(repository.findAllActiveFrom(any())).thenAnswer(invocation -> {
+            index.remove(1L);
+            index.put(promotion(1L, 5L, TODAY.minusDays(1), null));
+            index.put(promotion(2L, 5L, TODAY.minusDays(1), null));
+            index.remove(2L);
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), ids(index, 5L, TODAY));
+    }
+
+    private static List<Long> ids(ActivePromotionIndex index, Long productId, LocalDate date) {
+        return index.activeOn(productId, date).orElseThrow().stream()
+                .map(ActivePromotion::id)
+                .sorted()
+                .toList();
+    }
+
+    private static ActivePromotion promotion(Long id, Long productId, LocalDate start, LocalDate end) {
+        return new ActivePromotion(id, "Promo " + id, "PERCENTAGE", start, end, productId, "Producto " + productId,
+                new BigDecimal("10.00"), null);
+    }
+}
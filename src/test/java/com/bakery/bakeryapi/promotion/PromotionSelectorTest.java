@@ -0,0 +1,45 @@
+package com.bakery.bakeryapi.promotion;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PromotionSelectorTest {
+
+    /**
+     * CP-PRM.16: select_choosesHighestUnusedDiscount_andAppliesEachPromotionOnce
+     * Verifica que cada línea reciba el mayor descuento entre las promociones no usadas ni excluidas, que una
+     * promoción no se repita en dos líneas y que las líneas sin candidatos queden sin promoción.
+     */
+    @Test
+    void select_choosesHighestUnusedDiscount_andAppliesEachPromotionOnce() {
+        Map<Long, List<ActivePromotion>> candidates = Map.of(10L, List.of(
+                promotion(1L, 10L, "10.00"),
+                promotion(2L, 10L, "30.00"),
+                promotion(3L, 10L, "20.00"),
+                promotion(4L, 10L, "50.00"),
+                promotion(5L, 10L, "40.00")
+        ));
+        List<PromotionSelector.Line> lines = List.of(
+                new PromotionSelector.Line(10L, new BigDecimal("2.00"), 1),
+                new PromotionSelector.Line(10L, new BigDecimal("2.00"), 1),
+                new PromotionSelector.Line(20L, new BigDecimal("3.00"), 1)
+        );
+
+        List<Long> chosen = PromotionSelector.select(lines, candidates, UsedPromotions.of(List.of(4L)), Set.of(5L));
+
+        assertEquals(Arrays.asList(2L, 3L, null), chosen);
+    }
+
+    private static ActivePromotion promotion(Long id, Long productId, String percentage) {
+        return new ActivePromotion(id, "Promo " + id, "PERCENTAGE", LocalDate.now(), null, productId, "Producto",
+                new BigDecimal(percentage), null);
+    }
+}
@@ -8,6 +8,7 @@ import com.bakery.bakeryapi.domain.Role;
 import com.bakery.bakeryapi.domain.User;
 import com.bakery.bakeryapi.user.UserService;
 import com.bakery.bakeryapi.repository.PromotionRepository;
+import com.bakery.bakeryapi.promotion.dto.PromotionResponse;
 import com.bakery.bakeryapi.repository.PromotionUsageRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,17 +19,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -59,6 +64,15 @@ class PromotionServiceTest {
     @Spy
     private PromotionRules promotionRules = new PromotionRules();
 
+    @Mock
+    private ActivePromotionIndex activePromotionIndex;
+
+    @Mock
+    private PromotionUsageCache usageCache;
+
+    @Mock
+    private PromotionRedemptionLimiter redemptionLimiter;
+
     @InjectMocks
     private PromotionService service;
 
@@ -152,6 +166,61 @@ class PromotionServiceTest {
         verify(repository, never()).findActiveByProductIdAndUserId(eq(5L), any(Long.class), any(LocalDate.class), any(Pageable.class));
     }
 
+    /**
+     * CP-PRM.13: getActiveByProduct_withLoadedIndex_skipsDateRangeQueries
+     * Verifica que, con el índice de promociones activas cargado, el listado se sirva desde memoria (ordenado y
+     * sin las promociones ya usadas por el usuario) sin consultar el producto ni las promociones por fecha.
+     */
+    @Test
+    void getActiveByProduct_withLoadedIndex_skipsDateRangeQueries() {
+        setAuth(Role.USER, "user@example.com");
+        User current = userWithId(10L, "user@example.com", Role.USER);
+        when(userService.getEntityByEmail("user@example.com")).thenReturn(current);
+        when(activePromotionIndex.activeOn(eq(5L), any(LocalDate.class))).thenReturn(Optional.of(List.of(
+                activePromotion(3L, LocalDate.now().minusDays(1)),
+                activePromotion(1L, LocalDate.now().minusDays(3)),
+                activePromotion(2L, LocalDate.now().minusDays(2))
+        )));
+        when(usageCache.get(10L)).thenReturn(UsedPromotions.of(List.of(2L)));
+
+        Page<PromotionResponse> page = service.getActiveByProduct(5L, null,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate")));
+
+        assertEquals(List.of(3L, 1L), page.getContent().stream().map(PromotionResponse::id).toList());
+        assertEquals(2, page.getTotalElements());
+        verify(productService, never()).getEntityById(any());
+        verify(repository, never()).findActiveByProductId(any(), any(), any());
+        verify(repository, never()).findActiveByProductIdAndUserId(any(), any(), any(), any());
+    }
+
+    /**
+     * CP-PRM.15: getAvailablePromotions_withLoadedIndex_filtersUsedInMemory
+     * Verifica que las promociones disponibles para un usuario se calculen combinando el índice de promociones
+     * activas con su conjunto de promociones usadas, sin la consulta con anti-join.
+     */
+    @Test
+    void getAvailablePromotions_withLoadedIndex_filtersUsedInMemory() {
+        setAuth(Role.USER, "user@example.com");
+        User current = userWithId(10L, "user@example.com", Role.USER);
+        when(userService.getEntityByEmail("user@example.com")).thenReturn(current);
+        when(activePromotionIndex.allActiveOn(any(LocalDate.class))).thenReturn(Optional.of(List.of(
+                activePromotion(4L, LocalDate.now()),
+                activePromotion(1L, LocalDate.now()),
+                activePromotion(7L, LocalDate.now())
+        )));
+        when(usageCache.get(10L)).thenReturn(UsedPromotions.of(List.of(1L, 9L)));
+
+        Page<PromotionResponse> page = service.getAvailablePromotions(null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(4L, 7L), page.getContent().stream().map(PromotionResponse::id).toList());
+        verify(repository, never()).findActiveAndUnusedByUser(any(), any(), any());
+    }
+
+    private ActivePromotion activePromotion(Long id, LocalDate startDate) {
+        return new ActivePromotion(id, "Promo " + id, "PERCENTAGE", startDate, null, 5L, "Croissant",
+                new BigDecimal("10.00"), null);
+    }
+
     private void setAuth(Role role, String email) {
         var auth = new UsernamePasswordAuthenticationToken(
                 email,
@@ -0,0 +1,51 @@
+package com.bakery.bakeryapi.promotion;
+
+import com.bakery.bakeryapi.infra.config.PromotionUsageCacheProperties;
+import com.bakery.bakeryapi.repository.PromotionUsageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionUsageCacheTest {
+
+    @Mock
+    private PromotionUsageRepository repository;
+
+    /**
+     * CP-PRM.14: get_loadsUserOnce_andAppliesConfirmedChanges
+     * Verifica que las promociones usadas de un usuario se lean una sola vez, que los usos registrados y liberados
+     * se apliquen en memoria y que el descarte obligue a releerlas.
+     */
+    @Test
+    void get_loadsUserOnce_andAppliesConfirmedChanges() {
+        when(repository.findPromotionIdsByUserId(10L)).thenReturn(List.of(3L, 1L));
+        PromotionUsageCache cache = new PromotionUsageCache(
+                repository, new PromotionUsageCacheProperties(null, null), new SimpleMeterRegistry());
+
+        assertTrue(cache.get(10L).contains(3L));
+        cache.recordUsed(10L, List.of(5L));
+        cache.recordReleased(10L, 1L);
+        cache.recordUsed(20L, List.of(5L));
+
+        UsedPromotions used = cache.get(10L);
+        assertTrue(used.contains(3L));
+        assertTrue(used.contains(5L));
+        assertFalse(used.contains(1L));
+        verify(repository, times(1)).findPromotionIdsByUserId(10L);
+
+        cache.evict(List.of(10L));
+        assertTrue(cache.get(10L).contains(1L));
+        verify(repository, times(2)).findPromotionIdsByUserId(10L);
+    }
+}
@@ -2,7 +2,14 @@ package com.bakery.bakeryapi.purchase;
 
 import com.bakery.bakeryapi.infra.config.PaginationProperties;
 import com.bakery.bakeryapi.product.ProductService;
+import com.bakery.bakeryapi.product.dto.ProductResponse;
+import com.bakery.bakeryapi.promotion.PromotionRedemptionLimiter;
+import com.bakery.bakeryapi.promotion.PromotionSelector;
 import com.bakery.bakeryapi.promotion.PromotionService;
+import com.bakery.bakeryapi.promotion.exception.InvalidPromotionException;
+import com.bakery.bakeryapi.promotion.exception.PromotionSoldOutException;
+import com.bakery.bakeryapi.report.SalesRollupService;
+import com.bakery.bakeryapi.shared.AuthenticatedUser;
 import com.bakery.bakeryapi.shared.exception.ForbiddenOperationException;
 import com.bakery.bakeryapi.domain.Category;
 import com.bakery.bakeryapi.domain.Product;
@@ -16,28 +23,44 @@ import com.bakery.bakeryapi.purchase.exception.InvalidPurchaseException;
 import com.bakery.bakeryapi.domain.Role;
 import com.bakery.bakeryapi.domain.User;
 import com.bakery.bakeryapi.repository.PurchaseRepository;
+import com.bakery.bakeryapi.shared.dto.CursorPage;
+import com.bakery.bakeryapi.purchase.dto.PurchaseResponse;
 import com.bakery.bakeryapi.user.UserService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -57,23 +80,38 @@ class PurchaseServiceTest {
     @Mock
     private PromotionService promotionService;
 
+    @Mock
+    private PromotionRedemptionLimiter redemptionLimiter;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
     @Mock
     private PaginationProperties paginationProperties;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
     private PurchaseService service;
 
     @BeforeEach
     void setUp() {
         PurchaseAccessService purchaseAccessService = new PurchaseAccessService(userService);
         PurchasePricingService purchasePricingService = new PurchasePricingService();
+        meterRegistry = new SimpleMeterRegistry();
         service = new PurchaseService(
                 repository,
                 userService,
                 productService,
                 promotionService,
+                redemptionLimiter,
                 purchaseAccessService,
                 purchasePricingService,
-                paginationProperties
+                salesRollupService,
+                paginationProperties,
+                meterRegistry,
+                transactionManager
         );
     }
 
@@ -120,7 +158,7 @@ class PurchaseServiceTest {
 
         Category category = new Category("Bread");
         Product product = new Product("Baguette", null, new BigDecimal("1.00"), 10, category);
-        when(productService.getActiveEntityById(10L)).thenReturn(product);
+        when(productService.getActiveEntitiesByIds(any())).thenReturn(Map.of(10L, product));
         when(repository.save(any(Purchase.class))).thenAnswer(inv -> inv.getArgument(0));
 
         PurchaseRequest request = new PurchaseRequest(2L, List.of(new PurchaseItemRequest(10L, 2, null)));
@@ -131,6 +169,148 @@ class PurchaseServiceTest {
         verify(userService).getEntityById(2L);
     }
 
+    /**
+     * CP-PUR.07: create_multipleItems_reservesInIdOrder_andRecordsUsagesOnce
+     * Verifica que una compra de varias líneas cargue productos y promociones en bloque, reserve el stock sumado
+     * por producto en orden de ID, registre todos los usos de promoción a la vez y mida sus consultas.
+     */
+    @Test
+    void create_multipleItems_reservesInIdOrder_andRecordsUsagesOnce() {
+        setAuth(Role.USER, "user@example.com");
+        User current = userWithId(1L, "user@example.com", Role.USER);
+        when(userService.getEntityByEmail("user@example.com")).thenReturn(current);
+
+        Category category = new Category("Bread");
+        Product baguette = new Product("Baguette", null, new BigDecimal("1.00"), 10, category);
+        Product croissant = new Product("Croissant", null, new BigDecimal("1.50"), 10, category);
+        setEntityId(baguette, 10L);
+        setEntityId(croissant, 20L);
+        Promotion promotion = org.mockito.Mockito.mock(Promotion.class);
+        when(productService.getActiveEntitiesByIds(any())).thenReturn(Map.of(10L, baguette, 20L, croissant));
+        when(promotionService.getEntitiesByIds(any())).thenReturn(Map.of(5L, promotion));
+        when(promotionService.calculateDiscount(promotion, croissant, 2)).thenReturn(new BigDecimal("0.30"));
+        when(repository.save(any(Purchase.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        PurchaseRequest request = new PurchaseRequest(null, List.of(
+                new PurchaseItemRequest(20L, 2, 5L),
+                new PurchaseItemRequest(10L, 1, null),
+                new PurchaseItemRequest(20L, 1, null)
+        ));
+        var response = service.create(request);
+
+        InOrder reservations = inOrder(productService);
+        reservations.verify(productService).reserveStock(10L, 1);
+        reservations.verify(productService).reserveStock(20L, 3);
+        verify(promotionService).recordUsages(List.of(promotion), current);
+        assertEquals(3, response.items().size());
+        assertEquals(new BigDecimal("5.20"), response.total());
+        assertEquals(1, meterRegistry.get("purchase.create.queries").summary().count());
+    }
+
+    /**
+     * CP-PUR.09: create_autoApplyPromotions_choosesBestPromotion_andReselectsWhenSoldOut
+     * Verifica que en modo automático las líneas sin promoción reciban la mejor promoción elegida con precios de la
+     * caché del catálogo y que, si la elegida está agotada, se elija otra excluyéndola.
+     */
+    @Test
+    void create_autoApplyPromotions_choosesBestPromotion_andReselectsWhenSoldOut() {
+        setAuth(Role.USER, "user@example.com");
+        User current = userWithId(1L, "user@example.com", Role.USER);
+        when(userService.getEntityByEmail("user@example.com")).thenReturn(current);
+
+        Category category = new Category("Bread");
+        Product baguette = new Product("Baguette", null, new BigDecimal("2.00"), 10, category);
+        setEntityId(baguette, 10L);
+        Promotion promotion = org.mockito.Mockito.mock(Promotion.class);
+        List<PromotionSelector.Line> lines = List.of(new PromotionSelector.Line(10L, new BigDecimal("2.00"), 3));
+        when(productService.getActiveByIdCached(10L)).thenReturn(new ProductResponse(
+                10L, "Baguette", null, new BigDecimal("2.00"), 10, true, null, null, null));
+        when(promotionService.selectBest(lines, 1L, Set.of())).thenReturn(List.of(7L));
+        when(promotionService.selectBest(lines, 1L, Set.of(7L))).thenReturn(List.of(8L));
+        when(redemptionLimiter.acquire(List.of(7L))).thenThrow(new PromotionSoldOutException(7L));
+        when(redemptionLimiter.acquire(List.of(8L))).thenReturn(List.of(8L));
+        when(productService.getActiveEntitiesByIds(any())).thenReturn(Map.of(10L, baguette));
+        when(promotionService.getEntitiesByIds(any())).thenReturn(Map.of(8L, promotion));
+        when(promotionService.calculateDiscount(promotion, baguette, 3)).thenReturn(new BigDecimal("0.60"));
+        when(repository.save(any(Purchase.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        PurchaseRequest request = new PurchaseRequest(null, List.of(new PurchaseItemRequest(10L, 3, null)), true);
+        var response = service.create(request);
+
+        verify(promotionService).recordUsages(List.of(promotion), current);
+        verify(redemptionLimiter, never()).release(any());
+        assertEquals(new BigDecimal("5.40"), response.total());
+    }
+
+    /**
+     * CP-PUR.11: create_autoApplyPromotions_reselectsWhenChosenPromotionIsRejected
+     * Verifica que, si la promoción elegida automáticamente se rechaza al registrar su uso (la caché de usos no lo
+     * veía), se descarte, se recarguen los usos del comprador y se cree la compra con otra promoción.
+     */
+    @Test
+    void create_autoApplyPromotions_reselectsWhenChosenPromotionIsRejected() {
+        setAuth(Role.USER, "user@example.com");
+        User current = userWithId(1L, "user@example.com", Role.USER);
+        when(userService.getEntityByEmail("user@example.com")).thenReturn(current);
+
+        Category category = new Category("Bread");
+        Product baguette = new Product("Baguette", null, new BigDecimal("2.00"), 10, category);
+        setEntityId(baguette, 10L);
+        Promotion used = org.mockito.Mockito.mock(Promotion.class);
+        Promotion unused = org.mockito.Mockito.mock(Promotion.class);
+        List<PromotionSelector.Line> lines = List.of(new PromotionSelector.Line(10L, new BigDecimal("2.00"), 3));
+        when(productService.getActiveByIdCached(10L)).thenReturn(new ProductResponse(
+                10L, "Baguette", null, new BigDecimal("2.00"), 10, true, null, null, null));
+        when(promotionService.selectBest(lines, 1L, Set.of())).thenReturn(List.of(7L));
+        when(promotionService.selectBest(lines, 1L, Set.of(7L))).thenReturn(List.of(8L));
+        when(redemptionLimiter.acquire(List.of(7L))).thenReturn(List.of(7L));
+        when(redemptionLimiter.acquire(List.of(8L))).thenReturn(List.of());
+        when(productService.getActiveEntitiesByIds(any())).thenReturn(Map.of(10L, baguette));
+        when(promotionService.getEntitiesByIds(any())).thenReturn(Map.of(7L, used, 8L, unused));
+        when(promotionService.calculateDiscount(used, baguette, 3)).thenReturn(new BigDecimal("1.20"));
+        when(promotionService.calculateDiscount(unused, baguette, 3)).thenReturn(new BigDecimal("0.60"));
+        doThrow(new InvalidPromotionException("La promoción ya ha sido utilizada por este usuario", 7L))
+                .when(promotionService).recordUsages(List.of(used), current);
+        when(repository.save(any(Purchase.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        PurchaseRequest request = new PurchaseRequest(null, List.of(new PurchaseItemRequest(10L, 3, null)), true);
+        var response = service.create(request);
+
+        verify(redemptionLimiter).release(List.of(7L));
+        verify(promotionService).evictUsages(1L);
+        verify(promotionService).recordUsages(List.of(unused), current);
+        assertEquals(new BigDecimal("5.40"), response.total());
+    }
+
+    /**
+     * CP-PUR.10: create_withUserIdInToken_usesManagedReferenceAsOwner
+     * Verifica que, con el ID de usuario en el token, la compra use una referencia gestionada como propietario en
+     * lugar de cargar la entidad.
+     */
+    @Test
+    void create_withUserIdInToken_usesManagedReferenceAsOwner() {
+        var auth = new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(1L, "user@example.com"),
+                null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))
+        );
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(auth);
+        SecurityContextHolder.setContext(context);
+        User reference = userWithId(1L, "user@example.com", Role.USER);
+        when(userService.getReferenceById(1L)).thenReturn(reference);
+
+        Category category = new Category("Bread");
+        Product product = new Product("Baguette", null, new BigDecimal("1.00"), 10, category);
+        when(productService.getActiveEntitiesByIds(any())).thenReturn(Map.of(10L, product));
+        when(repository.save(any(Purchase.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var response = service.create(new PurchaseRequest(null, List.of(new PurchaseItemRequest(10L, 1, null))));
+
+        assertEquals(1L, response.userId());
+        verify(userService, never()).getEntityById(any());
+    }
+
     /**
      * CP-PUR.04: cancel_whenPaid_throws
      * Valida que una compra ya pagada no pueda ser cancelada, protegiendo el flujo de ingresos.
@@ -151,7 +331,8 @@ class PurchaseServiceTest {
 
     /**
      * CP-PUR.05: cancel_created_restoresStock_andReleasesPromotionUsage
-     * Verifica que al cancelar una compra pendiente, se devuelva el stock a los productos y se liberen los usos de promociones.
+     * Verifica que al cancelar una compra pendiente, se devuelva el stock con una actualización en bloque (sin tocar la
+     * entidad producto) y se liberen los usos de promociones.
      */
     @Test
     void cancel_created_restoresStock_andReleasesPromotionUsage() {
@@ -169,14 +350,77 @@ class PurchaseServiceTest {
         setEntityId(purchase, 10L);
 
         when(repository.findDetailedById(10L)).thenReturn(Optional.of(purchase));
+        when(repository.transitionStatus(List.of(10L), PurchaseStatus.CREATED, PurchaseStatus.CANCELLED)).thenReturn(1);
         when(repository.save(any(Purchase.class))).thenAnswer(inv -> inv.getArgument(0));
 
         service.cancel(10L);
 
-        assertEquals(5, product.getStock());
+        assertEquals(3, product.getStock());
+        verify(productService).restoreStockForPurchases(List.of(10L));
         verify(promotionService).releaseUsage(eq(promotion), eq(owner));
     }
 
+    /**
+     * CP-PUR.08: pay_created_recordsSalesRollup
+     * Verifica que al pagar una compra pendiente se sume al resumen diario de ventas y a los rankings de más
+     * vendidos después de marcarla como pagada.
+     */
+    @Test
+    void pay_created_recordsSalesRollup() {
+        setAuth(Role.USER, "user@example.com");
+        User owner = userWithId(1L, "user@example.com", Role.USER);
+        when(userService.getEntityByEmail("user@example.com")).thenReturn(owner);
+
+        Purchase purchase = new Purchase(owner, LocalDateTime.now(), PurchaseStatus.CREATED);
+        setEntityId(purchase, 10L);
+        when(repository.findDetailedById(10L)).thenReturn(Optional.of(purchase));
+        when(repository.transitionStatus(List.of(10L), PurchaseStatus.CREATED, PurchaseStatus.PAID)).thenReturn(1);
+        when(repository.save(any(Purchase.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.pay(10L);
+
+        assertEquals(PurchaseStatus.PAID, purchase.getStatus());
+        verify(salesRollupService).recordPaid(purchase);
+        verify(productService).onPurchasePaid(purchase);
+    }
+
+    /**
+     * CP-PUR.06: getAllByCursor_keepsWindowOrder_andContinuesFromLastKey
+     * Comprueba que el modo cursor conserve el orden de la ventana tras cargar los artículos y que el cursor
+     * devuelto continúe desde la fecha y el ID de la última compra.
+     */
+    @Test
+    void getAllByCursor_keepsWindowOrder_andContinuesFromLastKey() {
+        setAuth(Role.USER, "user@example.com");
+        User owner = userWithId(1L, "user@example.com", Role.USER);
+        when(userService.getEntityByEmail("user@example.com")).thenReturn(owner);
+        when(paginationProperties.maxPageSize()).thenReturn(100);
+
+        LocalDateTime newer = LocalDateTime.of(2024, 5, 2, 10, 0);
+        LocalDateTime older = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Purchase second = new Purchase(owner, newer, PurchaseStatus.CREATED);
+        setEntityId(second, 20L);
+        Purchase first = new Purchase(owner, older, PurchaseStatus.CREATED);
+        setEntityId(first, 10L);
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
+
+        ArgumentCaptor<ScrollPosition> position = ArgumentCaptor.forClass(ScrollPosition.class);
+        when(repository.findByUserId(eq(1L), position.capture(), any(Limit.class), any(Sort.class)))
+                .thenReturn(Window.from(List.of(second, first), index -> ScrollPosition.keyset(), true));
+        when(repository.findAllDetailedByIdIn(List.of(20L, 10L))).thenReturn(List.of(first, second));
+
+        CursorPage<PurchaseResponse> page = service.getAllByCursor("", 2, sort, null, null, null);
+
+        assertEquals(List.of(20L, 10L), page.content().stream().map(PurchaseResponse::id).toList());
+        assertNotNull(page.nextCursor());
+
+        service.getAllByCursor(page.nextCursor(), 2, sort, null, null, null);
+
+        KeysetScrollPosition next = (KeysetScrollPosition) position.getAllValues().get(1);
+        assertEquals(older, next.getKeys().get("createdAt"));
+        assertEquals(10L, next.getKeys().get("id"));
+    }
+
     private void setAuth(Role role, String email) {
         var auth = new UsernamePasswordAuthenticationToken(
                 email,
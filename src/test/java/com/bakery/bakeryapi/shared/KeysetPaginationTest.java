@@ -0,0 +1,43 @@
+package com.bakery.bakeryapi.shared;
+
+import com.bakery.bakeryapi.shared.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetPaginationTest {
+
+    private record Item(Long id, String name) {
+    }
+
+    private final KeysetPagination<Item> pagination = KeysetPagination.byId(Item::id)
+            .sortableBy("name", Item::name, value -> value);
+
+    /**
+     * CP-SHR.03: request_rejectsUnsupportedSortOrForeignCursor
+     * Verifica que el modo cursor rechace campos de ordenación no indexados, cursores de otra ordenación y
+     * cursores manipulados (Error 400).
+     */
+    @Test
+    void request_rejectsUnsupportedSortOrForeignCursor() {
+        Sort byName = Sort.by("name");
+        KeysetPagination.Request request = pagination.request("", 2, byName, 100);
+        Window<Item> window = Window.from(
+                List.of(new Item(1L, "Baguette"), new Item(2L, "Croissant")),
+                index -> ScrollPosition.keyset(),
+                true
+        );
+        String cursor = pagination.nextCursor(window, request);
+
+        assertEquals(Sort.by("name").and(Sort.by("id")), request.sort());
+        assertThrows(InvalidCursorException.class, () -> pagination.request("", 2, Sort.by("price"), 100));
+        assertThrows(InvalidCursorException.class, () -> pagination.request(cursor, 2, byName.descending(), 100));
+        assertThrows(InvalidCursorException.class, () -> pagination.request("%%%", 2, byName, 100));
+    }
+}
@@ -3,6 +3,8 @@ package com.bakery.bakeryapi.user;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.bakery.bakeryapi.shared.exception.GlobalExceptionHandler;
 import com.bakery.bakeryapi.domain.Role;
+import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.shared.dto.ImageContent;
 import com.bakery.bakeryapi.user.dto.UserRequest;
 import com.bakery.bakeryapi.user.dto.UserResponse;
 import com.bakery.bakeryapi.user.exception.EmailAlreadyExistsException;
@@ -51,7 +53,7 @@ class UserControllerTest {
      */
     @Test
     void getUser_existingId_returnsUser() throws Exception {
-        UserResponse user = new UserResponse(1L, "test@example.com", Role.USER, true, null);
+        UserResponse user = new UserResponse(1L, "test@example.com", Role.USER, true, null, null);
         when(userService.getById(1L)).thenReturn(user);
 
         mockMvc.perform(get("/users/1"))
@@ -68,7 +70,7 @@ class UserControllerTest {
      */
     @Test
     void getByEmail_existingEmail_returnsUser() throws Exception {
-        UserResponse user = new UserResponse(1L, "test@example.com", Role.USER, true, null);
+        UserResponse user = new UserResponse(1L, "test@example.com", Role.USER, true, null, null);
         when(userService.getByEmail("test@example.com")).thenReturn(user);
 
         mockMvc.perform(get("/users")
@@ -87,7 +89,7 @@ class UserControllerTest {
     @Test
     void createUser_validRequest_createsUser() throws Exception {
         UserRequest request = new UserRequest("new@example.com", "password123", Role.USER);
-        UserResponse createdUser = new UserResponse(1L, request.email(), request.role(), true, null);
+        UserResponse createdUser = new UserResponse(1L, request.email(), request.role(), true, null, null);
 
         when(userService.create(any(UserRequest.class))).thenReturn(createdUser);
 
@@ -191,6 +193,43 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
-}
+    /**
+     * CP-USR.20: getProfileImage_matchingETag_returnsNotModifiedWithoutLoadingBytes
+     * Verifica que con If-None-Match igual al hash de la imagen se responda 304 sin leer los bytes de la imagen.
+     */
+    @Test
+    void getProfileImage_matchingETag_returnsNotModifiedWithoutLoadingBytes() throws Exception {
+        User user = new User("test@example.com", "hashed", Role.USER);
+        when(userService.getEntityById(1L)).thenReturn(user);
+        when(userService.getProfileImageHash(user)).thenReturn("abc123");
 
+        mockMvc.perform(get("/users/1/profile-image").header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc123\""));
 
+        verify(userService, never()).getProfileImage(anyLong());
+    }
+
+    /**
+     * CP-USR.21: getProfileImage_rangeRequest_returnsPartialContent
+     * Valida que la imagen se sirva como bytes con su tipo de contenido y que una cabecera Range devuelva 206.
+     */
+    @Test
+    void getProfileImage_rangeRequest_returnsPartialContent() throws Exception {
+        byte[] png = {(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A};
+        User user = new User("test@example.com", "hashed", Role.USER);
+        when(userService.getEntityById(1L)).thenReturn(user);
+        when(userService.getProfileImageHash(user)).thenReturn("abc123");
+        when(userService.getProfileImage(1L)).thenReturn(new ImageContent(png, "image/png", "abc123"));
+
+        mockMvc.perform(get("/users/1/profile-image"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(png));
+
+        mockMvc.perform(get("/users/1/profile-image").header("Range", "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(new byte[]{(byte) 0x89, 0x50, 0x4E, 0x47}));
+    }
+}
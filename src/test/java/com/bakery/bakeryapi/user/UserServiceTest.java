@@ -2,11 +2,14 @@ package com.bakery.bakeryapi.user;
 
 import com.bakery.bakeryapi.domain.Role;
 import com.bakery.bakeryapi.domain.User;
+import com.bakery.bakeryapi.domain.UserProfileImage;
 import com.bakery.bakeryapi.auth.exception.InvalidCredentialsException;
 import com.bakery.bakeryapi.user.dto.UserRequest;
 import com.bakery.bakeryapi.user.exception.EmailAlreadyExistsException;
 import com.bakery.bakeryapi.user.exception.UserNotFoundException;
+import com.bakery.bakeryapi.repository.UserProfileImageRepository;
 import com.bakery.bakeryapi.repository.UserRepository;
+import com.bakery.bakeryapi.shared.ContentHash;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -14,6 +17,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -26,6 +31,9 @@ class UserServiceTest {
     @Mock
     private UserRepository repository;
 
+    @Mock
+    private UserProfileImageRepository profileImageRepository;
+
     @Mock
     private PasswordEncoder passwordEncoder;
 
@@ -133,8 +141,10 @@ class UserServiceTest {
 
         var result = userService.updateProfileImage("silvia@example.com", pngBase64);
 
-        assertArrayEquals(Base64.getDecoder().decode(pngBase64), user.getProfileImage());
-        assertEquals(pngBase64, result.profileImageBase64());
+        verify(profileImageRepository).save(argThat((UserProfileImage image) ->
+                Arrays.equals(Base64.getDecoder().decode(pngBase64), image.getData())));
+        assertEquals(ContentHash.sha256Hex(Base64.getDecoder().decode(pngBase64)), result.profileImageVersion());
+        assertEquals(result.profileImageVersion(), user.getProfileImageHash());
         verify(repository).save(user);
     }
 
@@ -145,15 +155,17 @@ class UserServiceTest {
     @Test
     void updateProfileImage_blankImage_removesImage() {
         User user = new User("silvia@example.com", "1234", Role.USER);
-        user.setProfileImage(new byte[]{1, 2, 3});
+        setEntityId(user, 1L);
+        user.setProfileImageHash("old-hash");
         when(repository.findByEmail("silvia@example.com")).thenReturn(Optional.of(user));
         when(repository.save(user)).thenReturn(user);
 
         var result = userService.updateProfileImage("silvia@example.com", "");
 
-        assertNull(user.getProfileImage());
+        verify(profileImageRepository).deleteById(1L);
+        assertNull(result.profileImageVersion());
         assertNull(result.profileImageBase64());
-        verify(repository).save(user);
+        verify(profileImageRepository, never()).save(any(UserProfileImage.class));
     }
 
     /**
@@ -191,6 +203,13 @@ class UserServiceTest {
         verify(repository, never()).save(any(User.class));
     }
 
+    private void setEntityId(Object entity, Long id) {
+        try {
+            Field field = entity.getClass().getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(entity, id);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
-
-